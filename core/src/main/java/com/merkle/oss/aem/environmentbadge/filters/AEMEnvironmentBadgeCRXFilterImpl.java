@@ -1,22 +1,59 @@
 package com.merkle.oss.aem.environmentbadge.filters;
 
-import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
+import com.merkle.oss.aem.environmentbadge.models.BadgeAssets;
 import com.merkle.oss.aem.environmentbadge.models.CharResponseWrapper;
+import com.merkle.oss.aem.environmentbadge.models.CircuitBreaker;
+import com.merkle.oss.aem.environmentbadge.models.InjectionValidators;
+import com.merkle.oss.aem.environmentbadge.models.TeeResponseWrapper;
+import com.merkle.oss.aem.environmentbadge.models.ValidatorFoldingRequestWrapper;
+import com.merkle.oss.aem.environmentbadge.models.ValidatorFoldingResponseWrapper;
 import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
-import com.merkle.oss.aem.environmentbadge.utils.ConfigSubstitutionHelper;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInjectionTarget;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeMetricsService;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeStatisticsService;
+import com.merkle.oss.aem.environmentbadge.utils.ByteAnchorSearcher;
+import com.merkle.oss.aem.environmentbadge.utils.EscapingContext;
+import com.merkle.oss.aem.environmentbadge.utils.ServerTiming;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.StringSubstitutor;
+import org.apache.commons.lang3.Strings;
+import org.apache.sling.api.servlets.HttpConstants;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.http.whiteboard.HttpWhiteboardConstants;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
 
 /**
  * A servlet filter that captures the outgoing response content, allows it to be
@@ -28,8 +65,84 @@ import java.util.*;
  * the filter chain completes, the captured output can be inspected, transformed,
  * or appended to before being written to the actual response stream.
  * </p>
- * This filter is limited to requests matching the index.jsp of the AEM package manager
- * defined by {@code AEMEnvironmentBadgeCRXFilterImpl.ACCEPTED_PATHS}
+ * This filter is limited to requests matching the path of a registered {@link AEMEnvironmentBadgeInjectionTarget}
+ * (e.g., the index.jsp of the CRXDE Lite or the AEM package manager), which also defines the content type and
+ * insertion anchor of the page. The filter registers itself with the HTTP whiteboard, matching only the paths of the
+ * bound targets (see {@link #filterRegexOf(String)}), and updates its registration whenever targets are bound or
+ * unbound; without any target it is not registered at all. The targets are looked up by the exact request URI and the HTML fragment to inject
+ * is rendered only once per configuration revision. The fragment only references the script and stylesheet by their
+ * versioned location (see {@link BadgeAssets}), so browsers cache and compile them once instead of parsing them
+ * inline on every page load.
+ * <p>
+ * The anchor is searched backwards directly within the tail of the encoded response bytes using a precomputed
+ * {@link ByteAnchorSearcher}, tolerating whitespace, case and comments, so the fragment is spliced in without
+ * decoding and copying the whole page. Only responses of an encoding that cannot be searched on byte level are
+ * decoded and searched on character level. Responses without the anchor are passed through unmodified.
+ * </p>
+ * <p>
+ * The response is only buffered if it turns out to be a {@code 200} response of the target's content type
+ * once downstream starts writing the body, see {@link ValidatorFoldingResponseWrapper}. {@code HEAD} requests,
+ * {@code 304} responses, redirects, errors and other content types are passed straight through. The version of
+ * the fragment is folded into the {@code ETag} and {@code Last-Modified} headers of the page and unfolded from
+ * conditional requests, so browser revalidation keeps working and is invalidated whenever the fragment changes.
+ * </p>
+ * <p>
+ * The filter is only registered while at least one of the features is enabled: it references the configuration
+ * service only if its service properties enable a feature (see {@link #CONFIG_SERVICE_TARGET}), so disabling both
+ * features via OSGi configuration withdraws the filter from the HTTP whiteboard and requests no longer pass it.
+ * </p>
+ * <p>
+ * Pages requested by users the features are not visible to, see
+ * {@link AEMEnvironmentBadgeConfigService#isVisibleTo(String)}, are passed through unmodified.
+ * </p>
+ * <p>
+ * The filter is registered for the {@code REQUEST} dispatcher only, and marks each request it wraps with the
+ * {@link #FILTERED_ATTRIBUTE} request attribute. Internal forwards and includes, also those of containers applying
+ * the filter to other dispatcher types, are therefore passed through, so each client request is buffered and
+ * injected at most once.
+ * </p>
+ * <p>
+ * Each request passing the filter is described by a {@link BadgeInjectionEvent}, a JDK Flight Recorder event
+ * which is disabled by default. The clock is only read while the event is enabled.
+ * </p>
+ * <p>
+ * If enabled by {@link AEMEnvironmentBadgeConfigService#isEnableServerTiming()}, the overhead of capturing and the
+ * duration of injecting are also reported to the browser by a {@code Server-Timing} header of each buffered response,
+ * along with the number of bytes buffered and injected (see {@link #METRIC_CAPTURE} and {@link #METRIC_INJECT}). The
+ * time downstream spends rendering the page is not reported, as it is not caused by the badge.
+ * </p>
+ * <p>
+ * If available, the time the badge itself cost, as tracked by the circuit breaker, and the number of bytes buffered
+ * are recorded by the {@link AEMEnvironmentBadgeStatisticsService} for each buffered response, so a health check can
+ * compare them against performance budgets.
+ * </p>
+ * <p>
+ * In shadow mode (see {@link AEMEnvironmentBadgeConfigService#isShadowMode()}), pages are streamed unchanged, so the
+ * cost of the badge can be measured before enabling it on a heavily used instance. A sample of the pages is copied
+ * by a {@link TeeResponseWrapper} while being streamed; searching the anchor and splicing the fragment is then
+ * performed on the copy by a background thread, discarding the result. The durations are recorded by the
+ * {@link AEMEnvironmentBadgeMetricsService} as {@code shadow.*} latency metrics. They are also recorded by the
+ * {@link AEMEnvironmentBadgeStatisticsService}, together with the number of bytes which would have been buffered,
+ * apart from the pages actually buffered.
+ * Copies are dropped while the background thread is busy, so shadow mode never blocks requests nor piles up copies
+ * in memory.
+ * </p>
+ * <p>
+ * A cosmetic feature must never degrade the availability of the consoles it decorates. A lock-free
+ * {@link CircuitBreaker} therefore tracks the time the badge itself costs a page: growing the capture buffer,
+ * searching the anchor, splicing the fragment and writing the page back. Rendering the page is not counted, as
+ * bypassing the badge would not speed it up. Failures of the capture buffer or of the injection, e.g. under memory
+ * pressure, are counted as well, whereas failures of the page itself are not. Once too many injections of a window
+ * of pages have been slow or failed, pages are passed straight through for a cool-down period, after which a single page probes whether the
+ * injection has recovered.
+ * </p>
+ * <p>
+ * If a downstream component puts the request into asynchronous mode, the modification is deferred until the
+ * asynchronous processing completes, so no container thread is held while waiting for the downstream output.
+ * Requests supporting asynchronous processing are wrapped, so {@link ServletRequest#startAsync()} hands the capturing
+ * response to the asynchronous writers, and the modified content is written by {@link AsyncContext#complete()}
+ * before the cycle completes and the response is committed.
+ * </p>
  *
  * @apiNote <ul>
  * <li>Appending environment required HTML to the rendered JSP</li>
@@ -39,22 +152,228 @@ import java.util.*;
  * </li>
  * </ul>
  */
-@Component(
-        service = Filter.class,
-        property = {
-                HttpWhiteboardConstants.HTTP_WHITEBOARD_FILTER_REGEX + "=" + ".*index.jsp",
-                HttpWhiteboardConstants.HTTP_WHITEBOARD_CONTEXT_SELECT + "=" + "(" + HttpWhiteboardConstants.HTTP_WHITEBOARD_CONTEXT_NAME + "=*)"
-        }
-)
+@Component(service = {})
+@Designate(ocd = AEMEnvironmentBadgeCRXFilterImpl.AEMEnvironmentBadgeCRXFilterConfig.class)
 public class AEMEnvironmentBadgeCRXFilterImpl implements Filter {
 
-    private static final List<String> ACCEPTED_PATHS = Arrays.asList("/crx/de/index.jsp", "/crx/packmgr/index.jsp");
+    private static final Logger LOG = LoggerFactory.getLogger(AEMEnvironmentBadgeCRXFilterImpl.class);
+
+    /**
+     * Target of the configuration service reference, only satisfied by a configuration enabling at least one feature.
+     * Repository-backed configurations may enable the features at runtime, so they always satisfy the reference.
+     */
+    static final String CONFIG_SERVICE_TARGET = "(|(enableBadge=true)(enableDocumentTitlePrefix=true)(enableRepositoryConfiguration=true)(shadowMode=true))";
+
+    /**
+     * Request attribute marking a request whose response has been wrapped by the filter already.
+     */
+    static final String FILTERED_ATTRIBUTE = AEMEnvironmentBadgeCRXFilterImpl.class.getName() + ".filtered";
+
+    /**
+     * {@code Server-Timing} metric of the overhead of capturing the page, i.e. the time spent growing the capture buffer.
+     */
+    static final String METRIC_CAPTURE = "badge-capture";
+
+    /**
+     * {@code Server-Timing} metric of searching the anchor and splicing the fragment into the page.
+     */
+    static final String METRIC_INJECT = "badge-inject";
+
+    /**
+     * Prefix of the metrics recorded in shadow mode.
+     */
+    static final String SHADOW_METRIC_PREFIX = "shadow.";
+
+    /**
+     * The maximum number of bytes copied per page in shadow mode, larger pages are not measured.
+     */
+    static final int MAX_SHADOW_COPY_LENGTH = 8 * 1024 * 1024;
+
+    /**
+     * The maximum number of copies waiting to be measured in shadow mode, further copies are dropped.
+     */
+    private static final int SHADOW_QUEUE_CAPACITY = 4;
+
+    /**
+     * Circuit breaker never opening, in place until the configured one is created on activation.
+     */
+    private static final CircuitBreaker DISABLED_CIRCUIT_BREAKER = new CircuitBreaker(Duration.ZERO, 1, 0, Duration.ZERO, state -> {
+    });
+
+    private static final String BAR_DIV_ID = BadgeAssets.BAR_DIV_ID;
+
+    private final Map<String, InjectionTargetEntry> injectionTargets = new ConcurrentHashMap<>();
+
+    private final AtomicReference<InjectionFragment> injectionFragment = new AtomicReference<>();
+
+    /**
+     * Single background thread measuring the injection in shadow mode, only started while there are copies to measure.
+     */
+    private final ThreadPoolExecutor shadowExecutor = new ThreadPoolExecutor(0, 1, 30L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(SHADOW_QUEUE_CAPACITY), runnable -> {
+                final Thread thread = new Thread(runnable, "aem-environment-badge-shadow");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private BundleContext bundleContext;
+
+    private ServiceRegistration<Filter> registration;
+
+    private Set<String> registeredPaths = Set.of();
 
-    private static final String BAR_DIV_ID = "aem-environment-badge-bar";
+    private volatile CircuitBreaker circuitBreaker = DISABLED_CIRCUIT_BREAKER;
 
-    @Reference(cardinality = ReferenceCardinality.MANDATORY)
+    @Reference(cardinality = ReferenceCardinality.MANDATORY, target = CONFIG_SERVICE_TARGET)
     private AEMEnvironmentBadgeConfigService aemEnvironmentBadgeConfigService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private AEMEnvironmentBadgeStatisticsService aemEnvironmentBadgeStatisticsService;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private AEMEnvironmentBadgeMetricsService aemEnvironmentBadgeMetricsService;
+
+    /**
+     * Registers an {@link AEMEnvironmentBadgeInjectionTarget}, replacing any target previously registered for the same path.
+     *
+     * @param injectionTarget The injection target to register.
+     */
+    @Reference(
+            service = AEMEnvironmentBadgeInjectionTarget.class,
+            cardinality = ReferenceCardinality.MULTIPLE,
+            policy = ReferencePolicy.DYNAMIC,
+            policyOption = ReferencePolicyOption.GREEDY
+    )
+    protected void bindInjectionTarget(@NonNull final AEMEnvironmentBadgeInjectionTarget injectionTarget) {
+        final String path = injectionTarget.getPath();
+        if (StringUtils.isBlank(path)) {
+            return;
+        }
+        injectionTargets.put(path, InjectionTargetEntry.of(injectionTarget));
+        updateRegistration();
+    }
+
+    /**
+     * Unregisters an {@link AEMEnvironmentBadgeInjectionTarget}, unless its path has been taken over by another target.
+     *
+     * @param injectionTarget The injection target to unregister.
+     */
+    protected void unbindInjectionTarget(@NonNull final AEMEnvironmentBadgeInjectionTarget injectionTarget) {
+        injectionTargets.computeIfPresent(injectionTarget.getPath(), (path, entry) -> entry.target() == injectionTarget ? null : entry);
+        updateRegistration();
+    }
+
+    /**
+     * Registers the filter with the HTTP whiteboard for the paths of the bound injection targets, updates the
+     * registration if the paths changed, or unregisters the filter if no target is bound. Does nothing while the
+     * component is not active.
+     */
+    private synchronized void updateRegistration() {
+        if (bundleContext == null) {
+            return;
+        }
+        final Set<String> paths = Set.copyOf(injectionTargets.keySet());
+        if (paths.equals(registeredPaths) && (registration != null || paths.isEmpty())) {
+            return;
+        }
+        registeredPaths = paths;
+        if (paths.isEmpty()) {
+            unregister();
+            return;
+        }
+        final Dictionary<String, Object> properties = registrationPropertiesOf(paths);
+        if (registration == null) {
+            registration = bundleContext.registerService(Filter.class, this, properties);
+        } else {
+            registration.setProperties(properties);
+        }
+    }
+
+    private synchronized void unregister() {
+        if (registration != null) {
+            try {
+                registration.unregister();
+            } catch (final IllegalStateException e) {
+                LOG.debug("Filter has been unregistered already", e);
+            }
+            registration = null;
+        }
+    }
+
+    /**
+     * Creates the HTTP whiteboard properties of the filter, matching the given paths of the client requests only.
+     */
+    static @NonNull Dictionary<String, Object> registrationPropertiesOf(@NonNull final Collection<String> paths) {
+        final Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put(HttpWhiteboardConstants.HTTP_WHITEBOARD_FILTER_REGEX,
+                paths.stream().sorted().map(AEMEnvironmentBadgeCRXFilterImpl::filterRegexOf).toArray(String[]::new));
+        properties.put(HttpWhiteboardConstants.HTTP_WHITEBOARD_FILTER_DISPATCHER, HttpWhiteboardConstants.DISPATCHER_REQUEST);
+        properties.put(HttpWhiteboardConstants.HTTP_WHITEBOARD_CONTEXT_SELECT, "(" + HttpWhiteboardConstants.HTTP_WHITEBOARD_CONTEXT_NAME + "=*)");
+        return properties;
+    }
+
+    /**
+     * Creates the whiteboard filter regex of the given request path. The filter is registered for all servlet
+     * contexts, whose whiteboard matches the path within the context only, so the regex matches each suffix of the
+     * path starting at a segment, e.g. {@code /crx/de/index.jsp}, {@code /de/index.jsp} and {@code /index.jsp}.
+     * The exact request URI is checked by {@link #doFilter(ServletRequest, ServletResponse, FilterChain)}.
+     */
+    static @NonNull String filterRegexOf(@NonNull final String path) {
+        final String[] segments = StringUtils.split(path, '/');
+        final StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < segments.length - 1; i++) {
+            regex.insert(0, "(?:").append(Pattern.quote("/" + segments[i])).append(")?");
+        }
+        return regex.append(Pattern.quote("/" + (segments.length == 0 ? "" : segments[segments.length - 1]))).toString();
+    }
+
+    /**
+     * Activates or modifies the filter, resetting the circuit breaker and registering the filter with the HTTP whiteboard.
+     *
+     * @param config        The injected configuration object generated by the Metatype service.
+     * @param bundleContext The context of the bundle the filter is registered by.
+     */
+    @Activate
+    @Modified
+    protected void activate(@NonNull final AEMEnvironmentBadgeCRXFilterConfig config, @NonNull final BundleContext bundleContext) {
+        Objects.requireNonNull(config);
+        Objects.requireNonNull(bundleContext);
+        // Configure the circuit breaker before the filter gets registered, so no page is filtered without it
+        circuitBreaker = createCircuitBreaker(config.circuitBreakerSlowInjectionMillis(), config.circuitBreakerWindowSize(),
+                config.circuitBreakerFailureThresholdPercent(), config.circuitBreakerCoolDownSeconds());
+
+        synchronized (this) {
+            this.bundleContext = bundleContext;
+        }
+        updateRegistration();
+    }
+
+    private static @NonNull CircuitBreaker createCircuitBreaker(final long slowInjectionMillis, final int windowSize,
+                                                                final int failureThresholdPercent, final long coolDownSeconds) {
+        return new CircuitBreaker(Duration.ofMillis(Math.max(0L, slowInjectionMillis)), windowSize, failureThresholdPercent,
+                Duration.ofSeconds(Math.max(1L, coolDownSeconds)), state -> {
+                    if (state == CircuitBreaker.State.OPEN) {
+                        LOG.warn("Badge injection is slow or failing, passing pages through for {} seconds", Math.max(1L, coolDownSeconds));
+                    } else if (state == CircuitBreaker.State.CLOSED) {
+                        LOG.info("Badge injection recovered, injecting the badge again");
+                    }
+                });
+    }
+
+    /**
+     * Deactivates the filter, withdrawing it from the HTTP whiteboard and discarding the copies waiting to be
+     * measured in shadow mode.
+     */
+    @Deactivate
+    protected void deactivate() {
+        synchronized (this) {
+            unregister();
+            bundleContext = null;
+            registeredPaths = Set.of();
+        }
+        shadowExecutor.shutdownNow();
+    }
+
     @Override
     public void doFilter(@NonNull final ServletRequest request, @NonNull final ServletResponse response, @NonNull final FilterChain chain) throws IOException, ServletException {
         Objects.requireNonNull(request);
@@ -62,99 +381,666 @@ public class AEMEnvironmentBadgeCRXFilterImpl implements Filter {
         Objects.requireNonNull(chain);
 
         // Abort further processing if settings are not enabled
-        if (!aemEnvironmentBadgeConfigService.isEnableBadge() && !aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()) {
+        if (!aemEnvironmentBadgeConfigService.isEnableBadge() && !aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()
+                && !aemEnvironmentBadgeConfigService.isShadowMode()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Abort further processing for requests re-entering the filter, their response is wrapped already
+        if (request.getAttribute(FILTERED_ATTRIBUTE) != null) {
             chain.doFilter(request, response);
             return;
         }
 
+        final BadgeInjectionEvent event = new BadgeInjectionEvent();
+        event.begin();
+
         final HttpServletRequest httpServletRequest = (HttpServletRequest) request;
-        // Abort further processing for unaccepted paths
-        if (!accepts(httpServletRequest)) {
+        // Abort further processing for paths without a registered injection target and for requests without a body
+        final String requestURI = httpServletRequest.getRequestURI();
+        final InjectionTargetEntry injectionTarget = injectionTargets.get(requestURI);
+        if (injectionTarget == null || HttpConstants.METHOD_HEAD.equals(httpServletRequest.getMethod())) {
+            chain.doFilter(request, response);
+            event.outcome = BadgeInjectionEvent.OUTCOME_NOT_TARGETED;
+            commitEvent(event, requestURI);
+            return;
+        }
+
+        // Abort further processing for users the features are not visible to
+        if (!aemEnvironmentBadgeConfigService.isVisibleTo(httpServletRequest.getRemoteUser())) {
             chain.doFilter(request, response);
+            event.outcome = BadgeInjectionEvent.OUTCOME_NOT_VISIBLE;
+            commitEvent(event, requestURI);
             return;
         }
 
+        request.setAttribute(FILTERED_ATTRIBUTE, Boolean.TRUE);
+
+        // In shadow mode, stream the page unchanged and measure the injection on a copy of sampled pages only
+        if (aemEnvironmentBadgeConfigService.isShadowMode()) {
+            doShadowFilter(httpServletRequest, (HttpServletResponse) response, chain, injectionTarget, event);
+            commitEvent(event, requestURI);
+            return;
+        }
+
+        // Pass the page through while the circuit breaker is open, so a slow or failing injection cannot degrade the console
+        final CircuitBreaker breaker = circuitBreaker;
+        if (!breaker.tryAcquire()) {
+            chain.doFilter(request, response);
+            event.outcome = BadgeInjectionEvent.OUTCOME_BYPASSED;
+            commitEvent(event, requestURI);
+            return;
+        }
+
+        final boolean serverTiming = aemEnvironmentBadgeConfigService.isEnableServerTiming();
+        final AEMEnvironmentBadgeStatisticsService statistics = aemEnvironmentBadgeStatisticsService;
+
+        // Resolve the fragment upfront, so the validators folded into the headers match the injected fragment
+        final InjectionFragment fragment = getInjectionFragment();
+        final ServletRequest filteredRequest = ValidatorFoldingRequestWrapper.isConditional(httpServletRequest)
+                ? new ValidatorFoldingRequestWrapper(httpServletRequest, fragment.validators())
+                : request;
+
+        // Wrap the original response to capture output, unless it turns out not to be a page of the target's content type
         final HttpServletResponse httpServletResponse = (HttpServletResponse) response;
-        // Wrap the original response to capture output
-        final CharResponseWrapper wrappedResponse = new CharResponseWrapper(httpServletResponse);
+        final CharResponseWrapper wrappedResponse = new ValidatorFoldingResponseWrapper(httpServletResponse, fragment.validators(),
+                wrapper -> wrapper.getStatus() == HttpServletResponse.SC_OK && injectionTarget.accepts(wrapper.getContentType()));
 
-        // Pass request and wrapped response through the filter chain
-        chain.doFilter(request, wrappedResponse);
+        // Pass request and wrapped response through the filter chain, handing the wrapped response to async processing
+        final long captureStart = ticks(event, false);
+        InjectionAsyncListener asyncListener = null;
+        ServletRequest chainedRequest = filteredRequest;
+        if (request.isAsyncSupported()) {
+            asyncListener = new InjectionAsyncListener(wrappedResponse, response, injectionTarget, fragment, event, serverTiming, statistics, breaker, requestURI, captureStart);
+            chainedRequest = new AsyncInjectionRequestWrapper((HttpServletRequest) filteredRequest, wrappedResponse, asyncListener);
+        }
+        try {
+            chain.doFilter(chainedRequest, wrappedResponse);
+        } catch (final IOException | ServletException | RuntimeException | Error e) {
+            // Only a failing capture buffer is the badge's fault, a failing page is released instead
+            if (wrappedResponse.isCaptureFailed()) {
+                breaker.recordFailure();
+            } else {
+                breaker.release();
+            }
+            throw e;
+        }
 
-        // Retrieve the captured output produced by downstream of the CRX JSP
-        final String originalContent = wrappedResponse.getCapturedOutput();
+        // Downstream switched to async processing: the captured output is incomplete at this point,
+        // therefore defer the injection until the async cycle completes instead of holding this thread
+        if (request.isAsyncStarted()) {
+            if (asyncListener == null) {
+                asyncListener = new InjectionAsyncListener(wrappedResponse, response, injectionTarget, fragment, event, serverTiming, statistics, breaker, requestURI, captureStart);
+            }
+            if (!asyncListener.isRegistered()) {
+                asyncListener.register(request.getAsyncContext());
+            }
+            return;
+        }
 
-        // Appending Environment Badge required HTML
-        final ConfigSubstitutionHelper configSubstitutionHelper = ConfigSubstitutionHelper.create(createSubstitutionValues());
-        final String modifiedContent = createModifiedContent(originalContent, configSubstitutionHelper);
+        inject(wrappedResponse, response, injectionTarget, fragment, event, serverTiming, statistics, breaker, captureStart);
+        commitEvent(event, requestURI);
+    }
 
-        // Write final content to the real response
-        response.setContentLength(modifiedContent.getBytes(response.getCharacterEncoding()).length);
-        response.getWriter().write(modifiedContent);
+    /**
+     * Writes the modified content, reporting the time spent growing the capture buffer and injecting, or a failure,
+     * to the circuit breaker. Failing to write to the client is not the injection's fault and therefore not reported
+     * as a failure.
+     */
+    private void inject(@NonNull final CharResponseWrapper wrappedResponse, @NonNull final ServletResponse response,
+                        @NonNull final InjectionTargetEntry injectionTarget, @NonNull final InjectionFragment fragment,
+                        @NonNull final BadgeInjectionEvent event, final boolean serverTiming,
+                        @Nullable final AEMEnvironmentBadgeStatisticsService statistics, @NonNull final CircuitBreaker breaker,
+                        final long captureStart) throws IOException {
+        event.captureDuration = ticks(event, false) - captureStart;
+        final boolean timed = isTimed(serverTiming, statistics, breaker);
+        final long injectStart = ticks(event, timed);
+        try {
+            writeModifiedContent(wrappedResponse, response, injectionTarget, fragment, event, serverTiming, timed);
+        } catch (final RuntimeException | OutOfMemoryError e) {
+            breaker.recordFailure();
+            throw e;
+        } catch (final IOException e) {
+            breaker.release();
+            throw e;
+        }
+        if (BadgeInjectionEvent.OUTCOME_NOT_CAPTURED.equals(event.outcome)) {
+            breaker.release();
+            return;
+        }
+        final long injectionDuration = wrappedResponse.getBufferGrowthNanos() + ticks(event, timed) - injectStart;
+        if (wrappedResponse.isCaptureFailed()) {
+            breaker.recordFailure();
+        } else {
+            breaker.record(injectionDuration);
+        }
+        if (statistics != null) {
+            statistics.recordInjection(injectionDuration, event.bytesCaptured);
+        }
     }
 
-    private boolean accepts(@NonNull final HttpServletRequest httpServletRequest) {
-        return ACCEPTED_PATHS.contains(httpServletRequest.getRequestURI());
+    /**
+     * Checks if the durations of an injection are consumed by anything else than the event, which reads the clock itself.
+     */
+    private static boolean isTimed(final boolean serverTiming, @Nullable final AEMEnvironmentBadgeStatisticsService statistics,
+                                   @NonNull final CircuitBreaker breaker) {
+        return serverTiming || statistics != null || breaker.isEnabled();
     }
 
-    private @NonNull Map<String, String> createSubstitutionValues() {
-        final Map<String, String> substitutionValues = new HashMap<>();
-        substitutionValues.put(ConfigSubstitutionHelper.PLACEHOLDER_DOCUMENT_TITLE_PREFIX, aemEnvironmentBadgeConfigService.getDocumentTitlePrefix());
-        final String backgroundColorCode = BackgroundColor.of(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).getColorCode();
-        substitutionValues.put(ConfigSubstitutionHelper.PLACEHOLDER_BACKGROUND_COLOR, backgroundColorCode);
-        return substitutionValues;
+    private void writeModifiedContent(@NonNull final CharResponseWrapper wrappedResponse, @NonNull final ServletResponse response,
+                                      @NonNull final InjectionTargetEntry injectionTarget, @NonNull final InjectionFragment fragment,
+                                      @NonNull final BadgeInjectionEvent event, final boolean serverTiming,
+                                      final boolean measured) throws IOException {
+        // Nothing to write if the output has been passed straight through, or if no body has been written at all (e.g., 304)
+        if (!wrappedResponse.isCapturing()) {
+            event.outcome = BadgeInjectionEvent.OUTCOME_NOT_CAPTURED;
+            return;
+        }
+
+        // Retrieve the captured output produced by downstream of the CRX JSP, still encoded
+        final byte[] content = wrappedResponse.getCapturedBytes();
+        final int length = wrappedResponse.getCapturedLength();
+        event.bytesCaptured = length;
+
+        // Encodings possibly containing anchor bytes within multibyte sequences have to be searched on character level
+        final boolean timed = serverTiming || measured;
+        final Charset charset = wrappedResponse.getCapturedCharset();
+        if (!ByteAnchorSearcher.isByteSearchable(charset)) {
+            final long searchStart = ticks(event, timed);
+            final String originalContent = wrappedResponse.getCapturedOutput();
+            final int anchorIndex = injectionTarget.searcher().lastIndexIn(originalContent);
+            event.searchDuration = ticks(event, timed) - searchStart;
+            if (anchorIndex < 0) {
+                addServerTiming(response, event, serverTiming, wrappedResponse.getBufferGrowthNanos(), 0L);
+                writeContent(response, content, length, event);
+                event.outcome = BadgeInjectionEvent.OUTCOME_ANCHOR_MISSING;
+                return;
+            }
+
+            final long spliceStart = ticks(event, timed);
+            final byte[] modifiedContent = splice(originalContent, anchorIndex, fragment.markup(), charset);
+            event.spliceDuration = ticks(event, timed) - spliceStart;
+            addServerTiming(response, event, serverTiming, wrappedResponse.getBufferGrowthNanos(), (long) modifiedContent.length - length);
+            writeContent(response, modifiedContent, modifiedContent.length, event);
+            event.outcome = BadgeInjectionEvent.OUTCOME_INJECTED;
+            return;
+        }
+
+        // Pass the output through unmodified if the anchor is missing within the tail of the page
+        final long searchStart = ticks(event, timed);
+        final int anchorIndex = injectionTarget.searcher().lastIndexIn(content, length);
+        event.searchDuration = ticks(event, timed) - searchStart;
+        if (anchorIndex < 0) {
+            addServerTiming(response, event, serverTiming, wrappedResponse.getBufferGrowthNanos(), 0L);
+            writeContent(response, content, length, event);
+            event.outcome = BadgeInjectionEvent.OUTCOME_ANCHOR_MISSING;
+            return;
+        }
+
+        // Splice the Environment Badge required HTML into the encoded output before the anchor
+        final long spliceStart = ticks(event, timed);
+        final byte[] encodedFragment = fragment.encoded(charset);
+        event.spliceDuration = ticks(event, timed) - spliceStart;
+        addServerTiming(response, event, serverTiming, wrappedResponse.getBufferGrowthNanos(), encodedFragment.length);
+
+        // Write final content to the real response, timed for the event only as Server-Timing has been added already
+        final long writeStart = ticks(event, false);
+        response.setContentLength(length + encodedFragment.length);
+        final ServletOutputStream outputStream = response.getOutputStream();
+        outputStream.write(content, 0, anchorIndex);
+        outputStream.write(encodedFragment);
+        outputStream.write(content, anchorIndex, length - anchorIndex);
+        event.writeDuration = ticks(event, false) - writeStart;
+        event.bytesWritten = (long) length + encodedFragment.length;
+        event.outcome = BadgeInjectionEvent.OUTCOME_INJECTED;
+    }
+
+    /**
+     * Passes the request through while copying the page, if sampled, and hands the copy to the background thread
+     * measuring what injecting the badge would have cost.
+     */
+    private void doShadowFilter(@NonNull final HttpServletRequest request, @NonNull final HttpServletResponse response,
+                                @NonNull final FilterChain chain, @NonNull final InjectionTargetEntry injectionTarget,
+                                @NonNull final BadgeInjectionEvent event) throws IOException, ServletException {
+        final AEMEnvironmentBadgeMetricsService metrics = aemEnvironmentBadgeMetricsService;
+        final AEMEnvironmentBadgeStatisticsService statistics = aemEnvironmentBadgeStatisticsService;
+        if (metrics == null && statistics == null
+                || ThreadLocalRandom.current().nextInt(100) >= aemEnvironmentBadgeConfigService.getShadowModeSamplePercent()) {
+            chain.doFilter(request, response);
+            event.outcome = BadgeInjectionEvent.OUTCOME_NOT_SAMPLED;
+            return;
+        }
+
+        final InjectionFragment fragment = getInjectionFragment();
+        final TeeResponseWrapper teeResponse = new TeeResponseWrapper(response, MAX_SHADOW_COPY_LENGTH);
+        final long captureStart = System.nanoTime();
+        chain.doFilter(request, teeResponse);
+        final long captureDuration = System.nanoTime() - captureStart;
+        event.captureDuration = captureDuration;
+
+        // Asynchronous pages are still being written, and other pages would have been passed straight through
+        if (request.isAsyncStarted() || teeResponse.getStatus() != HttpServletResponse.SC_OK
+                || !injectionTarget.accepts(teeResponse.getContentType()) || !teeResponse.isCopyComplete()) {
+            event.outcome = BadgeInjectionEvent.OUTCOME_NOT_CAPTURED;
+            return;
+        }
+
+        // The charset is resolved on the request thread, as the container may recycle the response once completed
+        final Charset charset = teeResponse.getCopiedCharset();
+        shadowExecutor.execute(() -> measureInjection(teeResponse, charset, injectionTarget, fragment, captureDuration, metrics, statistics));
+        event.outcome = BadgeInjectionEvent.OUTCOME_SHADOW;
+    }
+
+    /**
+     * Searches the anchor and splices the fragment into the copy of a page like {@link #writeModifiedContent} does,
+     * discarding the result, and records the durations.
+     */
+    private static void measureInjection(@NonNull final TeeResponseWrapper teeResponse, @NonNull final Charset charset,
+                                         @NonNull final InjectionTargetEntry injectionTarget, @NonNull final InjectionFragment fragment,
+                                         final long captureDuration, @Nullable final AEMEnvironmentBadgeMetricsService metrics,
+                                         @Nullable final AEMEnvironmentBadgeStatisticsService statistics) {
+        final byte[] content = teeResponse.getCopiedBytes(charset);
+        final int length = teeResponse.getCopiedLength();
+
+        final long injectStart = System.nanoTime();
+        if (ByteAnchorSearcher.isByteSearchable(charset)) {
+            if (injectionTarget.searcher().lastIndexIn(content, length) >= 0) {
+                fragment.encoded(charset);
+            }
+        } else {
+            final String originalContent = new String(content, 0, length, charset);
+            final int anchorIndex = injectionTarget.searcher().lastIndexIn(originalContent);
+            if (anchorIndex >= 0) {
+                splice(originalContent, anchorIndex, fragment.markup(), charset);
+            }
+        }
+        final long injectDuration = System.nanoTime() - injectStart;
+
+        if (metrics != null) {
+            metrics.record(SHADOW_METRIC_PREFIX + METRIC_CAPTURE, captureDuration / 1000L);
+            metrics.record(SHADOW_METRIC_PREFIX + METRIC_INJECT, injectDuration / 1000L);
+        }
+        if (statistics != null) {
+            statistics.recordShadowInjection(injectDuration, length);
+        }
+    }
+
+    /**
+     * Splices the markup into the decoded page before the given anchor and encodes the result.
+     */
+    private static byte @NonNull [] splice(@NonNull final String originalContent, final int anchorIndex, @NonNull final String markup,
+                                           @NonNull final Charset charset) {
+        return new StringBuilder(originalContent.length() + markup.length())
+                .append(originalContent, 0, anchorIndex)
+                .append(markup)
+                .append(originalContent, anchorIndex, originalContent.length())
+                .toString()
+                .getBytes(charset);
+    }
+
+    private static void writeContent(@NonNull final ServletResponse response, final byte @NonNull [] content, final int length,
+                                     @NonNull final BadgeInjectionEvent event) throws IOException {
+        final long writeStart = ticks(event, false);
+        response.setContentLength(length);
+        response.getOutputStream().write(content, 0, length);
+        event.writeDuration = ticks(event, false) - writeStart;
+        event.bytesWritten = length;
+    }
+
+    /**
+     * Adds the {@code Server-Timing} header reporting the overhead of capturing and the durations of injecting recorded
+     * by the given event so far, unless disabled. It has to be added before the captured content is written and the
+     * response gets committed.
+     *
+     * @param captureNanos  The time spent growing the capture buffer, in nanoseconds.
+     * @param bytesInjected The number of bytes injected into the page, {@code 0} if the anchor is missing.
+     */
+    private static void addServerTiming(@NonNull final ServletResponse response, @NonNull final BadgeInjectionEvent event,
+                                        final boolean serverTiming, final long captureNanos, final long bytesInjected) {
+        if (!serverTiming) {
+            return;
+        }
+        ((HttpServletResponse) response).addHeader(ServerTiming.HEADER,
+                ServerTiming.metric(METRIC_CAPTURE, captureNanos, ServerTiming.bytes(event.bytesCaptured)) + ", "
+                        + ServerTiming.metric(METRIC_INJECT, event.searchDuration + event.spliceDuration, ServerTiming.bytes(bytesInjected)));
+    }
+
+    /**
+     * Reads the time for the durations of the given event, without reading the clock if neither the event
+     * nor another consumer of the durations (e.g., the {@code Server-Timing} header) is enabled.
+     */
+    private static long ticks(@NonNull final BadgeInjectionEvent event, final boolean timed) {
+        return timed || event.isEnabled() ? System.nanoTime() : 0L;
     }
 
-    private @NonNull String createModifiedContent(@NonNull final String originalContent, @NonNull final ConfigSubstitutionHelper substitutionHelper) {
-        final StringBuilder stringBuilder = new StringBuilder(StringUtils.substringBeforeLast(originalContent, "</body></html>"))
+    private static void commitEvent(@NonNull final BadgeInjectionEvent event, @Nullable final String requestURI) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = requestURI;
+            event.commit();
+        }
+    }
+
+    /**
+     * Retrieves the HTML fragment to inject, rendering it only once per configuration revision.
+     *
+     * @return The HTML fragment to inject.
+     */
+    private @NonNull InjectionFragment getInjectionFragment() {
+        final long revision = aemEnvironmentBadgeConfigService.getRevision();
+        final InjectionFragment current = injectionFragment.get();
+        if (current != null && current.revision() == revision) {
+            return current;
+        }
+
+        final String markup = createInjectionFragment(revision);
+        final CRC32 checksum = new CRC32();
+        checksum.update(markup.getBytes(StandardCharsets.UTF_8));
+        // The last modification date of the configuration is identical on all cluster nodes, unlike the time the
+        // fragment has been rendered at. HTTP dates are of second precision, therefore the date is truncated accordingly
+        final long lastModified = aemEnvironmentBadgeConfigService.getLastModified() / 1000L * 1000L;
+        final InjectionValidators validators = new InjectionValidators(Long.toHexString(checksum.getValue()), lastModified);
+        final InjectionFragment created = new InjectionFragment(revision, markup, validators, new ConcurrentHashMap<>());
+        injectionFragment.set(created);
+        return created;
+    }
+
+    private @NonNull String createInjectionFragment(final long revision) {
+        final BadgeAssets assets = BadgeAssets.of(aemEnvironmentBadgeConfigService, revision);
+        final StringBuilder stringBuilder = new StringBuilder()
                 .append("\n<!-- AEM Environment Badge - Start -->")
                 .append("\n");
 
-        if (aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()) {
-            stringBuilder.append(substitutionHelper.replace(createDocumentTitlePrefixScript()))
+        if (!assets.script().isEmpty()) {
+            // The script is identical on all cluster nodes, the values of the node tokens are handed to it by the page
+            final String nodeTokens = aemEnvironmentBadgeConfigService.getNodeTokens();
+            stringBuilder.append("<script src=\"").append(assets.script().location()).append("\"");
+            if (StringUtils.isNotEmpty(nodeTokens)) {
+                stringBuilder.append(" " + BadgeAssets.NODE_TOKENS_ATTRIBUTE + "=\"").append(EscapingContext.HTML_ATTRIBUTE.escape(nodeTokens)).append("\"");
+            }
+            stringBuilder.append("></script>")
                     .append("\n");
         }
 
-        if (aemEnvironmentBadgeConfigService.isEnableBadge()) {
+        if (!assets.style().isEmpty()) {
             stringBuilder.append("<div id=" + BAR_DIV_ID + "></div>")
                     .append("\n")
-                    .append(substitutionHelper.replace(createCSSStyleScript()))
+                    .append("<link rel=\"stylesheet\" href=\"").append(assets.style().location()).append("\">")
                     .append("\n");
         }
 
-        stringBuilder.append("<!-- AEM Environment Badge - End -->")
-                .append("\n</body></html>");
+        return stringBuilder.append("<!-- AEM Environment Badge - End -->")
+                .append("\n")
+                .toString();
+    }
+
+    /**
+     * A registered {@link AEMEnvironmentBadgeInjectionTarget} along with its values resolved once at registration time.
+     *
+     * @param target      The registered injection target.
+     * @param contentType The content type of the pages the badge is injected into.
+     * @param searcher    The searcher for the markup before which the badge is injected, precomputed once.
+     */
+    private record InjectionTargetEntry(@NonNull AEMEnvironmentBadgeInjectionTarget target, @NonNull String contentType,
+                                        @NonNull ByteAnchorSearcher searcher) {
+
+        private static @NonNull InjectionTargetEntry of(@NonNull final AEMEnvironmentBadgeInjectionTarget target) {
+            return new InjectionTargetEntry(target, target.getContentType(), ByteAnchorSearcher.create(target.getAnchor()));
+        }
+
+        /**
+         * Checks if a response of the given content type is modified.
+         *
+         * @param responseContentType The content type declared by the response.
+         * @return {@code true} if the badge is injected into the response; otherwise {@code false}.
+         */
+        private boolean accepts(@Nullable final String responseContentType) {
+            return Strings.CI.startsWith(responseContentType, contentType);
+        }
 
-        return stringBuilder.toString();
     }
 
-    private @NonNull String createDocumentTitlePrefixScript() {
-        return new StringBuilder("<script>(function(){const t='")
-                .append(StringSubstitutor.DEFAULT_VAR_START)
-                .append(ConfigSubstitutionHelper.PLACEHOLDER_DOCUMENT_TITLE_PREFIX)
-                .append(StringSubstitutor.DEFAULT_VAR_END)
-                .append(" | '+document.title;document.title=t;let e=0;const n=5,c=1500;const i=setInterval(()=>{if(document.title!==t){document.title=t,e=0}else if(++e>n)clearInterval(i)},c)})();</script>")
-                .toString();
+    /**
+     * The rendered HTML fragment to inject along with the configuration revision it has been rendered for.
+     *
+     * @param revision   The configuration revision.
+     * @param markup     The rendered HTML fragment.
+     * @param validators The HTTP validators of the rendered HTML fragment.
+     * @param encodings  The rendered HTML fragment, encoded once per character encoding.
+     */
+    private record InjectionFragment(long revision, @NonNull String markup, @NonNull InjectionValidators validators,
+                                     @NonNull Map<Charset, byte[]> encodings) {
+
+        /**
+         * Gets the rendered HTML fragment encoded with the given character encoding.
+         *
+         * @param charset The character encoding of the response.
+         * @return The encoded HTML fragment.
+         */
+        private byte @NonNull [] encoded(@NonNull final Charset charset) {
+            return encodings.computeIfAbsent(charset, markup::getBytes);
+        }
+
     }
 
-    private @NonNull String createCSSStyleScript() {
-        return new StringBuilder("<style>#")
-                .append(BAR_DIV_ID)
-                .append("{")
-                .append("background-color:")
-                .append(StringSubstitutor.DEFAULT_VAR_START)
-                .append(ConfigSubstitutionHelper.PLACEHOLDER_BACKGROUND_COLOR)
-                .append(StringSubstitutor.DEFAULT_VAR_END)
-                .append(";")
-                .append("position:fixed;")
-                .append("left:0;")
-                .append("top:0;")
-                .append("right:0;")
-                .append("height:5px;")
-                .append("z-index:100000000000000")
-                .append("}")
-                .append("</style>")
-                .toString();
+    /**
+     * {@link AsyncListener} writing the modified content of a request, which has been put into asynchronous mode by a
+     * downstream component.
+     * <p>
+     * The content is written by {@link InjectionAsyncContext#complete()} before the cycle completes. Cycles completed
+     * otherwise, e.g. by the container after a dispatch, are written once the listener is notified of the completion.
+     * The listener re-registers itself if the asynchronous cycle is restarted and guarantees the captured content is
+     * written at most once.
+     */
+    private final class InjectionAsyncListener implements AsyncListener {
+
+        private final CharResponseWrapper wrappedResponse;
+        private final ServletResponse response;
+        private final InjectionTargetEntry injectionTarget;
+        private final InjectionFragment fragment;
+        private final BadgeInjectionEvent injectionEvent;
+        private final boolean serverTiming;
+        private final AEMEnvironmentBadgeStatisticsService statistics;
+        private final CircuitBreaker breaker;
+        private final String requestURI;
+        private final long captureStart;
+        private final AtomicBoolean written = new AtomicBoolean();
+        private volatile boolean registered;
+
+        private InjectionAsyncListener(@NonNull final CharResponseWrapper wrappedResponse, @NonNull final ServletResponse response,
+                                       @NonNull final InjectionTargetEntry injectionTarget, @NonNull final InjectionFragment fragment,
+                                       @NonNull final BadgeInjectionEvent injectionEvent, final boolean serverTiming,
+                                       @Nullable final AEMEnvironmentBadgeStatisticsService statistics,
+                                       @NonNull final CircuitBreaker breaker, @Nullable final String requestURI, final long captureStart) {
+            this.wrappedResponse = wrappedResponse;
+            this.response = response;
+            this.injectionTarget = injectionTarget;
+            this.fragment = fragment;
+            this.injectionEvent = injectionEvent;
+            this.serverTiming = serverTiming;
+            this.statistics = statistics;
+            this.breaker = breaker;
+            this.requestURI = requestURI;
+            this.captureStart = captureStart;
+        }
+
+        private boolean isRegistered() {
+            return registered;
+        }
+
+        private void register(@NonNull final AsyncContext asyncContext) {
+            asyncContext.addListener(this);
+            registered = true;
+        }
+
+        /**
+         * Writes the modified content, unless written already.
+         */
+        private void injectOnce() throws IOException {
+            if (written.compareAndSet(false, true)) {
+                inject(wrappedResponse, response, injectionTarget, fragment, injectionEvent, serverTiming, statistics, breaker, captureStart);
+                commitEvent(injectionEvent, requestURI);
+            }
+        }
+
+        @Override
+        public void onComplete(@NonNull final AsyncEvent event) throws IOException {
+            // Only reached first if the cycle has not been completed via InjectionAsyncContext#complete()
+            injectOnce();
+        }
+
+        @Override
+        public void onTimeout(@NonNull final AsyncEvent event) {
+            // Completion is signaled via onComplete, which is invoked after the timeout handling
+        }
+
+        @Override
+        public void onError(@NonNull final AsyncEvent event) {
+            // Completion is signaled via onComplete, which is invoked after the error handling
+        }
+
+        @Override
+        public void onStartAsync(@NonNull final AsyncEvent event) {
+            // Listeners are not carried over to a restarted async cycle and must register again
+            event.getAsyncContext().addListener(this);
+        }
+
+    }
+
+    /**
+     * {@link HttpServletRequestWrapper} starting asynchronous processing with the capturing response, also if started
+     * via {@link #startAsync()}, which would otherwise hand the original response to the asynchronous writers. The
+     * started {@link AsyncContext} is wrapped by an {@link InjectionAsyncContext}.
+     */
+    private static final class AsyncInjectionRequestWrapper extends HttpServletRequestWrapper {
+
+        private final ServletResponse capturingResponse;
+        private final InjectionAsyncListener listener;
+        private volatile InjectionAsyncContext asyncContext;
+
+        private AsyncInjectionRequestWrapper(@NonNull final HttpServletRequest request, @NonNull final ServletResponse capturingResponse,
+                                             @NonNull final InjectionAsyncListener listener) {
+            super(request);
+            this.capturingResponse = capturingResponse;
+            this.listener = listener;
+        }
+
+        @Override
+        public @NonNull AsyncContext startAsync() {
+            return startAsync(this, capturingResponse);
+        }
+
+        @Override
+        public @NonNull AsyncContext startAsync(@NonNull final ServletRequest servletRequest, @NonNull final ServletResponse servletResponse) {
+            final AsyncContext started = super.startAsync(servletRequest, servletResponse);
+            final InjectionAsyncContext current = asyncContext;
+            if (current != null && current.delegate == started) {
+                return current;
+            }
+            // Restarted cycles are joined by the listener itself, see InjectionAsyncListener#onStartAsync(AsyncEvent)
+            if (!listener.isRegistered()) {
+                listener.register(started);
+            }
+            final InjectionAsyncContext created = new InjectionAsyncContext(started, listener);
+            asyncContext = created;
+            return created;
+        }
+
+        @Override
+        public @NonNull AsyncContext getAsyncContext() {
+            final AsyncContext started = super.getAsyncContext();
+            final InjectionAsyncContext current = asyncContext;
+            return current != null && current.delegate == started ? current : started;
+        }
+
+    }
+
+    /**
+     * {@link AsyncContext} writing the modified content when the asynchronous writers call {@link #complete()},
+     * before the cycle completes and the response may be committed or recycled by the container.
+     */
+    private static final class InjectionAsyncContext implements AsyncContext {
+
+        private final AsyncContext delegate;
+        private final InjectionAsyncListener listener;
+
+        private InjectionAsyncContext(@NonNull final AsyncContext delegate, @NonNull final InjectionAsyncListener listener) {
+            this.delegate = delegate;
+            this.listener = listener;
+        }
+
+        @Override
+        public void complete() {
+            try {
+                listener.injectOnce();
+            } catch (final IOException e) {
+                LOG.debug("Failed to write the modified content of an asynchronous request", e);
+            } finally {
+                delegate.complete();
+            }
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+            return delegate.getRequest();
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+            return delegate.getResponse();
+        }
+
+        @Override
+        public boolean hasOriginalRequestAndResponse() {
+            return delegate.hasOriginalRequestAndResponse();
+        }
+
+        @Override
+        public void dispatch() {
+            delegate.dispatch();
+        }
+
+        @Override
+        public void dispatch(final String path) {
+            delegate.dispatch(path);
+        }
+
+        @Override
+        public void dispatch(final ServletContext context, final String path) {
+            delegate.dispatch(context, path);
+        }
+
+        @Override
+        public void start(final Runnable run) {
+            delegate.start(run);
+        }
+
+        @Override
+        public void addListener(final AsyncListener asyncListener) {
+            delegate.addListener(asyncListener);
+        }
+
+        @Override
+        public void addListener(final AsyncListener asyncListener, final ServletRequest servletRequest, final ServletResponse servletResponse) {
+            delegate.addListener(asyncListener, servletRequest, servletResponse);
+        }
+
+        @Override
+        public <T extends AsyncListener> T createListener(final Class<T> clazz) throws ServletException {
+            return delegate.createListener(clazz);
+        }
+
+        @Override
+        public void setTimeout(final long timeout) {
+            delegate.setTimeout(timeout);
+        }
+
+        @Override
+        public long getTimeout() {
+            return delegate.getTimeout();
+        }
+
     }
 
     /**
@@ -177,4 +1063,36 @@ public class AEMEnvironmentBadgeCRXFilterImpl implements Filter {
         // Nothing to clean up
     }
 
+    /**
+     * Defines the OSGi Metatype Configuration of the CRX filter.
+     */
+    @ObjectClassDefinition(name = "AEM Environment Badge CRX Filter Config")
+    public @interface AEMEnvironmentBadgeCRXFilterConfig {
+
+        /**
+         * @return The time in milliseconds from which on an injection counts as slow.
+         */
+        @AttributeDefinition(name = "Circuit breaker slow injection", description = "The time in milliseconds spent growing the capture buffer, searching the anchor, splicing the badge into a page and writing it back, from which on the injection counts as slow. 0 only counts failed injections")
+        long circuitBreakerSlowInjectionMillis() default 100L;
+
+        /**
+         * @return The number of injections per window of the circuit breaker.
+         */
+        @AttributeDefinition(name = "Circuit breaker window size", description = "The number of injections the slow and failed injections are counted for")
+        int circuitBreakerWindowSize() default 10;
+
+        /**
+         * @return The percentage of slow or failed injections of a window opening the circuit breaker.
+         */
+        @AttributeDefinition(name = "Circuit breaker failure threshold", description = "The percentage of slow or failed injections within a window, reaching which pages are passed through unchanged. 0 disables the circuit breaker")
+        int circuitBreakerFailureThresholdPercent() default 50;
+
+        /**
+         * @return The time in seconds pages are passed through once the circuit breaker opened.
+         */
+        @AttributeDefinition(name = "Circuit breaker cool-down", description = "The time in seconds pages are passed through unchanged, before a single page probes whether the injection recovered")
+        long circuitBreakerCoolDownSeconds() default 60L;
+
+    }
+
 }
@@ -0,0 +1,205 @@
+package com.merkle.oss.aem.environmentbadge.filters;
+
+import com.merkle.oss.aem.environmentbadge.models.ConfigDocument;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.utils.ServerTiming;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.servlets.annotations.SlingServletFilter;
+import org.apache.sling.servlets.annotations.SlingServletFilterScope;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * A Sling filter announcing the AEM Environment Badge configuration to the browser before the client library requests it.
+ * <p>
+ * The client library requests the configuration only once jQuery and the library itself have been loaded and the
+ * {@code DOMContentLoaded} event has fired, which puts the request at the very end of the page load. For Granite shell
+ * pages, the pages the client library is embedded into, this filter therefore adds a {@code Link} header preloading the
+ * versioned configuration (see {@link ConfigDocument#location()}), so the browser fetches it while parsing the page.
+ * <p>
+ * Along with the preload, the hash of the configuration is handed to the page by a {@code Server-Timing} metric
+ * (see {@link #CONFIG_HASH_METRIC}), which the client library reads from the navigation timing of the page. The
+ * client library therefore requests exactly the preloaded location, even on the first visit; as versioned
+ * responses are immutable, later page loads are served from the browser cache without any request.
+ * <p>
+ * The configuration is identical on all cluster nodes, so a page rendered by one node may preload the configuration
+ * served by any other. The values of the tokens identifying the node rendering the page, e.g. {@code ${hostname}},
+ * are therefore handed to the page by a metric of their own (see {@link #NODE_TOKENS_METRIC}).
+ * <p>
+ * No {@code 103 Early Hints} interim response is sent: the Servlet API offers no way to send one, and a Sling
+ * filter only sees the Sling response, whose {@code sendError} renders an error page instead.
+ */
+@Component(service = Filter.class)
+@SlingServletFilter(
+        scope = SlingServletFilterScope.REQUEST,
+        extensions = "html",
+        methods = HttpConstants.METHOD_GET
+)
+@Designate(ocd = AEMEnvironmentBadgePreloadFilterImpl.AEMEnvironmentBadgePreloadConfig.class)
+public class AEMEnvironmentBadgePreloadFilterImpl implements Filter {
+
+    /**
+     * The name of the {@code Link} response header.
+     */
+    static final String LINK_HEADER = "Link";
+
+    /**
+     * {@code Server-Timing} metric handing the hash of the configuration to the page, e.g. {@code badge-config-hash;desc="<hash>"}.
+     */
+    static final String CONFIG_HASH_METRIC = "badge-config-hash";
+
+    /**
+     * {@code Server-Timing} metric handing the values of the node tokens to the page, e.g.
+     * {@code badge-node-tokens;desc="hostname=author-1&run_modes=author%2Cdev"}.
+     */
+    static final String NODE_TOKENS_METRIC = "badge-node-tokens";
+
+    private final AtomicReference<PreloadHint> preloadHint = new AtomicReference<>();
+
+    /**
+     * Reference to the OSGi service that provides the configuration settings for the environment badge.
+     * If the service is not available, the empty configuration served by the configuration servlet is preloaded.
+     */
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private AEMEnvironmentBadgeConfigService aemEnvironmentBadgeConfigService;
+
+    private volatile Set<String> resourceTypes = Set.of();
+
+    /**
+     * Activates or modifies the filter.
+     *
+     * @param config The injected configuration object generated by the Metatype service.
+     */
+    @Activate
+    @Modified
+    protected void activate(@NonNull final AEMEnvironmentBadgePreloadConfig config) {
+        Objects.requireNonNull(config);
+
+        resourceTypes = config.resourceTypes() == null ? Set.of() : Arrays.stream(config.resourceTypes())
+                .filter(StringUtils::isNotBlank)
+                .map(String::strip)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    public void doFilter(@NonNull final ServletRequest request, @NonNull final ServletResponse response, @NonNull final FilterChain chain) throws IOException, ServletException {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(response);
+        Objects.requireNonNull(chain);
+
+        final SlingHttpServletRequest slingRequest = (SlingHttpServletRequest) request;
+        final Resource resource = slingRequest.getResource();
+        if (resourceTypes.contains(resource.getResourceType()) && !response.isCommitted()) {
+            final HttpServletResponse httpServletResponse = (HttpServletResponse) response;
+            final PreloadHint hint = getPreloadHint(slingRequest);
+            httpServletResponse.addHeader(LINK_HEADER, hint.value());
+            httpServletResponse.addHeader(ServerTiming.HEADER, hint.handoff());
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Retrieves the header values preloading the configuration served to the user of the given request,
+     * rendering them only once per configuration revision.
+     */
+    private @NonNull PreloadHint getPreloadHint(@NonNull final SlingHttpServletRequest request) {
+        final AEMEnvironmentBadgeConfigService configService = aemEnvironmentBadgeConfigService;
+        if (configService == null || !configService.isVisibleTo(request.getRemoteUser())) {
+            return PreloadHint.EMPTY;
+        }
+
+        final long revision = configService.getRevision();
+        final PreloadHint current = preloadHint.get();
+        if (current != null && current.revision() == revision) {
+            return current;
+        }
+
+        final PreloadHint created = PreloadHint.of(ConfigDocument.of(configService, revision), configService.getNodeTokens());
+        preloadHint.set(created);
+        return created;
+    }
+
+    /**
+     * The header values preloading a configuration.
+     *
+     * @param revision The configuration revision the values have been rendered for, {@code -1} for the empty configuration.
+     * @param value    The {@code Link} header value.
+     * @param handoff  The {@code Server-Timing} header value handing the hash of the configuration and the values of the
+     *                 node tokens to the page.
+     */
+    private record PreloadHint(long revision, @NonNull String value, @NonNull String handoff) {
+
+        private static final PreloadHint EMPTY = of(ConfigDocument.EMPTY, StringUtils.EMPTY);
+
+        private static @NonNull PreloadHint of(@NonNull final ConfigDocument document, @Nullable final String nodeTokens) {
+            // The client library fetches the configuration via XHR, which is matched by a CORS-mode preload only
+            final String value = "<" + document.location() + ">; rel=preload; as=fetch; crossorigin";
+            final String handoff = StringUtils.isEmpty(nodeTokens)
+                    ? ServerTiming.metric(CONFIG_HASH_METRIC, document.hash())
+                    : ServerTiming.metric(CONFIG_HASH_METRIC, document.hash()) + ", " + ServerTiming.metric(NODE_TOKENS_METRIC, nodeTokens);
+            return new PreloadHint(document.revision() == null ? -1L : document.revision(), value, handoff);
+        }
+
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Filter#init(FilterConfig)
+     */
+    @Override
+    public void init(final FilterConfig filterConfig) {
+        // No initialization required
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see Filter#destroy()
+     */
+    @Override
+    public void destroy() {
+        // Nothing to clean up
+    }
+
+    /**
+     * Defines the OSGi Metatype Configuration of the preload filter.
+     */
+    @ObjectClassDefinition(name = "AEM Environment Badge Preload Filter")
+    public @interface AEMEnvironmentBadgePreloadConfig {
+
+        /**
+         * @return The resource types of the pages the configuration is preloaded for.
+         */
+        @AttributeDefinition(name = "Resource types", description = "The resource types of the Granite shell pages the configuration is preloaded for")
+        String[] resourceTypes() default {
+                "granite/ui/components/shell/page",
+                "granite/ui/components/shell/collectionpage",
+                "granite/ui/components/shell/propertiespage"
+        };
+
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.merkle.oss.aem.environmentbadge.filters;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event describing a request passing the {@link AEMEnvironmentBadgeCRXFilterImpl},
+ * covering the whole filter invocation including the downstream rendering of the page.
+ * <p>
+ * The event is disabled by default and only recorded for requests exceeding the threshold, e.g.:
+ * {@snippet :
+ * jcmd <pid> JFR.start settings=profile +com.merkle.oss.aem.environmentbadge.BadgeInjection#enabled=true
+ *}
+ */
+@Name(BadgeInjectionEvent.NAME)
+@Label("Environment Badge Injection")
+@Description("Request passing the AEM Environment Badge CRX filter")
+@Category({"AEM", "Environment Badge"})
+@Enabled(false)
+@Threshold("20 ms")
+@StackTrace(false)
+final class BadgeInjectionEvent extends Event {
+
+    static final String NAME = "com.merkle.oss.aem.environmentbadge.BadgeInjection";
+
+    static final String OUTCOME_INJECTED = "injected";
+    static final String OUTCOME_ANCHOR_MISSING = "anchor-missing";
+    static final String OUTCOME_NOT_CAPTURED = "not-captured";
+    static final String OUTCOME_NOT_TARGETED = "not-targeted";
+    static final String OUTCOME_NOT_VISIBLE = "not-visible";
+    static final String OUTCOME_SHADOW = "shadow";
+    static final String OUTCOME_NOT_SAMPLED = "not-sampled";
+    static final String OUTCOME_BYPASSED = "bypassed";
+
+    @Label("Path")
+    @Description("Request URI")
+    String path;
+
+    @Label("Outcome")
+    @Description("Whether the badge has been injected or why the page has been passed through")
+    String outcome;
+
+    @Label("Bytes Captured")
+    @DataAmount
+    long bytesCaptured;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+
+    @Label("Capture Duration")
+    @Description("Duration of the downstream rendering of the page into the capture buffer")
+    @Timespan
+    long captureDuration;
+
+    @Label("Search Duration")
+    @Description("Duration of the search for the injection anchor")
+    @Timespan
+    long searchDuration;
+
+    @Label("Splice Duration")
+    @Description("Duration of encoding the fragment and, for encodings not searchable on byte level, splicing the page")
+    @Timespan
+    long spliceDuration;
+
+    @Label("Write Duration")
+    @Description("Duration of writing the captured, possibly modified page to the response")
+    @Timespan
+    long writeDuration;
+
+}
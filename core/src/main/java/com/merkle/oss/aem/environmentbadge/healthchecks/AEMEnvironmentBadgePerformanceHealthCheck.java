@@ -0,0 +1,159 @@
+package com.merkle.oss.aem.environmentbadge.healthchecks;
+
+import com.merkle.oss.aem.environmentbadge.models.PerformanceStatistics;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeStatisticsService;
+import org.apache.felix.hc.api.FormattingResultLog;
+import org.apache.felix.hc.api.HealthCheck;
+import org.apache.felix.hc.api.Result;
+import org.jspecify.annotations.NonNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.Objects;
+
+/**
+ * Felix Health Check comparing the recent server-side overhead of the AEM Environment Badge against performance budgets.
+ * <p>
+ * The statistics of the {@link AEMEnvironmentBadgeStatisticsService} cover a rolling time window, so the check
+ * reports regressions introduced e.g. by a deployment, and recovers once they are fixed. Each budget consists of a
+ * {@code WARN} and a {@code CRITICAL} threshold, a threshold of {@code 0} or less disables it:
+ * <ul>
+ *   <li>the 99th percentile of the time the badge itself costs a page buffered by the CRX filter, i.e. growing the
+ *   capture buffer, searching the anchor, splicing the badge and writing the page back, but not rendering it,</li>
+ *   <li>the 99th percentile of the number of bytes the CRX filter buffers per page,</li>
+ *   <li>the rate of requests the configuration servlet fails to serve.</li>
+ * </ul>
+ * Budgets are only evaluated once the window contains a minimum number of requests, so single slow requests
+ * after a restart do not raise an alarm. Estimates of pages measured in shadow mode are reported for comparison with
+ * the budgets, but never evaluated against them, as no page has actually been buffered.
+ */
+@Component(
+        service = HealthCheck.class,
+        property = {
+                HealthCheck.NAME + "=" + "AEM Environment Badge Performance",
+                HealthCheck.TAGS + "=" + "environment-badge",
+                HealthCheck.TAGS + "=" + "performance"
+        }
+)
+@Designate(ocd = AEMEnvironmentBadgePerformanceHealthCheck.AEMEnvironmentBadgePerformanceHealthCheckConfig.class)
+public class AEMEnvironmentBadgePerformanceHealthCheck implements HealthCheck {
+
+    @Reference
+    private AEMEnvironmentBadgeStatisticsService aemEnvironmentBadgeStatisticsService;
+
+    private volatile AEMEnvironmentBadgePerformanceHealthCheckConfig config;
+
+    /**
+     * Activates or modifies the health check.
+     *
+     * @param config The injected configuration object generated by the Metatype service.
+     */
+    @Activate
+    @Modified
+    protected void activate(@NonNull final AEMEnvironmentBadgePerformanceHealthCheckConfig config) {
+        this.config = Objects.requireNonNull(config);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull Result execute() {
+        final AEMEnvironmentBadgePerformanceHealthCheckConfig budgets = config;
+        final PerformanceStatistics statistics = aemEnvironmentBadgeStatisticsService.getStatistics();
+        final FormattingResultLog log = new FormattingResultLog();
+
+        if (statistics.injections() < Math.max(1L, budgets.minimumRequests())) {
+            log.info("Injection budgets not evaluated, {} page(s) buffered within the time window", statistics.injections());
+        } else {
+            checkBudget(log, "p99 injection time", statistics.injectionTimeP99Micros() / 1000.0d, "ms",
+                    budgets.injectionTimeWarnMillis(), budgets.injectionTimeCriticalMillis());
+            checkBudget(log, "p99 bytes buffered per page", statistics.bytesBufferedP99() / 1024.0d, "KiB",
+                    budgets.bytesBufferedWarnKiB(), budgets.bytesBufferedCriticalKiB());
+            log.info("Largest page buffered: {} bytes", statistics.bytesBufferedMax());
+        }
+
+        if (statistics.shadowInjections() > 0L) {
+            log.info("Shadow mode estimate of {} page(s): p99 injection time of {} ms, p99 bytes buffered per page of {} KiB",
+                    statistics.shadowInjections(), String.format("%.2f", statistics.shadowInjectionTimeP99Micros() / 1000.0d),
+                    String.format("%.2f", statistics.shadowBytesBufferedP99() / 1024.0d));
+        }
+
+        if (statistics.configRequests() < Math.max(1L, budgets.minimumRequests())) {
+            log.info("Configuration budgets not evaluated, {} request(s) served within the time window", statistics.configRequests());
+        } else {
+            checkBudget(log, "configuration servlet error rate", statistics.configErrorRate() * 100.0d, "%",
+                    budgets.configErrorRateWarnPercent(), budgets.configErrorRateCriticalPercent());
+        }
+
+        return new Result(log);
+    }
+
+    private static void checkBudget(@NonNull final FormattingResultLog log, @NonNull final String name, final double value,
+                                    @NonNull final String unit, final double warnThreshold, final double criticalThreshold) {
+        final String formattedValue = String.format("%.2f", value);
+        if (criticalThreshold > 0.0d && value > criticalThreshold) {
+            log.critical("{} of {} {} exceeds the critical budget of {} {}", name, formattedValue, unit, criticalThreshold, unit);
+        } else if (warnThreshold > 0.0d && value > warnThreshold) {
+            log.warn("{} of {} {} exceeds the budget of {} {}", name, formattedValue, unit, warnThreshold, unit);
+        } else {
+            log.info("{} of {} {} is within budget", name, formattedValue, unit);
+        }
+    }
+
+    /**
+     * Defines the OSGi Metatype Configuration of the performance health check.
+     */
+    @ObjectClassDefinition(name = "AEM Environment Badge Performance Health Check")
+    public @interface AEMEnvironmentBadgePerformanceHealthCheckConfig {
+
+        /**
+         * @return The minimum number of requests within the time window for the budgets to be evaluated.
+         */
+        @AttributeDefinition(name = "Minimum requests", description = "The minimum number of requests within the time window for the budgets to be evaluated")
+        long minimumRequests() default 20L;
+
+        /**
+         * @return The p99 injection time in milliseconds exceeding which the check reports a warning.
+         */
+        @AttributeDefinition(name = "Injection time warning", description = "The p99 time in milliseconds the badge itself costs a page, not including rendering the page, exceeding which a warning is reported. 0 disables the threshold")
+        double injectionTimeWarnMillis() default 5.0d;
+
+        /**
+         * @return The p99 injection time in milliseconds exceeding which the check reports a critical failure.
+         */
+        @AttributeDefinition(name = "Injection time critical", description = "The p99 time in milliseconds the badge itself costs a page, not including rendering the page, exceeding which a critical failure is reported. 0 disables the threshold")
+        double injectionTimeCriticalMillis() default 25.0d;
+
+        /**
+         * @return The p99 number of KiB buffered per page exceeding which the check reports a warning.
+         */
+        @AttributeDefinition(name = "Bytes buffered warning", description = "The p99 number of KiB buffered per page, exceeding which a warning is reported. 0 disables the threshold")
+        double bytesBufferedWarnKiB() default 1024.0d;
+
+        /**
+         * @return The p99 number of KiB buffered per page exceeding which the check reports a critical failure.
+         */
+        @AttributeDefinition(name = "Bytes buffered critical", description = "The p99 number of KiB buffered per page, exceeding which a critical failure is reported. 0 disables the threshold")
+        double bytesBufferedCriticalKiB() default 8192.0d;
+
+        /**
+         * @return The error rate in percent of the configuration servlet exceeding which the check reports a warning.
+         */
+        @AttributeDefinition(name = "Configuration error rate warning", description = "The percentage of failed configuration requests, exceeding which a warning is reported. 0 disables the threshold")
+        double configErrorRateWarnPercent() default 1.0d;
+
+        /**
+         * @return The error rate in percent of the configuration servlet exceeding which the check reports a critical failure.
+         */
+        @AttributeDefinition(name = "Configuration error rate critical", description = "The percentage of failed configuration requests, exceeding which a critical failure is reported. 0 disables the threshold")
+        double configErrorRateCriticalPercent() default 5.0d;
+
+    }
+
+}
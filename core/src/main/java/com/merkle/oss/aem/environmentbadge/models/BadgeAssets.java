@@ -0,0 +1,149 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.utils.ConfigSubstitutionHelper;
+import com.merkle.oss.aem.environmentbadge.utils.ConfigTemplate;
+import com.merkle.oss.aem.environmentbadge.utils.ContentHash;
+import com.merkle.oss.aem.environmentbadge.utils.EscapingContext;
+import org.apache.commons.lang3.StringUtils;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The script and stylesheet rendering the AEM Environment Badge on server-side rendered consoles, such as the CRXDE Lite.
+ * <p>
+ * Instead of inlining them into every page, the pages only reference the assets by their versioned location
+ * (e.g., {@code crx.<hash>.js}). As the hash is computed from the content of an asset, the assets can be cached
+ * by the browser indefinitely, while a configuration change results in a new location.
+ *
+ * @param revision The configuration revision the assets have been rendered for.
+ * @param script   The script prepending the prefix to the document title, empty if the prefix is disabled. Node tokens
+ *                 contained in the prefix are substituted by the script (see {@link #NODE_TOKENS_ATTRIBUTE}).
+ * @param style    The stylesheet of the badge bar, empty if the badge is disabled.
+ */
+public record BadgeAssets(long revision, @NonNull Asset script, @NonNull Asset style) {
+
+    /**
+     * The path the assets are served from, without selectors and extension.
+     */
+    public static final String PATH = "/bin/com/merkle/oss/aem/environment-badge/crx";
+
+    /**
+     * The extension of the script.
+     */
+    public static final String SCRIPT_EXTENSION = "js";
+
+    /**
+     * The extension of the stylesheet.
+     */
+    public static final String STYLE_EXTENSION = "css";
+
+    /**
+     * The id of the element styled as the badge bar.
+     */
+    public static final String BAR_DIV_ID = "aem-environment-badge-bar";
+
+    /**
+     * The attribute of the script element handing the values of the node tokens to the script, e.g.
+     * {@code data-node-tokens="hostname=author-1"}. The script substitutes the tokens contained in the prefix, so
+     * the script and its location are identical on all cluster nodes.
+     */
+    public static final String NODE_TOKENS_ATTRIBUTE = "data-node-tokens";
+
+    private static final ConfigTemplate DOCUMENT_TITLE_PREFIX_SCRIPT = ConfigTemplate.compile("(function(){"
+            + "const p=new URLSearchParams(document.currentScript?.dataset.nodeTokens);"
+            + "const t='${" + EscapingContext.JS_STRING.getPrefix() + ":" + ConfigSubstitutionHelper.PLACEHOLDER_DOCUMENT_TITLE_PREFIX + "}'"
+            + ".replace(/\\$\\{(?:\\w+:)?(\\w+)\\}/g,(m,k)=>p.get(k)??m)+' | '+document.title;document.title=t;let e=0;const n=5,c=1500;const i=setInterval(()=>{if(document.title!==t){document.title=t,e=0}else if(++e>n)clearInterval(i)},c)})();");
+
+    private static final ConfigTemplate CSS_STYLE = ConfigTemplate.compile("#" + BAR_DIV_ID + "{"
+            + "background-color:${" + EscapingContext.CSS_VALUE.getPrefix() + ":" + ConfigSubstitutionHelper.PLACEHOLDER_BACKGROUND_COLOR + "};"
+            + "position:fixed;"
+            + "left:0;"
+            + "top:0;"
+            + "right:0;"
+            + "height:5px;"
+            + "z-index:100000000000000"
+            + "}");
+
+    /**
+     * Renders the assets for the current configuration.
+     *
+     * @param configService The configuration service.
+     * @param revision      The configuration revision, read before the configuration values.
+     * @return The rendered assets.
+     */
+    public static @NonNull BadgeAssets of(@NonNull final AEMEnvironmentBadgeConfigService configService, final long revision) {
+        final Map<String, String> substitutionValues = new HashMap<>();
+        substitutionValues.put(ConfigSubstitutionHelper.PLACEHOLDER_DOCUMENT_TITLE_PREFIX, configService.getDocumentTitlePrefix());
+        substitutionValues.put(ConfigSubstitutionHelper.PLACEHOLDER_BACKGROUND_COLOR, BackgroundColor.of(configService.getBadgeBackgroundColor()).getColorCode());
+        final ConfigSubstitutionHelper substitutionHelper = ConfigSubstitutionHelper.create(substitutionValues);
+
+        final String script = configService.isEnableDocumentTitlePrefix()
+                ? substitutionHelper.render(DOCUMENT_TITLE_PREFIX_SCRIPT, new StringBuilder()).toString()
+                : StringUtils.EMPTY;
+        final String style = configService.isEnableBadge()
+                ? substitutionHelper.render(CSS_STYLE, new StringBuilder()).toString()
+                : StringUtils.EMPTY;
+        return new BadgeAssets(revision, Asset.of(SCRIPT_EXTENSION, script), Asset.of(STYLE_EXTENSION, style));
+    }
+
+    /**
+     * Gets the asset of the given extension.
+     *
+     * @param extension The extension, {@link #SCRIPT_EXTENSION} or {@link #STYLE_EXTENSION}.
+     * @return The asset, {@code null} for other extensions.
+     */
+    public @Nullable Asset get(@Nullable final String extension) {
+        if (SCRIPT_EXTENSION.equals(extension)) {
+            return script;
+        }
+        if (STYLE_EXTENSION.equals(extension)) {
+            return style;
+        }
+        return null;
+    }
+
+    /**
+     * A single asset along with its content hash.
+     *
+     * @param extension The extension of the asset.
+     * @param content   The content of the asset.
+     * @param encoded   The content of the asset, encoded with {@code UTF-8}.
+     * @param hash      The hash of the encoded content.
+     */
+    public record Asset(@NonNull String extension, @NonNull String content, byte @NonNull [] encoded, @NonNull String hash) {
+
+        private static @NonNull Asset of(@NonNull final String extension, @NonNull final String content) {
+            final byte[] encoded = content.getBytes(StandardCharsets.UTF_8);
+            return new Asset(extension, content, encoded, ContentHash.of(encoded));
+        }
+
+        /**
+         * @return Whether the asset has no content, as its feature is disabled.
+         */
+        public boolean isEmpty() {
+            return content.isEmpty();
+        }
+
+        /**
+         * @return The entity tag of the asset.
+         */
+        public @NonNull String entityTag() {
+            return "\"" + hash + "\"";
+        }
+
+        /**
+         * @return The versioned location of the asset, e.g. {@code /bin/com/merkle/oss/aem/environment-badge/crx.<hash>.js}.
+         */
+        public @NonNull String location() {
+            return PATH + "." + hash + "." + extension;
+        }
+
+    }
+
+}
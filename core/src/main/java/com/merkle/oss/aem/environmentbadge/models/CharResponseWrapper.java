@@ -1,27 +1,48 @@
 package com.merkle.oss.aem.environmentbadge.models;
 
+import org.apache.commons.lang3.StringUtils;
 import org.jspecify.annotations.NonNull;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpServletResponseWrapper;
-import java.io.CharArrayWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.function.Predicate;
 
 /**
  * A custom {@link HttpServletResponseWrapper} implementation that captures
  * character-based response output for later inspection or modification.
  * <p>
- * This wrapper intercepts calls to {@link #getWriter()} and stores all written
- * text in an internal {@link java.io.CharArrayWriter}. It is typically used in
- * servlet filters where the response content needs to be examined, transformed,
- * or appended before being sent to the client.
+ * This wrapper intercepts calls to {@link #getWriter()} and {@link #getOutputStream()} and
+ * stores all written content in an internal byte buffer, encoded with the character encoding
+ * of the response. It is typically used in servlet filters where the response content needs
+ * to be examined, transformed, or appended before being sent to the client. Keeping the
+ * encoded bytes allows the content to be searched and spliced without decoding it first.
+ * </p>
+ * <p>
+ * Optionally, capturing is limited by a condition which is evaluated lazily, once the body is about to be
+ * written and the status and headers are therefore known. Responses not meeting the condition, as well as
+ * errors and redirects, are passed straight through to the wrapped response without being buffered.
+ * </p>
+ * <p>
+ * The time spent growing the internal buffer is tracked, as well as whether growing it failed, so the overhead of
+ * capturing can be told apart from the time downstream spends rendering the content.
  * </p>
  *
  * @apiNote the following limitations apply to this wrapper:
  * <ul>
- * <li>This wrapper only supports character output via {@link #getWriter()}.
- * It does not override {@link #getOutputStream()}; therefore, it should
- * only be used for text-based responses (HTML, JSON, XML, etc.).</li>
+ * <li>The character encoding is resolved once the writer is first written to. It should
+ * therefore be set before any text-based content is written, which is required by the
+ * servlet specification anyway.</li>
  * <li>The captured content is stored in memory, so extremely large responses
  * should be avoided.</li>
  * <li>The wrapper does not automatically write data back to the original
@@ -39,7 +60,17 @@ import java.io.PrintWriter;
  */
 public class CharResponseWrapper extends HttpServletResponseWrapper {
 
-    private final CharArrayWriter writer = new CharArrayWriter();
+    private final CaptureBuffer buffer = new CaptureBuffer();
+
+    private final PrintWriter writer = new PrintWriter(new EncodingWriter());
+
+    private final ServletOutputStream outputStream = new CaptureOutputStream();
+
+    private final Predicate<? super HttpServletResponse> captureCondition;
+
+    private Charset charset;
+
+    private Boolean capturing;
 
     /**
      * Creates a new response wrapper that will capture all character output.
@@ -48,27 +79,365 @@ public class CharResponseWrapper extends HttpServletResponseWrapper {
      * @throws IllegalArgumentException if {@code response} is {@code null}
      */
     public CharResponseWrapper(@NonNull final HttpServletResponse response) {
+        this(response, wrapper -> true);
+    }
+
+    /**
+     * Creates a new response wrapper that will capture all output if the given condition is met
+     * at the time the body is first written to.
+     *
+     * @param response         the original {@link HttpServletResponse} to wrap
+     * @param captureCondition the condition evaluated against this wrapper, e.g., checking the status and content type
+     * @throws IllegalArgumentException if {@code response} is {@code null}
+     */
+    public CharResponseWrapper(@NonNull final HttpServletResponse response, @NonNull final Predicate<? super HttpServletResponse> captureCondition) {
         super(response);
+        this.captureCondition = captureCondition;
     }
 
     /**
      * Returns a {@link PrintWriter} that writes into an internal buffer
      * instead of directly to the underlying HTTP response.
      *
-     * @return a writer that captures character data
+     * @return a writer that captures character data, or the writer of the
+     * wrapped response if the response is not captured
+     * @throws IOException if the writer of the wrapped response cannot be obtained
+     */
+    @Override
+    public @NonNull PrintWriter getWriter() throws IOException {
+        return isCapturing() ? writer : super.getWriter();
+    }
+
+    /**
+     * Returns a {@link ServletOutputStream} that writes into an internal buffer
+     * instead of directly to the underlying HTTP response.
+     *
+     * @return an output stream that captures binary data, or the output stream
+     * of the wrapped response if the response is not captured
+     * @throws IOException if the output stream of the wrapped response cannot be obtained
+     */
+    @Override
+    public @NonNull ServletOutputStream getOutputStream() throws IOException {
+        return isCapturing() ? outputStream : super.getOutputStream();
+    }
+
+    /**
+     * Flushes the captured writer only. The underlying response is intentionally not flushed,
+     * as this would commit it before the captured content has been written. Responses which are
+     * not captured are flushed as usual.
+     *
+     * @throws IOException if flushing the wrapped response fails
+     */
+    @Override
+    public void flushBuffer() throws IOException {
+        if (isCapturing()) {
+            writer.flush();
+        } else {
+            super.flushBuffer();
+        }
+    }
+
+    /**
+     * Clears the captured content, or the buffer of the wrapped response if the response is not captured.
+     */
+    @Override
+    public void resetBuffer() {
+        if (Boolean.TRUE.equals(capturing)) {
+            writer.flush();
+            buffer.reset();
+        } else {
+            super.resetBuffer();
+        }
+    }
+
+    /**
+     * Clears the captured content as well as the status and headers of the wrapped response.
+     * The capture condition is evaluated again once the body is written to.
+     */
+    @Override
+    public void reset() {
+        if (Boolean.TRUE.equals(capturing)) {
+            writer.flush();
+            buffer.reset();
+        }
+        super.reset();
+        capturing = null;
+    }
+
+    /**
+     * Passes the error straight through to the wrapped response, discarding any captured content.
+     *
+     * @param sc the error status code
+     * @throws IOException if sending the error fails
      */
     @Override
-    public @NonNull PrintWriter getWriter() {
-        return new PrintWriter(writer);
+    public void sendError(final int sc) throws IOException {
+        stopCapturing();
+        super.sendError(sc);
     }
 
     /**
-     * Returns all content written to this wrapper's writer so far.
+     * Passes the error straight through to the wrapped response, discarding any captured content.
+     *
+     * @param sc  the error status code
+     * @param msg the descriptive message
+     * @throws IOException if sending the error fails
+     */
+    @Override
+    public void sendError(final int sc, final String msg) throws IOException {
+        stopCapturing();
+        super.sendError(sc, msg);
+    }
+
+    /**
+     * Passes the redirect straight through to the wrapped response, discarding any captured content.
+     *
+     * @param location the redirect location URL
+     * @throws IOException if sending the redirect fails
+     */
+    @Override
+    public void sendRedirect(final String location) throws IOException {
+        stopCapturing();
+        super.sendRedirect(location);
+    }
+
+    /**
+     * Checks if the output of this response is captured, evaluating the capture condition if not done yet.
+     * Once the body has been written to, the result does not change anymore.
+     *
+     * @return {@code true} if the output is captured; {@code false} if it is passed straight through to the wrapped response
+     */
+    public boolean isCapturing() {
+        if (capturing == null) {
+            capturing = captureCondition.test(this);
+        }
+        return capturing;
+    }
+
+    private void stopCapturing() {
+        if (Boolean.TRUE.equals(capturing)) {
+            writer.flush();
+            buffer.reset();
+        }
+        capturing = Boolean.FALSE;
+    }
+
+    /**
+     * Returns all content written to this wrapper so far.
      *
      * @return the captured response output as a string, never {@code null}
      */
     public @NonNull String getCapturedOutput() {
-        return writer.toString();
+        writer.flush();
+        if (buffer.size() == 0) {
+            return StringUtils.EMPTY;
+        }
+        return new String(buffer.array(), 0, buffer.size(), getCapturedCharset());
+    }
+
+    /**
+     * Returns the internal buffer holding the encoded content written to this wrapper so far.
+     * The buffer is returned without copying it, only the first {@link #getCapturedLength()}
+     * bytes are valid and the array must not be modified.
+     *
+     * @return the internal buffer, never {@code null}
+     */
+    public byte @NonNull [] getCapturedBytes() {
+        writer.flush();
+        return buffer.array();
+    }
+
+    /**
+     * Returns the number of bytes written to this wrapper so far.
+     *
+     * @return the number of valid bytes within {@link #getCapturedBytes()}
+     */
+    public int getCapturedLength() {
+        writer.flush();
+        return buffer.size();
+    }
+
+    /**
+     * Returns the time spent growing the internal buffer so far, i.e. the overhead of capturing the content on top
+     * of rendering it.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getBufferGrowthNanos() {
+        return buffer.growthNanos;
+    }
+
+    /**
+     * Checks if capturing failed, e.g. as the internal buffer could not be grown under memory pressure. Failures
+     * are rethrown to the writing component, which may however handle them.
+     *
+     * @return {@code true} if growing the internal buffer failed; otherwise {@code false}
+     */
+    public boolean isCaptureFailed() {
+        return buffer.failed;
+    }
+
+    /**
+     * Returns the character encoding the captured content is encoded with.
+     *
+     * @return the character encoding of the response, {@code ISO-8859-1} if none or an unsupported one is set
+     */
+    public @NonNull Charset getCapturedCharset() {
+        if (charset == null) {
+            charset = resolveCharset(getCharacterEncoding());
+        }
+        return charset;
+    }
+
+    private static @NonNull Charset resolveCharset(final String characterEncoding) {
+        if (StringUtils.isBlank(characterEncoding)) {
+            return StandardCharsets.ISO_8859_1;
+        }
+        try {
+            return Charset.forName(characterEncoding);
+        } catch (final IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return StandardCharsets.ISO_8859_1;
+        }
+    }
+
+    /**
+     * {@link ByteArrayOutputStream} granting access to its internal array to avoid copying it. Writes which have to
+     * grow the array are timed, which only happens a logarithmic number of times per page.
+     */
+    private static final class CaptureBuffer extends ByteArrayOutputStream {
+
+        private long growthNanos;
+
+        private boolean failed;
+
+        private CaptureBuffer() {
+            super(8192);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+
+        @Override
+        public void write(final int b) {
+            if (count < buf.length) {
+                super.write(b);
+                return;
+            }
+            final long start = System.nanoTime();
+            try {
+                super.write(b);
+            } catch (final OutOfMemoryError e) {
+                failed = true;
+                throw e;
+            } finally {
+                growthNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void write(final byte @NonNull [] bytes, final int offset, final int length) {
+            if (length <= buf.length - count) {
+                super.write(bytes, offset, length);
+                return;
+            }
+            final long start = System.nanoTime();
+            try {
+                super.write(bytes, offset, length);
+            } catch (final OutOfMemoryError e) {
+                failed = true;
+                throw e;
+            } finally {
+                growthNanos += System.nanoTime() - start;
+            }
+        }
+
+    }
+
+    /**
+     * {@link Writer} encoding characters into the capture buffer. The encoder is created
+     * lazily, so the character encoding of the response is resolved on the first write.
+     * Strings are handed to the encoder in chunks, as the encoder would otherwise copy
+     * each string into a character array of its full length first.
+     */
+    private final class EncodingWriter extends Writer {
+
+        private static final int CHUNK_LENGTH = 2048;
+
+        private Writer delegate;
+
+        private char[] chunk;
+
+        private Writer delegate() {
+            if (delegate == null) {
+                delegate = new OutputStreamWriter(buffer, getCapturedCharset());
+                chunk = new char[CHUNK_LENGTH];
+            }
+            return delegate;
+        }
+
+        @Override
+        public void write(final char @NonNull [] chars, final int offset, final int length) throws IOException {
+            delegate().write(chars, offset, length);
+        }
+
+        @Override
+        public void write(@NonNull final String string, final int offset, final int length) throws IOException {
+            final Writer encoder = delegate();
+            final int end = offset + length;
+            for (int start = offset; start < end; start += CHUNK_LENGTH) {
+                final int chunkLength = Math.min(CHUNK_LENGTH, end - start);
+                string.getChars(start, start + chunkLength, chunk, 0);
+                encoder.write(chunk, 0, chunkLength);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (delegate != null) {
+                delegate.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+    }
+
+    /**
+     * {@link ServletOutputStream} writing into the capture buffer. Pending characters of the writer
+     * are flushed first to preserve the order of interleaved text and binary output.
+     */
+    private final class CaptureOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(final int b) {
+            writer.flush();
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(final byte @NonNull [] bytes, final int offset, final int length) {
+            writer.flush();
+            buffer.write(bytes, offset, length);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(@NonNull final WriteListener writeListener) {
+            try {
+                writeListener.onWritePossible();
+            } catch (final IOException e) {
+                writeListener.onError(e);
+            }
+        }
+
     }
 
 }
@@ -0,0 +1,231 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A lock-free circuit breaker bypassing an optional operation once it turns slow or starts failing.
+ * <p>
+ * While {@link State#CLOSED closed}, calls are counted in tumbling windows of a fixed number of calls. Once the
+ * number of slow or failed calls within a window reaches the trip count, the breaker {@link State#OPEN opens} and
+ * rejects all calls for a cool-down period. Afterwards, a single probe call is let through while
+ * {@link State#HALF_OPEN half-open}: the breaker closes if the probe succeeds in time and opens again otherwise.
+ * A probe which does not report back within the cool-down period is given up, and the next call probes instead.
+ * </p>
+ * <p>
+ * The whole state is packed into a single {@link AtomicLong}, so calls neither block nor allocate: the two highest
+ * bits hold the {@link State}, the remaining bits either the counters of the current window or the time the state
+ * has been entered at.
+ * </p>
+ *
+ * @apiNote Outcomes reported while half-open are attributed to the probe, even if reported by a call let through
+ * before the breaker opened. Outcomes reported while open are ignored.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        /**
+         * Calls are let through and their outcome is counted.
+         */
+        CLOSED,
+        /**
+         * Calls are rejected until the cool-down period has elapsed.
+         */
+        OPEN,
+        /**
+         * A single probe call is let through, deciding whether to close or to open again.
+         */
+        HALF_OPEN
+    }
+
+    private static final State[] STATES = State.values();
+
+    private static final int STATE_SHIFT = 62;
+
+    private static final long PAYLOAD_MASK = (1L << STATE_SHIFT) - 1L;
+
+    private static final int CALLS_SHIFT = 31;
+
+    private static final long COUNTER_MASK = (1L << CALLS_SHIFT) - 1L;
+
+    private static final long CLOSED_EMPTY = 0L;
+
+    private final AtomicLong state = new AtomicLong(CLOSED_EMPTY);
+
+    private final boolean enabled;
+
+    private final long slowCallNanos;
+
+    private final int windowSize;
+
+    private final int tripCount;
+
+    private final long coolDownNanos;
+
+    private final LongSupplier clock;
+
+    private final long origin;
+
+    private final Consumer<State> listener;
+
+    /**
+     * Creates a circuit breaker reading the time from {@link System#nanoTime()}.
+     *
+     * @param slowCallThreshold       The duration from which on a call counts as slow, {@link Duration#ZERO} to count failures only.
+     * @param windowSize              The number of calls per window.
+     * @param failureThresholdPercent The percentage of slow or failed calls of a window opening the breaker, {@code 0} or
+     *                                less disables the breaker.
+     * @param coolDown                The duration calls are rejected for once the breaker opened.
+     * @param listener                Notified of every state transition, by the thread performing it.
+     */
+    public CircuitBreaker(@NonNull final Duration slowCallThreshold, final int windowSize, final int failureThresholdPercent,
+                          @NonNull final Duration coolDown, @NonNull final Consumer<State> listener) {
+        this(slowCallThreshold, windowSize, failureThresholdPercent, coolDown, listener, System::nanoTime);
+    }
+
+    CircuitBreaker(@NonNull final Duration slowCallThreshold, final int windowSize, final int failureThresholdPercent,
+                   @NonNull final Duration coolDown, @NonNull final Consumer<State> listener, @NonNull final LongSupplier clock) {
+        this.enabled = failureThresholdPercent > 0;
+        this.slowCallNanos = Math.max(0L, slowCallThreshold.toNanos());
+        this.windowSize = Math.max(1, windowSize);
+        this.tripCount = (int) Math.max(1L, Math.ceilDiv((long) this.windowSize * Math.min(100, failureThresholdPercent), 100L));
+        this.coolDownNanos = Math.max(0L, coolDown.toNanos());
+        this.listener = Objects.requireNonNull(listener);
+        this.clock = Objects.requireNonNull(clock);
+        // Shifted back by one cool-down period, so the time of a state given up right away stays positive
+        this.origin = clock.getAsLong() - coolDownNanos;
+    }
+
+    /**
+     * Checks if the breaker has been enabled, i.e. if it may ever reject calls.
+     *
+     * @return {@code true} if enabled; otherwise {@code false}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the current state of the breaker.
+     *
+     * @return the current state
+     */
+    public @NonNull State getState() {
+        return stateOf(state.get());
+    }
+
+    /**
+     * Checks if a call may be performed. A call let through while half-open is the probe and has to report its
+     * outcome via {@link #record(long)}, {@link #recordFailure()} or {@link #release()}.
+     *
+     * @return {@code true} if the call may be performed; {@code false} if it has to be bypassed
+     */
+    public boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        while (true) {
+            final long current = state.get();
+            final State currentState = stateOf(current);
+            if (currentState == State.CLOSED) {
+                return true;
+            }
+            // Reject calls while cooling down, or while a probe is in flight
+            final long now = now();
+            if (now - (current & PAYLOAD_MASK) < coolDownNanos) {
+                return false;
+            }
+            if (state.compareAndSet(current, pack(State.HALF_OPEN, now))) {
+                if (currentState != State.HALF_OPEN) {
+                    listener.accept(State.HALF_OPEN);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records a completed call, counting it as slow if it took at least the slow call threshold.
+     *
+     * @param durationNanos The duration of the call in nanoseconds.
+     */
+    public void record(final long durationNanos) {
+        onCall(slowCallNanos > 0L && durationNanos >= slowCallNanos);
+    }
+
+    /**
+     * Records a failed call.
+     */
+    public void recordFailure() {
+        onCall(true);
+    }
+
+    /**
+     * Releases a call which has been let through but did not perform the operation, so its outcome is unknown.
+     * If the call has been the probe, the next call probes instead.
+     */
+    public void release() {
+        if (!enabled) {
+            return;
+        }
+        final long current = state.get();
+        if (stateOf(current) == State.HALF_OPEN) {
+            state.compareAndSet(current, pack(State.HALF_OPEN, now() - coolDownNanos));
+        }
+    }
+
+    private void onCall(final boolean failed) {
+        if (!enabled) {
+            return;
+        }
+        while (true) {
+            final long current = state.get();
+            final long next;
+            switch (stateOf(current)) {
+                case OPEN:
+                    return;
+                case HALF_OPEN:
+                    next = failed ? pack(State.OPEN, now()) : CLOSED_EMPTY;
+                    break;
+                default:
+                    final long calls = (current >>> CALLS_SHIFT & COUNTER_MASK) + 1L;
+                    final long failures = (current & COUNTER_MASK) + (failed ? 1L : 0L);
+                    if (failures >= tripCount) {
+                        next = pack(State.OPEN, now());
+                    } else if (calls >= windowSize) {
+                        next = CLOSED_EMPTY;
+                    } else {
+                        next = calls << CALLS_SHIFT | failures;
+                    }
+            }
+            if (state.compareAndSet(current, next)) {
+                final State nextState = stateOf(next);
+                if (nextState != stateOf(current)) {
+                    listener.accept(nextState);
+                }
+                return;
+            }
+        }
+    }
+
+    private long now() {
+        return clock.getAsLong() - origin;
+    }
+
+    private static long pack(@NonNull final State state, final long payload) {
+        return (long) state.ordinal() << STATE_SHIFT | payload & PAYLOAD_MASK;
+    }
+
+    private static @NonNull State stateOf(final long packed) {
+        return STATES[(int) (packed >>> STATE_SHIFT)];
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.utils.ContentHash;
+import org.apache.commons.lang3.StringUtils;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The configuration of the AEM Environment Badge serialized for the client library, along with its content hash.
+ * <p>
+ * The document is served under its versioned location (e.g., {@code config.<hash>.json}). As the hash depends on the
+ * content only, all instances serving the same configuration produce the same location, and pages may reference it
+ * before the client library requests it.
+ *
+ * @param revision The configuration revision the document has been created for, {@code null} if no configuration is available.
+ * @param json     The serialized configuration.
+ * @param length   The length of the serialized configuration in bytes, encoded with {@code UTF-8}.
+ * @param hash     The hash of the serialized configuration.
+ */
+public record ConfigDocument(@Nullable Long revision, @NonNull String json, int length, @NonNull String hash) {
+
+    /**
+     * The path the configuration is served from, without selectors and extension.
+     */
+    public static final String PATH = "/bin/com/merkle/oss/aem/environment-badge/config";
+
+    /**
+     * The extension of the configuration.
+     */
+    public static final String EXTENSION = "json";
+
+    private static final String ENABLED_DOCUMENT_TITLE_PREFIX_KEY = "enableDocumentTitlePrefix";
+    private static final String DOCUMENT_TITLE_PREFIX_KEY = "documentTitlePrefix";
+    private static final String ENABLED_BADGE_KEY = "enableBadge";
+    private static final String BADGE_TITLE_KEY = "badgeTitle";
+    private static final String BADGE_BACKGROUND_COLOR_KEY = "badgeBackgroundColor";
+
+    // Disable HTML escaping is needed to prevent gson from escaping chars like '=' to '\u003D'
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /**
+     * The empty configuration, served if no configuration is available or the features are not visible to the user.
+     */
+    public static final ConfigDocument EMPTY = of(null, Collections.emptyMap());
+
+    /**
+     * Serializes the current configuration.
+     *
+     * @param configService The configuration service.
+     * @param revision      The configuration revision, read before the configuration values.
+     * @return The serialized configuration.
+     */
+    public static @NonNull ConfigDocument of(@NonNull final AEMEnvironmentBadgeConfigService configService, final long revision) {
+        // A sorted map keeps the serialization, and therefore the hash, independent of the instance
+        final Map<String, Object> configurationDto = new TreeMap<>();
+        configurationDto.put(ENABLED_DOCUMENT_TITLE_PREFIX_KEY, configService.isEnableDocumentTitlePrefix());
+        configurationDto.put(DOCUMENT_TITLE_PREFIX_KEY, StringUtils.defaultIfEmpty(configService.getDocumentTitlePrefix(), StringUtils.EMPTY));
+        configurationDto.put(ENABLED_BADGE_KEY, configService.isEnableBadge());
+        configurationDto.put(BADGE_TITLE_KEY, StringUtils.defaultIfEmpty(configService.getBadgeTitle(), StringUtils.EMPTY));
+        configurationDto.put(BADGE_BACKGROUND_COLOR_KEY, configService.getBadgeBackgroundColor());
+        return of(revision, configurationDto);
+    }
+
+    private static @NonNull ConfigDocument of(@Nullable final Long revision, @NonNull final Map<String, Object> configurationDto) {
+        final String json = GSON.toJson(configurationDto);
+        final byte[] encoded = json.getBytes(StandardCharsets.UTF_8);
+        return new ConfigDocument(revision, json, encoded.length, ContentHash.of(encoded));
+    }
+
+    /**
+     * @return The {@code ETag} of the serialized configuration.
+     */
+    public @NonNull String entityTag() {
+        return "\"" + hash + "\"";
+    }
+
+    /**
+     * @return The versioned location of the serialized configuration, e.g. {@code config.<hash>.json}.
+     */
+    public @NonNull String location() {
+        return PATH + "." + hash + "." + EXTENSION;
+    }
+
+}
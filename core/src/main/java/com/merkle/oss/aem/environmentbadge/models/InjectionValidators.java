@@ -0,0 +1,92 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * The HTTP validators of an injected HTML fragment, folded into the validators of the page it is injected into.
+ * <p>
+ * A page served with an injected fragment must be revalidated whenever either the page or the fragment changes.
+ * Therefore, the version of the fragment is appended to the entity tag of the page (e.g., {@code "abc"} becomes
+ * {@code "abc-badge-1a2b3c4d"}) and its last modification date is the later of both dates. Conditional requests
+ * are unfolded again before they reach the page, so the page can answer them as usual.
+ *
+ * @param version      The version of the fragment, e.g., a hash of its markup.
+ * @param lastModified The last modification date of the fragment, in milliseconds since the epoch, {@code 0} if
+ *                     unknown, leaving the date of the page as is.
+ */
+public record InjectionValidators(@NonNull String version, long lastModified) {
+
+    private static final String VERSION_PREFIX = "-badge-";
+
+    private static final String ANY_ENTITY_TAG = "*";
+
+    private static final String ENTITY_TAG_QUOTE = "\"";
+
+    /**
+     * Appends the fragment version to the given entity tag, preserving its weakness indicator.
+     *
+     * @param entityTag The entity tag of the page, e.g., {@code W/"abc"}.
+     * @return The folded entity tag, e.g., {@code W/"abc-badge-1a2b3c4d"}.
+     */
+    public @NonNull String foldEntityTag(@NonNull final String entityTag) {
+        final String trimmedEntityTag = entityTag.trim();
+        if (Strings.CS.endsWith(trimmedEntityTag, ENTITY_TAG_QUOTE) && trimmedEntityTag.indexOf('"') < trimmedEntityTag.length() - 1) {
+            return StringUtils.removeEnd(trimmedEntityTag, ENTITY_TAG_QUOTE) + VERSION_PREFIX + version + ENTITY_TAG_QUOTE;
+        }
+        return trimmedEntityTag + VERSION_PREFIX + version;
+    }
+
+    /**
+     * Removes the fragment version from the entity tags of an {@code If-None-Match} header. Entity tags folded
+     * with another fragment version, or not folded at all, are dropped, as the page is to be sent in full.
+     *
+     * @param ifNoneMatch The {@code If-None-Match} header value, a comma separated list of entity tags.
+     * @return The unfolded header value, {@code null} if no entity tag is left.
+     */
+    public @Nullable String unfoldEntityTags(@Nullable final String ifNoneMatch) {
+        if (StringUtils.isBlank(ifNoneMatch)) {
+            return null;
+        }
+        if (ANY_ENTITY_TAG.equals(ifNoneMatch.trim())) {
+            return ANY_ENTITY_TAG;
+        }
+
+        final String foldedVersion = VERSION_PREFIX + version;
+        final String unfolded = Arrays.stream(StringUtils.split(ifNoneMatch, ','))
+                .map(String::trim)
+                .filter(entityTag -> Strings.CS.endsWith(entityTag, foldedVersion + ENTITY_TAG_QUOTE) || Strings.CS.endsWith(entityTag, foldedVersion))
+                .map(entityTag -> {
+                    final int versionIndex = entityTag.lastIndexOf(foldedVersion);
+                    return entityTag.substring(0, versionIndex) + entityTag.substring(versionIndex + foldedVersion.length());
+                })
+                .collect(Collectors.joining(", "));
+        return unfolded.isEmpty() ? null : unfolded;
+    }
+
+    /**
+     * Gets the later of the last modification dates of the page and the fragment.
+     *
+     * @param pageLastModified The last modification date of the page, in milliseconds since the epoch.
+     * @return The folded last modification date, in milliseconds since the epoch.
+     */
+    public long foldLastModified(final long pageLastModified) {
+        return Math.max(pageLastModified, lastModified);
+    }
+
+    /**
+     * Checks if the fragment has been modified after the date of an {@code If-Modified-Since} header.
+     *
+     * @param ifModifiedSince The {@code If-Modified-Since} header value, in milliseconds since the epoch.
+     * @return {@code true} if the fragment has been modified after the given date; otherwise {@code false}.
+     */
+    public boolean isModifiedSince(final long ifModifiedSince) {
+        return lastModified > ifModifiedSince;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram aggregating non-negative latency values (e.g., microseconds).
+ * <p>
+ * Values are folded into power-of-two buckets, so recording a value is a constant number of atomic
+ * increments without any locking or allocation. Percentiles are approximated by the upper bound of
+ * the bucket containing the requested rank, which is sufficient to spot regressions while keeping
+ * the memory footprint fixed regardless of the number of recorded values.
+ * </p>
+ *
+ * @apiNote Snapshots are not atomic across all counters. Concurrent recordings may therefore be
+ * partially visible in a snapshot, which is acceptable for monitoring purposes.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = Long.SIZE;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Records a single value. Negative values are recorded as {@code 0}.
+     *
+     * @param value The value to record.
+     */
+    public void record(final long value) {
+        final long normalizedValue = Math.max(0L, value);
+        buckets.incrementAndGet(bucketOf(normalizedValue));
+        count.increment();
+        sum.add(normalizedValue);
+        max.accumulate(normalizedValue);
+    }
+
+    /**
+     * Adds all values recorded by the given histogram to this histogram.
+     *
+     * @param other The histogram whose values to add.
+     */
+    public void add(@NonNull final LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            final long bucketCount = other.buckets.get(i);
+            if (bucketCount != 0L) {
+                buckets.addAndGet(i, bucketCount);
+            }
+        }
+        count.add(other.getCount());
+        sum.add(other.getSum());
+        max.accumulate(other.getMax());
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The number of recorded values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of all recorded values.
+     *
+     * @return The sum of all recorded values.
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return The largest recorded value, {@code 0} if nothing has been recorded yet.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Approximates the value below which the given fraction of recorded values fall.
+     *
+     * @param fraction The requested fraction between {@code 0} and {@code 1} (e.g., {@code 0.99} for the p99).
+     * @return The upper bound of the bucket containing the requested rank, capped by {@link #getMax()}.
+     * Returns {@code 0} if nothing has been recorded yet.
+     */
+    public long getPercentile(final double fraction) {
+        final long total = getCount();
+        if (total == 0) {
+            return 0L;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(Math.min(1.0d, Math.max(0.0d, fraction)) * total));
+        long cumulative = 0L;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += buckets.get(i);
+            if (cumulative >= rank) {
+                return Math.min(upperBoundOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Creates a serializable snapshot of the current histogram state.
+     *
+     * @return A map containing {@code count}, {@code mean}, {@code p50}, {@code p90}, {@code p99} and {@code max}.
+     */
+    public @NonNull Map<String, Object> toSnapshot() {
+        final long currentCount = getCount();
+        final Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", currentCount);
+        snapshot.put("mean", currentCount == 0 ? 0L : getSum() / currentCount);
+        snapshot.put("p50", getPercentile(0.5d));
+        snapshot.put("p90", getPercentile(0.9d));
+        snapshot.put("p99", getPercentile(0.99d));
+        snapshot.put("max", getMax());
+        return snapshot;
+    }
+
+    private static int bucketOf(final long value) {
+        return Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(value));
+    }
+
+    private static long upperBoundOf(final int bucket) {
+        return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+/**
+ * Performance statistics of the AEM Environment Badge within a rolling time window.
+ *
+ * @param injections                   The number of pages buffered by the CRX filter.
+ * @param injectionTimeP99Micros       The 99th percentile of the time the badge itself cost a buffered page, not
+ *                                     including rendering the page, in microseconds.
+ * @param bytesBufferedP99             The 99th percentile of the number of bytes buffered per page.
+ * @param bytesBufferedMax             The largest number of bytes buffered for a page.
+ * @param configRequests               The number of requests served by the configuration servlet.
+ * @param configFailures               The number of requests the configuration servlet failed to serve.
+ * @param shadowInjections             The number of pages measured by the CRX filter in shadow mode.
+ * @param shadowInjectionTimeP99Micros The 99th percentile of the estimated injection time of a page measured in
+ *                                     shadow mode, in microseconds.
+ * @param shadowBytesBufferedP99       The 99th percentile of the number of bytes which would have been buffered per
+ *                                     page measured in shadow mode.
+ */
+public record PerformanceStatistics(long injections, long injectionTimeP99Micros, long bytesBufferedP99, long bytesBufferedMax,
+                                    long configRequests, long configFailures,
+                                    long shadowInjections, long shadowInjectionTimeP99Micros, long shadowBytesBufferedP99) {
+
+    /**
+     * Statistics without any recorded request.
+     */
+    public static final PerformanceStatistics EMPTY = new PerformanceStatistics(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+
+    /**
+     * @return The fraction of requests the configuration servlet failed to serve, {@code 0} if none has been served.
+     */
+    public double configErrorRate() {
+        return configRequests == 0L ? 0.0d : (double) configFailures / configRequests;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.jspecify.annotations.NonNull;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * A lock-free histogram aggregating the values recorded within a rolling time window only.
+ * <p>
+ * The window is divided into a fixed number of slices, each folding its values into a {@link LatencyHistogram}.
+ * Slices are reused in a ring: the first value recorded after a slice expired replaces it by an empty one, so
+ * recording a value stays a constant number of atomic operations. A snapshot merges the slices of the window,
+ * which therefore covers at least the window minus one slice and at most the whole window.
+ * </p>
+ *
+ * @apiNote Values recorded concurrently with the replacement of an expired slice may be lost, which is acceptable
+ * for monitoring purposes.
+ */
+public class RollingLatencyHistogram {
+
+    private final AtomicReferenceArray<Slice> slices;
+
+    private final long sliceNanos;
+
+    private final LongSupplier clock;
+
+    /**
+     * Creates a histogram reading the time from {@link System#nanoTime()}.
+     *
+     * @param window     The time window values are aggregated for.
+     * @param sliceCount The number of slices the window is divided into.
+     */
+    public RollingLatencyHistogram(@NonNull final Duration window, final int sliceCount) {
+        this(window, sliceCount, System::nanoTime);
+    }
+
+    RollingLatencyHistogram(@NonNull final Duration window, final int sliceCount, @NonNull final LongSupplier clock) {
+        final int count = Math.max(1, sliceCount);
+        this.slices = new AtomicReferenceArray<>(count);
+        this.sliceNanos = Math.max(1L, window.toNanos() / count);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Records a single value. Negative values are recorded as {@code 0}.
+     *
+     * @param value The value to record.
+     */
+    public void record(final long value) {
+        final long epoch = Math.floorDiv(clock.getAsLong(), sliceNanos);
+        final int index = (int) Math.floorMod(epoch, slices.length());
+        Slice slice = slices.get(index);
+        if (slice == null || slice.epoch() != epoch) {
+            final Slice created = new Slice(epoch, new LatencyHistogram());
+            slice = slices.compareAndSet(index, slice, created) ? created : slices.get(index);
+        }
+        slice.histogram().record(value);
+    }
+
+    /**
+     * Merges the values recorded within the window into a new histogram.
+     *
+     * @return The values recorded within the window.
+     */
+    public @NonNull LatencyHistogram snapshot() {
+        final long epoch = Math.floorDiv(clock.getAsLong(), sliceNanos);
+        final LatencyHistogram snapshot = new LatencyHistogram();
+        for (int i = 0; i < slices.length(); i++) {
+            final Slice slice = slices.get(i);
+            if (slice != null && epoch - slice.epoch() < slices.length()) {
+                snapshot.add(slice.histogram());
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * A slice of the window.
+     *
+     * @param epoch     The number of slice durations elapsed on the clock when the slice started.
+     * @param histogram The values recorded within the slice.
+     */
+    private record Slice(long epoch, @NonNull LatencyHistogram histogram) {
+    }
+
+}
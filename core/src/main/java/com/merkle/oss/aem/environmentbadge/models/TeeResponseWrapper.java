@@ -0,0 +1,290 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jspecify.annotations.NonNull;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+
+/**
+ * A {@link HttpServletResponseWrapper} streaming all output unchanged to the wrapped response while keeping a copy of it.
+ * <p>
+ * In contrast to the {@link CharResponseWrapper}, the output is neither delayed nor modified, so the wrapper can be
+ * applied to live traffic to observe what capturing the response would involve. Text written via {@link #getWriter()}
+ * is copied as characters and only encoded by {@link #getCopiedBytes(Charset)}, so the encoding can be moved off the
+ * request thread.
+ * </p>
+ *
+ * @apiNote The copy is bounded by a maximum length. Responses exceeding it, as well as responses written to via both
+ * the writer and the output stream, are streamed as usual, but their copy is incomplete and discarded.
+ */
+public class TeeResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int maxCopyLength;
+
+    private final CopyBuffer bytes = new CopyBuffer();
+
+    private final StringBuilder chars = new StringBuilder();
+
+    private PrintWriter writer;
+
+    private ServletOutputStream outputStream;
+
+    private boolean incomplete;
+
+    /**
+     * Creates a new response wrapper copying up to the given number of bytes or characters.
+     *
+     * @param response      the original {@link HttpServletResponse} to wrap
+     * @param maxCopyLength the maximum number of bytes or characters copied
+     * @throws IllegalArgumentException if {@code response} is {@code null}
+     */
+    public TeeResponseWrapper(@NonNull final HttpServletResponse response, final int maxCopyLength) {
+        super(response);
+        this.maxCopyLength = Math.max(0, maxCopyLength);
+    }
+
+    /**
+     * Returns a {@link PrintWriter} writing to the writer of the wrapped response and to the copy.
+     *
+     * @return the copying writer
+     * @throws IOException if the writer of the wrapped response cannot be obtained
+     */
+    @Override
+    public @NonNull PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new TeeWriter(super.getWriter()));
+        }
+        return writer;
+    }
+
+    /**
+     * Returns a {@link ServletOutputStream} writing to the output stream of the wrapped response and to the copy.
+     *
+     * @return the copying output stream
+     * @throws IOException if the output stream of the wrapped response cannot be obtained
+     */
+    @Override
+    public @NonNull ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new TeeOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    /**
+     * Flushes the copying writer before the wrapped response.
+     *
+     * @throws IOException if flushing the wrapped response fails
+     */
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    /**
+     * Clears the buffer of the wrapped response along with the copy.
+     */
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        clearCopy();
+    }
+
+    /**
+     * Clears the status, headers and buffer of the wrapped response along with the copy.
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        clearCopy();
+    }
+
+    private void clearCopy() {
+        if (writer != null) {
+            writer.flush();
+        }
+        bytes.reset();
+        chars.setLength(0);
+        incomplete = false;
+    }
+
+    /**
+     * Checks if the copy contains all output written to this wrapper.
+     *
+     * @return {@code true} if output has been written and copied completely; otherwise {@code false}
+     */
+    public boolean isCopyComplete() {
+        if (writer != null) {
+            writer.flush();
+        }
+        return !incomplete && (bytes.size() > 0 || !chars.isEmpty()) && (bytes.size() == 0 || chars.isEmpty());
+    }
+
+    /**
+     * Returns the copy of the output, encoding text written via the writer with the given character encoding.
+     * The wrapped response is not accessed, so this method may be called on another thread once the response is
+     * complete, even if the container recycled the wrapped response already.
+     *
+     * @param charset the character encoding of the response, see {@link #getCopiedCharset()}
+     * @return the copied output, only the first {@link #getCopiedLength()} bytes are valid
+     */
+    public byte @NonNull [] getCopiedBytes(@NonNull final Charset charset) {
+        if (!chars.isEmpty()) {
+            final byte[] encoded = chars.toString().getBytes(charset);
+            chars.setLength(0);
+            bytes.reset();
+            bytes.write(encoded, 0, encoded.length);
+        }
+        return bytes.array();
+    }
+
+    /**
+     * Returns the number of valid bytes of {@link #getCopiedBytes(Charset)}, to be called after it.
+     *
+     * @return the number of copied bytes
+     */
+    public int getCopiedLength() {
+        return bytes.size();
+    }
+
+    /**
+     * Returns the character encoding of the copied output.
+     *
+     * @return the character encoding of the response, {@code ISO-8859-1} if none or an unsupported one is set
+     */
+    public @NonNull Charset getCopiedCharset() {
+        final String characterEncoding = getCharacterEncoding();
+        if (StringUtils.isBlank(characterEncoding)) {
+            return StandardCharsets.ISO_8859_1;
+        }
+        try {
+            return Charset.forName(characterEncoding);
+        } catch (final IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return StandardCharsets.ISO_8859_1;
+        }
+    }
+
+    private boolean reserve(final int length) {
+        if (incomplete || (long) bytes.size() + chars.length() + length > maxCopyLength) {
+            incomplete = true;
+            bytes.reset();
+            chars.setLength(0);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@link ByteArrayOutputStream} granting access to its internal array to avoid copying it.
+     */
+    private static final class CopyBuffer extends ByteArrayOutputStream {
+
+        private byte[] array() {
+            return buf;
+        }
+
+    }
+
+    /**
+     * {@link Writer} writing to the writer of the wrapped response and appending to the copy.
+     */
+    private final class TeeWriter extends Writer {
+
+        private final Writer delegate;
+
+        private TeeWriter(@NonNull final Writer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(final char @NonNull [] buffer, final int offset, final int length) throws IOException {
+            delegate.write(buffer, offset, length);
+            if (reserve(length)) {
+                chars.append(buffer, offset, length);
+            }
+        }
+
+        @Override
+        public void write(@NonNull final String string, final int offset, final int length) throws IOException {
+            delegate.write(string, offset, length);
+            if (reserve(length)) {
+                chars.append(string, offset, offset + length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+    }
+
+    /**
+     * {@link ServletOutputStream} writing to the output stream of the wrapped response and to the copy.
+     */
+    private final class TeeOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        private TeeOutputStream(@NonNull final ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            delegate.write(b);
+            if (reserve(1)) {
+                bytes.write(b);
+            }
+        }
+
+        @Override
+        public void write(final byte @NonNull [] buffer, final int offset, final int length) throws IOException {
+            delegate.write(buffer, offset, length);
+            if (reserve(length)) {
+                bytes.write(buffer, offset, length);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(@NonNull final WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+
+    }
+
+}
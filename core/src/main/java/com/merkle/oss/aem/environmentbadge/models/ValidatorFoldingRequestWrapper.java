@@ -0,0 +1,97 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.http.HttpHeaders;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A {@link HttpServletRequestWrapper} unfolding the {@link InjectionValidators} of an injected HTML fragment from
+ * the {@code If-None-Match} and {@code If-Modified-Since} headers of a conditional request.
+ * <p>
+ * Downstream servlets or JSPs therefore evaluate the conditional request against their own validators. Entity tags
+ * of another fragment version and dates before the last modification of the fragment are removed, so the page is
+ * sent in full whenever the fragment changed, even though the page itself did not.
+ * </p>
+ *
+ * @see ValidatorFoldingResponseWrapper
+ */
+public class ValidatorFoldingRequestWrapper extends HttpServletRequestWrapper {
+
+    private final InjectionValidators validators;
+
+    /**
+     * Creates a new request wrapper unfolding the given validators.
+     *
+     * @param request    the original {@link HttpServletRequest} to wrap
+     * @param validators the validators of the injected fragment
+     * @throws IllegalArgumentException if {@code request} is {@code null}
+     */
+    public ValidatorFoldingRequestWrapper(@NonNull final HttpServletRequest request, @NonNull final InjectionValidators validators) {
+        super(request);
+        this.validators = Objects.requireNonNull(validators);
+    }
+
+    /**
+     * Checks if the given request is a conditional request, which has to be wrapped.
+     *
+     * @param request the request to check
+     * @return {@code true} if the request contains an {@code If-None-Match} or {@code If-Modified-Since} header; otherwise {@code false}
+     */
+    public static boolean isConditional(@NonNull final HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    @Override
+    public @Nullable String getHeader(final String name) {
+        if (Strings.CI.equals(name, HttpHeaders.IF_NONE_MATCH)) {
+            final Enumeration<String> values = super.getHeaders(name);
+            return validators.unfoldEntityTags(values == null ? super.getHeader(name) : String.join(", ", Collections.list(values)));
+        }
+        if (Strings.CI.equals(name, HttpHeaders.IF_MODIFIED_SINCE) && isFragmentModified()) {
+            return null;
+        }
+        return super.getHeader(name);
+    }
+
+    @Override
+    public @NonNull Enumeration<String> getHeaders(final String name) {
+        if (Strings.CI.equals(name, HttpHeaders.IF_NONE_MATCH) || Strings.CI.equals(name, HttpHeaders.IF_MODIFIED_SINCE)) {
+            final String value = getHeader(name);
+            return Collections.enumeration(value == null ? List.of() : List.of(value));
+        }
+        return super.getHeaders(name);
+    }
+
+    @Override
+    public @NonNull Enumeration<String> getHeaderNames() {
+        final List<String> headerNames = Collections.list(super.getHeaderNames());
+        headerNames.removeIf(headerName -> getHeader(headerName) == null);
+        return Collections.enumeration(headerNames);
+    }
+
+    @Override
+    public long getDateHeader(final String name) {
+        if (Strings.CI.equals(name, HttpHeaders.IF_MODIFIED_SINCE) && isFragmentModified()) {
+            return -1L;
+        }
+        return super.getDateHeader(name);
+    }
+
+    private boolean isFragmentModified() {
+        try {
+            final long ifModifiedSince = super.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince >= 0 && validators.isModifiedSince(ifModifiedSince);
+        } catch (final IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.apache.commons.lang3.Strings;
+import org.apache.http.HttpHeaders;
+import org.jspecify.annotations.NonNull;
+
+import javax.servlet.http.HttpServletResponse;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * A {@link CharResponseWrapper} folding the {@link InjectionValidators} of an injected HTML fragment into the
+ * {@code ETag} and {@code Last-Modified} headers set by downstream servlets or JSPs.
+ * <p>
+ * The headers are folded regardless of whether the response is captured, so the validators sent to the client
+ * are consistent with the (unfolded) conditional requests handled by {@link ValidatorFoldingRequestWrapper}.
+ * </p>
+ *
+ * @see ValidatorFoldingRequestWrapper
+ */
+public class ValidatorFoldingResponseWrapper extends CharResponseWrapper {
+
+    private final InjectionValidators validators;
+
+    /**
+     * Creates a new response wrapper folding the given validators and capturing all output if the given condition is met.
+     *
+     * @param response         the original {@link HttpServletResponse} to wrap
+     * @param validators       the validators of the injected fragment
+     * @param captureCondition the condition evaluated against this wrapper, e.g., checking the status and content type
+     * @throws IllegalArgumentException if {@code response} is {@code null}
+     */
+    public ValidatorFoldingResponseWrapper(@NonNull final HttpServletResponse response, @NonNull final InjectionValidators validators,
+                                           @NonNull final Predicate<? super HttpServletResponse> captureCondition) {
+        super(response, captureCondition);
+        this.validators = Objects.requireNonNull(validators);
+    }
+
+    @Override
+    public void setHeader(final String name, final String value) {
+        if (value != null && Strings.CI.equals(name, HttpHeaders.ETAG)) {
+            super.setHeader(name, validators.foldEntityTag(value));
+        } else if (value != null && Strings.CI.equals(name, HttpHeaders.LAST_MODIFIED) && parseDate(value) >= 0) {
+            super.setDateHeader(name, validators.foldLastModified(parseDate(value)));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(final String name, final String value) {
+        if (value != null && Strings.CI.equals(name, HttpHeaders.ETAG)) {
+            super.addHeader(name, validators.foldEntityTag(value));
+        } else if (value != null && Strings.CI.equals(name, HttpHeaders.LAST_MODIFIED) && parseDate(value) >= 0) {
+            super.addDateHeader(name, validators.foldLastModified(parseDate(value)));
+        } else {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setDateHeader(final String name, final long date) {
+        super.setDateHeader(name, Strings.CI.equals(name, HttpHeaders.LAST_MODIFIED) ? validators.foldLastModified(date) : date);
+    }
+
+    @Override
+    public void addDateHeader(final String name, final long date) {
+        super.addDateHeader(name, Strings.CI.equals(name, HttpHeaders.LAST_MODIFIED) ? validators.foldLastModified(date) : date);
+    }
+
+    private static long parseDate(@NonNull final String value) {
+        try {
+            return DateTimeFormatter.RFC_1123_DATE_TIME.parse(value.trim(), Instant::from).toEpochMilli();
+        } catch (final DateTimeParseException e) {
+            return -1L;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.merkle.oss.aem.environmentbadge.services;
 
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 
 /**
  * Service interface for retrieving configuration settings related to the AEM Environment Badge.
@@ -46,4 +47,66 @@ public interface AEMEnvironmentBadgeConfigService {
      */
     @NonNull String getBadgeBackgroundColor();
 
+    /**
+     * Retrieves the values of the tokens identifying the cluster node serving the request, e.g. {@code ${hostname}},
+     * which may be contained in the badge title and the document title prefix. The tokens are not substituted into
+     * the configuration, which is therefore identical on all cluster nodes; the browser substitutes them instead.
+     *
+     * @return The values by token name encoded as {@code application/x-www-form-urlencoded}, e.g.
+     * {@code hostname=author-1&run_modes=author%2Cdev}, or an empty string if none is known.
+     */
+    @NonNull String getNodeTokens();
+
+    /**
+     * Retrieves the revision of the configuration. The revision changes whenever the configuration
+     * is modified, allowing consumers to cache values derived from the configuration.
+     *
+     * @return The current configuration revision.
+     */
+    long getRevision();
+
+    /**
+     * Retrieves the last modification date of the configuration, i.e. the {@code jcr:lastModified} or
+     * {@code cq:lastModified} date of the repository configuration. Unlike the revision, the date is identical on
+     * all cluster nodes and survives restarts, so it may be used as an HTTP validator.
+     *
+     * @return The last modification date in milliseconds since the epoch, {@code 0} if unknown, e.g. for configurations
+     * defined by OSGi only.
+     */
+    long getLastModified();
+
+    /**
+     * Checks if the time spent by the environment badge on a request is reported to the browser via a
+     * {@code Server-Timing} response header, e.g. for inspecting a single slow page in the developer tools.
+     *
+     * @return {@code true} if the {@code Server-Timing} header is added; otherwise {@code false}.
+     */
+    boolean isEnableServerTiming();
+
+    /**
+     * Checks if the CRX filter runs in shadow mode: pages are streamed unchanged, while the cost of capturing and
+     * injecting the badge is measured on a sample of them, e.g. before enabling the badge on a heavily used instance.
+     *
+     * @return {@code true} if the CRX filter only measures the injection; otherwise {@code false}.
+     */
+    boolean isShadowMode();
+
+    /**
+     * Retrieves the percentage of pages measured in shadow mode.
+     *
+     * @return The percentage of pages measured, between {@code 0} and {@code 100}.
+     */
+    int getShadowModeSamplePercent();
+
+    /**
+     * Checks if the badge and the document title prefix are visible to the given user. If the features are targeted
+     * to certain groups, only their members see them; otherwise they are visible to all users.
+     * <p>
+     * Implementations cache the group memberships, so this check is cheap enough to be run on every request.
+     *
+     * @param userId The ID of the user, {@code null} if unknown.
+     * @return {@code true} if the features are visible to the user; otherwise {@code false}.
+     */
+    boolean isVisibleTo(@Nullable String userId);
+
 }
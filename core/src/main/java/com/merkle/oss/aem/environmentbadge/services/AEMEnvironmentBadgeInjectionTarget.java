@@ -0,0 +1,52 @@
+package com.merkle.oss.aem.environmentbadge.services;
+
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Service provider interface describing a page into which the AEM Environment Badge markup is injected
+ * server-side, such as the CRXDE Lite or the Package Manager console.
+ * <p>
+ * Implementations are registered as OSGi services and picked up dynamically by the CRX filter, which
+ * dispatches each request to the target registered for the exact request URI.
+ */
+public interface AEMEnvironmentBadgeInjectionTarget {
+
+    /**
+     * The content type of the pages the badge is injected into by default.
+     */
+    String DEFAULT_CONTENT_TYPE = "text/html";
+
+    /**
+     * The markup before which the badge is injected by default.
+     */
+    String DEFAULT_ANCHOR = "</body></html>";
+
+    /**
+     * Retrieves the request URI of the page the badge is injected into.
+     *
+     * @return The request URI (e.g., {@code /crx/de/index.jsp}).
+     */
+    @NonNull String getPath();
+
+    /**
+     * Retrieves the content type of the page the badge is injected into. Responses declaring
+     * a different content type are passed through unmodified.
+     *
+     * @return The content type, defaults to {@link #DEFAULT_CONTENT_TYPE}.
+     */
+    default @NonNull String getContentType() {
+        return DEFAULT_CONTENT_TYPE;
+    }
+
+    /**
+     * Retrieves the markup before which the badge is injected. The last occurrence within the tail of the page is used.
+     * Its tags are matched case-insensitively, tolerating whitespace and comments in between. Pages not containing
+     * the anchor are passed through unmodified.
+     *
+     * @return The insertion anchor, defaults to {@link #DEFAULT_ANCHOR}.
+     */
+    default @NonNull String getAnchor() {
+        return DEFAULT_ANCHOR;
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.merkle.oss.aem.environmentbadge.services;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.Map;
+
+/**
+ * Service interface for collecting the AEM Environment Badge configurations served by a set of instances,
+ * e.g. all author and publish instances of a project, into a single inventory.
+ */
+public interface AEMEnvironmentBadgeInventoryService {
+
+    /**
+     * Retrieves the inventory of the configured instances.
+     * <p>
+     * The inventory is cached. Instances which could not be reached when it was last collected are reported with
+     * the configuration they served last, marked as stale, or as unavailable if they have never been reached.
+     *
+     * @return The inventory, listing the configuration, status and age of each instance.
+     */
+    @NonNull Map<String, Object> getInventory();
+
+}
@@ -0,0 +1,30 @@
+package com.merkle.oss.aem.environmentbadge.services;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.Map;
+
+/**
+ * Service interface for aggregating performance measurements related to the AEM Environment Badge.
+ * <p>
+ * Implementations keep the measurements in memory only, folding them into fixed size histograms,
+ * so the costs of the badge can be inspected without an external analytics service.
+ */
+public interface AEMEnvironmentBadgeMetricsService {
+
+    /**
+     * Records a single measurement for the given metric.
+     *
+     * @param metric         The name of the metric (e.g., {@code client.badge-insertion.chrome}).
+     * @param durationMicros The measured duration in microseconds.
+     */
+    void record(@NonNull String metric, long durationMicros);
+
+    /**
+     * Retrieves a snapshot of all metrics recorded so far.
+     *
+     * @return A map of metric names to their histogram snapshot, sorted by metric name.
+     */
+    @NonNull Map<String, Map<String, Object>> getSnapshot();
+
+}
@@ -0,0 +1,47 @@
+package com.merkle.oss.aem.environmentbadge.services;
+
+import com.merkle.oss.aem.environmentbadge.models.PerformanceStatistics;
+import org.jspecify.annotations.NonNull;
+
+/**
+ * Service interface for aggregating the server-side overhead of the AEM Environment Badge.
+ * <p>
+ * Implementations keep rolling statistics in memory only, so regressions of the overhead, e.g. after a deployment,
+ * can be detected by a health check without an external monitoring service.
+ */
+public interface AEMEnvironmentBadgeStatisticsService {
+
+    /**
+     * Records a page buffered by the CRX filter.
+     *
+     * @param injectionNanos The time the badge itself cost the page, i.e. growing the capture buffer, searching the
+     *                       anchor, splicing the badge and writing the page back, in nanoseconds. The time spent
+     *                       rendering the page is not included.
+     * @param bytesBuffered  The number of bytes buffered.
+     */
+    void recordInjection(long injectionNanos, long bytesBuffered);
+
+    /**
+     * Records a page measured by the CRX filter in shadow mode, kept apart from the pages actually buffered.
+     *
+     * @param injectionNanos The time searching the anchor and splicing the badge into a copy of the page took, in
+     *                       nanoseconds.
+     * @param bytesBuffered  The number of bytes which would have been buffered.
+     */
+    void recordShadowInjection(long injectionNanos, long bytesBuffered);
+
+    /**
+     * Records a request served by the configuration servlet.
+     *
+     * @param failed Whether the servlet failed to serve the request.
+     */
+    void recordConfigRequest(boolean failed);
+
+    /**
+     * Retrieves the statistics of the requests recorded within the rolling time window.
+     *
+     * @return The statistics.
+     */
+    @NonNull PerformanceStatistics getStatistics();
+
+}
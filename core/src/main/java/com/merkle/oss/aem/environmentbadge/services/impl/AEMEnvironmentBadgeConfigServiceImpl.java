@@ -1,12 +1,32 @@
 package com.merkle.oss.aem.environmentbadge.services.impl;
 
 import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.utils.ConfigSubstitutionHelper;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.api.security.user.Authorizable;
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.UserManager;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.settings.SlingSettingsService;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
@@ -14,13 +34,57 @@ import org.osgi.service.metatype.annotations.Option;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.jcr.RepositoryException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Arrays;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 /**
  * Component implementing the {@link AEMEnvironmentBadgeConfigService}.
  * <p>
  * This service manages the configuration for the AEM environment badge component,
  * retrieving settings defined via the OSGi Configuration console ({@code sling:OsgiConfig} files).
+ * <p>
+ * Optionally, the settings can be overridden by the properties of a repository resource (e.g., below {@code /conf}),
+ * allowing the badge to be changed without redeploying OSGi configurations. The resource is read once into an
+ * immutable in-memory snapshot, which is refreshed only when a {@link ResourceChangeListener} reports a change of
+ * the resource, debounced to coalesce bursts of changes. Reads on the request path therefore never touch the
+ * repository, while changes made on any cluster node take effect within seconds.
+ * <p>
+ * Whenever a new snapshot is taken, an invalidation request is optionally sent to the configured dispatcher flush
+ * endpoints by a {@link DispatcherFlusher}, so the configuration may be cached by a dispatcher in front of the instance.
+ * <p>
+ * Optionally, the features are only visible to the members of certain groups. The membership of each user is resolved
+ * once via the repository and kept in a bounded {@link GroupMembershipCache}, which is invalidated whenever a group
+ * changes, so requests of known users never touch the repository.
+ * <p>
+ * The badge title and the document title prefix may contain tokens identifying the cluster node, e.g.
+ * {@code ${hostname}}, {@code ${instance_id}} or {@code ${run_modes}}. They are resolved once on activation, but
+ * not substituted into the snapshot: the served configuration and its hash stay identical on all cluster nodes, while
+ * the values are handed to the browser separately (see {@link #getNodeTokens()}) and substituted there.
  */
 @Component(
         service = AEMEnvironmentBadgeConfigService.class,
@@ -32,29 +96,142 @@ public class AEMEnvironmentBadgeConfigServiceImpl implements AEMEnvironmentBadge
 
     private static final Logger LOG = LoggerFactory.getLogger(AEMEnvironmentBadgeConfigServiceImpl.class);
 
-    private AEMEnvironmentBadgeConfig config;
+    private static final AtomicLong REVISION_SEQUENCE = new AtomicLong();
+
+    /**
+     * The sub-service name used to read the repository configuration, to be mapped to a service user with read access.
+     */
+    static final String SUBSERVICE_NAME = "config-reader";
+
+    /**
+     * The path below which changes of groups invalidate the cached group memberships.
+     */
+    static final String GROUPS_PATH = "/home/groups";
+
+    private static final String PROPERTY_ENABLE_DOCUMENT_TITLE_PREFIX = "enableDocumentTitlePrefix";
+    private static final String PROPERTY_DOCUMENT_TITLE_PREFIX = "documentTitlePrefix";
+    private static final String PROPERTY_ENABLE_BADGE = "enableBadge";
+    private static final String PROPERTY_BADGE_TITLE = "badgeTitle";
+    private static final String PROPERTY_BADGE_BACKGROUND_COLOR = "badgeBackgroundColor";
+    private static final String PROPERTY_JCR_LAST_MODIFIED = "jcr:lastModified";
+    private static final String PROPERTY_CQ_LAST_MODIFIED = "cq:lastModified";
+
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private ResourceResolverFactory resourceResolverFactory;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private SlingSettingsService slingSettingsService;
+
+    private volatile String nodeTokens = StringUtils.EMPTY;
+
+    private volatile AEMEnvironmentBadgeConfig config;
+
+    private volatile ConfigSnapshot snapshot;
+
+    private ScheduledExecutorService refreshExecutor;
+
+    private ServiceRegistration<ResourceChangeListener> listenerRegistration;
+
+    private volatile DispatcherFlusher dispatcherFlusher;
+
+    private volatile GroupMembershipCache groupMembershipCache;
+
+    private ServiceRegistration<ResourceChangeListener> groupListenerRegistration;
 
     /**
      * Activates or modifies the service, retrieving the configuration parameters
-     * from the OSGi Configuration.
+     * from the OSGi Configuration and, if enabled, from the repository.
+     * <p>
+     * On modification, the group membership cache, the listeners and the dispatcher flusher of the new configuration
+     * are set up before they replace the previous ones, which are released only afterwards. Requests served during a
+     * reconfiguration therefore see either configuration, but never none, e.g. the features visible to all users.
      *
-     * @param config The injected configuration object generated by the Metatype service.
+     * @param config        The injected configuration object generated by the Metatype service.
+     * @param bundleContext The bundle context used to register the listener for repository changes.
      */
     @Activate
     @Modified
-    protected void activate(@NonNull final AEMEnvironmentBadgeConfig config) {
+    protected void activate(@NonNull final AEMEnvironmentBadgeConfig config, @NonNull final BundleContext bundleContext) {
         Objects.requireNonNull(config);
+        Objects.requireNonNull(bundleContext);
+
+        final ServiceRegistration<ResourceChangeListener> previousListenerRegistration = listenerRegistration;
+        final ServiceRegistration<ResourceChangeListener> previousGroupListenerRegistration = groupListenerRegistration;
+        final ScheduledExecutorService previousRefreshExecutor = refreshExecutor;
+        final DispatcherFlusher previousDispatcherFlusher = dispatcherFlusher;
+
+        final Set<String> visibleToGroups = toList(config.visibleToGroups()).stream().map(String::strip).collect(Collectors.toUnmodifiableSet());
+        final GroupMembershipCache cache = visibleToGroups.isEmpty() ? null : new GroupMembershipCache(
+                userId -> resolveMembership(userId, visibleToGroups),
+                Duration.ofSeconds(config.groupMembershipCacheTtlSeconds()), config.groupMembershipCacheSize());
+        groupListenerRegistration = cache == null ? null : registerChangeListener(bundleContext, GROUPS_PATH, new GroupChangeListener(cache));
+        groupMembershipCache = cache;
 
         this.config = config;
+        this.nodeTokens = resolveNodeTokens();
+        refreshPending.set(false);
+        if (isRepositoryConfigurationEnabled(config)) {
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "aem-environment-badge-config-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Registered before the snapshot is read, so no change in between gets lost
+            listenerRegistration = registerChangeListener(bundleContext, config.repositoryConfigurationPath(), new ConfigChangeListener());
+        } else {
+            refreshExecutor = null;
+            listenerRegistration = null;
+        }
+        this.snapshot = readSnapshot(config);
+
+        final List<URI> flushEndpoints = parseFlushEndpoints(config.dispatcherFlushEndpoints());
+        dispatcherFlusher = flushEndpoints.isEmpty() ? null : new DispatcherFlusher(flushEndpoints,
+                toList(config.dispatcherFlushHandles()), config.dispatcherFlushMaxAttempts(), config.dispatcherFlushRetryDelayMillis());
+        if (dispatcherFlusher != null) {
+            dispatcherFlusher.requestFlush();
+        }
+
+        release(previousListenerRegistration, previousGroupListenerRegistration, previousRefreshExecutor, previousDispatcherFlusher);
         LOG.info("AEM Environment Badge Config - Service activated.");
     }
 
+    /**
+     * Deactivates the service, unregistering the listeners for repository changes, discarding the cached group
+     * memberships and abandoning pending dispatcher flushes.
+     */
+    @Deactivate
+    protected void deactivate() {
+        release(listenerRegistration, groupListenerRegistration, refreshExecutor, dispatcherFlusher);
+        listenerRegistration = null;
+        groupListenerRegistration = null;
+        groupMembershipCache = null;
+        refreshExecutor = null;
+        dispatcherFlusher = null;
+        refreshPending.set(false);
+    }
+
+    private static void release(@Nullable final ServiceRegistration<ResourceChangeListener> listenerRegistration,
+                                @Nullable final ServiceRegistration<ResourceChangeListener> groupListenerRegistration,
+                                @Nullable final ScheduledExecutorService refreshExecutor,
+                                @Nullable final DispatcherFlusher dispatcherFlusher) {
+        unregister(listenerRegistration);
+        unregister(groupListenerRegistration);
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+        if (dispatcherFlusher != null) {
+            dispatcherFlusher.close();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public boolean isEnableDocumentTitlePrefix() {
-        return config.enableDocumentTitlePrefix() && StringUtils.isNotBlank(getDocumentTitlePrefix());
+        return snapshot.enableDocumentTitlePrefix() && StringUtils.isNotBlank(getDocumentTitlePrefix());
     }
 
     /**
@@ -62,7 +239,7 @@ public class AEMEnvironmentBadgeConfigServiceImpl implements AEMEnvironmentBadge
      */
     @Override
     public @NonNull String getDocumentTitlePrefix() {
-        return config.documentTitlePrefix();
+        return snapshot.documentTitlePrefix();
     }
 
 
@@ -71,7 +248,7 @@ public class AEMEnvironmentBadgeConfigServiceImpl implements AEMEnvironmentBadge
      */
     @Override
     public boolean isEnableBadge() {
-        return config.enableBadge();
+        return snapshot.enableBadge();
     }
 
     /**
@@ -79,7 +256,7 @@ public class AEMEnvironmentBadgeConfigServiceImpl implements AEMEnvironmentBadge
      */
     @Override
     public @NonNull String getBadgeTitle() {
-        return config.badgeTitle();
+        return snapshot.badgeTitle();
     }
 
     /**
@@ -87,7 +264,318 @@ public class AEMEnvironmentBadgeConfigServiceImpl implements AEMEnvironmentBadge
      */
     @Override
     public @NonNull String getBadgeBackgroundColor() {
-        return config.badgeBackgroundColor();
+        return snapshot.badgeBackgroundColor();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull String getNodeTokens() {
+        return nodeTokens;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getRevision() {
+        return snapshot.revision();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastModified() {
+        return snapshot.lastModified();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isEnableServerTiming() {
+        return config.enableServerTiming();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isShadowMode() {
+        return config.shadowMode();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getShadowModeSamplePercent() {
+        return Math.clamp(config.shadowModeSamplePercent(), 0, 100);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isVisibleTo(@Nullable final String userId) {
+        final GroupMembershipCache cache = groupMembershipCache;
+        if (cache == null) {
+            return true;
+        }
+        return StringUtils.isNotEmpty(userId) && cache.isMember(userId);
+    }
+
+    /**
+     * Schedules a refresh of the snapshot, unless one is pending already. All changes reported until the
+     * refresh is executed are therefore coalesced into a single repository read.
+     */
+    void scheduleRefresh() {
+        final ScheduledExecutorService executor = refreshExecutor;
+        if (executor == null || !refreshPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.schedule(() -> {
+                // Changes reported while reading schedule another refresh, so none of them gets lost
+                refreshPending.set(false);
+                snapshot = readSnapshot(config);
+                LOG.debug("AEM Environment Badge Config - Repository configuration refreshed.");
+                final DispatcherFlusher flusher = dispatcherFlusher;
+                if (flusher != null) {
+                    flusher.requestFlush();
+                }
+            }, Math.max(0L, config.repositoryConfigurationDebounceMillis()), TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            refreshPending.set(false);
+            LOG.debug("AEM Environment Badge Config - Refresh rejected, service deactivated.", e);
+        }
+    }
+
+    /**
+     * Parses the configured dispatcher flush endpoints, skipping blank and malformed ones.
+     *
+     * @param endpoints The configured endpoints, may be {@code null}.
+     * @return The absolute URIs of the endpoints.
+     */
+    private static @NonNull List<URI> parseFlushEndpoints(final String @Nullable [] endpoints) {
+        final List<URI> uris = new ArrayList<>();
+        for (final String endpoint : toList(endpoints)) {
+            try {
+                final URI uri = new URI(endpoint.strip());
+                if (uri.isAbsolute()) {
+                    uris.add(uri);
+                    continue;
+                }
+            } catch (final URISyntaxException e) {
+                LOG.debug("AEM Environment Badge Config - Malformed dispatcher flush endpoint.", e);
+            }
+            LOG.warn("AEM Environment Badge Config - Ignoring dispatcher flush endpoint '{}', an absolute URI is expected.", endpoint);
+        }
+        return uris;
+    }
+
+    /**
+     * Registers the given listener for resources added, changed or removed at or below the given path.
+     */
+    private static @NonNull ServiceRegistration<ResourceChangeListener> registerChangeListener(@NonNull final BundleContext bundleContext,
+                                                                                               @NonNull final String path,
+                                                                                               @NonNull final ResourceChangeListener listener) {
+        final Dictionary<String, Object> properties = new Hashtable<>();
+        properties.put(ResourceChangeListener.PATHS, new String[]{path});
+        properties.put(ResourceChangeListener.CHANGES, new String[]{
+                ResourceChange.ChangeType.ADDED.name(),
+                ResourceChange.ChangeType.CHANGED.name(),
+                ResourceChange.ChangeType.REMOVED.name()
+        });
+        return bundleContext.registerService(ResourceChangeListener.class, listener, properties);
+    }
+
+    private static void unregister(@Nullable final ServiceRegistration<?> registration) {
+        if (registration == null) {
+            return;
+        }
+        try {
+            registration.unregister();
+        } catch (final IllegalStateException e) {
+            LOG.debug("AEM Environment Badge Config - Listener already unregistered.", e);
+        }
+    }
+
+    /**
+     * Resolves whether the given user is a member of at least one of the given groups, either declared or inherited.
+     *
+     * @param userId The ID of the user.
+     * @param groups The IDs of the groups.
+     * @return Whether the user is a member, {@code null} if the membership could not be resolved.
+     */
+    private @Nullable Boolean resolveMembership(@NonNull final String userId, @NonNull final Set<String> groups) {
+        final ResourceResolverFactory factory = resourceResolverFactory;
+        if (factory == null) {
+            return null;
+        }
+
+        try (ResourceResolver resourceResolver = factory.getServiceResourceResolver(Map.of(ResourceResolverFactory.SUBSERVICE, SUBSERVICE_NAME))) {
+            final UserManager userManager = resourceResolver.adaptTo(UserManager.class);
+            if (userManager == null) {
+                return null;
+            }
+
+            final Authorizable authorizable = userManager.getAuthorizable(userId);
+            if (authorizable == null || authorizable.isGroup()) {
+                return false;
+            }
+
+            final Iterator<Group> memberOf = authorizable.memberOf();
+            while (memberOf.hasNext()) {
+                if (groups.contains(memberOf.next().getID())) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (final LoginException e) {
+            LOG.warn("AEM Environment Badge Config - Unable to resolve group memberships, service user mapping missing?", e);
+            return null;
+        } catch (final RepositoryException e) {
+            LOG.warn("AEM Environment Badge Config - Unable to resolve the group memberships of user '{}'.", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Resolves the values of the tokens identifying this cluster node. Tokens whose value is unavailable are omitted
+     * and therefore left unmodified.
+     *
+     * @return The values by token name, encoded as {@code application/x-www-form-urlencoded}.
+     */
+    private @NonNull String resolveNodeTokens() {
+        final Map<String, String> tokens = new HashMap<>();
+        final SlingSettingsService settings = slingSettingsService;
+        if (settings != null) {
+            final String slingId = settings.getSlingId();
+            if (slingId != null) {
+                tokens.put(ConfigSubstitutionHelper.PLACEHOLDER_INSTANCE_ID, slingId);
+            }
+            final Set<String> runModes = settings.getRunModes();
+            if (runModes != null) {
+                tokens.put(ConfigSubstitutionHelper.PLACEHOLDER_RUN_MODES, runModes.stream().sorted().collect(Collectors.joining(",")));
+            }
+        }
+        try {
+            tokens.put(ConfigSubstitutionHelper.PLACEHOLDER_HOSTNAME, InetAddress.getLocalHost().getHostName());
+        } catch (final UnknownHostException e) {
+            LOG.warn("AEM Environment Badge Config - Unable to resolve the host name.", e);
+        }
+        // Sorted, so the encoded tokens are stable across activations
+        return tokens.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(token -> URLEncoder.encode(token.getKey(), StandardCharsets.UTF_8) + "=" + URLEncoder.encode(token.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+
+    private static @NonNull List<String> toList(final String @Nullable [] values) {
+        return values == null ? List.of() : Arrays.stream(values).filter(StringUtils::isNotBlank).toList();
+    }
+
+    private boolean isRepositoryConfigurationEnabled(@NonNull final AEMEnvironmentBadgeConfig config) {
+        return config.enableRepositoryConfiguration() && StringUtils.isNotBlank(config.repositoryConfigurationPath());
+    }
+
+    /**
+     * Reads the OSGi configuration, overridden by the properties of the repository configuration if enabled and present.
+     *
+     * @param config The OSGi configuration.
+     * @return A new snapshot with a new revision.
+     */
+    private @NonNull ConfigSnapshot readSnapshot(@NonNull final AEMEnvironmentBadgeConfig config) {
+        final ConfigSnapshot osgiSnapshot = new ConfigSnapshot(
+                config.enableDocumentTitlePrefix(),
+                config.documentTitlePrefix(),
+                config.enableBadge(),
+                config.badgeTitle(),
+                config.badgeBackgroundColor(),
+                REVISION_SEQUENCE.incrementAndGet(),
+                0L
+        );
+        if (!isRepositoryConfigurationEnabled(config) || resourceResolverFactory == null) {
+            return osgiSnapshot;
+        }
+
+        try (ResourceResolver resourceResolver = resourceResolverFactory.getServiceResourceResolver(
+                Map.of(ResourceResolverFactory.SUBSERVICE, SUBSERVICE_NAME))) {
+            final Resource resource = resourceResolver.getResource(config.repositoryConfigurationPath());
+            return resource == null ? osgiSnapshot : osgiSnapshot.overriddenBy(resource.getValueMap());
+        } catch (final LoginException e) {
+            LOG.warn("AEM Environment Badge Config - Unable to read the repository configuration, service user mapping missing?", e);
+            return osgiSnapshot;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the effective configuration.
+     *
+     * @param enableDocumentTitlePrefix Whether to prepend a prefix to the document title.
+     * @param documentTitlePrefix       The document title prefix.
+     * @param enableBadge               Whether to render the badge.
+     * @param badgeTitle                The badge title.
+     * @param badgeBackgroundColor      The badge background color.
+     * @param revision                  The revision of the snapshot.
+     * @param lastModified              The last modification date of the repository configuration, {@code 0} if unknown.
+     */
+    private record ConfigSnapshot(boolean enableDocumentTitlePrefix, @Nullable String documentTitlePrefix, boolean enableBadge,
+                                  @Nullable String badgeTitle, @Nullable String badgeBackgroundColor, long revision,
+                                  long lastModified) {
+
+        private @NonNull ConfigSnapshot overriddenBy(@NonNull final ValueMap properties) {
+            return new ConfigSnapshot(
+                    properties.get(PROPERTY_ENABLE_DOCUMENT_TITLE_PREFIX, enableDocumentTitlePrefix),
+                    properties.get(PROPERTY_DOCUMENT_TITLE_PREFIX, StringUtils.defaultString(documentTitlePrefix)),
+                    properties.get(PROPERTY_ENABLE_BADGE, enableBadge),
+                    properties.get(PROPERTY_BADGE_TITLE, StringUtils.defaultString(badgeTitle)),
+                    properties.get(PROPERTY_BADGE_BACKGROUND_COLOR, StringUtils.defaultString(badgeBackgroundColor)),
+                    revision,
+                    lastModifiedOf(properties)
+            );
+        }
+
+        private static long lastModifiedOf(@NonNull final ValueMap properties) {
+            final Calendar lastModified = Optional.ofNullable(properties.get(PROPERTY_JCR_LAST_MODIFIED, Calendar.class))
+                    .orElseGet(() -> properties.get(PROPERTY_CQ_LAST_MODIFIED, Calendar.class));
+            return lastModified == null ? 0L : lastModified.getTimeInMillis();
+        }
+
+    }
+
+    /**
+     * Listener scheduling a refresh whenever the repository configuration changes, on this or any other cluster node.
+     */
+    private final class ConfigChangeListener implements ResourceChangeListener, ExternalResourceChangeListener {
+
+        @Override
+        public void onChange(@NonNull final List<ResourceChange> changes) {
+            scheduleRefresh();
+        }
+
+    }
+
+    /**
+     * Listener invalidating the cached group memberships whenever a group changes, on this or any other cluster node.
+     */
+    private static final class GroupChangeListener implements ResourceChangeListener, ExternalResourceChangeListener {
+
+        private final GroupMembershipCache cache;
+
+        private GroupChangeListener(@NonNull final GroupMembershipCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void onChange(@NonNull final List<ResourceChange> changes) {
+            cache.invalidate();
+        }
+
     }
 
     /**
@@ -108,7 +596,7 @@ public class AEMEnvironmentBadgeConfigServiceImpl implements AEMEnvironmentBadge
         /**
          * @return The string prefix to be prepended to the browser tab title. E.g.: {@code <PREFIX> | <DOCUMENT TITLE>}
          */
-        @AttributeDefinition(name = "Document title prefix", description = "The string prefix to be prepended to the document title. E.g.: '<PREFIX> | <DOCUMENT TITLE>'")
+        @AttributeDefinition(name = "Document title prefix", description = "The string prefix to be prepended to the document title. E.g.: '<PREFIX> | <DOCUMENT TITLE>'. May contain the tokens '${hostname}', '${instance_id}' and '${run_modes}' of the serving cluster node")
         String documentTitlePrefix();
 
         /**
@@ -120,7 +608,7 @@ public class AEMEnvironmentBadgeConfigServiceImpl implements AEMEnvironmentBadge
         /**
          * @return The text content displayed on the environment badge.
          */
-        @AttributeDefinition(name = "Badge title", description = "The text content displayed on the environment badge")
+        @AttributeDefinition(name = "Badge title", description = "The text content displayed on the environment badge. May contain the tokens '${hostname}', '${instance_id}' and '${run_modes}' of the serving cluster node")
         String badgeTitle();
 
         /**
@@ -139,6 +627,84 @@ public class AEMEnvironmentBadgeConfigServiceImpl implements AEMEnvironmentBadge
                 })
         String badgeBackgroundColor() default "fuchsia";
 
+        /**
+         * @return Whether the settings are overridden by the properties of a repository resource.
+         */
+        @AttributeDefinition(name = "Enable repository configuration", description = "Toggles overriding the settings by the properties of the repository resource below. Requires a service user mapping for the 'config-reader' sub-service")
+        boolean enableRepositoryConfiguration();
+
+        /**
+         * @return The path of the repository resource overriding the settings.
+         */
+        @AttributeDefinition(name = "Repository configuration path", description = "The path of the repository resource whose properties override the settings, e.g. '/conf/environment-badge/settings'")
+        String repositoryConfigurationPath() default "/conf/environment-badge/settings";
+
+        /**
+         * @return The delay in milliseconds used to coalesce changes of the repository configuration.
+         */
+        @AttributeDefinition(name = "Repository configuration debounce delay", description = "The delay in milliseconds used to coalesce changes of the repository configuration before it is read again")
+        long repositoryConfigurationDebounceMillis() default 1000L;
+
+        /**
+         * @return The URIs of the dispatcher flush endpoints invalidated whenever the configuration changes.
+         */
+        @AttributeDefinition(name = "Dispatcher flush endpoints", description = "The URIs of the dispatcher flush endpoints invalidated whenever the configuration changes, e.g. 'http://dispatcher/dispatcher/invalidate.cache'. Leave empty to disable")
+        String[] dispatcherFlushEndpoints() default {};
+
+        /**
+         * @return The handles invalidated on each dispatcher flush endpoint.
+         */
+        @AttributeDefinition(name = "Dispatcher flush handles", description = "The paths sent as 'CQ-Handle' to each dispatcher flush endpoint")
+        String[] dispatcherFlushHandles() default {"/bin/com/merkle/oss/aem/environment-badge/config"};
+
+        /**
+         * @return The maximum number of attempts per dispatcher flush endpoint and handle.
+         */
+        @AttributeDefinition(name = "Dispatcher flush attempts", description = "The maximum number of attempts per dispatcher flush endpoint and handle")
+        int dispatcherFlushMaxAttempts() default 3;
+
+        /**
+         * @return The delay in milliseconds before the first retry of a failed dispatcher flush, doubled for every further retry.
+         */
+        @AttributeDefinition(name = "Dispatcher flush retry delay", description = "The delay in milliseconds before the first retry of a failed dispatcher flush, doubled for every further retry")
+        long dispatcherFlushRetryDelayMillis() default 1000L;
+
+        /**
+         * @return Whether the time spent by the environment badge is reported via a {@code Server-Timing} response header.
+         */
+        @AttributeDefinition(name = "Enable Server-Timing header", description = "Toggles reporting the time spent by the CRX filter and the configuration servlet via a 'Server-Timing' response header, shown in the browser's developer tools")
+        boolean enableServerTiming();
+
+        /**
+         * @return Whether the CRX filter streams pages unchanged and only measures the cost of injecting the badge.
+         */
+        @AttributeDefinition(name = "Enable shadow mode", description = "Toggles the shadow mode of the CRX filter: pages are streamed unchanged, while the cost of capturing and injecting the badge is measured on a sample of them and recorded as 'shadow.*' metrics")
+        boolean shadowMode();
+
+        /**
+         * @return The percentage of pages measured in shadow mode.
+         */
+        @AttributeDefinition(name = "Shadow mode sample percentage", description = "The percentage of pages measured in shadow mode, between 0 and 100")
+        int shadowModeSamplePercent() default 10;
+
+        /**
+         * @return The IDs of the groups the features are visible to, all users if empty.
+         */
+        @AttributeDefinition(name = "Visible to groups", description = "The IDs of the groups the badge and document title prefix are shown to, e.g. 'administrators'. Leave empty to show them to all users. Requires a service user mapping for the 'config-reader' sub-service with read access to the users and groups")
+        String[] visibleToGroups() default {};
+
+        /**
+         * @return The time in seconds the group membership of a user is cached for.
+         */
+        @AttributeDefinition(name = "Group membership cache TTL", description = "The time in seconds the group membership of a user is cached for. Changes of groups invalidate the cache immediately")
+        long groupMembershipCacheTtlSeconds() default 300L;
+
+        /**
+         * @return The maximum number of users whose group membership is cached.
+         */
+        @AttributeDefinition(name = "Group membership cache size", description = "The maximum number of users whose group membership is cached")
+        int groupMembershipCacheSize() default 1000;
+
     }
 
 }
@@ -0,0 +1,92 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInjectionTarget;
+import org.apache.commons.lang3.StringUtils;
+import org.jspecify.annotations.NonNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.util.Objects;
+
+/**
+ * Configurable {@link AEMEnvironmentBadgeInjectionTarget} allowing further consoles (e.g., the CRX Explorer)
+ * to receive the environment badge via OSGi factory configurations
+ * ({@code com.merkle.oss.aem.environmentbadge.services.impl.AEMEnvironmentBadgeInjectionTargetImpl~<name>.cfg.json}).
+ */
+@Component(
+        service = AEMEnvironmentBadgeInjectionTarget.class,
+        configurationPolicy = ConfigurationPolicy.REQUIRE
+)
+@Designate(ocd = AEMEnvironmentBadgeInjectionTargetImpl.AEMEnvironmentBadgeInjectionTargetConfig.class, factory = true)
+public class AEMEnvironmentBadgeInjectionTargetImpl implements AEMEnvironmentBadgeInjectionTarget {
+
+    private AEMEnvironmentBadgeInjectionTargetConfig config;
+
+    /**
+     * Activates the injection target, retrieving the configuration parameters from the OSGi Configuration.
+     * A configuration change re-activates the component, so the filter re-binds the target with its new path.
+     *
+     * @param config The injected configuration object generated by the Metatype service.
+     */
+    @Activate
+    protected void activate(@NonNull final AEMEnvironmentBadgeInjectionTargetConfig config) {
+        Objects.requireNonNull(config);
+
+        this.config = config;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull String getPath() {
+        return StringUtils.defaultString(config.path());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull String getContentType() {
+        return StringUtils.defaultIfBlank(config.contentType(), DEFAULT_CONTENT_TYPE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull String getAnchor() {
+        return StringUtils.defaultIfEmpty(config.anchor(), DEFAULT_ANCHOR);
+    }
+
+    /**
+     * Defines the OSGi Metatype Configuration for an AEM Environment Badge injection target.
+     */
+    @ObjectClassDefinition(name = "AEM Environment Badge Injection Target")
+    public @interface AEMEnvironmentBadgeInjectionTargetConfig {
+
+        /**
+         * @return The request URI of the page the badge is injected into.
+         */
+        @AttributeDefinition(name = "Path", description = "The request URI of the page the badge is injected into. E.g.: '/crx/explorer/index.jsp'")
+        String path();
+
+        /**
+         * @return The content type of the page the badge is injected into.
+         */
+        @AttributeDefinition(name = "Content type", description = "The content type of the page. Responses of a different content type are not modified")
+        String contentType() default DEFAULT_CONTENT_TYPE;
+
+        /**
+         * @return The markup before which the badge is injected.
+         */
+        @AttributeDefinition(name = "Anchor", description = "The markup before which the badge is injected. The last occurrence within the tail of the page is used, tolerating case, whitespace and comments between tags. Pages without it are not modified")
+        String anchor() default DEFAULT_ANCHOR;
+
+    }
+
+}
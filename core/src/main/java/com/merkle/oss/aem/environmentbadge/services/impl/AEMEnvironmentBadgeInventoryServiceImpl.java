@@ -0,0 +1,414 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInventoryService;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.sling.servlets.post.JSONResponse;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.AttributeType;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Component implementing the {@link AEMEnvironmentBadgeInventoryService}.
+ * <p>
+ * The configuration ({@code config.json}) of each configured instance is requested in parallel using non-blocking
+ * HTTP requests, each bounded by a timeout, while the number of requests in flight is limited. The merged inventory
+ * is cached for a configurable time. Once expired, the cached inventory is still served while a single refresh runs
+ * in the background, so only the very first request waits for the instances.
+ * <p>
+ * The last configuration received from each instance is kept, so instances failing to respond are reported with it,
+ * marked as {@value #STATUS_STALE}, rather than disappearing from the inventory.
+ */
+@Component(
+        service = AEMEnvironmentBadgeInventoryService.class,
+        configurationPolicy = ConfigurationPolicy.REQUIRE
+)
+@Designate(ocd = AEMEnvironmentBadgeInventoryServiceImpl.AEMEnvironmentBadgeInventoryConfig.class)
+public class AEMEnvironmentBadgeInventoryServiceImpl implements AEMEnvironmentBadgeInventoryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AEMEnvironmentBadgeInventoryServiceImpl.class);
+
+    /**
+     * The path of the configuration requested from each instance.
+     */
+    static final String CONFIG_PATH = "/bin/com/merkle/oss/aem/environment-badge/config.json";
+
+    /**
+     * Status of an instance whose configuration has been received when the inventory was collected.
+     */
+    static final String STATUS_CURRENT = "current";
+
+    /**
+     * Status of an instance which failed to respond, reported with the configuration it served last.
+     */
+    static final String STATUS_STALE = "stale";
+
+    /**
+     * Status of an instance which has never responded.
+     */
+    static final String STATUS_UNAVAILABLE = "unavailable";
+
+    static final String KEY_GENERATED_AT = "generatedAt";
+    static final String KEY_AGE_SECONDS = "ageSeconds";
+    static final String KEY_EXPIRED = "expired";
+    static final String KEY_INSTANCES = "instances";
+    static final String KEY_NAME = "name";
+    static final String KEY_URL = "url";
+    static final String KEY_STATUS = "status";
+    static final String KEY_FETCHED_AT = "fetchedAt";
+    static final String KEY_CONFIG = "config";
+    static final String KEY_ERROR = "error";
+
+    private static final String NAME_SEPARATOR = "=";
+
+    /**
+     * The last configuration received from each instance, by instance URL.
+     */
+    private final ConcurrentMap<String, Received> lastReceived = new ConcurrentHashMap<>();
+
+    private final AtomicReference<Inventory> inventory = new AtomicReference<>();
+
+    private final AtomicReference<CompletableFuture<Inventory>> pendingRefresh = new AtomicReference<>();
+
+    private volatile List<Instance> instances = List.of();
+
+    private volatile Duration timeout;
+
+    private volatile int maxConcurrentRequests;
+
+    private volatile long cacheTtlMillis;
+
+    private volatile @Nullable String authorization;
+
+    private volatile HttpClient httpClient;
+
+    /**
+     * Activates or modifies the service, discarding the cached inventory.
+     *
+     * @param config The injected configuration object generated by the Metatype service.
+     */
+    @Activate
+    @Modified
+    protected void activate(@NonNull final AEMEnvironmentBadgeInventoryConfig config) {
+        Objects.requireNonNull(config);
+
+        deactivate();
+        this.instances = parseInstances(config.instances());
+        this.timeout = Duration.ofMillis(Math.max(1L, config.requestTimeoutMillis()));
+        this.maxConcurrentRequests = Math.max(1, config.maxConcurrentRequests());
+        this.cacheTtlMillis = Math.max(0L, config.cacheTtlSeconds()) * 1000L;
+        this.authorization = StringUtils.trimToNull(config.authorization());
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * Deactivates the service, abandoning requests in flight.
+     */
+    @Deactivate
+    protected void deactivate() {
+        if (httpClient != null) {
+            httpClient.shutdownNow();
+            httpClient = null;
+        }
+        inventory.set(null);
+        pendingRefresh.set(null);
+        lastReceived.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull Map<String, Object> getInventory() {
+        final long now = System.currentTimeMillis();
+        Inventory current = inventory.get();
+        if (current == null) {
+            current = refresh().join();
+        } else if (now - current.generatedAt() >= cacheTtlMillis) {
+            refresh();
+        }
+        return current.toMap(now, now - current.generatedAt() >= cacheTtlMillis);
+    }
+
+    /**
+     * Collects the inventory, unless a collection is in progress already.
+     *
+     * @return The future completed with the collected inventory.
+     */
+    @NonNull CompletableFuture<Inventory> refresh() {
+        final CompletableFuture<Inventory> created = new CompletableFuture<>();
+        final CompletableFuture<Inventory> pending = pendingRefresh.compareAndExchange(null, created);
+        if (pending != null) {
+            return pending;
+        }
+
+        final List<Instance> targets = instances;
+        final AtomicReferenceArray<Map<String, Object>> entries = new AtomicReferenceArray<>(targets.size());
+        final Queue<Integer> queue = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < targets.size(); i++) {
+            queue.add(i);
+        }
+
+        // Each worker requests one instance after the other, limiting the number of requests in flight
+        final List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < Math.min(maxConcurrentRequests, targets.size()); i++) {
+            workers.add(fetchNext(targets, queue, entries));
+        }
+
+        CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).whenComplete((result, error) -> {
+            final List<Map<String, Object>> collected = new ArrayList<>(targets.size());
+            for (int i = 0; i < targets.size(); i++) {
+                collected.add(entries.get(i));
+            }
+            final Inventory refreshed = new Inventory(System.currentTimeMillis(), collected);
+            inventory.set(refreshed);
+            pendingRefresh.compareAndSet(created, null);
+            created.complete(refreshed);
+        });
+        return created;
+    }
+
+    private @NonNull CompletableFuture<Void> fetchNext(@NonNull final List<Instance> targets, @NonNull final Queue<Integer> queue,
+                                                       @NonNull final AtomicReferenceArray<Map<String, Object>> entries) {
+        final Integer index = queue.poll();
+        if (index == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return fetch(targets.get(index)).thenCompose(entry -> {
+            entries.set(index, entry);
+            return fetchNext(targets, queue, entries);
+        });
+    }
+
+    /**
+     * Requests the configuration of a single instance.
+     *
+     * @return The future completed with the inventory entry of the instance, never completed exceptionally.
+     */
+    private @NonNull CompletableFuture<Map<String, Object>> fetch(@NonNull final Instance instance) {
+        final HttpClient client = httpClient;
+        if (client == null) {
+            return CompletableFuture.completedFuture(entryOf(instance, null, new IllegalStateException("service deactivated")));
+        }
+
+        final CompletableFuture<HttpResponse<String>> response;
+        try {
+            final HttpRequest.Builder request = HttpRequest.newBuilder(instance.configUri())
+                    .timeout(timeout)
+                    .header(HttpHeaders.ACCEPT, JSONResponse.RESPONSE_CONTENT_TYPE)
+                    .GET();
+            if (authorization != null) {
+                request.header(HttpHeaders.AUTHORIZATION, authorization);
+            }
+            response = client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (final IllegalArgumentException | IllegalStateException e) {
+            return CompletableFuture.completedFuture(entryOf(instance, null, e));
+        }
+
+        return response.handle((httpResponse, error) -> {
+            if (error != null) {
+                return entryOf(instance, null, error);
+            }
+            if (httpResponse.statusCode() != HttpStatus.SC_OK) {
+                return entryOf(instance, null, new IllegalStateException("status " + httpResponse.statusCode()));
+            }
+            try {
+                return entryOf(instance, JsonParser.parseString(httpResponse.body()), null);
+            } catch (final JsonParseException e) {
+                return entryOf(instance, null, e);
+            }
+        });
+    }
+
+    private @NonNull Map<String, Object> entryOf(@NonNull final Instance instance, @Nullable final JsonElement config, @Nullable final Throwable error) {
+        final Map<String, Object> entry = new TreeMap<>();
+        entry.put(KEY_NAME, instance.name());
+        entry.put(KEY_URL, instance.url());
+
+        if (config != null && config.isJsonObject()) {
+            final Received received = new Received(config, System.currentTimeMillis());
+            lastReceived.put(instance.url(), received);
+            entry.put(KEY_STATUS, STATUS_CURRENT);
+            entry.put(KEY_FETCHED_AT, Instant.ofEpochMilli(received.fetchedAt()).toString());
+            entry.put(KEY_CONFIG, received.config());
+            return entry;
+        }
+
+        final String message = messageOf(error);
+        LOG.debug("AEM Environment Badge Inventory - Unable to fetch the configuration of {}: {}", instance.url(), message);
+        entry.put(KEY_ERROR, message);
+        final Received received = lastReceived.get(instance.url());
+        if (received == null) {
+            entry.put(KEY_STATUS, STATUS_UNAVAILABLE);
+        } else {
+            entry.put(KEY_STATUS, STATUS_STALE);
+            entry.put(KEY_FETCHED_AT, Instant.ofEpochMilli(received.fetchedAt()).toString());
+            entry.put(KEY_CONFIG, received.config());
+        }
+        return entry;
+    }
+
+    private static @NonNull String messageOf(@Nullable final Throwable error) {
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause == null) {
+            return "invalid configuration";
+        }
+        if (cause instanceof HttpTimeoutException) {
+            return "timeout";
+        }
+        return StringUtils.defaultIfBlank(cause.getMessage(), cause.getClass().getSimpleName());
+    }
+
+    /**
+     * Parses the configured instances, skipping blank entries and those without an absolute {@code http(s)} URL.
+     *
+     * @param values The configured instances, either {@code name=url} or {@code url}.
+     * @return The parsed instances.
+     */
+    private static @NonNull List<Instance> parseInstances(final String @Nullable [] values) {
+        final List<Instance> parsed = new ArrayList<>();
+        if (values == null) {
+            return parsed;
+        }
+
+        for (final String value : values) {
+            if (StringUtils.isBlank(value)) {
+                continue;
+            }
+            // A separator within the URL (e.g., in its query) does not separate a name
+            final String entry = value.strip();
+            final int separator = entry.indexOf(NAME_SEPARATOR);
+            final boolean named = separator > 0 && !entry.substring(0, separator).contains("://");
+            final String url = StringUtils.removeEnd((named ? entry.substring(separator + 1) : entry).strip(), "/");
+            final String name = named ? entry.substring(0, separator).strip() : url;
+            try {
+                final URI configUri = URI.create(url + CONFIG_PATH);
+                if (Strings.CI.equalsAny(configUri.getScheme(), "http", "https") && configUri.getHost() != null) {
+                    parsed.add(new Instance(name, url, configUri));
+                    continue;
+                }
+            } catch (final IllegalArgumentException e) {
+                LOG.debug("AEM Environment Badge Inventory - Malformed instance URL.", e);
+            }
+            LOG.warn("AEM Environment Badge Inventory - Ignoring instance '{}', an absolute http(s) URL is expected.", value);
+        }
+        return parsed;
+    }
+
+    /**
+     * A configured instance.
+     *
+     * @param name      The display name of the instance.
+     * @param url       The base URL of the instance, without trailing slash.
+     * @param configUri The URI of the configuration of the instance.
+     */
+    private record Instance(@NonNull String name, @NonNull String url, @NonNull URI configUri) {
+    }
+
+    /**
+     * The last configuration received from an instance.
+     *
+     * @param config    The configuration.
+     * @param fetchedAt The time the configuration has been received, in milliseconds since the epoch.
+     */
+    private record Received(@NonNull JsonElement config, long fetchedAt) {
+    }
+
+    /**
+     * A collected inventory.
+     *
+     * @param generatedAt The time the inventory has been collected, in milliseconds since the epoch.
+     * @param entries     The entries of the instances, in configuration order.
+     */
+    record Inventory(long generatedAt, @NonNull List<Map<String, Object>> entries) {
+
+        private @NonNull Map<String, Object> toMap(final long now, final boolean expired) {
+            final Map<String, Object> map = new TreeMap<>();
+            map.put(KEY_GENERATED_AT, Instant.ofEpochMilli(generatedAt).toString());
+            map.put(KEY_AGE_SECONDS, Math.max(0L, now - generatedAt) / 1000L);
+            map.put(KEY_EXPIRED, expired);
+            map.put(KEY_INSTANCES, entries);
+            return map;
+        }
+
+    }
+
+    /**
+     * Defines the OSGi Metatype Configuration for the AEM Environment Badge inventory service.
+     */
+    @ObjectClassDefinition(name = "AEM Environment Badge Inventory Config")
+    public @interface AEMEnvironmentBadgeInventoryConfig {
+
+        /**
+         * @return The instances to collect the configuration from.
+         */
+        @AttributeDefinition(name = "Instances", description = "The instances to collect the configuration from, either 'name=url' or 'url', e.g. 'author-dev=https://author-dev.example.com'")
+        String[] instances() default {};
+
+        /**
+         * @return The timeout in milliseconds of each request.
+         */
+        @AttributeDefinition(name = "Request timeout", description = "The timeout in milliseconds for connecting to and receiving the configuration of a single instance")
+        long requestTimeoutMillis() default 2000L;
+
+        /**
+         * @return The maximum number of requests in flight.
+         */
+        @AttributeDefinition(name = "Maximum concurrent requests", description = "The maximum number of instances requested at the same time")
+        int maxConcurrentRequests() default 8;
+
+        /**
+         * @return The time in seconds the inventory is cached.
+         */
+        @AttributeDefinition(name = "Cache TTL", description = "The time in seconds the inventory is served from the cache before it is collected again in the background")
+        long cacheTtlSeconds() default 60L;
+
+        /**
+         * @return The {@code Authorization} header sent to the instances.
+         */
+        @AttributeDefinition(name = "Authorization", description = "The 'Authorization' header value sent to the instances, e.g. 'Bearer <token>'. Leave empty to send none", type = AttributeType.PASSWORD)
+        String authorization();
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.merkle.oss.aem.environmentbadge.models.LatencyHistogram;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeMetricsService;
+import org.jspecify.annotations.NonNull;
+import org.osgi.service.component.annotations.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Component implementing the {@link AEMEnvironmentBadgeMetricsService}.
+ * <p>
+ * Measurements are folded into lock-free {@link LatencyHistogram} instances. The number of distinct
+ * metrics is capped by {@link #MAX_METRICS} to keep the memory footprint bounded regardless of the
+ * reported metric names.
+ */
+@Component(service = AEMEnvironmentBadgeMetricsService.class)
+public class AEMEnvironmentBadgeMetricsServiceImpl implements AEMEnvironmentBadgeMetricsService {
+
+    /**
+     * The maximum number of distinct metrics kept in memory. Measurements of further metrics are dropped.
+     */
+    static final int MAX_METRICS = 128;
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void record(@NonNull final String metric, final long durationMicros) {
+        Objects.requireNonNull(metric);
+
+        LatencyHistogram histogram = histograms.get(metric);
+        if (histogram == null) {
+            if (histograms.size() >= MAX_METRICS) {
+                return;
+            }
+            histogram = histograms.computeIfAbsent(metric, key -> new LatencyHistogram());
+        }
+        histogram.record(durationMicros);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull Map<String, Map<String, Object>> getSnapshot() {
+        final Map<String, Map<String, Object>> snapshot = new TreeMap<>();
+        histograms.forEach((metric, histogram) -> snapshot.put(metric, histogram.toSnapshot()));
+        return snapshot;
+    }
+
+}
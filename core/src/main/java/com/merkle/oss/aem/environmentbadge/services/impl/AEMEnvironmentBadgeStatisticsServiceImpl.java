@@ -0,0 +1,131 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.merkle.oss.aem.environmentbadge.models.LatencyHistogram;
+import com.merkle.oss.aem.environmentbadge.models.PerformanceStatistics;
+import com.merkle.oss.aem.environmentbadge.models.RollingLatencyHistogram;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeStatisticsService;
+import org.jspecify.annotations.NonNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Component implementing the {@link AEMEnvironmentBadgeStatisticsService}.
+ * <p>
+ * Measurements are folded into lock-free {@link RollingLatencyHistogram} instances covering a configurable time
+ * window, so the statistics reflect the recent overhead only and recover once a regression has been fixed.
+ * Requests of the configuration servlet are recorded as {@code 1} if failed and {@code 0} otherwise, the sum of
+ * the histogram therefore being the number of failures. Pages measured in shadow mode are folded into histograms of
+ * their own, so estimates never skew the overhead of pages actually buffered.
+ */
+@Component(service = AEMEnvironmentBadgeStatisticsService.class)
+@Designate(ocd = AEMEnvironmentBadgeStatisticsServiceImpl.AEMEnvironmentBadgeStatisticsConfig.class)
+public class AEMEnvironmentBadgeStatisticsServiceImpl implements AEMEnvironmentBadgeStatisticsService {
+
+    /**
+     * The number of slices the time window is divided into.
+     */
+    static final int SLICE_COUNT = 10;
+
+    private volatile Histograms histograms = Histograms.of(Duration.ofMinutes(15L));
+
+    /**
+     * Activates or modifies the service, discarding the statistics recorded so far.
+     *
+     * @param config The injected configuration object generated by the Metatype service.
+     */
+    @Activate
+    @Modified
+    protected void activate(@NonNull final AEMEnvironmentBadgeStatisticsConfig config) {
+        Objects.requireNonNull(config);
+
+        histograms = Histograms.of(Duration.ofSeconds(Math.max(1L, config.windowSeconds())));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordInjection(final long injectionNanos, final long bytesBuffered) {
+        final Histograms current = histograms;
+        current.injectionTime().record(injectionNanos / 1000L);
+        current.bytesBuffered().record(bytesBuffered);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordShadowInjection(final long injectionNanos, final long bytesBuffered) {
+        final Histograms current = histograms;
+        current.shadowInjectionTime().record(injectionNanos / 1000L);
+        current.shadowBytesBuffered().record(bytesBuffered);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordConfigRequest(final boolean failed) {
+        histograms.configRequests().record(failed ? 1L : 0L);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull PerformanceStatistics getStatistics() {
+        final Histograms current = histograms;
+        final LatencyHistogram injectionTime = current.injectionTime().snapshot();
+        final LatencyHistogram bytesBuffered = current.bytesBuffered().snapshot();
+        final LatencyHistogram configRequests = current.configRequests().snapshot();
+        final LatencyHistogram shadowInjectionTime = current.shadowInjectionTime().snapshot();
+        final LatencyHistogram shadowBytesBuffered = current.shadowBytesBuffered().snapshot();
+        return new PerformanceStatistics(injectionTime.getCount(), injectionTime.getPercentile(0.99d),
+                bytesBuffered.getPercentile(0.99d), bytesBuffered.getMax(),
+                configRequests.getCount(), configRequests.getSum(),
+                shadowInjectionTime.getCount(), shadowInjectionTime.getPercentile(0.99d), shadowBytesBuffered.getPercentile(0.99d));
+    }
+
+    /**
+     * The histograms of a time window.
+     *
+     * @param injectionTime       The time the badge itself cost a page, in microseconds.
+     * @param bytesBuffered       The number of bytes buffered per page.
+     * @param configRequests      The requests of the configuration servlet, {@code 1} if failed and {@code 0} otherwise.
+     * @param shadowInjectionTime The estimated injection time of a page measured in shadow mode, in microseconds.
+     * @param shadowBytesBuffered The number of bytes which would have been buffered per page measured in shadow mode.
+     */
+    private record Histograms(@NonNull RollingLatencyHistogram injectionTime, @NonNull RollingLatencyHistogram bytesBuffered,
+                              @NonNull RollingLatencyHistogram configRequests, @NonNull RollingLatencyHistogram shadowInjectionTime,
+                              @NonNull RollingLatencyHistogram shadowBytesBuffered) {
+
+        private static @NonNull Histograms of(@NonNull final Duration window) {
+            return new Histograms(new RollingLatencyHistogram(window, SLICE_COUNT), new RollingLatencyHistogram(window, SLICE_COUNT),
+                    new RollingLatencyHistogram(window, SLICE_COUNT), new RollingLatencyHistogram(window, SLICE_COUNT),
+                    new RollingLatencyHistogram(window, SLICE_COUNT));
+        }
+
+    }
+
+    /**
+     * Defines the OSGi Metatype Configuration of the statistics service.
+     */
+    @ObjectClassDefinition(name = "AEM Environment Badge Statistics Config")
+    public @interface AEMEnvironmentBadgeStatisticsConfig {
+
+        /**
+         * @return The time window in seconds the statistics are aggregated for.
+         */
+        @AttributeDefinition(name = "Time window", description = "The time window in seconds the statistics are aggregated for")
+        long windowSeconds() default 900L;
+
+    }
+
+}
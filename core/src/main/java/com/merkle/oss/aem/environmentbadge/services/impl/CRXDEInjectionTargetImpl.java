@@ -0,0 +1,23 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInjectionTarget;
+import org.jspecify.annotations.NonNull;
+import org.osgi.service.component.annotations.Component;
+
+/**
+ * Built-in {@link AEMEnvironmentBadgeInjectionTarget} for the CRXDE Lite console.
+ */
+@Component(service = AEMEnvironmentBadgeInjectionTarget.class)
+public class CRXDEInjectionTargetImpl implements AEMEnvironmentBadgeInjectionTarget {
+
+    static final String PATH = "/crx/de/index.jsp";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public @NonNull String getPath() {
+        return PATH;
+    }
+
+}
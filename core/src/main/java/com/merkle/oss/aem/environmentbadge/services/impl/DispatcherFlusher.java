@@ -0,0 +1,174 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import org.apache.http.HttpHeaders;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends dispatcher invalidation requests ({@code CQ-Action: Activate}) for a set of handles to a set of flush endpoints,
+ * e.g. {@code http://dispatcher/dispatcher/invalidate.cache}.
+ * <p>
+ * Flushes are sent asynchronously by a single daemon thread, so requesting a flush never blocks the caller. Flushes
+ * requested while one is pending are coalesced into it. Each endpoint is retried independently with an exponential
+ * backoff until it responds with a {@code 2xx} status or the maximum number of attempts is reached.
+ * <p>
+ * Closing the flusher never blocks either: flushes requested before are completed, scheduled retries are cancelled,
+ * and the HTTP client, along with its selector thread, is closed by the flush thread once it terminates.
+ */
+final class DispatcherFlusher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DispatcherFlusher.class);
+
+    static final String HEADER_CQ_ACTION = "CQ-Action";
+    static final String HEADER_CQ_HANDLE = "CQ-Handle";
+    static final String HEADER_CQ_PATH = "CQ-Path";
+    static final String ACTION_ACTIVATE = "Activate";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5L);
+
+    private final List<URI> endpoints;
+
+    private final List<String> handles;
+
+    private final int maxAttempts;
+
+    private final long retryDelayMillis;
+
+    private final HttpClient httpClient;
+
+    private final ScheduledExecutorService executor;
+
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+
+    /**
+     * Constructs a new {@code DispatcherFlusher}.
+     *
+     * @param endpoints        The URIs of the flush endpoints.
+     * @param handles          The handles to invalidate on each endpoint.
+     * @param maxAttempts      The maximum number of attempts per endpoint and handle, at least {@code 1}.
+     * @param retryDelayMillis The delay before the first retry, doubled for every further retry.
+     */
+    DispatcherFlusher(@NonNull final List<URI> endpoints, @NonNull final List<String> handles, final int maxAttempts, final long retryDelayMillis) {
+        this.endpoints = List.copyOf(Objects.requireNonNull(endpoints));
+        this.handles = List.copyOf(Objects.requireNonNull(handles));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelayMillis = Math.max(0L, retryDelayMillis);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        final ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "aem-environment-badge-dispatcher-flush");
+            thread.setDaemon(true);
+            return thread;
+        }) {
+            @Override
+            protected void terminated() {
+                super.terminated();
+                // Called once the last flush has completed, so closing the client does not wait for any request
+                httpClient.close();
+            }
+        };
+        scheduledExecutor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.executor = scheduledExecutor;
+    }
+
+    /**
+     * Requests a flush of all handles on all endpoints, unless one is pending already.
+     */
+    void requestFlush() {
+        if (endpoints.isEmpty() || handles.isEmpty() || !flushPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                // Flushes requested while sending schedule another flush, so none of them gets lost
+                flushPending.set(false);
+                for (final URI endpoint : endpoints) {
+                    for (final String handle : handles) {
+                        send(endpoint, handle, 1);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            flushPending.set(false);
+            LOG.debug("AEM Environment Badge Dispatcher Flush - Flush rejected, flusher closed.", e);
+        }
+    }
+
+    /**
+     * Stops sending flushes without blocking: flushes requested before are completed, scheduled retries are
+     * abandoned, and the HTTP client is closed afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Waits until the request in flight, if any, has completed and the HTTP client has been closed after {@link #close()}.
+     *
+     * @param timeout The maximum time to wait.
+     * @return {@code true} if the flusher has been closed completely; {@code false} if the timeout elapsed before.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    boolean awaitTermination(@NonNull final Duration timeout) throws InterruptedException {
+        return executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS) && httpClient.awaitTermination(timeout);
+    }
+
+    private void send(@NonNull final URI endpoint, @NonNull final String handle, final int attempt) {
+        final HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(TIMEOUT)
+                .header(HEADER_CQ_ACTION, ACTION_ACTIVATE)
+                .header(HEADER_CQ_HANDLE, handle)
+                .header(HEADER_CQ_PATH, handle)
+                .header(HttpHeaders.CONTENT_TYPE, "application/octet-stream")
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+
+        String failure;
+        try {
+            final int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (status >= 200 && status < 300) {
+                LOG.debug("AEM Environment Badge Dispatcher Flush - Invalidated {} on {}.", handle, endpoint);
+                return;
+            }
+            failure = "status " + status;
+        } catch (final IOException e) {
+            failure = e.toString();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (attempt >= maxAttempts) {
+            LOG.warn("AEM Environment Badge Dispatcher Flush - Unable to invalidate {} on {} after {} attempts, last failure: {}",
+                    handle, endpoint, attempt, failure);
+            return;
+        }
+
+        LOG.debug("AEM Environment Badge Dispatcher Flush - Attempt {} to invalidate {} on {} failed: {}", attempt, handle, endpoint, failure);
+        try {
+            executor.schedule(() -> send(endpoint, handle, attempt + 1), retryDelayMillis << Math.min(attempt - 1, 16), TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            LOG.debug("AEM Environment Badge Dispatcher Flush - Retry rejected, flusher closed.", e);
+        }
+    }
+
+}
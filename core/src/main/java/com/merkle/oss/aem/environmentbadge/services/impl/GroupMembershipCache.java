@@ -0,0 +1,124 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of whether users are members of the groups the environment badge is targeted to.
+ * <p>
+ * The membership of a user is resolved once and kept until its time to live expires or the cache is invalidated,
+ * e.g. because a group changed. Lookups of cached users are a single read of a {@link ConcurrentHashMap}. Once the
+ * cache is full, expired entries are evicted first, and arbitrary entries if none expired.
+ * <p>
+ * Invalidating the cache starts a new generation: memberships resolved concurrently with the invalidation are
+ * stored with the outdated generation and are therefore never returned.
+ */
+final class GroupMembershipCache {
+
+    private final Map<String, Membership> memberships = new ConcurrentHashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Function<String, @Nullable Boolean> resolver;
+
+    private final long timeToLiveNanos;
+
+    private final int maxSize;
+
+    private final LongSupplier clock;
+
+    /**
+     * Creates a cache reading the time from {@link System#nanoTime()}.
+     *
+     * @param resolver   Resolves whether a user is a member, {@code null} if the membership could not be resolved.
+     * @param timeToLive The time a resolved membership is cached for.
+     * @param maxSize    The maximum number of users cached.
+     */
+    GroupMembershipCache(@NonNull final Function<String, @Nullable Boolean> resolver, @NonNull final Duration timeToLive, final int maxSize) {
+        this(resolver, timeToLive, maxSize, System::nanoTime);
+    }
+
+    GroupMembershipCache(@NonNull final Function<String, @Nullable Boolean> resolver, @NonNull final Duration timeToLive, final int maxSize,
+                         @NonNull final LongSupplier clock) {
+        this.resolver = Objects.requireNonNull(resolver);
+        this.timeToLiveNanos = Math.max(0L, timeToLive.toNanos());
+        this.maxSize = Math.max(1, maxSize);
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * Checks if the given user is a member of the targeted groups, resolving the membership only if it is not cached.
+     * Memberships which could not be resolved are reported as not being a member and are not cached.
+     *
+     * @param userId The ID of the user.
+     * @return {@code true} if the user is a member of at least one targeted group; otherwise {@code false}.
+     */
+    boolean isMember(@NonNull final String userId) {
+        final long now = clock.getAsLong();
+        final long currentGeneration = generation.get();
+        final Membership cached = memberships.get(userId);
+        if (cached != null && cached.isValid(currentGeneration, now)) {
+            return cached.member();
+        }
+
+        final Boolean member = resolver.apply(userId);
+        if (member == null) {
+            return false;
+        }
+
+        if (cached == null && memberships.size() >= maxSize) {
+            evict(currentGeneration, now);
+        }
+        memberships.put(userId, new Membership(member, now + timeToLiveNanos, currentGeneration));
+        return member;
+    }
+
+    /**
+     * Discards all cached memberships, including those being resolved at the moment.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        memberships.clear();
+    }
+
+    /**
+     * @return The number of cached memberships, including expired ones not evicted yet.
+     */
+    int size() {
+        return memberships.size();
+    }
+
+    private void evict(final long currentGeneration, final long now) {
+        memberships.values().removeIf(membership -> !membership.isValid(currentGeneration, now));
+        final Iterator<String> userIds = memberships.keySet().iterator();
+        while (memberships.size() >= maxSize && userIds.hasNext()) {
+            userIds.next();
+            userIds.remove();
+        }
+    }
+
+    /**
+     * A resolved membership.
+     *
+     * @param member     Whether the user is a member of at least one targeted group.
+     * @param expiresAt  The time the membership expires at, as read from the clock.
+     * @param generation The generation of the cache the membership has been resolved in.
+     */
+    private record Membership(boolean member, long expiresAt, long generation) {
+
+        private boolean isValid(final long currentGeneration, final long now) {
+            return generation == currentGeneration && now - expiresAt < 0L;
+        }
+
+    }
+
+}
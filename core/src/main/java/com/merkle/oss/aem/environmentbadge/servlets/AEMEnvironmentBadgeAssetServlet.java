@@ -0,0 +1,124 @@
+package com.merkle.oss.aem.environmentbadge.servlets;
+
+import com.merkle.oss.aem.environmentbadge.models.BadgeAssets;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import org.apache.commons.lang3.Strings;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.apache.sling.servlets.annotations.SlingServletPathsStrict;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+
+import javax.servlet.Servlet;
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Sling Servlet serving the script and stylesheet referenced by the HTML fragment the CRX filter injects into
+ * server-side rendered consoles, see {@link BadgeAssets}.
+ * <p>
+ * Like the configuration, each asset is served under two URLs: {@code crx.<hash>.js} (or {@code .css}), where the
+ * hash matches the current content, is cached by the browser for a year ({@code private, immutable}), while any other URL
+ * of the asset returns its current content and is revalidated on every use. Assets of disabled features are not found.
+ *
+ * @see AEMEnvironmentBadgeConfigServlet
+ */
+@Component(service = Servlet.class)
+@SlingServletPathsStrict(
+        extensions = {BadgeAssets.SCRIPT_EXTENSION, BadgeAssets.STYLE_EXTENSION},
+        methods = HttpConstants.METHOD_GET,
+        paths = {
+                BadgeAssets.PATH
+        }
+)
+public class AEMEnvironmentBadgeAssetServlet extends SlingSafeMethodsServlet {
+
+    @Serial
+    private static final long serialVersionUID = 6177810391525236218L;
+
+    private static final String SCRIPT_CONTENT_TYPE = "text/javascript";
+
+    private static final String STYLE_CONTENT_TYPE = "text/css";
+
+    /**
+     * Reference to the OSGi service that provides the configuration settings for the environment badge.
+     */
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private transient AEMEnvironmentBadgeConfigService aemEnvironmentBadgeConfigService;
+
+    /**
+     * The rendered assets, rendered once per configuration revision.
+     */
+    private final transient AtomicReference<BadgeAssets> badgeAssets = new AtomicReference<>();
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SlingSafeMethodsServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)
+     */
+    @Override
+    protected void doGet(@NonNull final SlingHttpServletRequest request, @NonNull final SlingHttpServletResponse response) throws IOException {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(response);
+
+        final String[] selectors = request.getRequestPathInfo().getSelectors();
+        final BadgeAssets assets = getBadgeAssets();
+        final BadgeAssets.Asset asset = assets == null ? null : assets.get(request.getRequestPathInfo().getExtension());
+        if (selectors.length > 1 || asset == null || asset.isEmpty()) {
+            response.sendError(HttpStatus.SC_NOT_FOUND);
+            return;
+        }
+
+        final boolean versioned = selectors.length == 1 && selectors[0].equals(asset.hash());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, versioned
+                ? AEMEnvironmentBadgeConfigServlet.IMMUTABLE_CACHE_CONTROL
+                : AEMEnvironmentBadgeConfigServlet.REVALIDATE_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ETAG, asset.entityTag());
+        response.setHeader(HttpHeaders.CONTENT_LOCATION, asset.location());
+
+        if (Strings.CS.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH), asset.entityTag())) {
+            response.setStatus(HttpStatus.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(BadgeAssets.SCRIPT_EXTENSION.equals(asset.extension()) ? SCRIPT_CONTENT_TYPE : STYLE_CONTENT_TYPE);
+        response.setContentLength(asset.encoded().length);
+        response.setStatus(HttpStatus.SC_OK);
+        response.getOutputStream().write(asset.encoded());
+    }
+
+    /**
+     * Retrieves the assets, rendering them only once per configuration revision.
+     *
+     * @return The assets, {@code null} if no configuration is available.
+     */
+    private @Nullable BadgeAssets getBadgeAssets() {
+        final AEMEnvironmentBadgeConfigService configService = aemEnvironmentBadgeConfigService;
+        if (Objects.isNull(configService)) {
+            return null;
+        }
+
+        final long revision = configService.getRevision();
+        final BadgeAssets current = badgeAssets.get();
+        if (current != null && current.revision() == revision) {
+            return current;
+        }
+
+        final BadgeAssets created = BadgeAssets.of(configService, revision);
+        badgeAssets.set(created);
+        return created;
+    }
+
+}
@@ -1,8 +1,12 @@
 package com.merkle.oss.aem.environmentbadge.servlets;
 
-import com.google.gson.GsonBuilder;
+import com.merkle.oss.aem.environmentbadge.models.ConfigDocument;
 import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeStatisticsService;
+import com.merkle.oss.aem.environmentbadge.utils.ServerTiming;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
@@ -20,15 +24,42 @@ import javax.servlet.Servlet;
 import java.io.IOException;
 import java.io.Serial;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Sling Servlet for retrieving the AEM Environment Badge configuration as a JSON object.
  * <p>
  * This servlet is mapped using the {@link SlingServletPathsStrict} annotation to a specific path
  * to serve the necessary configuration data to the frontend JavaScript component via an AJAX request.
+ * <p>
+ * The configuration is served under two URLs:
+ * <ul>
+ *   <li>{@code config.json} always returns the current configuration. It is revalidated on every use
+ *   ({@code no-cache}) and announces the versioned URL of the current configuration via the
+ *   {@code Content-Location} header.</li>
+ *   <li>{@code config.<hash>.json}, where the hash is computed from the serialized configuration, is
+ *   cached by the browser for a year ({@code private, immutable}). As the hash depends on the content only,
+ *   all instances serving the same configuration produce the same URL. Users are only handed the hash of the
+ *   configuration served to them; as that depends on the user, shared caches must not store the response.</li>
+ * </ul>
+ * The hash of the current configuration is handed to Granite shell pages by the
+ * {@link com.merkle.oss.aem.environmentbadge.filters.AEMEnvironmentBadgePreloadFilterImpl}, so the client library
+ * requests the versioned URL right away.
+ * <p>
+ * Node tokens in the configuration, e.g. {@code ${hostname}}, are substituted by the client library. Unversioned
+ * responses carry their values in a header (see {@link #NODE_TOKENS_HEADER}), so they reflect the cluster node serving
+ * the configuration; versioned responses carry none, as they are identical on all cluster nodes.
+ * If the features are targeted to certain groups (see {@link AEMEnvironmentBadgeConfigService#isVisibleTo(String)}),
+ * users who are not a member are served an empty configuration, which is serialized only once as well.
+ * <p>
+ * Each request is described by a {@link ConfigServingEvent}, a JDK Flight Recorder event which is disabled by default.
+ * If enabled by {@link AEMEnvironmentBadgeConfigService#isEnableServerTiming()}, the time spent serving the request is
+ * also reported to the browser by a {@code Server-Timing} header (see {@link #METRIC_SERVE}).
+ * <p>
+ * If available, each request is recorded by the {@link AEMEnvironmentBadgeStatisticsService}, as failed if serving
+ * it threw an exception, so a health check can compare the error rate against a budget. Requests for unknown
+ * selectors are client errors and therefore not recorded as failed.
  *
  * @see AEMEnvironmentBadgeConfigService
  */
@@ -37,20 +68,41 @@ import java.util.Objects;
         extensions = "json",
         methods = HttpConstants.METHOD_GET,
         paths = {
-                "/bin/com/merkle/oss/aem/environment-badge/config"
+                AEMEnvironmentBadgeConfigServlet.SERVLET_PATH
         }
 )
 public class AEMEnvironmentBadgeConfigServlet extends SlingSafeMethodsServlet {
 
+    /**
+     * The path the servlet is registered for, without selectors and extension.
+     */
+    static final String SERVLET_PATH = ConfigDocument.PATH;
+
+    /**
+     * The {@code Cache-Control} header value of versioned configuration responses. Private, as the configuration
+     * served depends on the user (see {@link AEMEnvironmentBadgeConfigService#isVisibleTo(String)}).
+     */
+    static final String IMMUTABLE_CACHE_CONTROL = "private, max-age=31536000, immutable";
+
+    /**
+     * The {@code Cache-Control} header value of unversioned configuration responses.
+     */
+    static final String REVALIDATE_CACHE_CONTROL = "private, no-cache";
+
+    /**
+     * {@code Server-Timing} metric of serving the configuration, up to writing the response body.
+     */
+    static final String METRIC_SERVE = "badge-config";
+
+    /**
+     * The response header handing the values of the node tokens to clients requesting the unversioned configuration,
+     * e.g. {@code hostname=author-1&run_modes=author%2Cdev}.
+     */
+    static final String NODE_TOKENS_HEADER = "X-Environment-Badge-Node-Tokens";
+
     @Serial
     private static final long serialVersionUID = -2090658834762276970L;
 
-    private static final String ENABLED_DOCUMENT_TITLE_PREFIX_KEY = "enableDocumentTitlePrefix";
-    private static final String DOCUMENT_TITLE_PREFIX_KEY = "documentTitlePrefix";
-    private static final String ENABLED_BADGE_KEY = "enableBadge";
-    private static final String BADGE_TITLE_KEY = "badgeTitle";
-    private static final String BADGE_BACKGROUND_COLOR_KEY = "badgeBackgroundColor";
-
     /**
      * Reference to the OSGi service that provides the configuration settings for the environment badge.
      * This reference is optional, allowing the servlet to run even if the configuration service is temporarily unavailable.
@@ -59,6 +111,14 @@ public class AEMEnvironmentBadgeConfigServlet extends SlingSafeMethodsServlet {
     @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
     private transient AEMEnvironmentBadgeConfigService aemEnvironmentBadgeConfigService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private transient AEMEnvironmentBadgeStatisticsService aemEnvironmentBadgeStatisticsService;
+
+    /**
+     * The serialized configuration, computed once per configuration revision.
+     */
+    private final transient AtomicReference<ConfigDocument> configDocument = new AtomicReference<>();
+
     /**
      * {@inheritDoc}
      *
@@ -69,21 +129,113 @@ public class AEMEnvironmentBadgeConfigServlet extends SlingSafeMethodsServlet {
         Objects.requireNonNull(request);
         Objects.requireNonNull(response);
 
+        final AEMEnvironmentBadgeStatisticsService statistics = aemEnvironmentBadgeStatisticsService;
+        boolean failed = true;
+        try {
+            serve(request, response);
+            failed = false;
+        } finally {
+            if (statistics != null) {
+                statistics.recordConfigRequest(failed);
+            }
+        }
+    }
+
+    private void serve(@NonNull final SlingHttpServletRequest request, @NonNull final SlingHttpServletResponse response) throws IOException {
+        final ConfigServingEvent event = new ConfigServingEvent();
+        event.begin();
+        final AEMEnvironmentBadgeConfigService configService = aemEnvironmentBadgeConfigService;
+        final boolean serverTiming = configService != null && configService.isEnableServerTiming();
+        final long serveStart = serverTiming ? System.nanoTime() : 0L;
+
+        final String[] selectors = request.getRequestPathInfo().getSelectors();
+        if (selectors.length > 1) {
+            response.sendError(HttpStatus.SC_NOT_FOUND);
+            commitEvent(event, request, HttpStatus.SC_NOT_FOUND);
+            return;
+        }
+
+        final long serializationStart = ticks(event);
+        final ConfigDocument document = configService == null || configService.isVisibleTo(request.getRemoteUser())
+                ? getConfigDocument()
+                : ConfigDocument.EMPTY;
+        event.serializationDuration = ticks(event) - serializationStart;
+
+        final boolean versioned = selectors.length == 1 && selectors[0].equals(document.hash());
+        event.versioned = versioned;
+        response.setHeader(HttpHeaders.CACHE_CONTROL, versioned ? IMMUTABLE_CACHE_CONTROL : REVALIDATE_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ETAG, document.entityTag());
+        response.setHeader(HttpHeaders.CONTENT_LOCATION, document.location());
+        final String nodeTokens = versioned || document == ConfigDocument.EMPTY ? null : configService.getNodeTokens();
+        if (StringUtils.isNotEmpty(nodeTokens)) {
+            // Set on 304 responses as well, which update the headers stored by the browser
+            response.setHeader(NODE_TOKENS_HEADER, nodeTokens);
+        }
+
+        if (Strings.CS.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH), document.entityTag())) {
+            addServerTiming(response, serverTiming, serveStart, 0L);
+            response.setStatus(HttpStatus.SC_NOT_MODIFIED);
+            commitEvent(event, request, HttpStatus.SC_NOT_MODIFIED);
+            return;
+        }
+
         response.setCharacterEncoding(StandardCharsets.UTF_8.name());
         response.setContentType(JSONResponse.RESPONSE_CONTENT_TYPE);
+        response.setStatus(HttpStatus.SC_OK);
+        addServerTiming(response, serverTiming, serveStart, document.length());
+
+        final long writeStart = ticks(event);
+        response.getWriter().write(document.json());
+        event.writeDuration = ticks(event) - writeStart;
+        event.bytesWritten = document.length();
+        commitEvent(event, request, HttpStatus.SC_OK);
+    }
+
+    /**
+     * Adds the {@code Server-Timing} header reporting the time spent since the given start, unless disabled.
+     * It has to be added before the body is written and the response gets committed.
+     */
+    private static void addServerTiming(@NonNull final SlingHttpServletResponse response, final boolean serverTiming,
+                                        final long serveStart, final long bytes) {
+        if (serverTiming) {
+            response.addHeader(ServerTiming.HEADER, ServerTiming.metric(METRIC_SERVE, System.nanoTime() - serveStart, ServerTiming.bytes(bytes)));
+        }
+    }
+
+    /**
+     * Reads the time for the durations of the given event, without reading the clock if the event is disabled.
+     */
+    private static long ticks(@NonNull final ConfigServingEvent event) {
+        return event.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    private static void commitEvent(@NonNull final ConfigServingEvent event, @NonNull final SlingHttpServletRequest request, final int status) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = request.getRequestURI();
+            event.status = status;
+            event.commit();
+        }
+    }
 
-        final Map<String, Object> configurationDto = new HashMap<>();
-        if (!Objects.isNull(aemEnvironmentBadgeConfigService)) {
-            configurationDto.put(ENABLED_DOCUMENT_TITLE_PREFIX_KEY, aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix());
-            configurationDto.put(DOCUMENT_TITLE_PREFIX_KEY, StringUtils.defaultIfEmpty(aemEnvironmentBadgeConfigService.getDocumentTitlePrefix(), StringUtils.EMPTY));
-            configurationDto.put(ENABLED_BADGE_KEY, aemEnvironmentBadgeConfigService.isEnableBadge());
-            configurationDto.put(BADGE_TITLE_KEY, StringUtils.defaultIfEmpty(aemEnvironmentBadgeConfigService.getBadgeTitle(), StringUtils.EMPTY));
-            configurationDto.put(BADGE_BACKGROUND_COLOR_KEY, aemEnvironmentBadgeConfigService.getBadgeBackgroundColor());
+    /**
+     * Retrieves the serialized configuration, serializing and hashing it only once per configuration revision.
+     */
+    private @NonNull ConfigDocument getConfigDocument() {
+        final AEMEnvironmentBadgeConfigService configService = aemEnvironmentBadgeConfigService;
+        if (Objects.isNull(configService)) {
+            return ConfigDocument.EMPTY;
         }
 
-        response.setStatus(HttpStatus.SC_OK);
-        // Disable HTML escaping is needed to prevent gson from escaping chars like '=' to '\u003D'
-        new GsonBuilder().disableHtmlEscaping().create().toJson(configurationDto, response.getWriter());
+        final long revision = configService.getRevision();
+        final ConfigDocument current = configDocument.get();
+        if (current != null && Objects.equals(current.revision(), revision)) {
+            return current;
+        }
+
+        final ConfigDocument created = ConfigDocument.of(configService, revision);
+        configDocument.set(created);
+        return created;
     }
 
 }
@@ -0,0 +1,76 @@
+package com.merkle.oss.aem.environmentbadge.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInventoryService;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.apache.sling.servlets.annotations.SlingServletPathsStrict;
+import org.apache.sling.servlets.post.JSONResponse;
+import org.jspecify.annotations.NonNull;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+
+import javax.servlet.Servlet;
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Objects;
+
+/**
+ * Sling Servlet exposing the inventory of the AEM Environment Badge configurations served by a set of instances
+ * as a JSON object, see {@link AEMEnvironmentBadgeInventoryService}.
+ * <p>
+ * An empty object is returned if the inventory service is not configured.
+ */
+@Component(service = Servlet.class)
+@SlingServletPathsStrict(
+        extensions = "json",
+        methods = HttpConstants.METHOD_GET,
+        paths = {
+                "/bin/com/merkle/oss/aem/environment-badge/inventory"
+        }
+)
+public class AEMEnvironmentBadgeInventoryServlet extends SlingSafeMethodsServlet {
+
+    @Serial
+    private static final long serialVersionUID = -3525760178307851384L;
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /**
+     * Reference to the OSGi service that collects the inventory.
+     * This reference is optional, as the inventory service is only active if configured.
+     */
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private transient AEMEnvironmentBadgeInventoryService aemEnvironmentBadgeInventoryService;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SlingSafeMethodsServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)
+     */
+    @Override
+    protected void doGet(@NonNull final SlingHttpServletRequest request, @NonNull final SlingHttpServletResponse response) throws IOException {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(response);
+
+        final Object inventory = Objects.isNull(aemEnvironmentBadgeInventoryService)
+                ? Collections.emptyMap()
+                : aemEnvironmentBadgeInventoryService.getInventory();
+
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(JSONResponse.RESPONSE_CONTENT_TYPE);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, AEMEnvironmentBadgeConfigServlet.REVALIDATE_CACHE_CONTROL);
+        response.setStatus(HttpStatus.SC_OK);
+        GSON.toJson(inventory, response.getWriter());
+    }
+
+}
@@ -0,0 +1,223 @@
+package com.merkle.oss.aem.environmentbadge.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeMetricsService;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.HttpConstants;
+import org.apache.sling.api.servlets.SlingAllMethodsServlet;
+import org.apache.sling.servlets.annotations.SlingServletPathsStrict;
+import org.apache.sling.servlets.post.JSONResponse;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+
+import javax.servlet.Servlet;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Sling Servlet collecting client-side performance measurements of the AEM Environment Badge.
+ * <p>
+ * The frontend JavaScript component sends batches of {@code performance.measure} durations via
+ * {@code navigator.sendBeacon} to this servlet ({@code POST}), which folds them into the in-memory
+ * histograms of the {@link AEMEnvironmentBadgeMetricsService}. The aggregated histograms are exposed
+ * as a JSON object ({@code GET}).
+ * <p>
+ * Expected payload:
+ * {@snippet lang = "json":
+ * {"measures": [{"name": "badge-insertion", "duration": 1.25}]}
+ *}
+ *
+ * @see AEMEnvironmentBadgeMetricsService
+ */
+@Component(service = Servlet.class)
+@SlingServletPathsStrict(
+        extensions = "json",
+        methods = {HttpConstants.METHOD_GET, HttpConstants.METHOD_POST},
+        paths = {
+                "/bin/com/merkle/oss/aem/environment-badge/metrics"
+        }
+)
+public class AEMEnvironmentBadgeMetricsServlet extends SlingAllMethodsServlet {
+
+    @Serial
+    private static final long serialVersionUID = 4183902740557716321L;
+
+    /**
+     * Prefix of all metrics recorded by this servlet.
+     */
+    static final String CLIENT_METRIC_PREFIX = "client.";
+
+    /**
+     * The names of the measures accepted from the frontend. Any other measure is ignored
+     * to keep the number of histograms bounded.
+     */
+    static final Set<String> ACCEPTED_MEASURES = Set.of("config-retrieval", "document-title-prefix", "badge-insertion");
+
+    /**
+     * The maximum accepted payload length in characters.
+     */
+    static final int MAX_PAYLOAD_LENGTH = 4096;
+
+    private static final String MEASURES_KEY = "measures";
+    private static final String NAME_KEY = "name";
+    private static final String DURATION_KEY = "duration";
+    private static final long MAX_DURATION_MICROS = 60_000_000L;
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    /**
+     * Reference to the OSGi service that aggregates the measurements.
+     * This reference is optional, allowing the servlet to accept beacons even if the service is temporarily unavailable.
+     */
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policyOption = ReferencePolicyOption.GREEDY)
+    private transient AEMEnvironmentBadgeMetricsService aemEnvironmentBadgeMetricsService;
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SlingAllMethodsServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)
+     */
+    @Override
+    protected void doGet(@NonNull final SlingHttpServletRequest request, @NonNull final SlingHttpServletResponse response) throws IOException {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(response);
+
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(JSONResponse.RESPONSE_CONTENT_TYPE);
+        response.setStatus(HttpStatus.SC_OK);
+
+        final Object snapshot = Objects.isNull(aemEnvironmentBadgeMetricsService)
+                ? Collections.emptyMap()
+                : aemEnvironmentBadgeMetricsService.getSnapshot();
+        GSON.toJson(snapshot, response.getWriter());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @see SlingAllMethodsServlet#doPost(SlingHttpServletRequest, SlingHttpServletResponse)
+     */
+    @Override
+    protected void doPost(@NonNull final SlingHttpServletRequest request, @NonNull final SlingHttpServletResponse response) throws IOException {
+        Objects.requireNonNull(request);
+        Objects.requireNonNull(response);
+
+        final String payload = readPayload(request.getReader());
+        if (payload == null) {
+            response.setStatus(HttpStatus.SC_REQUEST_TOO_LONG);
+            return;
+        }
+
+        final JsonElement measures;
+        try {
+            final JsonElement root = JsonParser.parseString(payload);
+            measures = root.isJsonObject() ? root.getAsJsonObject().get(MEASURES_KEY) : null;
+        } catch (final JsonParseException e) {
+            response.setStatus(HttpStatus.SC_BAD_REQUEST);
+            return;
+        }
+
+        if (measures == null || !measures.isJsonArray()) {
+            response.setStatus(HttpStatus.SC_BAD_REQUEST);
+            return;
+        }
+
+        if (!Objects.isNull(aemEnvironmentBadgeMetricsService)) {
+            final String browser = browserOf(request.getHeader(HttpHeaders.USER_AGENT));
+            measures.getAsJsonArray().forEach(measure -> recordMeasure(measure, browser));
+        }
+
+        response.setStatus(HttpStatus.SC_NO_CONTENT);
+    }
+
+    private void recordMeasure(@NonNull final JsonElement measure, @NonNull final String browser) {
+        if (!measure.isJsonObject()) {
+            return;
+        }
+
+        final JsonObject measureObject = measure.getAsJsonObject();
+        final String name = stringOf(measureObject.get(NAME_KEY));
+        final JsonElement duration = measureObject.get(DURATION_KEY);
+        if (!ACCEPTED_MEASURES.contains(name) || duration == null || !duration.isJsonPrimitive()
+                || !duration.getAsJsonPrimitive().isNumber()) {
+            return;
+        }
+
+        final long durationMicros = Math.round(duration.getAsDouble() * 1000.0d);
+        if (durationMicros < 0 || durationMicros > MAX_DURATION_MICROS) {
+            return;
+        }
+        aemEnvironmentBadgeMetricsService.record(CLIENT_METRIC_PREFIX + name + "." + browser, durationMicros);
+    }
+
+    private static @Nullable String stringOf(@Nullable final JsonElement element) {
+        if (element instanceof JsonPrimitive primitive && primitive.isString()) {
+            return primitive.getAsString();
+        }
+        return null;
+    }
+
+    /**
+     * Reads the request payload, aborting as soon as it exceeds {@link #MAX_PAYLOAD_LENGTH}.
+     *
+     * @param reader The request body reader.
+     * @return The payload, or {@code null} if the payload is too long.
+     * @throws IOException if reading the request body fails.
+     */
+    private static @Nullable String readPayload(@NonNull final Reader reader) throws IOException {
+        final char[] buffer = new char[MAX_PAYLOAD_LENGTH + 1];
+        int length = 0;
+        int read;
+        while (length < buffer.length && (read = reader.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+        }
+        return length > MAX_PAYLOAD_LENGTH ? null : new String(buffer, 0, length);
+    }
+
+    /**
+     * Maps a {@code User-Agent} header to a small, fixed set of browser families to keep the
+     * number of histograms bounded.
+     *
+     * @param userAgent The {@code User-Agent} request header.
+     * @return The browser family: {@code edge}, {@code firefox}, {@code chrome}, {@code safari} or {@code other}.
+     */
+    static @NonNull String browserOf(@Nullable final String userAgent) {
+        if (StringUtils.isBlank(userAgent)) {
+            return "other";
+        }
+        if (Strings.CS.contains(userAgent, "Edg/")) {
+            return "edge";
+        }
+        if (Strings.CS.contains(userAgent, "Firefox/")) {
+            return "firefox";
+        }
+        if (Strings.CS.contains(userAgent, "Chrome/")) {
+            return "chrome";
+        }
+        if (Strings.CS.contains(userAgent, "Safari/")) {
+            return "safari";
+        }
+        return "other";
+    }
+
+}
@@ -0,0 +1,57 @@
+package com.merkle.oss.aem.environmentbadge.servlets;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event describing a request served by the {@link AEMEnvironmentBadgeConfigServlet}.
+ * <p>
+ * The event is disabled by default and only recorded for requests exceeding the threshold, e.g.:
+ * {@snippet :
+ * jcmd <pid> JFR.start settings=profile +com.merkle.oss.aem.environmentbadge.ConfigServing#enabled=true
+ *}
+ */
+@Name(ConfigServingEvent.NAME)
+@Label("Environment Badge Config Serving")
+@Description("Request for the AEM Environment Badge configuration")
+@Category({"AEM", "Environment Badge"})
+@Enabled(false)
+@Threshold("5 ms")
+@StackTrace(false)
+final class ConfigServingEvent extends Event {
+
+    static final String NAME = "com.merkle.oss.aem.environmentbadge.ConfigServing";
+
+    @Label("Path")
+    @Description("Request URI")
+    String path;
+
+    @Label("Versioned")
+    @Description("Whether the request addressed the current content-hashed configuration")
+    boolean versioned;
+
+    @Label("Status")
+    int status;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+
+    @Label("Serialization Duration")
+    @Description("Duration of retrieving the serialized configuration, serializing it if the configuration changed")
+    @Timespan
+    long serializationDuration;
+
+    @Label("Write Duration")
+    @Timespan
+    long writeDuration;
+
+}
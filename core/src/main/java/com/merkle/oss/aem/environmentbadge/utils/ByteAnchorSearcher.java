@@ -0,0 +1,297 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.jspecify.annotations.NonNull;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches encoded content backwards for the last occurrence of an anchor (e.g., {@code </body></html>})
+ * without decoding it.
+ * <p>
+ * The anchor is split into its tags, which are matched case-insensitively. Whitespace and HTML comments
+ * are tolerated between the tags and whitespace is tolerated before the closing {@code >} of a tag, so
+ * {@code </body></html>} also matches {@code </BODY>\n<!-- footer -->\n</html >}. The last tag is located
+ * using a Boyer–Moore–Horspool shift table precomputed for the tag, mirrored to scan from the end of the
+ * content towards its start, while the preceding tags are verified from there.
+ * <p>
+ * The search is limited to the last {@link #SEARCH_WINDOW_LENGTH} bytes of the content, so its cost is
+ * bounded regardless of the size of the content. Anchors located before the window are not found.
+ * <p>
+ * Byte-level search is only equivalent to a character-level search if the encoding is ASCII-compatible,
+ * see {@link #isByteSearchable(Charset)}. Content of other encodings has to be decoded and searched via
+ * {@link #lastIndexIn(CharSequence)}.
+ *
+ * @apiNote The anchor is expected to consist of ASCII characters only, anchors containing other characters are never found.
+ */
+public class ByteAnchorSearcher {
+
+    /**
+     * The number of trailing bytes (or characters) of the content searched for the anchor.
+     */
+    public static final int SEARCH_WINDOW_LENGTH = 8192;
+
+    private static final Pattern TAG_PATTERN = Pattern.compile("<[^<>]*>");
+
+    private static final String ASCII_PROBE = "\t\n\r !\"#$%&'()*+,-./0123456789:;<=>?@ABCDEFGHIJKLMNOPQRSTUVWXYZ[\\]^_`abcdefghijklmnopqrstuvwxyz{|}~";
+
+    private static final byte[] COMMENT_START = "<!--".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] COMMENT_END = "-->".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int ALPHABET_SIZE = 256;
+
+    private static final byte TAG_END = '>';
+
+    /**
+     * The lowercase tokens of the anchor, each including the closing {@code >} of tags.
+     */
+    private final byte[][] tokens;
+
+    /**
+     * The last token of the anchor, without the closing {@code >} of tags.
+     */
+    private final byte[] pattern;
+
+    private final int[] shifts;
+
+    /**
+     * Constructs a new {@code ByteAnchorSearcher}, precomputing the shift table for the last token of the anchor.
+     *
+     * @param tokens The lowercase tokens of the anchor.
+     */
+    private ByteAnchorSearcher(final byte @NonNull [] @NonNull [] tokens) {
+        this.tokens = tokens;
+        this.pattern = tokens.length == 0 ? new byte[0] : withoutTagEnd(tokens[tokens.length - 1]);
+        this.shifts = new int[ALPHABET_SIZE];
+
+        // The window is compared from its first byte, so the shift is driven by the byte at the window start:
+        // the distance to the first occurrence of that byte within the pattern, excluding the first position
+        Arrays.fill(shifts, Math.max(1, pattern.length));
+        for (int i = pattern.length - 1; i > 0; i--) {
+            shifts[pattern[i] & 0xFF] = i;
+            shifts[toUpperCase(pattern[i]) & 0xFF] = i;
+        }
+    }
+
+    /**
+     * Factory method to create a new instance of {@code ByteAnchorSearcher}.
+     *
+     * @param anchor The anchor to search for, e.g., {@code </body></html>}. Anchors not consisting of tags
+     *               only are matched as a whole, still case-insensitively.
+     * @return A new, initialized {@code ByteAnchorSearcher} instance.
+     */
+    public static @NonNull ByteAnchorSearcher create(@NonNull final String anchor) {
+        Objects.requireNonNull(anchor);
+
+        final String normalizedAnchor = anchor.strip().toLowerCase(Locale.ROOT);
+        if (!StandardCharsets.US_ASCII.newEncoder().canEncode(normalizedAnchor)) {
+            return new ByteAnchorSearcher(new byte[0][]);
+        }
+
+        final List<String> tags = new ArrayList<>();
+        final Matcher matcher = TAG_PATTERN.matcher(normalizedAnchor);
+        int end = 0;
+        while (matcher.find() && normalizedAnchor.substring(end, matcher.start()).isBlank()) {
+            tags.add(matcher.group());
+            end = matcher.end();
+        }
+
+        final List<String> tokens = end == normalizedAnchor.length() ? tags : List.of(normalizedAnchor);
+        return new ByteAnchorSearcher(tokens.stream()
+                .filter(token -> !token.isEmpty())
+                .map(token -> token.getBytes(StandardCharsets.US_ASCII))
+                .toArray(byte[][]::new));
+    }
+
+    /**
+     * Checks if content of the given character encoding can be searched on byte level.
+     * <p>
+     * This is the case for {@code UTF-8}, which never uses bytes of the ASCII range within multibyte sequences,
+     * and for single-byte encodings encoding the ASCII range as ASCII (e.g., {@code ISO-8859-1}, {@code windows-1252}).
+     *
+     * @param charset The character encoding of the content.
+     * @return {@code true} if a byte-level search finds the same anchor as a character-level search; otherwise {@code false}.
+     */
+    public static boolean isByteSearchable(@NonNull final Charset charset) {
+        if (StandardCharsets.UTF_8.equals(charset) || StandardCharsets.ISO_8859_1.equals(charset) || StandardCharsets.US_ASCII.equals(charset)) {
+            return true;
+        }
+        return charset.canEncode()
+                && charset.newEncoder().maxBytesPerChar() == 1.0f
+                && Arrays.equals(ASCII_PROBE.getBytes(charset), ASCII_PROBE.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Finds the last occurrence of the anchor within the last {@link #SEARCH_WINDOW_LENGTH} characters of the given content.
+     *
+     * @param content The decoded content.
+     * @return The index of the first character of the last occurrence, {@code -1} if the anchor is not found.
+     */
+    public int lastIndexIn(@NonNull final CharSequence content) {
+        final int windowStart = Math.max(0, content.length() - SEARCH_WINDOW_LENGTH);
+        final byte[] window = new byte[content.length() - windowStart];
+        for (int i = 0; i < window.length; i++) {
+            final char c = content.charAt(windowStart + i);
+            window[i] = c < 0x80 ? (byte) c : 0;
+        }
+
+        final int index = lastIndexIn(window, window.length);
+        return index < 0 ? -1 : windowStart + index;
+    }
+
+    /**
+     * Finds the last occurrence of the anchor within the last {@link #SEARCH_WINDOW_LENGTH} bytes of the
+     * first {@code length} bytes of the given content.
+     *
+     * @param content The encoded content.
+     * @param length  The number of valid bytes within {@code content}.
+     * @return The index of the first byte of the last occurrence, {@code -1} if the anchor is not found.
+     */
+    public int lastIndexIn(final byte @NonNull [] content, final int length) {
+        if (tokens.length == 0) {
+            return -1;
+        }
+
+        final int contentLength = Math.min(length, content.length);
+        final int windowStart = Math.max(0, contentLength - SEARCH_WINDOW_LENGTH);
+        int candidate = lastIndexOfPattern(content, contentLength - pattern.length, windowStart);
+        while (candidate >= 0) {
+            final int start = matchAnchorAt(content, contentLength, windowStart, candidate);
+            if (start >= 0) {
+                return start;
+            }
+            candidate = lastIndexOfPattern(content, candidate - 1, windowStart);
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the last occurrence of the last token, without its closing {@code >}, starting at or before {@code from}.
+     */
+    private int lastIndexOfPattern(final byte @NonNull [] content, final int from, final int windowStart) {
+        int index = from;
+        while (index >= windowStart) {
+            if (regionMatches(content, index, pattern, pattern.length)) {
+                return index;
+            }
+            index -= shifts[content[index] & 0xFF];
+        }
+        return -1;
+    }
+
+    /**
+     * Verifies the anchor around an occurrence of the last token and returns the start index of the anchor.
+     */
+    private int matchAnchorAt(final byte @NonNull [] content, final int contentLength, final int windowStart, final int candidate) {
+        final byte[] lastToken = tokens[tokens.length - 1];
+        if (isTag(lastToken)) {
+            final int tagEnd = skipWhitespaceForward(content, candidate + pattern.length, contentLength);
+            if (tagEnd >= contentLength || content[tagEnd] != TAG_END) {
+                return -1;
+            }
+        }
+
+        int start = candidate;
+        for (int i = tokens.length - 2; i >= 0 && start >= 0; i--) {
+            final int end = skipIgnorableBackward(content, start, windowStart);
+            start = end < 0 ? -1 : matchTokenBefore(content, tokens[i], end, windowStart);
+        }
+        return start;
+    }
+
+    /**
+     * Matches a token ending right before {@code end}, tolerating whitespace before the closing {@code >}.
+     */
+    private static int matchTokenBefore(final byte @NonNull [] content, final byte @NonNull [] token, final int end, final int windowStart) {
+        int index = end;
+        int tokenLength = token.length;
+        if (isTag(token)) {
+            if (index <= windowStart || content[index - 1] != TAG_END) {
+                return -1;
+            }
+            index = skipWhitespaceBackward(content, index - 1, windowStart);
+            tokenLength--;
+        }
+
+        final int start = index - tokenLength;
+        return start >= windowStart && regionMatches(content, start, token, tokenLength) ? start : -1;
+    }
+
+    /**
+     * Skips whitespace and HTML comments right before {@code end}.
+     */
+    private static int skipIgnorableBackward(final byte @NonNull [] content, final int end, final int windowStart) {
+        int index = skipWhitespaceBackward(content, end, windowStart);
+        while (index - COMMENT_END.length >= windowStart && regionMatches(content, index - COMMENT_END.length, COMMENT_END, COMMENT_END.length)) {
+            final int commentStart = lastIndexOf(content, COMMENT_START, index - COMMENT_END.length - COMMENT_START.length, windowStart);
+            if (commentStart < 0) {
+                return -1;
+            }
+            index = skipWhitespaceBackward(content, commentStart, windowStart);
+        }
+        return index;
+    }
+
+    private static int skipWhitespaceBackward(final byte @NonNull [] content, final int end, final int windowStart) {
+        int index = end;
+        while (index > windowStart && isWhitespace(content[index - 1])) {
+            index--;
+        }
+        return index;
+    }
+
+    private static int skipWhitespaceForward(final byte @NonNull [] content, final int start, final int contentLength) {
+        int index = start;
+        while (index < contentLength && isWhitespace(content[index])) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int lastIndexOf(final byte @NonNull [] content, final byte @NonNull [] token, final int from, final int windowStart) {
+        for (int index = from; index >= windowStart; index--) {
+            if (regionMatches(content, index, token, token.length)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean regionMatches(final byte @NonNull [] content, final int offset, final byte @NonNull [] token, final int tokenLength) {
+        for (int i = tokenLength - 1; i >= 0; i--) {
+            if (toLowerCase(content[offset + i]) != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTag(final byte @NonNull [] token) {
+        return token.length > 1 && token[0] == '<' && token[token.length - 1] == TAG_END;
+    }
+
+    private static byte @NonNull [] withoutTagEnd(final byte @NonNull [] token) {
+        return isTag(token) ? Arrays.copyOf(token, token.length - 1) : token;
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '\f';
+    }
+
+    private static byte toLowerCase(final byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static byte toUpperCase(final byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - ('a' - 'A')) : b;
+    }
+
+}
@@ -1,9 +1,9 @@
 package com.merkle.oss.aem.environmentbadge.utils;
 
-import org.apache.commons.text.StringSubstitutor;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -11,9 +11,11 @@ import java.util.Objects;
 /**
  * Helper class for performing variable substitution with configuration strings.
  * <p>
- * This class uses an underlying mechanism of {@link org.apache.commons.text.StringSubstitutor} to replace
- * placeholders (e.g., {@code ${placeholder_key_value}}) in a source string with values
- * provided during the helper's creation.
+ * This class replaces placeholders (e.g., {@code ${placeholder_key_value}}) in a {@link ConfigTemplate}
+ * with values provided during the helper's creation. Placeholders may denote the {@link EscapingContext}
+ * they are substituted into (e.g., {@code ${js:placeholder_key_value}}); each value is escaped at most
+ * once per context, so an instance is meant to be created once per configuration version and reused for
+ * rendering all templates of that version.
  */
 public class ConfigSubstitutionHelper {
 
@@ -27,11 +29,27 @@ public class ConfigSubstitutionHelper {
      */
     public static final String PLACEHOLDER_BACKGROUND_COLOR = "background_color";
 
-    private final StringSubstitutor substitutor;
+    /**
+     * Constant for the configuration placeholder key representing the Sling ID of the instance serving the request.
+     */
+    public static final String PLACEHOLDER_INSTANCE_ID = "instance_id";
+
+    /**
+     * Constant for the configuration placeholder key representing the host name of the instance serving the request.
+     */
+    public static final String PLACEHOLDER_HOSTNAME = "hostname";
+
+    /**
+     * Constant for the configuration placeholder key representing the run modes of the instance serving the request.
+     */
+    public static final String PLACEHOLDER_RUN_MODES = "run_modes";
+
+    private final Map<String, String> substitutionValues;
+
+    private final Map<String, Map<EscapingContext, String>> escapedValues = new HashMap<>();
 
     /**
-     * Constructs a new {@code ConfigSubstitutionHelper} instance, initializing the underlying
-     * substitution mechanism with the provided map of values.
+     * Constructs a new {@code ConfigSubstitutionHelper} instance with the provided map of values.
      * <p>
      * The map is copied internally to ensure the helper's substitution values
      * remain consistent even if the source map is later modified.
@@ -43,7 +61,7 @@ public class ConfigSubstitutionHelper {
     private ConfigSubstitutionHelper(@NonNull final Map<String, String> substitutionValues) {
         Objects.requireNonNull(substitutionValues);
 
-        this.substitutor = new StringSubstitutor(new HashMap<>(substitutionValues));
+        this.substitutionValues = new HashMap<>(substitutionValues);
     }
 
     /**
@@ -61,14 +79,51 @@ public class ConfigSubstitutionHelper {
     /**
      * Replaces all defined placeholders in the given source string with their
      * corresponding substitution values.
+     * <p>
+     * The source is compiled on every call. Templates rendered repeatedly should be compiled once
+     * and rendered via {@link #render(ConfigTemplate, StringBuilder)} instead.
      *
      * @param source The string containing placeholders (e.g., "${placeholder_key_value}").
      * @return The source string with all placeholders replaced by their configured values.
-     * If no substitution values are found for a placeholder, it may be left
-     * unmodified depending on the underlying substitution mechanism's configuration.
+     * Placeholders without a substitution value are left unmodified.
      */
     public @Nullable String replace(@Nullable final String source) {
-        return substitutor.replace(source);
+        if (source == null) {
+            return null;
+        }
+        final StringBuilder stringBuilder = new StringBuilder(source.length());
+        render(ConfigTemplate.compile(source), stringBuilder);
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Renders the given template into the given buffer, substituting its placeholders with the
+     * substitution values escaped for the context of the placeholder.
+     *
+     * @param template      The compiled template.
+     * @param stringBuilder The buffer to append the rendered template to.
+     * @return The given buffer.
+     */
+    public @NonNull StringBuilder render(@NonNull final ConfigTemplate template, @NonNull final StringBuilder stringBuilder) {
+        Objects.requireNonNull(template);
+        Objects.requireNonNull(stringBuilder);
+
+        for (final ConfigTemplate.Segment segment : template.getSegments()) {
+            switch (segment) {
+                case ConfigTemplate.Literal literal -> stringBuilder.append(literal.text());
+                case ConfigTemplate.Placeholder placeholder -> stringBuilder.append(resolve(placeholder));
+            }
+        }
+        return stringBuilder;
+    }
+
+    private @NonNull String resolve(final ConfigTemplate.@NonNull Placeholder placeholder) {
+        final String value = substitutionValues.get(placeholder.name());
+        if (value == null) {
+            return placeholder.source();
+        }
+        return escapedValues.computeIfAbsent(placeholder.name(), name -> new EnumMap<>(EscapingContext.class))
+                .computeIfAbsent(placeholder.context(), context -> context.escape(value));
     }
 
 }
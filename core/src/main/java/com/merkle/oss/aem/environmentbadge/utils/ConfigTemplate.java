@@ -0,0 +1,103 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A template compiled once into literal and placeholder segments, so rendering it is a plain concatenation
+ * of segments without parsing the template again.
+ * <p>
+ * Placeholders have the form {@code ${name}} or {@code ${context:name}}, where the optional context is the
+ * prefix of an {@link EscapingContext} defining how the substituted value is escaped, e.g.:
+ * {@snippet :
+ * ConfigTemplate template = ConfigTemplate.compile("<script>const t='${js:document_title_prefix}';</script>");
+ * ConfigSubstitutionHelper.create(values).render(template, stringBuilder);
+ *}
+ *
+ * @see ConfigSubstitutionHelper#render(ConfigTemplate, StringBuilder)
+ */
+public final class ConfigTemplate {
+
+    private static final String PLACEHOLDER_START = "${";
+
+    private static final String PLACEHOLDER_END = "}";
+
+    private static final char CONTEXT_SEPARATOR = ':';
+
+    private final List<Segment> segments;
+
+    private ConfigTemplate(@NonNull final List<Segment> segments) {
+        this.segments = List.copyOf(segments);
+    }
+
+    /**
+     * Compiles the given template source into its segments.
+     *
+     * @param source The template source.
+     * @return The compiled template.
+     */
+    public static @NonNull ConfigTemplate compile(@NonNull final String source) {
+        Objects.requireNonNull(source);
+
+        final List<Segment> segments = new ArrayList<>();
+        int literalStart = 0;
+        int placeholderStart = source.indexOf(PLACEHOLDER_START);
+        while (placeholderStart >= 0) {
+            final int placeholderEnd = source.indexOf(PLACEHOLDER_END, placeholderStart + PLACEHOLDER_START.length());
+            if (placeholderEnd < 0) {
+                break;
+            }
+
+            final String expression = source.substring(placeholderStart + PLACEHOLDER_START.length(), placeholderEnd);
+            final int separator = expression.indexOf(CONTEXT_SEPARATOR);
+            final EscapingContext context = separator < 0 ? EscapingContext.RAW : EscapingContext.ofPrefix(expression.substring(0, separator));
+            if (context != null) {
+                addLiteral(segments, source.substring(literalStart, placeholderStart));
+                final String name = separator < 0 ? expression : expression.substring(separator + 1);
+                segments.add(new Placeholder(name, context, source.substring(placeholderStart, placeholderEnd + 1)));
+                literalStart = placeholderEnd + 1;
+            }
+            placeholderStart = source.indexOf(PLACEHOLDER_START, placeholderEnd + 1);
+        }
+        addLiteral(segments, source.substring(literalStart));
+        return new ConfigTemplate(segments);
+    }
+
+    private static void addLiteral(@NonNull final List<Segment> segments, @NonNull final String literal) {
+        if (!literal.isEmpty()) {
+            segments.add(new Literal(literal));
+        }
+    }
+
+    @NonNull List<Segment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * A segment of a compiled template.
+     */
+    sealed interface Segment permits Literal, Placeholder {
+    }
+
+    /**
+     * A literal segment, rendered as is.
+     *
+     * @param text The literal text.
+     */
+    record Literal(@NonNull String text) implements Segment {
+    }
+
+    /**
+     * A placeholder segment, rendered as the escaped value or as its source if no value is defined.
+     *
+     * @param name    The name of the value.
+     * @param context The context the value is escaped for.
+     * @param source  The source of the placeholder within the template.
+     */
+    record Placeholder(@NonNull String name, @NonNull EscapingContext context, @NonNull String source) implements Segment {
+    }
+
+}
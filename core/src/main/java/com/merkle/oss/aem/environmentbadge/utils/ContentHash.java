@@ -0,0 +1,42 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.jspecify.annotations.NonNull;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Computes the content hashes used to version URLs of cacheable responses, e.g. {@code config.<hash>.json}.
+ * <p>
+ * The hash depends on the content only, so all instances serving the same content produce the same URL.
+ */
+public final class ContentHash {
+
+    /**
+     * The length of a content hash in hexadecimal digits.
+     */
+    public static final int LENGTH = 16;
+
+    private static final String ALGORITHM = "SHA-256";
+
+    private ContentHash() {
+    }
+
+    /**
+     * Computes the hash of the given content.
+     *
+     * @param content The encoded content.
+     * @return The first {@link #LENGTH} hexadecimal digits of the {@code SHA-256} digest of the content.
+     */
+    public static @NonNull String of(final byte @NonNull [] content) {
+        try {
+            final byte[] digest = MessageDigest.getInstance(ALGORITHM).digest(content);
+            return HexFormat.of().formatHex(Arrays.copyOf(digest, LENGTH / 2));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Missing mandatory message digest algorithm " + ALGORITHM, e);
+        }
+    }
+
+}
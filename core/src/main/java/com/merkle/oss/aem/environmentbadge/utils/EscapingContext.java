@@ -0,0 +1,137 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The context a configuration value is substituted into, defining how the value is escaped.
+ * <p>
+ * Within a {@link ConfigTemplate}, the context of a placeholder is given by its prefix,
+ * e.g., {@code ${js:document_title_prefix}}. Placeholders without a prefix are substituted {@link #RAW}.
+ */
+public enum EscapingContext {
+
+    /**
+     * The value is substituted as is. Only to be used for trusted values.
+     */
+    RAW(""),
+
+    /**
+     * The value is substituted into HTML text content.
+     */
+    HTML_TEXT("html"),
+
+    /**
+     * The value is substituted into a quoted HTML attribute value.
+     */
+    HTML_ATTRIBUTE("attr"),
+
+    /**
+     * The value is substituted into a quoted JavaScript string literal within an inline {@code <script>}.
+     */
+    JS_STRING("js"),
+
+    /**
+     * The value is substituted into a CSS property value within an inline {@code <style>}.
+     */
+    CSS_VALUE("css");
+
+    private static final char LINE_SEPARATOR = 0x2028;
+
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+
+    private final String prefix;
+
+    EscapingContext(@NonNull final String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * Gets the placeholder prefix denoting this context.
+     *
+     * @return The prefix (e.g., {@code js}), empty for {@link #RAW}.
+     */
+    public @NonNull String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Resolves the context denoted by the given placeholder prefix.
+     *
+     * @param prefix The placeholder prefix.
+     * @return The context, or {@code null} if the prefix does not denote a context.
+     */
+    public static @Nullable EscapingContext ofPrefix(@NonNull final String prefix) {
+        return Arrays.stream(values())
+                .filter(context -> context != RAW && context.prefix.equals(prefix))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Escapes the given value for this context.
+     *
+     * @param value The value to escape.
+     * @return The escaped value.
+     */
+    public @NonNull String escape(@NonNull final String value) {
+        Objects.requireNonNull(value);
+
+        if (this == RAW) {
+            return value;
+        }
+        final StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (this) {
+                case HTML_TEXT, HTML_ATTRIBUTE -> appendHtml(escaped, c);
+                case JS_STRING -> appendJs(escaped, c);
+                default -> appendCss(escaped, c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static void appendHtml(@NonNull final StringBuilder escaped, final char c) {
+        switch (c) {
+            case '&' -> escaped.append("&amp;");
+            case '<' -> escaped.append("&lt;");
+            case '>' -> escaped.append("&gt;");
+            case '"' -> escaped.append("&quot;");
+            case '\'' -> escaped.append("&#39;");
+            default -> escaped.append(c);
+        }
+    }
+
+    private static void appendJs(@NonNull final StringBuilder escaped, final char c) {
+        switch (c) {
+            case '\\' -> escaped.append("\\\\");
+            case '\'' -> escaped.append("\\'");
+            case '"' -> escaped.append("\\\"");
+            case '\n' -> escaped.append("\\n");
+            case '\r' -> escaped.append("\\r");
+            case '\t' -> escaped.append("\\t");
+            default -> {
+                // Markup characters are escaped as well, so the value can neither close the script nor open a comment
+                if (c < 0x20 || c == '`' || c == '<' || c == '>' || c == '&' || c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+                    escaped.append(String.format("\\u%04x", (int) c));
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+    }
+
+    private static void appendCss(@NonNull final StringBuilder escaped, final char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '#' || c == '.' || c == '%' || c == '-' || c == ' ') {
+            escaped.append(c);
+        } else {
+            // The trailing space terminates the hexadecimal escape sequence
+            escaped.append('\\').append(Integer.toHexString(c)).append(' ');
+        }
+    }
+
+}
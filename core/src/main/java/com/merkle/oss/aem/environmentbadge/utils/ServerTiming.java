@@ -0,0 +1,65 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.jspecify.annotations.NonNull;
+
+import java.util.Objects;
+
+/**
+ * Utility class formatting the metrics of a {@code Server-Timing} response header, which browsers display
+ * along with the timing of the request in their developer tools.
+ *
+ * @see <a href="https://www.w3.org/TR/server-timing/">Server Timing</a>
+ */
+public final class ServerTiming {
+
+    /**
+     * The name of the {@code Server-Timing} response header.
+     */
+    public static final String HEADER = "Server-Timing";
+
+    private ServerTiming() {
+        // Utility class
+    }
+
+    /**
+     * Formats a single metric of a {@code Server-Timing} header, e.g. {@code badge-capture;dur=1.234;desc="5120 bytes"}.
+     * Several metrics are separated by a comma, or sent as separate headers.
+     *
+     * @param name          The name of the metric, a token without whitespace or separators.
+     * @param durationNanos The duration of the metric in nanoseconds, reported in milliseconds of microsecond precision.
+     * @param description   The description of the metric, without double quotes or backslashes.
+     * @return The formatted metric.
+     */
+    public static @NonNull String metric(@NonNull final String name, final long durationNanos, @NonNull final String description) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(description);
+
+        return name + ";dur=" + (Math.max(durationNanos, 0L) / 1000L) / 1000.0 + ";desc=\"" + description + "\"";
+    }
+
+    /**
+     * Formats a single metric of a {@code Server-Timing} header without a duration, e.g. {@code badge-config-hash;desc="abc"}.
+     * Such a metric hands a value to the page, which reads it from the {@code serverTiming} entries of its navigation timing.
+     *
+     * @param name        The name of the metric, a token without whitespace or separators.
+     * @param description The description of the metric, without double quotes or backslashes.
+     * @return The formatted metric.
+     */
+    public static @NonNull String metric(@NonNull final String name, @NonNull final String description) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(description);
+
+        return name + ";desc=\"" + description + "\"";
+    }
+
+    /**
+     * Formats the description of a metric reporting a number of bytes.
+     *
+     * @param bytes The number of bytes.
+     * @return The formatted description, e.g. {@code 5120 bytes}.
+     */
+    public static @NonNull String bytes(final long bytes) {
+        return bytes + " bytes";
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.merkle.oss.aem.environmentbadge.filters;
+
+import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.services.impl.CRXDEInjectionTargetImpl;
+import com.merkle.oss.aem.environmentbadge.testing.AllocationMeter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Allocation regression tests for the {@link AEMEnvironmentBadgeCRXFilterImpl} class, failing if a change
+ * brings back whole-page copies or per-request rendering of the injected fragment.
+ */
+class AEMEnvironmentBadgeCRXFilterImplAllocationTest {
+
+    /**
+     * Budget independent of the page size, covering the wrappers, including the initial capture buffer.
+     */
+    private static final long FIXED_BUDGET = 16 * 1024;
+
+    /**
+     * Budget per byte of the page, covering the capture buffer but no further copy of the page.
+     */
+    private static final double PAGE_SIZE_FACTOR = 1.5;
+
+    private static final String CRX_DE_PATH = "/crx/de/index.jsp";
+
+    private final AEMEnvironmentBadgeCRXFilterImpl filter = new AEMEnvironmentBadgeCRXFilterImpl();
+
+    private final HttpServletRequest request = AllocationMeter.fake(HttpServletRequest.class, Map.of(
+            "getRequestURI", CRX_DE_PATH,
+            "getMethod", "GET"
+    ));
+
+    private final HttpServletResponse response = AllocationMeter.fake(HttpServletResponse.class, Map.of(
+            "getStatus", HttpServletResponse.SC_OK,
+            "getContentType", "text/html;charset=UTF-8",
+            "getCharacterEncoding", StandardCharsets.UTF_8.name(),
+            "getOutputStream", AllocationMeter.discardingOutputStream()
+    ));
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        final AEMEnvironmentBadgeConfigService configService = AllocationMeter.fake(AEMEnvironmentBadgeConfigService.class, Map.of(
+                "isEnableDocumentTitlePrefix", true,
+                "getDocumentTitlePrefix", "prefix",
+                "isEnableBadge", true,
+                "getBadgeTitle", "title",
+                "getBadgeBackgroundColor", BackgroundColor.BLUE.getColor(),
+                "getRevision", 1L,
+                "isVisibleTo", true
+        ));
+        final Field field = AEMEnvironmentBadgeCRXFilterImpl.class.getDeclaredField("aemEnvironmentBadgeConfigService");
+        field.setAccessible(true);
+        field.set(filter, configService);
+        filter.bindInjectionTarget(new CRXDEInjectionTargetImpl());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(javax.servlet.ServletRequest, javax.servlet.ServletResponse, FilterChain)}
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {8 * 1024, 64 * 1024, 512 * 1024})
+    void doFilter_ShouldStayWithinAllocationBudget(final int pageSize) throws Exception {
+        final byte[] page = createPage(pageSize);
+        final FilterChain chain = (req, res) -> res.getOutputStream().write(page);
+
+        final long allocated = AllocationMeter.bytesPerInvocation(() -> filter.doFilter(request, response, chain));
+
+        AllocationMeter.assertWithinBudget(FIXED_BUDGET, PAGE_SIZE_FACTOR, page.length, allocated);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(javax.servlet.ServletRequest, javax.servlet.ServletResponse, FilterChain)}
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {8 * 1024, 512 * 1024})
+    void doFilter_PathNotAccepted_ShouldNotAllocatePerPageByte(final int pageSize) throws Exception {
+        final byte[] page = createPage(pageSize);
+        final HttpServletRequest otherRequest = AllocationMeter.fake(HttpServletRequest.class, Map.of(
+                "getRequestURI", "/crx/other/index.jsp",
+                "getMethod", "GET"
+        ));
+        final FilterChain chain = (req, res) -> res.getOutputStream().write(page);
+
+        final long allocated = AllocationMeter.bytesPerInvocation(() -> filter.doFilter(otherRequest, response, chain));
+
+        AllocationMeter.assertWithinBudget(1024, 0, page.length, allocated);
+    }
+
+    static byte[] createPage(final int pageSize) {
+        final String head = "<html><head><title>Page</title></head><body>";
+        final String tail = "</body></html>";
+        return (head + "x".repeat(Math.max(0, pageSize - head.length() - tail.length())) + tail).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -1,24 +1,57 @@
 package com.merkle.oss.aem.environmentbadge.filters;
 
 import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
+import com.merkle.oss.aem.environmentbadge.models.BadgeAssets;
 import com.merkle.oss.aem.environmentbadge.models.CharResponseWrapper;
+import com.merkle.oss.aem.environmentbadge.models.TeeResponseWrapper;
 import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInjectionTarget;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeMetricsService;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeStatisticsService;
+import com.merkle.oss.aem.environmentbadge.services.impl.CRXDEInjectionTargetImpl;
+import com.merkle.oss.aem.environmentbadge.utils.ByteAnchorSearcher;
+import com.merkle.oss.aem.environmentbadge.utils.ServerTiming;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Filter;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.http.whiteboard.HttpWhiteboardConstants;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -44,12 +77,35 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
     private FilterChain chain;
 
 
-    private final StringWriter responseWriter = new StringWriter();
-    private final PrintWriter printWriter = new PrintWriter(responseWriter);
+    private final ByteArrayOutputStream responseOutput = new ByteArrayOutputStream();
+    private final ServletOutputStream outputStream = new ServletOutputStream() {
+        @Override
+        public void write(final int b) {
+            responseOutput.write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            // Not required for blocking writes
+        }
+    };
 
     private static final String ORIGINAL_RESPONSE = "<html><head><title>Original Title</title></head><body>Content</body></html>";
     private static final String CRX_DE_PATH = "/crx/de/index.jsp";
 
+    private final AEMEnvironmentBadgeInjectionTarget crxdeInjectionTarget = new CRXDEInjectionTargetImpl();
+
+    @BeforeEach
+    void setUp() {
+        filter.bindInjectionTarget(crxdeInjectionTarget);
+        lenient().when(aemEnvironmentBadgeConfigService.isVisibleTo(any())).thenReturn(true);
+    }
+
     /**
      * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
      */
@@ -74,6 +130,7 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
         verify(chain, times(1)).doFilter(request, response);
         // Assert that a response writer was never initialized/called, proving early exit.
         verify(response, never()).getWriter();
+        verify(response, never()).getOutputStream();
     }
 
     /**
@@ -90,6 +147,7 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
         verify(chain, times(1)).doFilter(request, response);
         // Assert that a response writer was never initialized/called, proving early exit.
         verify(response, never()).getWriter();
+        verify(response, never()).getOutputStream();
     }
 
     /**
@@ -97,7 +155,9 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
      */
     @Test
     void doFilter_AcceptedPathAndBadgeEnabled_ShouldModifyAndWriteContent() throws Exception {
-        when(response.getWriter()).thenReturn(printWriter);
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
         when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
 
         when(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()).thenReturn(false);
@@ -117,18 +177,275 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
         filter.doFilter(request, response, chain);
 
         verify(chain, times(1)).doFilter(eq(request), any(CharResponseWrapper.class));
-        verify(response, times(1)).getWriter();
+        verify(response, times(1)).getOutputStream();
         verify(response, times(1)).setContentLength(anyInt());
 
-        String finalContent = responseWriter.toString();
+        String finalContent = responseOutput.toString(StandardCharsets.UTF_8);
 
         final java.lang.reflect.Field barDivIdField = AEMEnvironmentBadgeCRXFilterImpl.class.getDeclaredField("BAR_DIV_ID");
         barDivIdField.setAccessible(true);
         final String barDivIdValue = (String) barDivIdField.get(null);
 
         assert (finalContent.contains("<div id=" + barDivIdValue + "></div>"));
-        assert (!finalContent.contains("<script>(function(){const t='DEV | '+document.title;document.title=t;let e=0;const n=5,c=1500;"));
-        assert (finalContent.contains("<style>#" + barDivIdValue + "{background-color:" + BackgroundColor.FUCHSIA.getColorCode() + ";"));
+        assert (!finalContent.contains("<script src="));
+        assert (finalContent.contains("<link rel=\"stylesheet\" href=\"" + BadgeAssets.of(aemEnvironmentBadgeConfigService, 0L).style().location() + "\">"));
+        verify(response, never()).addHeader(eq(ServerTiming.HEADER), anyString());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_NotVisibleToUser_ShouldPassThrough() throws IOException, ServletException {
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.isVisibleTo("author")).thenReturn(false);
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        when(request.getRemoteUser()).thenReturn("author");
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain, times(1)).doFilter(request, response);
+        verify(request, never()).setAttribute(anyString(), any());
+        verifyNoInteractions(response);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_ServerTimingEnabled_ShouldReportCaptureAndInjection() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()).thenReturn(false);
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(aemEnvironmentBadgeConfigService.isEnableServerTiming()).thenReturn(true);
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        // Rendering the page is not reported as the badge's capture overhead
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            Thread.sleep(20L);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        final int injectedBytes = responseOutput.size() - ORIGINAL_RESPONSE.length();
+        final ArgumentCaptor<String> serverTiming = ArgumentCaptor.forClass(String.class);
+        verify(response).addHeader(eq(ServerTiming.HEADER), serverTiming.capture());
+        final String[] metrics = serverTiming.getValue().split(", ");
+        assertEquals(2, metrics.length);
+        assertTrue(metrics[0].matches(AEMEnvironmentBadgeCRXFilterImpl.METRIC_CAPTURE + ";dur=\\d+\\.\\d+;desc=\"" + ORIGINAL_RESPONSE.length() + " bytes\""), metrics[0]);
+        assertTrue(Double.parseDouble(StringUtils.substringBetween(metrics[0], "dur=", ";")) < 20.0d, metrics[0]);
+        assertTrue(metrics[1].matches(AEMEnvironmentBadgeCRXFilterImpl.METRIC_INJECT + ";dur=\\d+\\.\\d+;desc=\"" + injectedBytes + " bytes\""), metrics[1]);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_StatisticsAvailable_ShouldRecordInjection() throws Exception {
+        final AEMEnvironmentBadgeStatisticsService statistics = mock(AEMEnvironmentBadgeStatisticsService.class);
+        final java.lang.reflect.Field statisticsField = AEMEnvironmentBadgeCRXFilterImpl.class.getDeclaredField("aemEnvironmentBadgeStatisticsService");
+        statisticsField.setAccessible(true);
+        statisticsField.set(filter, statistics);
+
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()).thenReturn(false);
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        verify(statistics).recordInjection(anyLong(), eq((long) ORIGINAL_RESPONSE.length()));
+        verify(response, never()).addHeader(eq(ServerTiming.HEADER), anyString());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_InjectionFailing_ShouldOpenCircuitBreakerAndPassThrough() throws Exception {
+        final AEMEnvironmentBadgeCRXFilterImpl.AEMEnvironmentBadgeCRXFilterConfig config = mock(AEMEnvironmentBadgeCRXFilterImpl.AEMEnvironmentBadgeCRXFilterConfig.class);
+        when(config.circuitBreakerWindowSize()).thenReturn(10);
+        when(config.circuitBreakerFailureThresholdPercent()).thenReturn(10);
+        when(config.circuitBreakerCoolDownSeconds()).thenReturn(60L);
+        filter.activate(config, mock(BundleContext.class));
+
+        when(response.getOutputStream()).thenThrow(new IllegalStateException("Out of buffers"));
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        when(request.getAttribute(AEMEnvironmentBadgeCRXFilterImpl.FILTERED_ATTRIBUTE)).thenReturn(null);
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(request, response, chain));
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain, times(1)).doFilter(eq(request), any(CharResponseWrapper.class));
+        verify(chain).doFilter(request, response);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_PageFailing_ShouldNotOpenCircuitBreaker() throws Exception {
+        final AEMEnvironmentBadgeCRXFilterImpl.AEMEnvironmentBadgeCRXFilterConfig config = mock(AEMEnvironmentBadgeCRXFilterImpl.AEMEnvironmentBadgeCRXFilterConfig.class);
+        when(config.circuitBreakerWindowSize()).thenReturn(10);
+        when(config.circuitBreakerFailureThresholdPercent()).thenReturn(10);
+        when(config.circuitBreakerCoolDownSeconds()).thenReturn(60L);
+        filter.activate(config, mock(BundleContext.class));
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        when(request.getAttribute(AEMEnvironmentBadgeCRXFilterImpl.FILTERED_ATTRIBUTE)).thenReturn(null);
+
+        // A broken console page is not the badge's fault, bypassing the badge would not fix it
+        doThrow(new IllegalStateException("Broken page")).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(request, response, chain));
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(request, response, chain));
+
+        verify(chain, times(2)).doFilter(eq(request), any(CharResponseWrapper.class));
+        verify(chain, never()).doFilter(request, response);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_RenderingSlow_ShouldNotOpenCircuitBreaker() throws Exception {
+        final AEMEnvironmentBadgeCRXFilterImpl.AEMEnvironmentBadgeCRXFilterConfig config = mock(AEMEnvironmentBadgeCRXFilterImpl.AEMEnvironmentBadgeCRXFilterConfig.class);
+        when(config.circuitBreakerSlowInjectionMillis()).thenReturn(25L);
+        when(config.circuitBreakerWindowSize()).thenReturn(10);
+        when(config.circuitBreakerFailureThresholdPercent()).thenReturn(10);
+        when(config.circuitBreakerCoolDownSeconds()).thenReturn(60L);
+        filter.activate(config, mock(BundleContext.class));
+
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        when(request.getAttribute(AEMEnvironmentBadgeCRXFilterImpl.FILTERED_ATTRIBUTE)).thenReturn(null);
+
+        // Rendering the page takes long, whereas the badge itself costs next to nothing
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            // Well above the budget, which in turn leaves room for a cold first injection
+            Thread.sleep(200L);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+        filter.doFilter(request, response, chain);
+
+        assertEquals(2, StringUtils.countMatches(responseOutput.toString(StandardCharsets.UTF_8), "AEM Environment Badge - Start"));
+        verify(chain, times(2)).doFilter(eq(request), any(CharResponseWrapper.class));
+        verify(chain, never()).doFilter(request, response);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_ShadowMode_ShouldPassThroughAndMeasureInjection() throws Exception {
+        final AEMEnvironmentBadgeMetricsService metrics = mock(AEMEnvironmentBadgeMetricsService.class);
+        final AEMEnvironmentBadgeStatisticsService statistics = mock(AEMEnvironmentBadgeStatisticsService.class);
+        final java.lang.reflect.Field metricsField = AEMEnvironmentBadgeCRXFilterImpl.class.getDeclaredField("aemEnvironmentBadgeMetricsService");
+        metricsField.setAccessible(true);
+        metricsField.set(filter, metrics);
+        final java.lang.reflect.Field statisticsField = AEMEnvironmentBadgeCRXFilterImpl.class.getDeclaredField("aemEnvironmentBadgeStatisticsService");
+        statisticsField.setAccessible(true);
+        statisticsField.set(filter, statistics);
+
+        final StringWriter output = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(output));
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isShadowMode()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getShadowModeSamplePercent()).thenReturn(100);
+        lenient().when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        lenient().when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        doAnswer(invocation -> {
+            final TeeResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            return null;
+        }).when(chain).doFilter(eq(request), any(TeeResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(ORIGINAL_RESPONSE, output.toString());
+        verify(metrics, timeout(5000L)).record(eq("shadow." + AEMEnvironmentBadgeCRXFilterImpl.METRIC_CAPTURE), anyLong());
+        verify(metrics, timeout(5000L)).record(eq("shadow." + AEMEnvironmentBadgeCRXFilterImpl.METRIC_INJECT), anyLong());
+        verify(statistics, timeout(5000L)).recordShadowInjection(anyLong(), eq((long) ORIGINAL_RESPONSE.length()));
+        // Byte counts are no latency, so they are kept out of the latency metrics
+        verify(metrics, never()).record(eq("shadow.bytes-buffered"), anyLong());
+        verify(statistics, never()).recordInjection(anyLong(), anyLong());
+        verify(response, never()).setContentLength(anyInt());
+        filter.deactivate();
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_ShadowModeNotSampled_ShouldPassThrough() throws Exception {
+        final AEMEnvironmentBadgeMetricsService metrics = mock(AEMEnvironmentBadgeMetricsService.class);
+        final java.lang.reflect.Field metricsField = AEMEnvironmentBadgeCRXFilterImpl.class.getDeclaredField("aemEnvironmentBadgeMetricsService");
+        metricsField.setAccessible(true);
+        metricsField.set(filter, metrics);
+
+        when(aemEnvironmentBadgeConfigService.isShadowMode()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getShadowModeSamplePercent()).thenReturn(0);
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain).doFilter(request, response);
+        verifyNoInteractions(metrics);
     }
 
     /**
@@ -136,11 +453,14 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
      */
     @Test
     void doFilter_AcceptedPathAndPrefixEnabled_ShouldModifyAndWriteContent() throws Exception {
-        when(response.getWriter()).thenReturn(printWriter);
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
         when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
 
         when(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()).thenReturn(true);
-        when(aemEnvironmentBadgeConfigService.getDocumentTitlePrefix()).thenReturn("DEV");
+        when(aemEnvironmentBadgeConfigService.getDocumentTitlePrefix()).thenReturn("DEV ${hostname}");
+        when(aemEnvironmentBadgeConfigService.getNodeTokens()).thenReturn("hostname=author-1&run_modes=author%2Cdev");
         when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(false);
 
         when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
@@ -156,18 +476,19 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
         filter.doFilter(request, response, chain);
 
         verify(chain, times(1)).doFilter(eq(request), any(CharResponseWrapper.class));
-        verify(response, times(1)).getWriter();
+        verify(response, times(1)).getOutputStream();
         verify(response, times(1)).setContentLength(anyInt());
 
-        String finalContent = responseWriter.toString();
+        String finalContent = responseOutput.toString(StandardCharsets.UTF_8);
 
         final java.lang.reflect.Field barDivIdField = AEMEnvironmentBadgeCRXFilterImpl.class.getDeclaredField("BAR_DIV_ID");
         barDivIdField.setAccessible(true);
         final String barDivIdValue = (String) barDivIdField.get(null);
 
         assert (!finalContent.contains("<div id=" + barDivIdValue + "></div>"));
-        assert (finalContent.contains("<script>(function(){const t='DEV | '+document.title;document.title=t;let e=0;const n=5,c=1500;"));
-        assert (!finalContent.contains("<style>#" + barDivIdValue + "{background-color:" + BackgroundColor.FUCHSIA.getColorCode() + ";"));
+        assertTrue(finalContent.contains("<script src=\"" + BadgeAssets.of(aemEnvironmentBadgeConfigService, 0L).script().location() + "\" "
+                + BadgeAssets.NODE_TOKENS_ATTRIBUTE + "=\"hostname=author-1&amp;run_modes=author%2Cdev\"></script>"), finalContent);
+        assert (!finalContent.contains("<link rel=\"stylesheet\""));
     }
 
     /**
@@ -175,7 +496,9 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
      */
     @Test
     void doFilter_AcceptedPathAndAllEnabled_ShouldModifyAndWriteContent() throws Exception {
-        when(response.getWriter()).thenReturn(printWriter);
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
         when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
 
         when(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()).thenReturn(true);
@@ -198,18 +521,466 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
 
 
         verify(chain, times(1)).doFilter(eq(request), any(CharResponseWrapper.class));
-        verify(response, times(1)).getWriter();
+        verify(response, times(1)).getOutputStream();
         verify(response, times(1)).setContentLength(anyInt());
 
-        String finalContent = responseWriter.toString();
+        String finalContent = responseOutput.toString(StandardCharsets.UTF_8);
 
         final java.lang.reflect.Field barDivIdField = AEMEnvironmentBadgeCRXFilterImpl.class.getDeclaredField("BAR_DIV_ID");
         barDivIdField.setAccessible(true);
         final String barDivIdValue = (String) barDivIdField.get(null);
 
         assert (finalContent.contains("<div id=" + barDivIdValue + "></div>"));
-        assert (finalContent.contains("<script>(function(){const t='DEV | '+document.title;document.title=t;let e=0;const n=5,c=1500;"));
-        assert (finalContent.contains("<style>#" + barDivIdValue + "{background-color:" + BackgroundColor.BLUE.getColorCode() + ";"));
+        assert (finalContent.contains("<script src=\"" + BadgeAssets.of(aemEnvironmentBadgeConfigService, 0L).script().location() + "\"></script>"));
+        assert (finalContent.contains("<link rel=\"stylesheet\" href=\"" + BadgeAssets.of(aemEnvironmentBadgeConfigService, 0L).style().location() + "\">"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_AcceptedPathAndAsyncStarted_ShouldDeferModificationUntilComplete() throws Exception {
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()).thenReturn(false);
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        when(request.isAsyncStarted()).thenReturn(true);
+        when(request.getAsyncContext()).thenReturn(asyncContext);
+
+        // Downstream only writes the content once the async processing completes
+        final CharResponseWrapper[] wrapper = new CharResponseWrapper[1];
+        doAnswer(invocation -> {
+            wrapper[0] = invocation.getArgument(1);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        final ArgumentCaptor<AsyncListener> listenerCaptor = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext, times(1)).addListener(listenerCaptor.capture());
+        verify(response, never()).getWriter();
+        verify(response, never()).getOutputStream();
+
+        final AsyncListener listener = listenerCaptor.getValue();
+        final AsyncEvent event = new AsyncEvent(asyncContext);
+        listener.onStartAsync(event);
+        verify(asyncContext, times(2)).addListener(listener);
+
+        wrapper[0].getWriter().write(ORIGINAL_RESPONSE);
+        listener.onTimeout(event);
+        listener.onError(event);
+        listener.onComplete(event);
+        listener.onComplete(event);
+
+        verify(response, times(1)).getOutputStream();
+        verify(response, times(1)).setContentLength(anyInt());
+
+        final String finalContent = responseOutput.toString(StandardCharsets.UTF_8);
+        assert (finalContent.startsWith("<html><head><title>Original Title</title></head><body>Content"));
+        assert (finalContent.contains("<link rel=\"stylesheet\" href=\"" + BadgeAssets.of(aemEnvironmentBadgeConfigService, 0L).style().location() + "\">"));
+        assert (finalContent.endsWith("</body></html>"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_StartAsyncWithoutArguments_ShouldCaptureAndInjectBeforeComplete() throws Exception {
+        final AsyncContext asyncContext = mock(AsyncContext.class);
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.isAsyncStarted()).thenReturn(true);
+        when(request.getAsyncContext()).thenReturn(asyncContext);
+
+        // Downstream starts async processing via the no-arg variant and writes to the response handed to the cycle
+        final ArgumentCaptor<ServletResponse> asyncResponse = ArgumentCaptor.forClass(ServletResponse.class);
+        when(request.startAsync(any(ServletRequest.class), asyncResponse.capture())).thenReturn(asyncContext);
+        final AsyncContext[] started = new AsyncContext[1];
+        doAnswer(invocation -> {
+            final HttpServletRequest wrappedRequest = invocation.getArgument(0);
+            started[0] = wrappedRequest.startAsync();
+            assertSame(started[0], wrappedRequest.getAsyncContext());
+            return null;
+        }).when(chain).doFilter(any(HttpServletRequest.class), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        assertTrue(asyncResponse.getValue() instanceof CharResponseWrapper);
+        verify(asyncContext, times(1)).addListener(any(AsyncListener.class));
+        verify(response, never()).getOutputStream();
+
+        ((CharResponseWrapper) asyncResponse.getValue()).getWriter().write(ORIGINAL_RESPONSE);
+        started[0].complete();
+
+        final org.mockito.InOrder inOrder = inOrder(response, asyncContext);
+        inOrder.verify(response).getOutputStream();
+        inOrder.verify(asyncContext).complete();
+        assertTrue(responseOutput.toString(StandardCharsets.UTF_8).contains(BadgeAssets.of(aemEnvironmentBadgeConfigService, 0L).style().location()));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeCRXFilterImpl#bindInjectionTarget(AEMEnvironmentBadgeInjectionTarget)}
+     *   <li>{@link AEMEnvironmentBadgeCRXFilterImpl#unbindInjectionTarget(AEMEnvironmentBadgeInjectionTarget)}
+     * </ul>
+     */
+    @Test
+    void doFilter_InjectionTargetUnbound_ShouldAbortAndPassThrough() throws IOException, ServletException {
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        // Unbinding a different target registered for the same path keeps the current one
+        filter.unbindInjectionTarget(new CRXDEInjectionTargetImpl());
+        filter.unbindInjectionTarget(crxdeInjectionTarget);
+        filter.bindInjectionTarget(() -> " ");
+        filter.doFilter(request, response, chain);
+
+        verify(chain, times(1)).doFilter(request, response);
+        verify(response, never()).getWriter();
+        verify(response, never()).getOutputStream();
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_CustomInjectionTarget_ShouldInjectBeforeAnchor() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+        when(response.getContentType()).thenReturn("text/html;charset=utf-8");
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        when(request.getRequestURI()).thenReturn("/crx/explorer/index.jsp");
+        filter.bindInjectionTarget(new AEMEnvironmentBadgeInjectionTarget() {
+            @Override
+            public String getPath() {
+                return "/crx/explorer/index.jsp";
+            }
+
+            @Override
+            public String getAnchor() {
+                return "</body>";
+            }
+        });
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write("<html><body>Content</body>\n</html>");
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        final String finalContent = responseOutput.toString(StandardCharsets.UTF_8);
+        assert (finalContent.startsWith("<html><body>Content\n<!-- AEM Environment Badge - Start -->"));
+        assert (finalContent.endsWith("<!-- AEM Environment Badge - End -->\n</body>\n</html>"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_ContentTypeNotAccepted_ShouldPassThrough() throws Exception {
+        final StringWriter responseWriter = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(responseWriter));
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("application/json");
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write("{}");
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).setContentLength(anyInt());
+        verify(response, never()).getOutputStream();
+        assertEquals("{}", responseWriter.toString());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_NotModified_ShouldPassThroughAndFoldValidators() throws Exception {
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_NOT_MODIFIED);
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        when(request.getHeader("If-None-Match")).thenReturn("\"abc\"");
+
+        final String[] ifNoneMatch = new String[1];
+        doAnswer(invocation -> {
+            final HttpServletRequest wrappedRequest = invocation.getArgument(0);
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            ifNoneMatch[0] = wrappedRequest.getHeader("If-None-Match");
+            wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            wrapper.setHeader("ETag", "\"abc\"");
+            return null;
+        }).when(chain).doFilter(any(HttpServletRequest.class), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        final ArgumentCaptor<String> etagCaptor = ArgumentCaptor.forClass(String.class);
+        verify(response, times(1)).setHeader(eq("ETag"), etagCaptor.capture());
+        assert (etagCaptor.getValue().startsWith("\"abc-badge-"));
+        // The browser sent an entity tag without the fragment version, therefore the page must be sent in full
+        assertEquals(null, ifNoneMatch[0]);
+        verify(response, never()).setContentLength(anyInt());
+        verify(response, never()).getOutputStream();
+        verify(response, never()).getWriter();
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_HeadRequest_ShouldPassThrough() throws Exception {
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        when(request.getMethod()).thenReturn("HEAD");
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain, times(1)).doFilter(request, response);
+        verify(response, never()).getOutputStream();
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_Error_ShouldPassThrough() throws Exception {
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, times(1)).sendError(HttpServletResponse.SC_NOT_FOUND);
+        verify(response, never()).setContentLength(anyInt());
+        verify(response, never()).getOutputStream();
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_SameRevision_ShouldRenderFragmentOnce() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(aemEnvironmentBadgeConfigService.getRevision()).thenReturn(1L, 1L, 2L);
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+        filter.doFilter(request, response, chain);
+        verify(aemEnvironmentBadgeConfigService, times(1)).getBadgeBackgroundColor();
+
+        filter.doFilter(request, response, chain);
+        verify(aemEnvironmentBadgeConfigService, times(2)).getBadgeBackgroundColor();
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_MultibyteContent_ShouldSpliceEncodedContent() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        final String originalContent = "<html><body>Grüße aus Zürich </body></html> 日本</body></html>\n";
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(originalContent);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        final String finalContent = responseOutput.toString(StandardCharsets.UTF_8);
+        verify(response, times(1)).setContentLength(responseOutput.size());
+        assert (finalContent.startsWith("<html><body>Grüße aus Zürich </body></html> 日本\n<!-- AEM Environment Badge - Start -->"));
+        assert (finalContent.endsWith("<!-- AEM Environment Badge - End -->\n</body></html>\n"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_AnchorMissing_ShouldWriteOriginalContent() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.ISO_8859_1.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write("<html><body>Content</body></html>" + " ".repeat(ByteAnchorSearcher.SEARCH_WINDOW_LENGTH));
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, times(1)).setContentLength(responseOutput.size());
+        assertEquals("<html><body>Content</body></html>" + " ".repeat(ByteAnchorSearcher.SEARCH_WINDOW_LENGTH), responseOutput.toString(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_AnchorWithWhitespaceAndComments_ShouldInjectBeforeAnchor() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write("<html><body>Content</BODY>\n  <!-- footer -->\n</html >\n");
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        final String finalContent = responseOutput.toString(StandardCharsets.UTF_8);
+        assertEquals(1, finalContent.split("</html", -1).length - 1);
+        assert (finalContent.startsWith("<html><body>Content\n<!-- AEM Environment Badge - Start -->"));
+        assert (finalContent.endsWith("<!-- AEM Environment Badge - End -->\n</BODY>\n  <!-- footer -->\n</html >\n"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_NotByteSearchableEncoding_ShouldFallBackToCharacterSearch() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_16.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        final String finalContent = responseOutput.toString(StandardCharsets.UTF_16);
+        verify(response, times(1)).setContentLength(responseOutput.size());
+        assert (finalContent.startsWith("<html><head><title>Original Title</title></head><body>Content\n<!-- AEM Environment Badge - Start -->"));
+        assert (finalContent.endsWith("<!-- AEM Environment Badge - End -->\n</body></html>"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_AlreadyFiltered_ShouldPassThrough() throws IOException, ServletException {
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(request.getAttribute(AEMEnvironmentBadgeCRXFilterImpl.FILTERED_ATTRIBUTE)).thenReturn(Boolean.TRUE);
+
+        filter.doFilter(request, response, chain);
+
+        verify(chain, times(1)).doFilter(request, response);
+        verify(request, never()).getRequestURI();
+        verify(response, never()).getOutputStream();
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_InternalDispatch_ShouldWrapAndInjectOnce() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.FUCHSIA.getColor());
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        final Map<String, Object> attributes = new HashMap<>();
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(request).setAttribute(anyString(), any());
+        when(request.getAttribute(anyString())).thenAnswer(invocation -> attributes.get(invocation.getArgument(0)));
+
+        // The page forwards to itself, passing the filter a second time
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            filter.doFilter(request, wrapper, (innerRequest, innerResponse) -> {
+                assertSame(wrapper, innerResponse);
+                innerResponse.getWriter().write(ORIGINAL_RESPONSE);
+            });
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        final String finalContent = responseOutput.toString(StandardCharsets.UTF_8);
+        assertEquals(1, StringUtils.countMatches(finalContent, "<div id=aem-environment-badge-bar></div>"));
+        assertTrue(finalContent.endsWith("</body></html>"));
     }
 
     /**
@@ -225,4 +996,168 @@ class AEMEnvironmentBadgeCRXFilterImplTest {
         assertDoesNotThrow(() -> filter.destroy());
     }
 
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_PrefixWithMarkup_ShouldOnlyReferenceScript() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+        when(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getDocumentTitlePrefix()).thenReturn("DEV's</script>");
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(false);
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+
+        final String finalContent = responseOutput.toString(StandardCharsets.UTF_8);
+        assertFalse(finalContent.contains("DEV"), finalContent);
+        assertTrue(finalContent.contains("<script src=\"" + BadgeAssets.PATH + "."), finalContent);
+    }
+
+    /**
+     * Tests that an enabled {@link BadgeInjectionEvent} describes the injection.
+     */
+    @Test
+    void doFilter_EventEnabled_ShouldRecordInjection(@TempDir final Path tempDir) throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.FUCHSIA.getColor());
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        final Path recordingFile = tempDir.resolve("injection.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(BadgeInjectionEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            filter.doFilter(request, response, chain);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(event -> event.getEventType().getName().equals(BadgeInjectionEvent.NAME))
+                .toList();
+        assertEquals(1, events.size());
+        final RecordedEvent event = events.get(0);
+        assertEquals(CRX_DE_PATH, event.getString("path"));
+        assertEquals(BadgeInjectionEvent.OUTCOME_INJECTED, event.getString("outcome"));
+        assertEquals(ORIGINAL_RESPONSE.length(), event.getLong("bytesCaptured"));
+        assertEquals(responseOutput.size(), event.getLong("bytesWritten"));
+        assertTrue(event.getLong("bytesWritten") > event.getLong("bytesCaptured"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_PageLastModified_ShouldFoldLastModificationOfConfiguration() throws Exception {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        when(response.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+        when(response.getContentType()).thenReturn("text/html");
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(aemEnvironmentBadgeConfigService.getLastModified()).thenReturn(1_700_000_000_123L);
+
+        when(request.getRequestURI()).thenReturn(CRX_DE_PATH);
+
+        doAnswer(invocation -> {
+            final CharResponseWrapper wrapper = invocation.getArgument(1);
+            wrapper.setDateHeader("Last-Modified", 1_600_000_000_000L);
+            wrapper.getWriter().write(ORIGINAL_RESPONSE);
+            return null;
+        }).when(chain).doFilter(eq(request), any(CharResponseWrapper.class));
+
+        filter.doFilter(request, response, chain);
+        filter.doFilter(request, response, chain);
+
+        // The date of the configuration, not the time the fragment has been rendered at, is stable across requests and nodes
+        verify(response, times(2)).setDateHeader("Last-Modified", 1_700_000_000_000L);
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeCRXFilterImpl#activate(AEMEnvironmentBadgeCRXFilterImpl.AEMEnvironmentBadgeCRXFilterConfig, BundleContext)}
+     *   <li>{@link AEMEnvironmentBadgeCRXFilterImpl#bindInjectionTarget(AEMEnvironmentBadgeInjectionTarget)}
+     *   <li>{@link AEMEnvironmentBadgeCRXFilterImpl#unbindInjectionTarget(AEMEnvironmentBadgeInjectionTarget)}
+     *   <li>{@link AEMEnvironmentBadgeCRXFilterImpl#deactivate()}
+     * </ul>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void activate_ShouldRegisterForPathsOfBoundTargets() {
+        final BundleContext bundleContext = mock(BundleContext.class);
+        final ServiceRegistration<javax.servlet.Filter> registration = mock(ServiceRegistration.class);
+        when(bundleContext.registerService(eq(javax.servlet.Filter.class), same(filter), any(Dictionary.class))).thenReturn(registration);
+        final AEMEnvironmentBadgeInjectionTarget packageManager = mock(AEMEnvironmentBadgeInjectionTarget.class);
+        when(packageManager.getPath()).thenReturn("/crx/packmgr/index.jsp");
+        when(packageManager.getContentType()).thenReturn(crxdeInjectionTarget.getContentType());
+        when(packageManager.getAnchor()).thenReturn(crxdeInjectionTarget.getAnchor());
+
+        filter.activate(mock(AEMEnvironmentBadgeCRXFilterImpl.AEMEnvironmentBadgeCRXFilterConfig.class), bundleContext);
+        filter.bindInjectionTarget(packageManager);
+        filter.unbindInjectionTarget(packageManager);
+        filter.unbindInjectionTarget(crxdeInjectionTarget);
+
+        final ArgumentCaptor<Dictionary<String, Object>> properties = ArgumentCaptor.forClass(Dictionary.class);
+        verify(bundleContext).registerService(eq(javax.servlet.Filter.class), same(filter), properties.capture());
+        assertEquals(List.of(AEMEnvironmentBadgeCRXFilterImpl.filterRegexOf(CRX_DE_PATH)),
+                List.of((String[]) properties.getValue().get(HttpWhiteboardConstants.HTTP_WHITEBOARD_FILTER_REGEX)));
+        verify(registration, times(2)).setProperties(properties.capture());
+        assertEquals(2, ((String[]) properties.getAllValues().get(1).get(HttpWhiteboardConstants.HTTP_WHITEBOARD_FILTER_REGEX)).length);
+        verify(registration).unregister();
+
+        filter.deactivate();
+        verifyNoMoreInteractions(registration);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeCRXFilterImpl#filterRegexOf(String)}
+     */
+    @Test
+    void filterRegexOf_ShouldMatchPathWithinAnyServletContext() {
+        final Pattern regex = Pattern.compile(AEMEnvironmentBadgeCRXFilterImpl.filterRegexOf(CRX_DE_PATH));
+
+        assertTrue(regex.matcher("/crx/de/index.jsp").matches());
+        assertTrue(regex.matcher("/de/index.jsp").matches());
+        assertTrue(regex.matcher("/index.jsp").matches());
+        assertFalse(regex.matcher("/crx/packmgr/index.jsp").matches());
+        assertFalse(regex.matcher("/crx/de/myindex.jsp").matches());
+        assertFalse(regex.matcher("/crx/de/index.jsp.html").matches());
+        assertTrue(Pattern.compile(AEMEnvironmentBadgeCRXFilterImpl.filterRegexOf("/a.b/c*")).matcher("/a.b/c*").matches());
+    }
+
+    /**
+     * Tests that the configuration service reference, and therefore the filter registration, is only satisfied
+     * by a configuration enabling at least one feature.
+     */
+    @Test
+    void configServiceTarget_ShouldOnlyMatchEnabledConfiguration() throws InvalidSyntaxException {
+        final Filter target = FrameworkUtil.createFilter(AEMEnvironmentBadgeCRXFilterImpl.CONFIG_SERVICE_TARGET);
+
+        assertTrue(target.matches(Map.of("enableBadge", true)));
+        assertTrue(target.matches(Map.of("enableBadge", false, "enableDocumentTitlePrefix", "true")));
+        assertTrue(target.matches(Map.of("enableRepositoryConfiguration", true)));
+        assertTrue(target.matches(Map.of("shadowMode", true)));
+        assertFalse(target.matches(Map.of("enableBadge", false, "enableDocumentTitlePrefix", false)));
+        assertFalse(target.matches(Map.of()));
+    }
+
 }
@@ -0,0 +1,130 @@
+package com.merkle.oss.aem.environmentbadge.filters;
+
+import com.merkle.oss.aem.environmentbadge.models.ConfigDocument;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.utils.ServerTiming;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the {@link AEMEnvironmentBadgePreloadFilterImpl} class.
+ */
+@ExtendWith(MockitoExtension.class)
+class AEMEnvironmentBadgePreloadFilterImplTest {
+
+    private static final String SHELL_PAGE = "granite/ui/components/shell/page";
+
+    @Mock
+    private AEMEnvironmentBadgeConfigService aemEnvironmentBadgeConfigService;
+
+    @Mock
+    private AEMEnvironmentBadgePreloadFilterImpl.AEMEnvironmentBadgePreloadConfig config;
+
+    @InjectMocks
+    private AEMEnvironmentBadgePreloadFilterImpl filter;
+
+    @Mock
+    private SlingHttpServletRequest request;
+
+    @Mock
+    private SlingHttpServletResponse response;
+
+    @Mock
+    private Resource resource;
+
+    @Mock
+    private FilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        when(config.resourceTypes()).thenReturn(new String[]{SHELL_PAGE, " "});
+        filter.activate(config);
+        lenient().when(request.getResource()).thenReturn(resource);
+        lenient().when(resource.getResourceType()).thenReturn(SHELL_PAGE);
+    }
+
+    private String preloadOf(final ConfigDocument document) {
+        return "<" + document.location() + ">; rel=preload; as=fetch; crossorigin";
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePreloadFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_null() {
+        assertThrows(NullPointerException.class, () -> filter.doFilter(null, response, chain));
+        assertThrows(NullPointerException.class, () -> filter.doFilter(request, null, chain));
+        assertThrows(NullPointerException.class, () -> filter.doFilter(request, response, null));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePreloadFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_ShellPage_ShouldPreloadVersionedConfigurationOncePerRevision() throws IOException, ServletException {
+        when(aemEnvironmentBadgeConfigService.isVisibleTo(any())).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.isEnableBadge()).thenReturn(true);
+        when(aemEnvironmentBadgeConfigService.getBadgeTitle()).thenReturn("DEV");
+        when(aemEnvironmentBadgeConfigService.getRevision()).thenReturn(1L);
+        when(aemEnvironmentBadgeConfigService.getNodeTokens()).thenReturn("hostname=author-1");
+
+        filter.doFilter(request, response, chain);
+        filter.doFilter(request, response, chain);
+
+        final ConfigDocument document = ConfigDocument.of(aemEnvironmentBadgeConfigService, 1L);
+        verify(response, times(2)).addHeader(AEMEnvironmentBadgePreloadFilterImpl.LINK_HEADER, preloadOf(document));
+        verify(response, times(2)).addHeader(ServerTiming.HEADER, "badge-config-hash;desc=\"" + document.hash() + "\", "
+                + "badge-node-tokens;desc=\"hostname=author-1\"");
+        verify(response, never()).sendError(anyInt());
+        verify(chain, times(2)).doFilter(request, response);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePreloadFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_NotVisibleToUser_ShouldPreloadEmptyConfiguration() throws IOException, ServletException {
+        when(request.getRemoteUser()).thenReturn("author");
+        when(aemEnvironmentBadgeConfigService.isVisibleTo("author")).thenReturn(false);
+
+        filter.doFilter(request, response, chain);
+
+        verify(response).addHeader(AEMEnvironmentBadgePreloadFilterImpl.LINK_HEADER, preloadOf(ConfigDocument.EMPTY));
+        verify(response).addHeader(ServerTiming.HEADER, "badge-config-hash;desc=\"" + ConfigDocument.EMPTY.hash() + "\"");
+        verify(aemEnvironmentBadgeConfigService, never()).getRevision();
+        verify(chain).doFilter(request, response);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePreloadFilterImpl#doFilter(ServletRequest, ServletResponse, FilterChain)}
+     */
+    @Test
+    void doFilter_OtherResourceType_ShouldPassThrough() throws IOException, ServletException {
+        when(resource.getResourceType()).thenReturn("cq/Page");
+
+        filter.doFilter(request, response, chain);
+
+        verify(response, never()).addHeader(anyString(), anyString());
+        verifyNoInteractions(aemEnvironmentBadgeConfigService);
+        verify(chain).doFilter(request, response);
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.merkle.oss.aem.environmentbadge.healthchecks;
+
+import com.merkle.oss.aem.environmentbadge.models.PerformanceStatistics;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeStatisticsService;
+import org.apache.felix.hc.api.Result;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link AEMEnvironmentBadgePerformanceHealthCheck} class.
+ */
+@ExtendWith(MockitoExtension.class)
+class AEMEnvironmentBadgePerformanceHealthCheckTest {
+
+    @Mock
+    private AEMEnvironmentBadgeStatisticsService aemEnvironmentBadgeStatisticsService;
+
+    @Mock
+    private AEMEnvironmentBadgePerformanceHealthCheck.AEMEnvironmentBadgePerformanceHealthCheckConfig config;
+
+    @InjectMocks
+    private AEMEnvironmentBadgePerformanceHealthCheck healthCheck;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(config.minimumRequests()).thenReturn(10L);
+        lenient().when(config.injectionTimeWarnMillis()).thenReturn(5.0d);
+        lenient().when(config.injectionTimeCriticalMillis()).thenReturn(25.0d);
+        lenient().when(config.bytesBufferedWarnKiB()).thenReturn(1024.0d);
+        lenient().when(config.bytesBufferedCriticalKiB()).thenReturn(0.0d);
+        lenient().when(config.configErrorRateWarnPercent()).thenReturn(1.0d);
+        lenient().when(config.configErrorRateCriticalPercent()).thenReturn(5.0d);
+        healthCheck.activate(config);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePerformanceHealthCheck#activate(AEMEnvironmentBadgePerformanceHealthCheck.AEMEnvironmentBadgePerformanceHealthCheckConfig)}
+     */
+    @Test
+    void testActivate_null() {
+        assertThrows(NullPointerException.class, () -> healthCheck.activate(null));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePerformanceHealthCheck#execute()}
+     */
+    @Test
+    void testExecute_tooFewRequests_shouldBeOk() {
+        when(aemEnvironmentBadgeStatisticsService.getStatistics())
+                .thenReturn(new PerformanceStatistics(9L, 100_000L, 100_000_000L, 100_000_000L, 9L, 9L, 0L, 0L, 0L));
+
+        final Result result = healthCheck.execute();
+
+        assertEquals(Result.Status.OK, result.getStatus());
+        assertTrue(result.toString().contains("not evaluated"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePerformanceHealthCheck#execute()}
+     */
+    @Test
+    void testExecute_withinBudgets_shouldBeOk() {
+        when(aemEnvironmentBadgeStatisticsService.getStatistics())
+                .thenReturn(new PerformanceStatistics(100L, 4_000L, 512L * 1024L, 2048L * 1024L, 1000L, 10L, 0L, 0L, 0L));
+
+        final Result result = healthCheck.execute();
+
+        assertEquals(Result.Status.OK, result.getStatus());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePerformanceHealthCheck#execute()}
+     */
+    @Test
+    void testExecute_shadowEstimateExceedingBudgets_shouldBeOk() {
+        when(aemEnvironmentBadgeStatisticsService.getStatistics())
+                .thenReturn(new PerformanceStatistics(100L, 4_000L, 512L * 1024L, 2048L * 1024L, 1000L, 10L, 100L, 30_000L, 100_000_000L));
+
+        final Result result = healthCheck.execute();
+
+        assertEquals(Result.Status.OK, result.getStatus());
+        assertTrue(result.toString().contains("Shadow mode estimate of 100 page(s): p99 injection time of 30.00 ms"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePerformanceHealthCheck#execute()}
+     */
+    @Test
+    void testExecute_budgetExceeded_shouldWarn() {
+        when(aemEnvironmentBadgeStatisticsService.getStatistics())
+                .thenReturn(new PerformanceStatistics(100L, 6_000L, 100_000_000L, 100_000_000L, 1000L, 11L, 0L, 0L, 0L));
+
+        final Result result = healthCheck.execute();
+
+        assertEquals(Result.Status.WARN, result.getStatus());
+        assertEquals(3L, StreamSupport.stream(result.spliterator(), false)
+                .filter(entry -> entry.getStatus() == Result.Status.WARN)
+                .count());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgePerformanceHealthCheck#execute()}
+     */
+    @Test
+    void testExecute_criticalBudgetExceeded_shouldBeCritical() {
+        when(aemEnvironmentBadgeStatisticsService.getStatistics())
+                .thenReturn(new PerformanceStatistics(100L, 30_000L, 1024L, 1024L, 10L, 0L, 0L, 0L, 0L));
+
+        final Result result = healthCheck.execute();
+
+        assertEquals(Result.Status.CRITICAL, result.getStatus());
+        assertTrue(result.toString().contains("p99 injection time of 30.00 ms exceeds the critical budget"));
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link BadgeAssets} class.
+ */
+@ExtendWith(MockitoExtension.class)
+class BadgeAssetsTest {
+
+    @Mock
+    private AEMEnvironmentBadgeConfigService configService;
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link BadgeAssets#of(AEMEnvironmentBadgeConfigService, long)}
+     *   <li>{@link BadgeAssets#get(String)}
+     *   <li>{@link BadgeAssets.Asset#location()}
+     * </ul>
+     */
+    @Test
+    void testOf_AllEnabled_ShouldRenderScriptAndStyle() {
+        when(configService.isEnableDocumentTitlePrefix()).thenReturn(true);
+        when(configService.getDocumentTitlePrefix()).thenReturn("DEV");
+        when(configService.isEnableBadge()).thenReturn(true);
+        when(configService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        final BadgeAssets assets = BadgeAssets.of(configService, 7L);
+
+        assertEquals(7L, assets.revision());
+        assertTrue(assets.script().content().contains("const t='DEV'.replace("), assets.script().content());
+        assertTrue(assets.script().content().contains("+' | '+document.title;document.title=t;"), assets.script().content());
+        assertTrue(assets.style().content().startsWith("#" + BadgeAssets.BAR_DIV_ID + "{background-color:" + BackgroundColor.BLUE.getColorCode() + ";"),
+                assets.style().content());
+        assertArrayEquals(assets.script().content().getBytes(StandardCharsets.UTF_8), assets.script().encoded());
+        assertTrue(assets.script().location().matches(BadgeAssets.PATH + "\\.[0-9a-f]{16}\\.js"), assets.script().location());
+        assertTrue(assets.style().location().matches(BadgeAssets.PATH + "\\.[0-9a-f]{16}\\.css"), assets.style().location());
+        assertEquals("\"" + assets.style().hash() + "\"", assets.style().entityTag());
+        assertSame(assets.script(), assets.get(BadgeAssets.SCRIPT_EXTENSION));
+        assertSame(assets.style(), assets.get(BadgeAssets.STYLE_EXTENSION));
+        assertNull(assets.get("html"));
+        assertNull(assets.get(null));
+    }
+
+    /**
+     * Method under test: {@link BadgeAssets#of(AEMEnvironmentBadgeConfigService, long)}
+     */
+    @Test
+    void testOf_PrefixWithQuotes_ShouldEscapeScriptString() {
+        when(configService.isEnableDocumentTitlePrefix()).thenReturn(true);
+        when(configService.getDocumentTitlePrefix()).thenReturn("DEV's</script>");
+
+        final BadgeAssets assets = BadgeAssets.of(configService, 1L);
+
+        assertTrue(assets.script().content().contains("const t='DEV\\'s\\u003c/script\\u003e'.replace("),
+                assets.script().content());
+    }
+
+    /**
+     * Method under test: {@link BadgeAssets#of(AEMEnvironmentBadgeConfigService, long)}
+     */
+    @Test
+    void testOf_PrefixWithNodeTokens_ShouldBeIdenticalOnAllNodes() {
+        when(configService.isEnableDocumentTitlePrefix()).thenReturn(true);
+        when(configService.getDocumentTitlePrefix()).thenReturn("DEV ${hostname}");
+
+        final BadgeAssets assets = BadgeAssets.of(configService, 1L);
+
+        // Substituted by the script with the values of the data-node-tokens attribute
+        assertTrue(assets.script().content().contains("const t='DEV ${hostname}'.replace("), assets.script().content());
+        assertTrue(assets.script().content().contains("document.currentScript?.dataset.nodeTokens"), assets.script().content());
+        verify(configService, never()).getNodeTokens();
+    }
+
+    /**
+     * Method under test: {@link BadgeAssets#of(AEMEnvironmentBadgeConfigService, long)}
+     */
+    @Test
+    void testOf_NoneEnabled_ShouldRenderEmptyAssets() {
+        final BadgeAssets assets = BadgeAssets.of(configService, 1L);
+
+        assertTrue(assets.script().isEmpty());
+        assertTrue(assets.style().isEmpty());
+    }
+
+    /**
+     * Method under test: {@link BadgeAssets#of(AEMEnvironmentBadgeConfigService, long)}
+     */
+    @Test
+    void testOf_SameContent_ShouldKeepHashAcrossRevisions() {
+        when(configService.isEnableBadge()).thenReturn(true);
+        when(configService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.RED.getColor());
+        final BadgeAssets first = BadgeAssets.of(configService, 1L);
+        final BadgeAssets second = BadgeAssets.of(configService, 2L);
+
+        assertNotEquals(first.revision(), second.revision());
+        assertEquals(first.style().location(), second.style().location());
+
+        when(configService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.GREEN.getColor());
+        assertNotEquals(first.style().location(), BadgeAssets.of(configService, 1L).style().location());
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import com.merkle.oss.aem.environmentbadge.testing.AllocationMeter;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Allocation regression tests for the {@link CharResponseWrapper} class, failing if capturing the response
+ * content copies it more often than growing the capture buffer requires.
+ */
+class CharResponseWrapperAllocationTest {
+
+    /**
+     * Budget independent of the page size, covering the wrapper, including the initial capture buffer and encoder.
+     */
+    private static final long FIXED_BUDGET = 16 * 1024;
+
+    /**
+     * Budget per byte of a page written in one go via the output stream, covering the capture buffer only.
+     */
+    private static final double OUTPUT_STREAM_PAGE_SIZE_FACTOR = 1.5;
+
+    /**
+     * Budget per byte of a page written via the writer, covering the capture buffer growing with the encoded chunks.
+     */
+    private static final double WRITER_PAGE_SIZE_FACTOR = 2.5;
+
+    private final HttpServletResponse response = AllocationMeter.fake(HttpServletResponse.class, Map.of(
+            "getCharacterEncoding", StandardCharsets.UTF_8.name()
+    ));
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CharResponseWrapper#getOutputStream()}
+     *   <li>{@link CharResponseWrapper#getCapturedBytes()}
+     * </ul>
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {8 * 1024, 64 * 1024, 512 * 1024})
+    void getOutputStream_ShouldStayWithinAllocationBudget(final int pageSize) throws Exception {
+        final byte[] page = "x".repeat(pageSize).getBytes(StandardCharsets.UTF_8);
+
+        final long allocated = AllocationMeter.bytesPerInvocation(() -> {
+            final CharResponseWrapper wrapper = new CharResponseWrapper(response);
+            wrapper.getOutputStream().write(page);
+            wrapper.getCapturedBytes();
+        });
+
+        AllocationMeter.assertWithinBudget(FIXED_BUDGET, OUTPUT_STREAM_PAGE_SIZE_FACTOR, pageSize, allocated);
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CharResponseWrapper#getWriter()}
+     *   <li>{@link CharResponseWrapper#getCapturedBytes()}
+     * </ul>
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {8 * 1024, 64 * 1024, 512 * 1024})
+    void getWriter_ShouldStayWithinAllocationBudget(final int pageSize) throws Exception {
+        final String page = "x".repeat(pageSize);
+
+        final long allocated = AllocationMeter.bytesPerInvocation(() -> {
+            final CharResponseWrapper wrapper = new CharResponseWrapper(response);
+            wrapper.getWriter().write(page);
+            wrapper.getCapturedBytes();
+        });
+
+        AllocationMeter.assertWithinBudget(FIXED_BUDGET, WRITER_PAGE_SIZE_FACTOR, pageSize, allocated);
+    }
+
+}
@@ -7,8 +7,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for the {@link CharResponseWrapper} class.
@@ -32,7 +38,7 @@ class CharResponseWrapperTest {
      * Method under test: {@link CharResponseWrapper#getWriter()}
      */
     @Test
-    void testGetWriter_thenReturnNotCheckError() {
+    void testGetWriter_thenReturnNotCheckError() throws IOException {
         assertFalse(new CharResponseWrapper(new WebdavResponseImpl(null)).getWriter().checkError());
     }
 
@@ -44,4 +50,114 @@ class CharResponseWrapperTest {
         assertEquals("", new CharResponseWrapper(new WebdavResponseImpl(null)).getCapturedOutput());
     }
 
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CharResponseWrapper#getCapturedBytes()}
+     *   <li>{@link CharResponseWrapper#getCapturedLength()}
+     *   <li>{@link CharResponseWrapper#getCapturedCharset()}
+     * </ul>
+     */
+    @Test
+    void testGetCapturedBytes_thenReturnEncodedOutput() throws IOException {
+        when(response.getCharacterEncoding()).thenReturn(StandardCharsets.UTF_8.name());
+        final CharResponseWrapper wrapper = new CharResponseWrapper(response);
+
+        wrapper.getWriter().write("Grüße");
+        wrapper.getOutputStream().write("!".getBytes(StandardCharsets.UTF_8));
+
+        final byte[] expected = "Grüße!".getBytes(StandardCharsets.UTF_8);
+        assertEquals(StandardCharsets.UTF_8, wrapper.getCapturedCharset());
+        assertEquals(expected.length, wrapper.getCapturedLength());
+        assertArrayEquals(expected, Arrays.copyOf(wrapper.getCapturedBytes(), wrapper.getCapturedLength()));
+        assertEquals("Grüße!", wrapper.getCapturedOutput());
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CharResponseWrapper#getBufferGrowthNanos()}
+     *   <li>{@link CharResponseWrapper#isCaptureFailed()}
+     * </ul>
+     */
+    @Test
+    void testGetBufferGrowthNanos_thenTrackGrowingOnly() throws IOException {
+        final CharResponseWrapper wrapper = new CharResponseWrapper(response);
+
+        wrapper.getOutputStream().write(new byte[1024]);
+        assertEquals(0L, wrapper.getBufferGrowthNanos());
+
+        wrapper.getOutputStream().write(new byte[64 * 1024]);
+        assertTrue(wrapper.getBufferGrowthNanos() > 0L);
+        assertFalse(wrapper.isCaptureFailed());
+    }
+
+    /**
+     * Method under test: {@link CharResponseWrapper#getCapturedCharset()}
+     */
+    @Test
+    void testGetCapturedCharset_thenReturnDefaultForUnknownEncoding() {
+        when(response.getCharacterEncoding()).thenReturn("unknown-encoding");
+
+        assertEquals(StandardCharsets.ISO_8859_1, new CharResponseWrapper(response).getCapturedCharset());
+    }
+
+    /**
+     * Method under test: {@link CharResponseWrapper#flushBuffer()}
+     */
+    @Test
+    void testFlushBuffer_thenNotCommitResponse() throws IOException {
+        final CharResponseWrapper wrapper = new CharResponseWrapper(response);
+
+        wrapper.flushBuffer();
+
+        verify(response, never()).flushBuffer();
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CharResponseWrapper#isCapturing()}
+     *   <li>{@link CharResponseWrapper#getWriter()}
+     *   <li>{@link CharResponseWrapper#getOutputStream()}
+     * </ul>
+     */
+    @Test
+    void testIsCapturing_thenPassThroughUnlessConditionIsMet() throws IOException {
+        final PrintWriter responseWriter = new PrintWriter(new StringWriter());
+        when(response.getStatus()).thenReturn(304);
+        when(response.getWriter()).thenReturn(responseWriter);
+        final CharResponseWrapper wrapper = new CharResponseWrapper(response, w -> w.getStatus() == 200);
+
+        assertFalse(wrapper.isCapturing());
+        assertSame(responseWriter, wrapper.getWriter());
+        wrapper.flushBuffer();
+        verify(response).flushBuffer();
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CharResponseWrapper#sendError(int)}
+     *   <li>{@link CharResponseWrapper#sendRedirect(String)}
+     *   <li>{@link CharResponseWrapper#reset()}
+     * </ul>
+     */
+    @Test
+    void testSendError_thenDiscardCapturedOutput() throws IOException {
+        final CharResponseWrapper wrapper = new CharResponseWrapper(response);
+        wrapper.getWriter().write("Content");
+
+        wrapper.sendError(500);
+        assertFalse(wrapper.isCapturing());
+        assertEquals(0, wrapper.getCapturedLength());
+        verify(response).sendError(500);
+
+        wrapper.reset();
+        assertTrue(wrapper.isCapturing());
+        wrapper.sendRedirect("/");
+        assertFalse(wrapper.isCapturing());
+        verify(response).sendRedirect("/");
+    }
+
 }
@@ -0,0 +1,165 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link CircuitBreaker} class.
+ */
+class CircuitBreakerTest {
+
+    private static final long MILLISECOND = Duration.ofMillis(1L).toNanos();
+
+    private static final long SECOND = Duration.ofSeconds(1L).toNanos();
+
+    private final AtomicLong clock = new AtomicLong(-SECOND);
+
+    private final List<CircuitBreaker.State> transitions = new ArrayList<>();
+
+    private final CircuitBreaker breaker = new CircuitBreaker(Duration.ofMillis(100L), 4, 50, Duration.ofSeconds(10L),
+            transitions::add, clock::get);
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CircuitBreaker#tryAcquire()}
+     *   <li>{@link CircuitBreaker#record(long)}
+     *   <li>{@link CircuitBreaker#recordFailure()}
+     * </ul>
+     */
+    @Test
+    void testRecord_slowAndFailedCalls_shouldOpen() {
+        assertTrue(breaker.isEnabled());
+        assertTrue(breaker.tryAcquire());
+        breaker.record(150L * MILLISECOND);
+        breaker.record(MILLISECOND);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(List.of(CircuitBreaker.State.OPEN), transitions);
+    }
+
+    /**
+     * Method under test: {@link CircuitBreaker#record(long)}
+     */
+    @Test
+    void testRecord_failuresOfPreviousWindow_shouldBeDiscarded() {
+        breaker.recordFailure();
+        breaker.record(MILLISECOND);
+        breaker.record(MILLISECOND);
+        breaker.record(MILLISECOND);
+
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(transitions.isEmpty());
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CircuitBreaker#tryAcquire()}
+     *   <li>{@link CircuitBreaker#record(long)}
+     * </ul>
+     */
+    @Test
+    void testTryAcquire_afterCoolDown_shouldProbeOnceAndClose() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        clock.addAndGet(9L * SECOND);
+        assertFalse(breaker.tryAcquire());
+
+        clock.addAndGet(SECOND);
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.record(MILLISECOND);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.CLOSED), transitions);
+    }
+
+    /**
+     * Method under test: {@link CircuitBreaker#record(long)}
+     */
+    @Test
+    void testRecord_slowProbe_shouldOpenAgain() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        clock.addAndGet(10L * SECOND);
+        assertTrue(breaker.tryAcquire());
+
+        breaker.record(100L * MILLISECOND);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        clock.addAndGet(9L * SECOND);
+        assertFalse(breaker.tryAcquire());
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CircuitBreaker#tryAcquire()}
+     *   <li>{@link CircuitBreaker#release()}
+     * </ul>
+     */
+    @Test
+    void testRelease_probe_shouldLetNextCallProbe() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        clock.addAndGet(10L * SECOND);
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.release();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    /**
+     * Method under test: {@link CircuitBreaker#tryAcquire()}
+     */
+    @Test
+    void testTryAcquire_probeNotReporting_shouldBeGivenUp() {
+        breaker.recordFailure();
+        breaker.recordFailure();
+        clock.addAndGet(10L * SECOND);
+        assertTrue(breaker.tryAcquire());
+
+        clock.addAndGet(10L * SECOND);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN), transitions);
+    }
+
+    /**
+     * Method under test: {@link CircuitBreaker#isEnabled()}
+     */
+    @Test
+    void testIsEnabled_noThreshold_shouldNeverOpen() {
+        final CircuitBreaker disabled = new CircuitBreaker(Duration.ZERO, 1, 0, Duration.ofSeconds(10L), transitions::add, clock::get);
+        assertFalse(disabled.isEnabled());
+
+        disabled.recordFailure();
+
+        assertEquals(CircuitBreaker.State.CLOSED, disabled.getState());
+        assertTrue(disabled.tryAcquire());
+        assertTrue(transitions.isEmpty());
+    }
+
+}
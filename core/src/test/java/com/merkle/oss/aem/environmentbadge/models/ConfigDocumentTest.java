@@ -0,0 +1,60 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import com.google.gson.JsonParser;
+import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link ConfigDocument} record.
+ */
+@ExtendWith(MockitoExtension.class)
+class ConfigDocumentTest {
+
+    @Mock
+    private AEMEnvironmentBadgeConfigService configService;
+
+    /**
+     * Method under test: {@link ConfigDocument#of(AEMEnvironmentBadgeConfigService, long)}
+     */
+    @Test
+    void testOf_ShouldSerializeSortedConfiguration() {
+        when(configService.isEnableBadge()).thenReturn(true);
+        when(configService.getBadgeTitle()).thenReturn("DEV <1>");
+        when(configService.getBadgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+
+        final ConfigDocument document = ConfigDocument.of(configService, 7L);
+
+        assertEquals(7L, document.revision());
+        assertEquals("{\"badgeBackgroundColor\":\"blue\",\"badgeTitle\":\"DEV <1>\",\"documentTitlePrefix\":\"\","
+                + "\"enableBadge\":true,\"enableDocumentTitlePrefix\":false}", document.json());
+        assertEquals(document.json().getBytes(StandardCharsets.UTF_8).length, document.length());
+        assertEquals(document, ConfigDocument.of(configService, 7L));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link ConfigDocument#entityTag()}
+     *   <li>{@link ConfigDocument#location()}
+     * </ul>
+     */
+    @Test
+    void testLocation_ShouldBeVersionedByContentHash() {
+        final ConfigDocument document = ConfigDocument.EMPTY;
+
+        assertNull(document.revision());
+        assertEquals(JsonParser.parseString("{}"), JsonParser.parseString(document.json()));
+        assertEquals("\"" + document.hash() + "\"", document.entityTag());
+        assertEquals(ConfigDocument.PATH + "." + document.hash() + "." + ConfigDocument.EXTENSION, document.location());
+    }
+
+}
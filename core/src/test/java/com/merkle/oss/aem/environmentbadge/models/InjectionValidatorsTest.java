@@ -0,0 +1,59 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link InjectionValidators} class.
+ */
+class InjectionValidatorsTest {
+
+    private final InjectionValidators validators = new InjectionValidators("1a2b", 2_000L);
+
+    /**
+     * Method under test: {@link InjectionValidators#foldEntityTag(String)}
+     */
+    @ParameterizedTest(name = "{index} => entityTag={0}, expected={1}")
+    @CsvSource(delimiter = '|', quoteCharacter = '\'', textBlock = """
+            "abc"       | "abc-badge-1a2b"
+            W/"abc"     | W/"abc-badge-1a2b"
+            ' "abc" '   | "abc-badge-1a2b"
+            abc         | abc-badge-1a2b
+            """)
+    void foldEntityTag_ShouldAppendVersion(final String entityTag, final String expected) {
+        assertEquals(expected, validators.foldEntityTag(entityTag));
+    }
+
+    /**
+     * Method under test: {@link InjectionValidators#unfoldEntityTags(String)}
+     */
+    @Test
+    void unfoldEntityTags_ShouldRemoveVersionAndDropOtherVersions() {
+        assertEquals("\"abc\"", validators.unfoldEntityTags("\"abc-badge-1a2b\""));
+        assertEquals("W/\"abc\", \"def\"", validators.unfoldEntityTags("W/\"abc-badge-1a2b\", \"xyz-badge-0000\", \"def-badge-1a2b\""));
+        assertEquals("*", validators.unfoldEntityTags(" * "));
+        assertNull(validators.unfoldEntityTags("\"abc\""));
+        assertNull(validators.unfoldEntityTags("\"abc-badge-0000\""));
+        assertNull(validators.unfoldEntityTags(" "));
+        assertNull(validators.unfoldEntityTags(null));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link InjectionValidators#foldLastModified(long)}
+     *   <li>{@link InjectionValidators#isModifiedSince(long)}
+     * </ul>
+     */
+    @Test
+    void foldLastModified_ShouldReturnLaterDate() {
+        assertEquals(2_000L, validators.foldLastModified(1_000L));
+        assertEquals(3_000L, validators.foldLastModified(3_000L));
+        assertTrue(validators.isModifiedSince(1_000L));
+        assertFalse(validators.isModifiedSince(2_000L));
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link LatencyHistogram} class.
+ */
+class LatencyHistogramTest {
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link LatencyHistogram#getCount()}
+     *   <li>{@link LatencyHistogram#getSum()}
+     *   <li>{@link LatencyHistogram#getMax()}
+     *   <li>{@link LatencyHistogram#getPercentile(double)}
+     * </ul>
+     */
+    @Test
+    void testGetters_whenEmpty_thenReturnZero() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getSum());
+        assertEquals(0L, histogram.getMax());
+        assertEquals(0L, histogram.getPercentile(0.99d));
+    }
+
+    /**
+     * Method under test: {@link LatencyHistogram#record(long)}
+     */
+    @Test
+    void testRecord() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 100).forEach(histogram::record);
+        histogram.record(-5L);
+
+        assertEquals(101L, histogram.getCount());
+        assertEquals(5050L, histogram.getSum());
+        assertEquals(100L, histogram.getMax());
+    }
+
+    /**
+     * Method under test: {@link LatencyHistogram#add(LatencyHistogram)}
+     */
+    @Test
+    void testAdd() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10L);
+        final LatencyHistogram other = new LatencyHistogram();
+        IntStream.range(0, 99).forEach(i -> other.record(1000L));
+
+        histogram.add(other);
+
+        assertEquals(100L, histogram.getCount());
+        assertEquals(99010L, histogram.getSum());
+        assertEquals(1000L, histogram.getMax());
+        assertEquals(1000L, histogram.getPercentile(0.5d));
+        assertEquals(15L, histogram.getPercentile(0.01d));
+        assertEquals(99L, other.getCount());
+    }
+
+    /**
+     * Method under test: {@link LatencyHistogram#getPercentile(double)}
+     */
+    @Test
+    void testGetPercentile_thenReturnBucketUpperBound() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.range(0, 90).forEach(i -> histogram.record(10L));
+        IntStream.range(0, 10).forEach(i -> histogram.record(1000L));
+
+        // 10 falls into the bucket [8, 15]
+        assertEquals(15L, histogram.getPercentile(0.5d));
+        assertEquals(15L, histogram.getPercentile(0.9d));
+        // Capped by the max recorded value instead of the bucket upper bound 1023
+        assertEquals(1000L, histogram.getPercentile(0.99d));
+        assertEquals(1000L, histogram.getPercentile(2.0d));
+    }
+
+    /**
+     * Method under test: {@link LatencyHistogram#toSnapshot()}
+     */
+    @Test
+    void testToSnapshot() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(4L);
+        histogram.record(8L);
+
+        final Map<String, Object> snapshot = histogram.toSnapshot();
+
+        assertEquals(2L, snapshot.get("count"));
+        assertEquals(6L, snapshot.get("mean"));
+        assertEquals(8L, snapshot.get("max"));
+        assertTrue(snapshot.keySet().containsAll(List.of("p50", "p90", "p99")));
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link RollingLatencyHistogram} class.
+ */
+class RollingLatencyHistogramTest {
+
+    private static final long SECOND = Duration.ofSeconds(1L).toNanos();
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link RollingLatencyHistogram#record(long)}
+     *   <li>{@link RollingLatencyHistogram#snapshot()}
+     * </ul>
+     */
+    @Test
+    void testSnapshot_shouldOnlyContainValuesOfWindow() {
+        final AtomicLong clock = new AtomicLong(-SECOND);
+        final RollingLatencyHistogram histogram = new RollingLatencyHistogram(Duration.ofSeconds(4L), 4, clock::get);
+        assertEquals(0L, histogram.snapshot().getCount());
+
+        histogram.record(100L);
+        clock.addAndGet(SECOND);
+        histogram.record(200L);
+        histogram.record(300L);
+
+        LatencyHistogram snapshot = histogram.snapshot();
+        assertEquals(3L, snapshot.getCount());
+        assertEquals(600L, snapshot.getSum());
+        assertEquals(300L, snapshot.getMax());
+
+        // The first slice leaves the window
+        clock.addAndGet(3L * SECOND);
+        snapshot = histogram.snapshot();
+        assertEquals(2L, snapshot.getCount());
+        assertEquals(300L, snapshot.getMax());
+
+        // The slice of the first value is reused
+        histogram.record(400L);
+        snapshot = histogram.snapshot();
+        assertEquals(3L, snapshot.getCount());
+        assertEquals(900L, snapshot.getSum());
+
+        clock.addAndGet(3L * SECOND);
+        assertEquals(1L, histogram.snapshot().getCount());
+        clock.addAndGet(SECOND);
+        assertEquals(0L, histogram.snapshot().getCount());
+    }
+
+}
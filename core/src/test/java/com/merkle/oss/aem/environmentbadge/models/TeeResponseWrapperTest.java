@@ -0,0 +1,170 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the {@link TeeResponseWrapper} class.
+ */
+@ExtendWith(MockitoExtension.class)
+class TeeResponseWrapperTest {
+
+    private static final String CONTENT = "<html><body>Grüezi</body></html>";
+
+    @Mock
+    private HttpServletResponse response;
+
+    private final ByteArrayOutputStream responseOutput = new ByteArrayOutputStream();
+
+    private final ServletOutputStream outputStream = new ServletOutputStream() {
+        @Override
+        public void write(final int b) {
+            responseOutput.write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            // Not required for blocking writes
+        }
+    };
+
+    /**
+     * Method under test: {@link TeeResponseWrapper#TeeResponseWrapper(HttpServletResponse, int)}
+     */
+    @Test
+    void testNewTeeResponseWrapper() {
+        assertThrows(IllegalArgumentException.class, () -> new TeeResponseWrapper(null, 10));
+        final TeeResponseWrapper wrapper = new TeeResponseWrapper(response, 10);
+        assertSame(response, wrapper.getResponse());
+        assertFalse(wrapper.isCopyComplete());
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link TeeResponseWrapper#getWriter()}
+     *   <li>{@link TeeResponseWrapper#getCopiedBytes(java.nio.charset.Charset)}
+     *   <li>{@link TeeResponseWrapper#getCopiedLength()}
+     * </ul>
+     */
+    @Test
+    void testGetWriter_shouldStreamAndCopy() throws IOException {
+        final StringWriter output = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(output));
+        final TeeResponseWrapper wrapper = new TeeResponseWrapper(response, 1024);
+
+        wrapper.getWriter().write(CONTENT);
+        wrapper.flushBuffer();
+
+        assertEquals(CONTENT, output.toString());
+        assertTrue(wrapper.isCopyComplete());
+        final byte[] expected = CONTENT.getBytes(StandardCharsets.UTF_8);
+        final byte[] copy = wrapper.getCopiedBytes(StandardCharsets.UTF_8);
+        assertEquals(expected.length, wrapper.getCopiedLength());
+        assertArrayEquals(expected, Arrays.copyOf(copy, wrapper.getCopiedLength()));
+    }
+
+    /**
+     * Method under test: {@link TeeResponseWrapper#getOutputStream()}
+     */
+    @Test
+    void testGetOutputStream_shouldStreamAndCopy() throws IOException {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        final TeeResponseWrapper wrapper = new TeeResponseWrapper(response, 1024);
+        final byte[] content = CONTENT.getBytes(StandardCharsets.UTF_8);
+
+        wrapper.getOutputStream().write(content[0]);
+        wrapper.getOutputStream().write(content, 1, content.length - 1);
+
+        assertArrayEquals(content, responseOutput.toByteArray());
+        assertTrue(wrapper.isCopyComplete());
+        assertArrayEquals(content, Arrays.copyOf(wrapper.getCopiedBytes(StandardCharsets.ISO_8859_1), wrapper.getCopiedLength()));
+    }
+
+    /**
+     * Method under test: {@link TeeResponseWrapper#isCopyComplete()}
+     */
+    @Test
+    void testIsCopyComplete_exceedingMaxCopyLength_shouldStreamButDiscardCopy() throws IOException {
+        final StringWriter output = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(output));
+        final TeeResponseWrapper wrapper = new TeeResponseWrapper(response, 10);
+
+        wrapper.getWriter().write(CONTENT);
+
+        assertFalse(wrapper.isCopyComplete());
+        assertEquals(CONTENT, output.toString());
+        wrapper.getCopiedBytes(StandardCharsets.UTF_8);
+        assertEquals(0, wrapper.getCopiedLength());
+    }
+
+    /**
+     * Method under test: {@link TeeResponseWrapper#isCopyComplete()}
+     */
+    @Test
+    void testIsCopyComplete_writerAndOutputStream_shouldBeIncomplete() throws IOException {
+        when(response.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        when(response.getOutputStream()).thenReturn(outputStream);
+        final TeeResponseWrapper wrapper = new TeeResponseWrapper(response, 1024);
+
+        wrapper.getWriter().write(CONTENT);
+        wrapper.getOutputStream().write(1);
+
+        assertFalse(wrapper.isCopyComplete());
+    }
+
+    /**
+     * Method under test: {@link TeeResponseWrapper#resetBuffer()}
+     */
+    @Test
+    void testResetBuffer_shouldClearCopy() throws IOException {
+        when(response.getOutputStream()).thenReturn(outputStream);
+        final TeeResponseWrapper wrapper = new TeeResponseWrapper(response, 10);
+
+        wrapper.getOutputStream().write(CONTENT.getBytes(StandardCharsets.UTF_8));
+        assertFalse(wrapper.isCopyComplete());
+        wrapper.resetBuffer();
+        wrapper.getOutputStream().write(new byte[]{1, 2, 3});
+
+        verify(response).resetBuffer();
+        assertTrue(wrapper.isCopyComplete());
+        wrapper.getCopiedBytes(StandardCharsets.UTF_8);
+        assertEquals(3, wrapper.getCopiedLength());
+    }
+
+    /**
+     * Method under test: {@link TeeResponseWrapper#getCopiedCharset()}
+     */
+    @Test
+    void testGetCopiedCharset() {
+        final TeeResponseWrapper wrapper = new TeeResponseWrapper(response, 10);
+
+        when(response.getCharacterEncoding()).thenReturn(null);
+        assertEquals(StandardCharsets.ISO_8859_1, wrapper.getCopiedCharset());
+        when(response.getCharacterEncoding()).thenReturn("unknown-charset");
+        assertEquals(StandardCharsets.ISO_8859_1, wrapper.getCopiedCharset());
+        when(response.getCharacterEncoding()).thenReturn("utf-8");
+        assertEquals(StandardCharsets.UTF_8, wrapper.getCopiedCharset());
+    }
+
+}
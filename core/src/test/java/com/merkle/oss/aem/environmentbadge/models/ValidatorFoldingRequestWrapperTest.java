@@ -0,0 +1,76 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link ValidatorFoldingRequestWrapper} class.
+ */
+@ExtendWith(MockitoExtension.class)
+class ValidatorFoldingRequestWrapperTest {
+
+    private static final InjectionValidators VALIDATORS = new InjectionValidators("1a2b", 2_000L);
+
+    @Mock
+    private HttpServletRequest request;
+
+    /**
+     * Method under test: {@link ValidatorFoldingRequestWrapper#isConditional(HttpServletRequest)}
+     */
+    @Test
+    void testIsConditional() {
+        when(request.getHeader("If-None-Match")).thenReturn(null, "\"abc\"");
+        when(request.getHeader("If-Modified-Since")).thenReturn(null);
+
+        assertFalse(ValidatorFoldingRequestWrapper.isConditional(request));
+        assertTrue(ValidatorFoldingRequestWrapper.isConditional(request));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link ValidatorFoldingRequestWrapper#getHeader(String)}
+     *   <li>{@link ValidatorFoldingRequestWrapper#getHeaders(String)}
+     * </ul>
+     */
+    @Test
+    void testGetHeader_thenUnfoldEntityTags() {
+        when(request.getHeaders("If-None-Match")).thenAnswer(invocation -> Collections.enumeration(List.of("\"abc-badge-1a2b\"", "\"def-badge-0000\"")));
+        final ValidatorFoldingRequestWrapper wrapper = new ValidatorFoldingRequestWrapper(request, VALIDATORS);
+
+        assertEquals("\"abc\"", wrapper.getHeader("If-None-Match"));
+        assertEquals(List.of("\"abc\""), Collections.list(wrapper.getHeaders("If-None-Match")));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link ValidatorFoldingRequestWrapper#getHeader(String)}
+     *   <li>{@link ValidatorFoldingRequestWrapper#getDateHeader(String)}
+     *   <li>{@link ValidatorFoldingRequestWrapper#getHeaderNames()}
+     * </ul>
+     */
+    @Test
+    void testGetDateHeader_thenRemoveDatesBeforeFragmentModification() {
+        when(request.getDateHeader("If-Modified-Since")).thenReturn(1_000L, 1_000L, 1_000L, 3_000L, 3_000L);
+        when(request.getHeader("If-Modified-Since")).thenReturn("Thu, 01 Jan 1970 00:00:03 GMT");
+        when(request.getHeaderNames()).thenReturn(Collections.enumeration(List.of("If-Modified-Since")));
+        final ValidatorFoldingRequestWrapper wrapper = new ValidatorFoldingRequestWrapper(request, VALIDATORS);
+
+        assertEquals(-1L, wrapper.getDateHeader("If-Modified-Since"));
+        assertNull(wrapper.getHeader("If-Modified-Since"));
+        assertFalse(wrapper.getHeaderNames().hasMoreElements());
+        assertEquals(3_000L, wrapper.getDateHeader("If-Modified-Since"));
+        assertEquals("Thu, 01 Jan 1970 00:00:03 GMT", wrapper.getHeader("If-Modified-Since"));
+    }
+
+}
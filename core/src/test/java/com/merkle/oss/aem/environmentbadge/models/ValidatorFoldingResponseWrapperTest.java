@@ -0,0 +1,78 @@
+package com.merkle.oss.aem.environmentbadge.models;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.servlet.http.HttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for the {@link ValidatorFoldingResponseWrapper} class.
+ */
+@ExtendWith(MockitoExtension.class)
+class ValidatorFoldingResponseWrapperTest {
+
+    private static final InjectionValidators VALIDATORS = new InjectionValidators("1a2b", 1_700_000_000_000L);
+
+    @Mock
+    private HttpServletResponse response;
+
+    /**
+     * Method under test: {@link ValidatorFoldingResponseWrapper#ValidatorFoldingResponseWrapper(HttpServletResponse, InjectionValidators, java.util.function.Predicate)}
+     */
+    @Test
+    void testNewValidatorFoldingResponseWrapper() {
+        assertThrows(NullPointerException.class, () -> new ValidatorFoldingResponseWrapper(response, null, wrapper -> true));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link ValidatorFoldingResponseWrapper#setHeader(String, String)}
+     *   <li>{@link ValidatorFoldingResponseWrapper#addHeader(String, String)}
+     * </ul>
+     */
+    @Test
+    void testSetHeader_thenFoldValidators() {
+        final ValidatorFoldingResponseWrapper wrapper = new ValidatorFoldingResponseWrapper(response, VALIDATORS, w -> true);
+
+        wrapper.setHeader("ETag", "\"abc\"");
+        wrapper.addHeader("etag", "W/\"def\"");
+        wrapper.setHeader("Last-Modified", "Thu, 01 Jan 1970 00:00:01 GMT");
+        wrapper.addHeader("Last-Modified", "Sun, 01 Jan 2040 00:00:00 GMT");
+        wrapper.setHeader("Last-Modified", "invalid");
+        wrapper.setHeader("Cache-Control", "no-cache");
+
+        verify(response).setHeader("ETag", "\"abc-badge-1a2b\"");
+        verify(response).addHeader("etag", "W/\"def-badge-1a2b\"");
+        verify(response).setDateHeader("Last-Modified", 1_700_000_000_000L);
+        verify(response).addDateHeader("Last-Modified", 2_208_988_800_000L);
+        verify(response).setHeader("Last-Modified", "invalid");
+        verify(response).setHeader("Cache-Control", "no-cache");
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link ValidatorFoldingResponseWrapper#setDateHeader(String, long)}
+     *   <li>{@link ValidatorFoldingResponseWrapper#addDateHeader(String, long)}
+     * </ul>
+     */
+    @Test
+    void testSetDateHeader_thenFoldLastModified() {
+        final ValidatorFoldingResponseWrapper wrapper = new ValidatorFoldingResponseWrapper(response, VALIDATORS, w -> true);
+
+        wrapper.setDateHeader("Last-Modified", 1_000L);
+        wrapper.addDateHeader("Last-Modified", 1_800_000_000_000L);
+        wrapper.setDateHeader("Expires", 1_000L);
+
+        verify(response).setDateHeader("Last-Modified", 1_700_000_000_000L);
+        verify(response).addDateHeader("Last-Modified", 1_800_000_000_000L);
+        verify(response).setDateHeader("Expires", 1_000L);
+    }
+
+}
@@ -1,15 +1,52 @@
 package com.merkle.oss.aem.environmentbadge.services.impl;
 
 import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
+import com.sun.net.httpserver.HttpServer;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.api.security.user.Authorizable;
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.UserManager;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.settings.SlingSettingsService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Dictionary;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for the {@link AEMEnvironmentBadgeConfigServiceImpl} class.
@@ -17,19 +54,32 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class AEMEnvironmentBadgeConfigServiceImplTest {
 
+    private static final String CONFIGURATION_PATH = "/conf/environment-badge/settings";
+
     @Mock
     private AEMEnvironmentBadgeConfigServiceImpl.AEMEnvironmentBadgeConfig config;
 
+    @Mock
+    private BundleContext bundleContext;
+
+    @Mock
+    private ResourceResolverFactory resourceResolverFactory;
+
+    @Mock
+    private SlingSettingsService slingSettingsService;
+
     @InjectMocks
     private AEMEnvironmentBadgeConfigServiceImpl aemEnvironmentBadgeConfigService = new AEMEnvironmentBadgeConfigServiceImpl();
 
     /**
-     * Method under test: {@link AEMEnvironmentBadgeConfigServiceImpl#activate(AEMEnvironmentBadgeConfigServiceImpl.AEMEnvironmentBadgeConfig)}
+     * Method under test: {@link AEMEnvironmentBadgeConfigServiceImpl#activate(AEMEnvironmentBadgeConfigServiceImpl.AEMEnvironmentBadgeConfig, BundleContext)}
      */
     @Test
     void testActivate() {
-        assertThrows(NullPointerException.class, () -> aemEnvironmentBadgeConfigService.activate(null));
-        assertDoesNotThrow(() -> aemEnvironmentBadgeConfigService.activate(config));
+        assertThrows(NullPointerException.class, () -> aemEnvironmentBadgeConfigService.activate(null, bundleContext));
+        assertThrows(NullPointerException.class, () -> aemEnvironmentBadgeConfigService.activate(config, null));
+        assertDoesNotThrow(() -> aemEnvironmentBadgeConfigService.activate(config, bundleContext));
+        verifyNoInteractions(bundleContext, resourceResolverFactory);
     }
 
     /**
@@ -49,6 +99,7 @@ class AEMEnvironmentBadgeConfigServiceImplTest {
         when(config.enableBadge()).thenReturn(true);
         when(config.badgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
         when(config.badgeTitle()).thenReturn("title");
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
 
         assertTrue(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix());
         assertEquals("prefix", aemEnvironmentBadgeConfigService.getDocumentTitlePrefix());
@@ -57,13 +108,43 @@ class AEMEnvironmentBadgeConfigServiceImplTest {
         assertEquals("title", aemEnvironmentBadgeConfigService.getBadgeTitle());
 
         when(config.enableDocumentTitlePrefix()).thenReturn(false);
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
         assertFalse(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix());
 
         when(config.enableDocumentTitlePrefix()).thenReturn(true);
         when(config.documentTitlePrefix()).thenReturn(null);
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
         assertFalse(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix());
     }
 
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#activate(AEMEnvironmentBadgeConfigServiceImpl.AEMEnvironmentBadgeConfig, BundleContext)}
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#getDocumentTitlePrefix()}
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#getBadgeTitle()}
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#getNodeTokens()}
+     * </ul>
+     */
+    @Test
+    void testGetters_NodeTokens_ShouldBeResolvedOnActivationButNotSubstituted() throws IOException {
+        when(slingSettingsService.getSlingId()).thenReturn("a1b2c3");
+        when(slingSettingsService.getRunModes()).thenReturn(Set.of("author", "dev"));
+        when(config.documentTitlePrefix()).thenReturn("DEV ${hostname}");
+        when(config.badgeTitle()).thenReturn("${instance_id} (${run_modes}) ${unknown}");
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+
+        // The configuration stays identical on all cluster nodes
+        assertEquals("DEV ${hostname}", aemEnvironmentBadgeConfigService.getDocumentTitlePrefix());
+        assertEquals("${instance_id} (${run_modes}) ${unknown}", aemEnvironmentBadgeConfigService.getBadgeTitle());
+        assertEquals("hostname=" + URLEncoder.encode(InetAddress.getLocalHost().getHostName(), StandardCharsets.UTF_8)
+                + "&instance_id=a1b2c3&run_modes=author%2Cdev", aemEnvironmentBadgeConfigService.getNodeTokens());
+
+        // Resolved once, not on every read
+        aemEnvironmentBadgeConfigService.getNodeTokens();
+        verify(slingSettingsService).getSlingId();
+    }
+
     /**
      * Method under test: {@link AEMEnvironmentBadgeConfigServiceImpl#isEnableDocumentTitlePrefix()}
      */
@@ -71,6 +152,7 @@ class AEMEnvironmentBadgeConfigServiceImplTest {
     void testGetters_PrefixTitleNotSet() {
         when(config.enableDocumentTitlePrefix()).thenReturn(true);
         when(config.documentTitlePrefix()).thenReturn(StringUtils.EMPTY);
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
 
         assertFalse(aemEnvironmentBadgeConfigService.isEnableDocumentTitlePrefix());
     }
@@ -88,10 +170,294 @@ class AEMEnvironmentBadgeConfigServiceImplTest {
         when(config.enableBadge()).thenReturn(true);
         when(config.badgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
         when(config.badgeTitle()).thenReturn(StringUtils.EMPTY);
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
 
         assertTrue(aemEnvironmentBadgeConfigService.isEnableBadge());
         assertEquals(BackgroundColor.BLUE.getColor(), aemEnvironmentBadgeConfigService.getBadgeBackgroundColor());
         assertEquals(StringUtils.EMPTY, aemEnvironmentBadgeConfigService.getBadgeTitle());
     }
 
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServiceImpl#getRevision()}
+     */
+    @Test
+    void testGetRevision() {
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+        final long revision = aemEnvironmentBadgeConfigService.getRevision();
+
+        assertEquals(revision, aemEnvironmentBadgeConfigService.getRevision());
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+        assertTrue(aemEnvironmentBadgeConfigService.getRevision() > revision);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServiceImpl#isEnableServerTiming()}
+     */
+    @Test
+    void testIsEnableServerTiming() {
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+        assertFalse(aemEnvironmentBadgeConfigService.isEnableServerTiming());
+
+        when(config.enableServerTiming()).thenReturn(true);
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+        assertTrue(aemEnvironmentBadgeConfigService.isEnableServerTiming());
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#isShadowMode()}
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#getShadowModeSamplePercent()}
+     * </ul>
+     */
+    @Test
+    void testShadowMode() {
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+        assertFalse(aemEnvironmentBadgeConfigService.isShadowMode());
+
+        when(config.shadowMode()).thenReturn(true);
+        when(config.shadowModeSamplePercent()).thenReturn(250);
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+        assertTrue(aemEnvironmentBadgeConfigService.isShadowMode());
+        assertEquals(100, aemEnvironmentBadgeConfigService.getShadowModeSamplePercent());
+
+        when(config.shadowModeSamplePercent()).thenReturn(-5);
+        assertEquals(0, aemEnvironmentBadgeConfigService.getShadowModeSamplePercent());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServiceImpl#isVisibleTo(String)}
+     */
+    @Test
+    void testIsVisibleTo_NoGroups_ShouldBeVisibleToAll() {
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+
+        assertTrue(aemEnvironmentBadgeConfigService.isVisibleTo("author"));
+        assertTrue(aemEnvironmentBadgeConfigService.isVisibleTo(null));
+        verifyNoInteractions(bundleContext, resourceResolverFactory);
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#isVisibleTo(String)}
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#deactivate()}
+     * </ul>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testIsVisibleTo_Groups_ShouldResolveMembershipOnceUntilGroupsChange() throws Exception {
+        final ResourceResolver resourceResolver = mock(ResourceResolver.class);
+        final UserManager userManager = mock(UserManager.class);
+        final Authorizable admin = mock(Authorizable.class);
+        final Authorizable author = mock(Authorizable.class);
+        final Group administrators = mock(Group.class);
+        final Group contributors = mock(Group.class);
+        final ServiceRegistration<ResourceChangeListener> registration = mock(ServiceRegistration.class);
+        when(config.visibleToGroups()).thenReturn(new String[]{" administrators ", ""});
+        when(config.groupMembershipCacheTtlSeconds()).thenReturn(300L);
+        when(config.groupMembershipCacheSize()).thenReturn(10);
+        when(resourceResolverFactory.getServiceResourceResolver(anyMap())).thenReturn(resourceResolver);
+        when(resourceResolver.adaptTo(UserManager.class)).thenReturn(userManager);
+        when(userManager.getAuthorizable("admin")).thenReturn(admin);
+        when(userManager.getAuthorizable("author")).thenReturn(author);
+        when(administrators.getID()).thenReturn("administrators");
+        when(contributors.getID()).thenReturn("contributors");
+        when(admin.memberOf()).thenAnswer(invocation -> List.of(contributors, administrators).iterator());
+        when(author.memberOf()).thenAnswer(invocation -> List.of(contributors).iterator());
+        when(bundleContext.registerService(eq(ResourceChangeListener.class), any(ResourceChangeListener.class), any(Dictionary.class)))
+                .thenReturn(registration);
+
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+
+        assertTrue(aemEnvironmentBadgeConfigService.isVisibleTo("admin"));
+        assertTrue(aemEnvironmentBadgeConfigService.isVisibleTo("admin"));
+        assertFalse(aemEnvironmentBadgeConfigService.isVisibleTo("author"));
+        assertFalse(aemEnvironmentBadgeConfigService.isVisibleTo("author"));
+        assertFalse(aemEnvironmentBadgeConfigService.isVisibleTo(null));
+        verify(resourceResolverFactory, times(2)).getServiceResourceResolver(Map.of(ResourceResolverFactory.SUBSERVICE, AEMEnvironmentBadgeConfigServiceImpl.SUBSERVICE_NAME));
+        verify(resourceResolver, times(2)).close();
+
+        final ArgumentCaptor<ResourceChangeListener> listenerCaptor = ArgumentCaptor.forClass(ResourceChangeListener.class);
+        final ArgumentCaptor<Dictionary<String, Object>> propertiesCaptor = ArgumentCaptor.forClass(Dictionary.class);
+        verify(bundleContext).registerService(eq(ResourceChangeListener.class), listenerCaptor.capture(), propertiesCaptor.capture());
+        assertInstanceOf(ExternalResourceChangeListener.class, listenerCaptor.getValue());
+        assertArrayEquals(new String[]{AEMEnvironmentBadgeConfigServiceImpl.GROUPS_PATH}, (String[]) propertiesCaptor.getValue().get(ResourceChangeListener.PATHS));
+
+        // The author joining the group takes effect with the next request
+        when(author.memberOf()).thenAnswer(invocation -> List.of(contributors, administrators).iterator());
+        listenerCaptor.getValue().onChange(Collections.emptyList());
+        assertTrue(aemEnvironmentBadgeConfigService.isVisibleTo("author"));
+        verify(resourceResolverFactory, times(3)).getServiceResourceResolver(anyMap());
+
+        aemEnvironmentBadgeConfigService.deactivate();
+        verify(registration).unregister();
+        assertTrue(aemEnvironmentBadgeConfigService.isVisibleTo("author"));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#activate(AEMEnvironmentBadgeConfigServiceImpl.AEMEnvironmentBadgeConfig, BundleContext)}
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#isVisibleTo(String)}
+     * </ul>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testActivate_Modified_ShouldStayRestrictedWhileReconfiguring() throws LoginException {
+        final ServiceRegistration<ResourceChangeListener> previous = mock(ServiceRegistration.class);
+        final ServiceRegistration<ResourceChangeListener> next = mock(ServiceRegistration.class);
+        final List<Boolean> visibleWhileReconfiguring = new ArrayList<>();
+        when(config.visibleToGroups()).thenReturn(new String[]{"administrators"});
+        when(config.groupMembershipCacheSize()).thenReturn(10);
+        when(resourceResolverFactory.getServiceResourceResolver(anyMap())).thenThrow(new LoginException("no mapping"));
+        when(bundleContext.registerService(eq(ResourceChangeListener.class), any(ResourceChangeListener.class), any(Dictionary.class)))
+                .thenReturn(previous)
+                .thenAnswer(invocation -> {
+                    visibleWhileReconfiguring.add(aemEnvironmentBadgeConfigService.isVisibleTo("author"));
+                    return next;
+                });
+
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+
+        assertEquals(List.of(false), visibleWhileReconfiguring);
+        assertFalse(aemEnvironmentBadgeConfigService.isVisibleTo("author"));
+        final InOrder inOrder = inOrder(bundleContext, previous);
+        inOrder.verify(bundleContext, times(2)).registerService(eq(ResourceChangeListener.class), any(ResourceChangeListener.class), any(Dictionary.class));
+        inOrder.verify(previous).unregister();
+        verify(next, never()).unregister();
+        aemEnvironmentBadgeConfigService.deactivate();
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServiceImpl#isVisibleTo(String)}
+     */
+    @Test
+    void testIsVisibleTo_ServiceUserMissing_ShouldHideAndRetry() throws LoginException {
+        when(config.visibleToGroups()).thenReturn(new String[]{"administrators"});
+        when(config.groupMembershipCacheSize()).thenReturn(10);
+        when(resourceResolverFactory.getServiceResourceResolver(anyMap())).thenThrow(new LoginException("no mapping"));
+
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+
+        assertFalse(aemEnvironmentBadgeConfigService.isVisibleTo("admin"));
+        assertFalse(aemEnvironmentBadgeConfigService.isVisibleTo("admin"));
+        verify(resourceResolverFactory, times(2)).getServiceResourceResolver(anyMap());
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#activate(AEMEnvironmentBadgeConfigServiceImpl.AEMEnvironmentBadgeConfig, BundleContext)}
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#scheduleRefresh()}
+     *   <li>{@link AEMEnvironmentBadgeConfigServiceImpl#deactivate()}
+     * </ul>
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRepositoryConfiguration_ShouldOverrideAndRefreshDebounced() throws LoginException {
+        final ResourceResolver resourceResolver = mock(ResourceResolver.class);
+        final Resource resource = mock(Resource.class);
+        final Calendar lastModified = Calendar.getInstance();
+        final Map<String, Object> properties = new HashMap<>(Map.of("enableBadge", true, "badgeTitle", "repository",
+                "jcr:lastModified", lastModified));
+        final ServiceRegistration<ResourceChangeListener> registration = mock(ServiceRegistration.class);
+        when(config.enableRepositoryConfiguration()).thenReturn(true);
+        when(config.repositoryConfigurationPath()).thenReturn(CONFIGURATION_PATH);
+        when(config.repositoryConfigurationDebounceMillis()).thenReturn(50L);
+        when(config.badgeTitle()).thenReturn("osgi");
+        when(config.badgeBackgroundColor()).thenReturn(BackgroundColor.BLUE.getColor());
+        when(resourceResolverFactory.getServiceResourceResolver(anyMap())).thenReturn(resourceResolver);
+        when(resourceResolver.getResource(CONFIGURATION_PATH)).thenReturn(resource);
+        when(resource.getValueMap()).thenAnswer(invocation -> new ValueMapDecorator(properties));
+        when(bundleContext.registerService(eq(ResourceChangeListener.class), any(ResourceChangeListener.class), any(Dictionary.class)))
+                .thenReturn(registration);
+
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+
+        assertTrue(aemEnvironmentBadgeConfigService.isEnableBadge());
+        assertEquals("repository", aemEnvironmentBadgeConfigService.getBadgeTitle());
+        assertEquals(BackgroundColor.BLUE.getColor(), aemEnvironmentBadgeConfigService.getBadgeBackgroundColor());
+        assertEquals(lastModified.getTimeInMillis(), aemEnvironmentBadgeConfigService.getLastModified());
+        verify(resourceResolverFactory).getServiceResourceResolver(Map.of(ResourceResolverFactory.SUBSERVICE, AEMEnvironmentBadgeConfigServiceImpl.SUBSERVICE_NAME));
+
+        final ArgumentCaptor<ResourceChangeListener> listenerCaptor = ArgumentCaptor.forClass(ResourceChangeListener.class);
+        final ArgumentCaptor<Dictionary<String, Object>> propertiesCaptor = ArgumentCaptor.forClass(Dictionary.class);
+        verify(bundleContext).registerService(eq(ResourceChangeListener.class), listenerCaptor.capture(), propertiesCaptor.capture());
+        assertInstanceOf(ExternalResourceChangeListener.class, listenerCaptor.getValue());
+        assertArrayEquals(new String[]{CONFIGURATION_PATH}, (String[]) propertiesCaptor.getValue().get(ResourceChangeListener.PATHS));
+
+        // A burst of changes results in a single repository read
+        final long revision = aemEnvironmentBadgeConfigService.getRevision();
+        properties.put("badgeTitle", "changed");
+        listenerCaptor.getValue().onChange(Collections.emptyList());
+        listenerCaptor.getValue().onChange(Collections.emptyList());
+        listenerCaptor.getValue().onChange(Collections.emptyList());
+        verify(resourceResolverFactory, timeout(2000).times(2)).getServiceResourceResolver(anyMap());
+        verify(resourceResolver, timeout(2000).times(2)).close();
+        assertEquals("changed", aemEnvironmentBadgeConfigService.getBadgeTitle());
+        assertTrue(aemEnvironmentBadgeConfigService.getRevision() > revision);
+
+        aemEnvironmentBadgeConfigService.deactivate();
+        verify(registration).unregister();
+        aemEnvironmentBadgeConfigService.scheduleRefresh();
+        verify(resourceResolverFactory, after(100).times(2)).getServiceResourceResolver(anyMap());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServiceImpl#activate(AEMEnvironmentBadgeConfigServiceImpl.AEMEnvironmentBadgeConfig, BundleContext)}
+     */
+    @Test
+    void testRepositoryConfiguration_ShouldFallBackToOsgiConfiguration() throws LoginException {
+        when(config.enableRepositoryConfiguration()).thenReturn(true);
+        when(config.repositoryConfigurationPath()).thenReturn(CONFIGURATION_PATH);
+        when(config.badgeTitle()).thenReturn("osgi");
+        when(resourceResolverFactory.getServiceResourceResolver(anyMap())).thenThrow(new LoginException("no mapping"));
+
+        aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+
+        assertEquals("osgi", aemEnvironmentBadgeConfigService.getBadgeTitle());
+        assertEquals(0L, aemEnvironmentBadgeConfigService.getLastModified());
+        aemEnvironmentBadgeConfigService.deactivate();
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServiceImpl#activate(AEMEnvironmentBadgeConfigServiceImpl.AEMEnvironmentBadgeConfig, BundleContext)}
+     */
+    @Test
+    void testActivate_ShouldFlushDispatcherWithoutBlocking() throws IOException, InterruptedException {
+        final BlockingQueue<String> handles = new LinkedBlockingQueue<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/dispatcher/invalidate.cache", exchange -> {
+            try {
+                handles.add(exchange.getRequestHeaders().getFirst(DispatcherFlusher.HEADER_CQ_HANDLE));
+                release.await(5, TimeUnit.SECONDS);
+                exchange.sendResponseHeaders(200, -1);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            when(config.dispatcherFlushEndpoints()).thenReturn(new String[]{
+                    "http://localhost:" + server.getAddress().getPort() + "/dispatcher/invalidate.cache", "relative", " "});
+            when(config.dispatcherFlushHandles()).thenReturn(new String[]{"/bin/config"});
+            when(config.dispatcherFlushMaxAttempts()).thenReturn(1);
+
+            // Activation returns while the endpoint is still processing the flush
+            aemEnvironmentBadgeConfigService.activate(config, bundleContext);
+            assertEquals("/bin/config", handles.poll(5, TimeUnit.SECONDS));
+            release.countDown();
+            assertNull(handles.poll(200, TimeUnit.MILLISECONDS));
+
+            aemEnvironmentBadgeConfigService.deactivate();
+        } finally {
+            server.stop(0);
+        }
+    }
+
 }
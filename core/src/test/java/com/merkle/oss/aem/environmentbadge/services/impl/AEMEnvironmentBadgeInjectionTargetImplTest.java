@@ -0,0 +1,73 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInjectionTarget;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link AEMEnvironmentBadgeInjectionTargetImpl} class.
+ */
+@ExtendWith(MockitoExtension.class)
+class AEMEnvironmentBadgeInjectionTargetImplTest {
+
+    @Mock
+    private AEMEnvironmentBadgeInjectionTargetImpl.AEMEnvironmentBadgeInjectionTargetConfig config;
+
+    @InjectMocks
+    private AEMEnvironmentBadgeInjectionTargetImpl injectionTarget = new AEMEnvironmentBadgeInjectionTargetImpl();
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeInjectionTargetImpl#activate(AEMEnvironmentBadgeInjectionTargetImpl.AEMEnvironmentBadgeInjectionTargetConfig)}
+     */
+    @Test
+    void testActivate() {
+        assertThrows(NullPointerException.class, () -> injectionTarget.activate(null));
+        assertDoesNotThrow(() -> injectionTarget.activate(config));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeInjectionTargetImpl#getPath()}
+     *   <li>{@link AEMEnvironmentBadgeInjectionTargetImpl#getContentType()}
+     *   <li>{@link AEMEnvironmentBadgeInjectionTargetImpl#getAnchor()}
+     * </ul>
+     */
+    @Test
+    void testGetters() {
+        when(config.path()).thenReturn("/crx/explorer/index.jsp");
+        when(config.contentType()).thenReturn("application/xhtml+xml");
+        when(config.anchor()).thenReturn("</body>");
+
+        assertEquals("/crx/explorer/index.jsp", injectionTarget.getPath());
+        assertEquals("application/xhtml+xml", injectionTarget.getContentType());
+        assertEquals("</body>", injectionTarget.getAnchor());
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeInjectionTargetImpl#getPath()}
+     *   <li>{@link AEMEnvironmentBadgeInjectionTargetImpl#getContentType()}
+     *   <li>{@link AEMEnvironmentBadgeInjectionTargetImpl#getAnchor()}
+     * </ul>
+     */
+    @Test
+    void testGetters_NotSet() {
+        when(config.path()).thenReturn(null);
+        when(config.contentType()).thenReturn(StringUtils.SPACE);
+        when(config.anchor()).thenReturn(StringUtils.EMPTY);
+
+        assertEquals(StringUtils.EMPTY, injectionTarget.getPath());
+        assertEquals(AEMEnvironmentBadgeInjectionTarget.DEFAULT_CONTENT_TYPE, injectionTarget.getContentType());
+        assertEquals(AEMEnvironmentBadgeInjectionTarget.DEFAULT_ANCHOR, injectionTarget.getAnchor());
+    }
+
+}
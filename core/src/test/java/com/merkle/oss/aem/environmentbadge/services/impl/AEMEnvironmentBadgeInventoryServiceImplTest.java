@@ -0,0 +1,225 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link AEMEnvironmentBadgeInventoryServiceImpl} class, run against local stub instances.
+ */
+@ExtendWith(MockitoExtension.class)
+class AEMEnvironmentBadgeInventoryServiceImplTest {
+
+    private static final String CONFIG = "{\"enableBadge\":true,\"badgeTitle\":\"DEV\",\"badgeBackgroundColor\":\"blue\"}";
+
+    @Mock
+    private AEMEnvironmentBadgeInventoryServiceImpl.AEMEnvironmentBadgeInventoryConfig config;
+
+    private final AEMEnvironmentBadgeInventoryServiceImpl service = new AEMEnvironmentBadgeInventoryServiceImpl();
+
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        service.deactivate();
+        servers.forEach(server -> server.stop(0));
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts a stub instance answering each request with the given handler.
+     *
+     * @return The base URL of the stub instance.
+     */
+    private String startInstance(final StubHandler handler) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            try {
+                handler.handle(exchange);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        servers.add(server);
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final byte[] encoded = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, encoded.length == 0 ? -1 : encoded.length);
+        exchange.getResponseBody().write(encoded);
+    }
+
+    private void activate(final long cacheTtlSeconds, final int maxConcurrentRequests, final String... instances) {
+        when(config.instances()).thenReturn(instances);
+        when(config.requestTimeoutMillis()).thenReturn(500L);
+        when(config.maxConcurrentRequests()).thenReturn(maxConcurrentRequests);
+        when(config.cacheTtlSeconds()).thenReturn(cacheTtlSeconds);
+        service.activate(config);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> instancesOf(final Map<String, Object> inventory) {
+        return (List<Map<String, Object>>) inventory.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_INSTANCES);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeInventoryServiceImpl#getInventory()}
+     */
+    @Test
+    void testGetInventory_ShouldMergeCurrentAndUnavailableInstances() throws IOException {
+        final AtomicReference<String> path = new AtomicReference<>();
+        final String available = startInstance(exchange -> {
+            path.set(exchange.getRequestURI().getPath());
+            respond(exchange, 200, CONFIG);
+        });
+        final String hanging = startInstance(exchange -> {
+            Thread.sleep(2000L);
+            respond(exchange, 200, CONFIG);
+        });
+        activate(60L, 8, "author=" + available + "/", hanging, " ", "ftp://example.com", "invalid");
+
+        final Map<String, Object> inventory = service.getInventory();
+
+        assertEquals(false, inventory.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_EXPIRED));
+        final List<Map<String, Object>> instances = instancesOf(inventory);
+        assertEquals(2, instances.size());
+        assertEquals(AEMEnvironmentBadgeInventoryServiceImpl.CONFIG_PATH, path.get());
+
+        final Map<String, Object> author = instances.get(0);
+        assertEquals("author", author.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_NAME));
+        assertEquals(available, author.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_URL));
+        assertEquals(AEMEnvironmentBadgeInventoryServiceImpl.STATUS_CURRENT, author.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_STATUS));
+        assertEquals("DEV", ((JsonObject) author.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_CONFIG)).get("badgeTitle").getAsString());
+        assertNotNull(author.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_FETCHED_AT));
+
+        final Map<String, Object> unnamed = instances.get(1);
+        assertEquals(hanging, unnamed.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_NAME));
+        assertEquals(AEMEnvironmentBadgeInventoryServiceImpl.STATUS_UNAVAILABLE, unnamed.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_STATUS));
+        assertEquals("timeout", unnamed.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_ERROR));
+        assertNull(unnamed.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_CONFIG));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeInventoryServiceImpl#getInventory()}
+     */
+    @Test
+    void testGetInventory_ShouldServeCachedInventory() throws IOException {
+        final AtomicInteger requests = new AtomicInteger();
+        final String instance = startInstance(exchange -> {
+            requests.incrementAndGet();
+            respond(exchange, 200, CONFIG);
+        });
+        activate(60L, 8, instance);
+
+        final Map<String, Object> first = service.getInventory();
+        final Map<String, Object> second = service.getInventory();
+
+        assertEquals(1, requests.get());
+        assertEquals(first.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_GENERATED_AT), second.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_GENERATED_AT));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeInventoryServiceImpl#getInventory()}
+     *   <li>{@link AEMEnvironmentBadgeInventoryServiceImpl#refresh()}
+     * </ul>
+     */
+    @Test
+    void testGetInventory_FailingInstance_ShouldReportLastConfigurationAsStale() throws IOException {
+        final AtomicInteger status = new AtomicInteger(200);
+        final String instance = startInstance(exchange -> respond(exchange, status.get(), status.get() == 200 ? CONFIG : ""));
+        activate(0L, 8, instance);
+        final Object fetchedAt = instancesOf(service.getInventory()).get(0).get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_FETCHED_AT);
+
+        status.set(500);
+        service.refresh().join();
+        final Map<String, Object> inventory = service.getInventory();
+
+        assertEquals(true, inventory.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_EXPIRED));
+        final Map<String, Object> entry = instancesOf(inventory).get(0);
+        assertEquals(AEMEnvironmentBadgeInventoryServiceImpl.STATUS_STALE, entry.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_STATUS));
+        assertEquals("status 500", entry.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_ERROR));
+        assertEquals(fetchedAt, entry.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_FETCHED_AT));
+        assertNotNull(entry.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_CONFIG));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeInventoryServiceImpl#refresh()}
+     */
+    @Test
+    void testRefresh_ShouldLimitConcurrentRequests() throws IOException {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final String instance = startInstance(exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(100L);
+            inFlight.decrementAndGet();
+            respond(exchange, 200, CONFIG);
+        });
+        activate(60L, 2, instance + "/a", instance + "/b", instance + "/c", instance + "/d", instance + "/e", instance + "/f");
+
+        final AEMEnvironmentBadgeInventoryServiceImpl.Inventory inventory = service.refresh().join();
+
+        assertEquals(6, inventory.entries().size());
+        inventory.entries().forEach(entry ->
+                assertEquals(AEMEnvironmentBadgeInventoryServiceImpl.STATUS_CURRENT, entry.get(AEMEnvironmentBadgeInventoryServiceImpl.KEY_STATUS)));
+        assertEquals(2, maxInFlight.get());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeInventoryServiceImpl#getInventory()}
+     */
+    @Test
+    void testGetInventory_ShouldSendAuthorization() throws IOException {
+        final AtomicReference<String> authorization = new AtomicReference<>();
+        final String instance = startInstance(exchange -> {
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            respond(exchange, 200, CONFIG);
+        });
+        when(config.authorization()).thenReturn("Bearer token");
+        activate(60L, 8, instance);
+
+        service.getInventory();
+
+        assertEquals("Bearer token", authorization.get());
+    }
+
+    /**
+     * Functional interface of the stub instance handlers.
+     */
+    @FunctionalInterface
+    private interface StubHandler {
+
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link AEMEnvironmentBadgeMetricsServiceImpl} class.
+ */
+class AEMEnvironmentBadgeMetricsServiceImplTest {
+
+    private final AEMEnvironmentBadgeMetricsServiceImpl metricsService = new AEMEnvironmentBadgeMetricsServiceImpl();
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeMetricsServiceImpl#record(String, long)}
+     *   <li>{@link AEMEnvironmentBadgeMetricsServiceImpl#getSnapshot()}
+     * </ul>
+     */
+    @Test
+    void testRecordAndGetSnapshot() {
+        assertThrows(NullPointerException.class, () -> metricsService.record(null, 1L));
+        assertTrue(metricsService.getSnapshot().isEmpty());
+
+        metricsService.record("b", 10L);
+        metricsService.record("a", 20L);
+        metricsService.record("a", 30L);
+
+        final Map<String, Map<String, Object>> snapshot = metricsService.getSnapshot();
+        assertEquals(List.of("a", "b"), List.copyOf(snapshot.keySet()));
+        assertEquals(2L, snapshot.get("a").get("count"));
+        assertEquals(30L, snapshot.get("a").get("max"));
+        assertEquals(1L, snapshot.get("b").get("count"));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeMetricsServiceImpl#record(String, long)}
+     */
+    @Test
+    void testRecord_whenMaxMetricsReached_thenDropNewMetrics() {
+        IntStream.range(0, AEMEnvironmentBadgeMetricsServiceImpl.MAX_METRICS + 10)
+                .forEach(i -> metricsService.record("metric-" + i, i));
+
+        assertEquals(AEMEnvironmentBadgeMetricsServiceImpl.MAX_METRICS, metricsService.getSnapshot().size());
+
+        // Already known metrics are still recorded
+        metricsService.record("metric-0", 5L);
+        assertEquals(2L, metricsService.getSnapshot().get("metric-0").get("count"));
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.merkle.oss.aem.environmentbadge.models.PerformanceStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link AEMEnvironmentBadgeStatisticsServiceImpl} class.
+ */
+class AEMEnvironmentBadgeStatisticsServiceImplTest {
+
+    private final AEMEnvironmentBadgeStatisticsServiceImpl statisticsService = new AEMEnvironmentBadgeStatisticsServiceImpl();
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeStatisticsServiceImpl#recordInjection(long, long)}
+     *   <li>{@link AEMEnvironmentBadgeStatisticsServiceImpl#recordShadowInjection(long, long)}
+     *   <li>{@link AEMEnvironmentBadgeStatisticsServiceImpl#recordConfigRequest(boolean)}
+     *   <li>{@link AEMEnvironmentBadgeStatisticsServiceImpl#getStatistics()}
+     * </ul>
+     */
+    @Test
+    void testRecordAndGetStatistics() {
+        assertEquals(PerformanceStatistics.EMPTY, statisticsService.getStatistics());
+        assertEquals(0.0d, statisticsService.getStatistics().configErrorRate());
+
+        IntStream.range(0, 99).forEach(i -> statisticsService.recordInjection(10_000L, 1000L));
+        statisticsService.recordInjection(5_000_000L, 500_000L);
+        IntStream.range(0, 10).forEach(i -> statisticsService.recordShadowInjection(50_000_000L, 5_000_000L));
+        IntStream.range(0, 3).forEach(i -> statisticsService.recordConfigRequest(false));
+        statisticsService.recordConfigRequest(true);
+
+        final PerformanceStatistics statistics = statisticsService.getStatistics();
+        assertEquals(100L, statistics.injections());
+        // 10 µs fall into the bucket [8, 15]
+        assertEquals(15L, statistics.injectionTimeP99Micros());
+        assertEquals(1023L, statistics.bytesBufferedP99());
+        assertEquals(500_000L, statistics.bytesBufferedMax());
+        assertEquals(4L, statistics.configRequests());
+        assertEquals(1L, statistics.configFailures());
+        assertEquals(0.25d, statistics.configErrorRate());
+        assertEquals(10L, statistics.shadowInjections());
+        assertTrue(statistics.shadowInjectionTimeP99Micros() >= 50_000L);
+        assertTrue(statistics.shadowBytesBufferedP99() >= 5_000_000L);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeStatisticsServiceImpl#activate(AEMEnvironmentBadgeStatisticsServiceImpl.AEMEnvironmentBadgeStatisticsConfig)}
+     */
+    @Test
+    void testActivate_shouldDiscardStatistics() {
+        assertThrows(NullPointerException.class, () -> statisticsService.activate(null));
+        statisticsService.recordConfigRequest(true);
+
+        final AEMEnvironmentBadgeStatisticsServiceImpl.AEMEnvironmentBadgeStatisticsConfig config =
+                mock(AEMEnvironmentBadgeStatisticsServiceImpl.AEMEnvironmentBadgeStatisticsConfig.class);
+        when(config.windowSeconds()).thenReturn(60L);
+        statisticsService.activate(config);
+
+        assertEquals(PerformanceStatistics.EMPTY, statisticsService.getStatistics());
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInjectionTarget;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link CRXDEInjectionTargetImpl} class.
+ */
+class CRXDEInjectionTargetImplTest {
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link CRXDEInjectionTargetImpl#getPath()}
+     *   <li>{@link CRXDEInjectionTargetImpl#getContentType()}
+     *   <li>{@link CRXDEInjectionTargetImpl#getAnchor()}
+     * </ul>
+     */
+    @Test
+    void testGetters() {
+        final CRXDEInjectionTargetImpl injectionTarget = new CRXDEInjectionTargetImpl();
+
+        assertEquals("/crx/de/index.jsp", injectionTarget.getPath());
+        assertEquals(AEMEnvironmentBadgeInjectionTarget.DEFAULT_CONTENT_TYPE, injectionTarget.getContentType());
+        assertEquals(AEMEnvironmentBadgeInjectionTarget.DEFAULT_ANCHOR, injectionTarget.getAnchor());
+    }
+
+}
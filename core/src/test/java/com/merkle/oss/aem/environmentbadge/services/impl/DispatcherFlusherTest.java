@@ -0,0 +1,184 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link DispatcherFlusher} class, run against a local stub of a dispatcher flush endpoint.
+ */
+class DispatcherFlusherTest {
+
+    private static final String HANDLE = "/bin/com/merkle/oss/aem/environment-badge/config";
+
+    private final BlockingQueue<Headers> requests = new LinkedBlockingQueue<>();
+
+    private volatile IntSupplier status = () -> 200;
+
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private HttpServer server;
+
+    private URI endpoint;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/dispatcher/invalidate.cache", exchange -> {
+            try {
+                requests.add(exchange.getRequestHeaders());
+                release.await(5, TimeUnit.SECONDS);
+                exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(status.getAsInt(), -1);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        endpoint = URI.create("http://localhost:" + server.getAddress().getPort() + "/dispatcher/invalidate.cache");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Method under test: {@link DispatcherFlusher#requestFlush()}
+     */
+    @Test
+    void testRequestFlush_ShouldSendInvalidationRequest() throws InterruptedException {
+        try (DispatcherFlusher flusher = new DispatcherFlusher(List.of(endpoint), List.of(HANDLE), 3, 10L)) {
+            flusher.requestFlush();
+
+            final Headers headers = requests.poll(5, TimeUnit.SECONDS);
+            assertNotNull(headers);
+            assertEquals(DispatcherFlusher.ACTION_ACTIVATE, headers.getFirst(DispatcherFlusher.HEADER_CQ_ACTION));
+            assertEquals(HANDLE, headers.getFirst(DispatcherFlusher.HEADER_CQ_HANDLE));
+            assertEquals(HANDLE, headers.getFirst(DispatcherFlusher.HEADER_CQ_PATH));
+            assertNull(requests.poll(200, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Method under test: {@link DispatcherFlusher#requestFlush()}
+     */
+    @Test
+    void testRequestFlush_ShouldCoalesceRequestsWhilePending() throws InterruptedException {
+        release = new CountDownLatch(1);
+        try (DispatcherFlusher flusher = new DispatcherFlusher(List.of(endpoint), List.of(HANDLE), 1, 10L)) {
+            flusher.requestFlush();
+            assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+
+            // Requested while the first flush is in flight, coalesced into a single follow-up flush
+            for (int i = 0; i < 10; i++) {
+                flusher.requestFlush();
+            }
+            release.countDown();
+
+            assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+            assertNull(requests.poll(200, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Method under test: {@link DispatcherFlusher#requestFlush()}
+     */
+    @Test
+    void testRequestFlush_ShouldRetryFailedRequests() throws InterruptedException {
+        final AtomicInteger attempts = new AtomicInteger();
+        status = () -> attempts.incrementAndGet() < 3 ? 503 : 200;
+        try (DispatcherFlusher flusher = new DispatcherFlusher(List.of(endpoint), List.of(HANDLE), 5, 10L)) {
+            flusher.requestFlush();
+
+            for (int i = 0; i < 3; i++) {
+                assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+            }
+            assertNull(requests.poll(200, TimeUnit.MILLISECONDS));
+            assertEquals(3, attempts.get());
+        }
+    }
+
+    /**
+     * Method under test: {@link DispatcherFlusher#requestFlush()}
+     */
+    @Test
+    void testRequestFlush_ShouldGiveUpAfterMaxAttempts() throws InterruptedException {
+        status = () -> 500;
+        try (DispatcherFlusher flusher = new DispatcherFlusher(List.of(endpoint), List.of(HANDLE), 2, 10L)) {
+            flusher.requestFlush();
+
+            assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+            assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+            assertNull(requests.poll(200, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link DispatcherFlusher#requestFlush()}
+     *   <li>{@link DispatcherFlusher#close()}
+     * </ul>
+     */
+    @Test
+    void testRequestFlush_ShouldNotBlockAndIgnoreAfterClose() throws InterruptedException {
+        release = new CountDownLatch(1);
+        final DispatcherFlusher flusher = new DispatcherFlusher(List.of(endpoint), List.of(HANDLE), 1, 10L);
+
+        final long start = System.nanoTime();
+        flusher.requestFlush();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000L);
+        assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+
+        flusher.close();
+        release.countDown();
+        assertDoesNotThrow(flusher::requestFlush);
+        assertNull(requests.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link DispatcherFlusher#close()}
+     *   <li>{@link DispatcherFlusher#awaitTermination(Duration)}
+     * </ul>
+     */
+    @Test
+    void testClose_ShouldCompleteRequestInFlightAndCancelRetries() throws InterruptedException {
+        release = new CountDownLatch(1);
+        status = () -> 503;
+        final DispatcherFlusher flusher = new DispatcherFlusher(List.of(endpoint), List.of(HANDLE), 5, 10L);
+        flusher.requestFlush();
+        assertNotNull(requests.poll(5, TimeUnit.SECONDS));
+
+        final long start = System.nanoTime();
+        flusher.close();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000L);
+        assertFalse(flusher.awaitTermination(Duration.ofMillis(100L)));
+
+        release.countDown();
+        assertTrue(flusher.awaitTermination(Duration.ofSeconds(5L)));
+        assertNull(requests.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+}
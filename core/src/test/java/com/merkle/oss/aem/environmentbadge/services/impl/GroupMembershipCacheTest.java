@@ -0,0 +1,109 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link GroupMembershipCache} class.
+ */
+class GroupMembershipCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final Map<String, Integer> resolutions = new HashMap<>();
+
+    private final Map<String, Boolean> members = new HashMap<>(Map.of("admin", true, "author", false));
+
+    private Boolean resolve(final String userId) {
+        resolutions.merge(userId, 1, Integer::sum);
+        return members.get(userId);
+    }
+
+    private GroupMembershipCache cache(final int maxSize) {
+        return new GroupMembershipCache(this::resolve, Duration.ofSeconds(10L), maxSize, clock::get);
+    }
+
+    /**
+     * Method under test: {@link GroupMembershipCache#isMember(String)}
+     */
+    @Test
+    void testIsMember_ShouldResolveOncePerTimeToLive() {
+        final GroupMembershipCache cache = cache(10);
+
+        assertTrue(cache.isMember("admin"));
+        assertFalse(cache.isMember("author"));
+        clock.addAndGet(Duration.ofSeconds(9L).toNanos());
+        assertTrue(cache.isMember("admin"));
+        assertFalse(cache.isMember("author"));
+        assertEquals(Map.of("admin", 1, "author", 1), resolutions);
+
+        clock.addAndGet(Duration.ofSeconds(1L).toNanos());
+        assertTrue(cache.isMember("admin"));
+        assertEquals(2, resolutions.get("admin"));
+    }
+
+    /**
+     * Method under test: {@link GroupMembershipCache#isMember(String)}
+     */
+    @Test
+    void testIsMember_Unresolved_ShouldNotBeCached() {
+        final GroupMembershipCache cache = cache(10);
+
+        assertFalse(cache.isMember("unknown"));
+        assertFalse(cache.isMember("unknown"));
+
+        assertEquals(2, resolutions.get("unknown"));
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Method under test: {@link GroupMembershipCache#isMember(String)}
+     */
+    @Test
+    void testIsMember_ShouldBeBounded() {
+        final GroupMembershipCache cache = cache(2);
+        members.put("editor", true);
+
+        cache.isMember("admin");
+        cache.isMember("author");
+        cache.isMember("editor");
+        assertEquals(2, cache.size());
+
+        // Expired memberships are evicted first
+        clock.addAndGet(Duration.ofSeconds(10L).toNanos());
+        members.put("reviewer", false);
+        cache.isMember("reviewer");
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Method under test: {@link GroupMembershipCache#invalidate()}
+     */
+    @Test
+    void testInvalidate_ShouldDiscardResolvedAndResolvingMemberships() {
+        final GroupMembershipCache[] cache = new GroupMembershipCache[1];
+        cache[0] = new GroupMembershipCache(userId -> {
+            // A group changes while the membership is being resolved
+            cache[0].invalidate();
+            return resolve(userId);
+        }, Duration.ofSeconds(10L), 10, clock::get);
+
+        assertTrue(cache[0].isMember("admin"));
+        assertTrue(cache[0].isMember("admin"));
+        assertEquals(2, resolutions.get("admin"));
+
+        final GroupMembershipCache plain = cache(10);
+        plain.isMember("admin");
+        members.put("admin", false);
+        plain.invalidate();
+        assertEquals(0, plain.size());
+        assertFalse(plain.isMember("admin"));
+    }
+
+}
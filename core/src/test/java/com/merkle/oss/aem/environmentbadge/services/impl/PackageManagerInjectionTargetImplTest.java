@@ -0,0 +1,30 @@
+package com.merkle.oss.aem.environmentbadge.services.impl;
+
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInjectionTarget;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for the {@link PackageManagerInjectionTargetImpl} class.
+ */
+class PackageManagerInjectionTargetImplTest {
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link PackageManagerInjectionTargetImpl#getPath()}
+     *   <li>{@link PackageManagerInjectionTargetImpl#getContentType()}
+     *   <li>{@link PackageManagerInjectionTargetImpl#getAnchor()}
+     * </ul>
+     */
+    @Test
+    void testGetters() {
+        final PackageManagerInjectionTargetImpl injectionTarget = new PackageManagerInjectionTargetImpl();
+
+        assertEquals("/crx/packmgr/index.jsp", injectionTarget.getPath());
+        assertEquals(AEMEnvironmentBadgeInjectionTarget.DEFAULT_CONTENT_TYPE, injectionTarget.getContentType());
+        assertEquals(AEMEnvironmentBadgeInjectionTarget.DEFAULT_ANCHOR, injectionTarget.getAnchor());
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.merkle.oss.aem.environmentbadge.servlets;
+
+import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
+import com.merkle.oss.aem.environmentbadge.models.BadgeAssets;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.services.impl.AEMEnvironmentBadgeConfigServiceImpl;
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link AEMEnvironmentBadgeAssetServlet} class.
+ */
+@ExtendWith(AemContextExtension.class)
+class AEMEnvironmentBadgeAssetServletTest {
+
+    private final AEMEnvironmentBadgeAssetServlet fixture = new AEMEnvironmentBadgeAssetServlet();
+
+    private static void injectField(final Object target, final String fieldName, final Object value) {
+        try {
+            final Field f = target.getClass().getDeclaredField(fieldName);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot inject field '" + fieldName + "' on " + target.getClass().getName(), e);
+        }
+    }
+
+    private AEMEnvironmentBadgeConfigService registerConfigService(final AemContext context, final boolean enableBadge) {
+        final AEMEnvironmentBadgeConfigService service = context.registerInjectActivateService(new AEMEnvironmentBadgeConfigServiceImpl(),
+                Map.of("enableDocumentTitlePrefix", true, "documentTitlePrefix", "DEV",
+                        "enableBadge", enableBadge, "badgeBackgroundColor", BackgroundColor.FUCHSIA.getColor()));
+        injectField(fixture, "aemEnvironmentBadgeConfigService", service);
+        return service;
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeAssetServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_null(final AemContext context) {
+        assertThrows(NullPointerException.class, () -> fixture.doGet(null, context.response()));
+        assertThrows(NullPointerException.class, () -> fixture.doGet(context.request(), null));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeAssetServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_versionedScript_shouldBeImmutable(final AemContext context) throws IOException {
+        final BadgeAssets.Asset script = BadgeAssets.of(registerConfigService(context, true), 0L).script();
+
+        context.requestPathInfo().setSelectorString(script.hash());
+        context.requestPathInfo().setExtension(BadgeAssets.SCRIPT_EXTENSION);
+        fixture.doGet(context.request(), context.response());
+
+        final MockSlingHttpServletResponse response = context.response();
+        assertEquals(HttpStatus.SC_OK, response.getStatus());
+        assertTrue(response.getContentType().startsWith("text/javascript"), response.getContentType());
+        assertEquals(AEMEnvironmentBadgeConfigServlet.IMMUTABLE_CACHE_CONTROL, response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(script.entityTag(), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(script.content(), response.getOutputAsString());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeAssetServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_outdatedStyle_shouldServeCurrentStyleUncached(final AemContext context) throws IOException {
+        final BadgeAssets.Asset style = BadgeAssets.of(registerConfigService(context, true), 0L).style();
+
+        context.requestPathInfo().setSelectorString("0000000000000000");
+        context.requestPathInfo().setExtension(BadgeAssets.STYLE_EXTENSION);
+        fixture.doGet(context.request(), context.response());
+
+        final MockSlingHttpServletResponse response = context.response();
+        assertEquals(HttpStatus.SC_OK, response.getStatus());
+        assertTrue(response.getContentType().startsWith("text/css"), response.getContentType());
+        assertEquals(AEMEnvironmentBadgeConfigServlet.REVALIDATE_CACHE_CONTROL, response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(style.location(), response.getHeader(HttpHeaders.CONTENT_LOCATION));
+        assertEquals(style.content(), response.getOutputAsString());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeAssetServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_matchingEntityTag_shouldNotBeModified(final AemContext context) throws IOException {
+        final BadgeAssets.Asset script = BadgeAssets.of(registerConfigService(context, true), 0L).script();
+
+        context.requestPathInfo().setExtension(BadgeAssets.SCRIPT_EXTENSION);
+        context.request().addHeader(HttpHeaders.IF_NONE_MATCH, script.entityTag());
+        fixture.doGet(context.request(), context.response());
+
+        assertEquals(HttpStatus.SC_NOT_MODIFIED, context.response().getStatus());
+        assertEquals(0, context.response().getOutput().length);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeAssetServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_disabledFeature_shouldNotBeFound(final AemContext context) throws IOException {
+        registerConfigService(context, false);
+
+        context.requestPathInfo().setExtension(BadgeAssets.STYLE_EXTENSION);
+        fixture.doGet(context.request(), context.response());
+
+        assertEquals(HttpStatus.SC_NOT_FOUND, context.response().getStatus());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeAssetServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_missingConfigurationOrUnknownSelectors_shouldNotBeFound(final AemContext context) throws IOException {
+        context.requestPathInfo().setExtension(BadgeAssets.SCRIPT_EXTENSION);
+        fixture.doGet(context.request(), context.response());
+        assertEquals(HttpStatus.SC_NOT_FOUND, context.response().getStatus());
+
+        registerConfigService(context, true);
+        context.requestPathInfo().setSelectorString("a.b");
+        final MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        fixture.doGet(context.request(), response);
+        assertEquals(HttpStatus.SC_NOT_FOUND, response.getStatus());
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.merkle.oss.aem.environmentbadge.servlets;
+
+import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.testing.AllocationMeter;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.request.RequestPathInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * Allocation regression tests for the {@link AEMEnvironmentBadgeConfigServlet} class, failing if a change
+ * brings back the per-request serialization of the configuration.
+ */
+class AEMEnvironmentBadgeConfigServletAllocationTest {
+
+    /**
+     * Budget per request, covering the response headers but no serialization or hashing of the configuration.
+     */
+    private static final long BUDGET = 2 * 1024;
+
+    private final AEMEnvironmentBadgeConfigServlet fixture = new AEMEnvironmentBadgeConfigServlet();
+
+    private final SlingHttpServletRequest request = AllocationMeter.fake(SlingHttpServletRequest.class, Map.of(
+            "getRequestPathInfo", AllocationMeter.fake(RequestPathInfo.class, Map.of("getSelectors", new String[0]))
+    ));
+
+    private final SlingHttpServletResponse response = AllocationMeter.fake(SlingHttpServletResponse.class, Map.of(
+            "getWriter", new PrintWriter(Writer.nullWriter())
+    ));
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        final AEMEnvironmentBadgeConfigService configService = AllocationMeter.fake(AEMEnvironmentBadgeConfigService.class, Map.of(
+                "isEnableDocumentTitlePrefix", true,
+                "getDocumentTitlePrefix", "prefix",
+                "isEnableBadge", true,
+                "getBadgeTitle", "title",
+                "getBadgeBackgroundColor", BackgroundColor.BLUE.getColor(),
+                "getRevision", 1L,
+                "isVisibleTo", true
+        ));
+        final Field field = AEMEnvironmentBadgeConfigServlet.class.getDeclaredField("aemEnvironmentBadgeConfigService");
+        field.setAccessible(true);
+        field.set(fixture, configService);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}
+     */
+    @Test
+    void doGet_ShouldStayWithinAllocationBudget() throws Exception {
+        final long allocated = AllocationMeter.bytesPerInvocation(() -> fixture.doGet(request, response));
+
+        AllocationMeter.assertWithinBudget(BUDGET, 0, 0, allocated);
+    }
+
+}
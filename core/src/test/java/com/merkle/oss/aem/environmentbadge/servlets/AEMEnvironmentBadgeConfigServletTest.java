@@ -5,23 +5,41 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import com.merkle.oss.aem.environmentbadge.constants.BackgroundColor;
 import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeConfigService;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeStatisticsService;
 import com.merkle.oss.aem.environmentbadge.services.impl.AEMEnvironmentBadgeConfigServiceImpl;
+import com.merkle.oss.aem.environmentbadge.utils.ServerTiming;
 import io.wcm.testing.mock.aem.junit5.AemContext;
 import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
 import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for the {@link AEMEnvironmentBadgeConfigServlet} class.
@@ -125,4 +143,213 @@ class AEMEnvironmentBadgeConfigServletTest {
         assertJsonEquals(expectedJson, response.getOutputAsString());
     }
 
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet@doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_unversioned_shouldAnnounceVersionedLocation(final AemContext context) throws IOException {
+        registerConfigService(context, "title");
+
+        fixture.doGet(context.request(), context.response());
+
+        final MockSlingHttpServletResponse response = context.response();
+        final String location = response.getHeader(HttpHeaders.CONTENT_LOCATION);
+        assertEquals(HttpStatus.SC_OK, response.getStatus());
+        assertEquals(AEMEnvironmentBadgeConfigServlet.REVALIDATE_CACHE_CONTROL, response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertTrue(location.matches(AEMEnvironmentBadgeConfigServlet.SERVLET_PATH + "\\.[0-9a-f]{16}\\.json"), location);
+        assertEquals("\"" + hashOf(location) + "\"", response.getHeader(HttpHeaders.ETAG));
+        final String nodeTokens = context.getService(AEMEnvironmentBadgeConfigService.class).getNodeTokens();
+        assertFalse(nodeTokens.isEmpty());
+        assertEquals(nodeTokens, response.getHeader(AEMEnvironmentBadgeConfigServlet.NODE_TOKENS_HEADER));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet@doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_versioned_shouldBeImmutable(final AemContext context) throws IOException {
+        registerConfigService(context, "title");
+        final String hash = hashOf(requestLocation(context));
+
+        context.requestPathInfo().setSelectorString(hash);
+        final MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        fixture.doGet(context.request(), response);
+
+        assertEquals(HttpStatus.SC_OK, response.getStatus());
+        assertEquals("private, max-age=31536000, immutable", response.getHeader(HttpHeaders.CACHE_CONTROL));
+        // Identical on all cluster nodes, so no node specific header
+        assertNull(response.getHeader(AEMEnvironmentBadgeConfigServlet.NODE_TOKENS_HEADER));
+        assertJsonEquals("{\"enableDocumentTitlePrefix\":false,\"documentTitlePrefix\":\"\",\"enableBadge\":true,"
+                + "\"badgeTitle\":\"title\",\"badgeBackgroundColor\":\"" + BackgroundColor.FUCHSIA.getColor() + "\"}", response.getOutputAsString());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet@doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_outdatedVersion_shouldServeCurrentConfigurationUncached(final AemContext context) throws IOException {
+        registerConfigService(context, "title");
+        final String location = requestLocation(context);
+
+        context.requestPathInfo().setSelectorString("0000000000000000");
+        final MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        fixture.doGet(context.request(), response);
+
+        assertEquals(HttpStatus.SC_OK, response.getStatus());
+        assertEquals(AEMEnvironmentBadgeConfigServlet.REVALIDATE_CACHE_CONTROL, response.getHeader(HttpHeaders.CACHE_CONTROL));
+        assertEquals(location, response.getHeader(HttpHeaders.CONTENT_LOCATION));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet@doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_unknownSelectors_shouldNotBeFound(final AemContext context) throws IOException {
+        context.requestPathInfo().setSelectorString("a.b");
+
+        fixture.doGet(context.request(), context.response());
+
+        assertEquals(HttpStatus.SC_NOT_FOUND, context.response().getStatus());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet@doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_matchingEntityTag_shouldNotBeModified(final AemContext context) throws IOException {
+        registerConfigService(context, "title");
+        final String entityTag = "\"" + hashOf(requestLocation(context)) + "\"";
+
+        context.request().addHeader(HttpHeaders.IF_NONE_MATCH, entityTag);
+        final MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        fixture.doGet(context.request(), response);
+
+        assertEquals(HttpStatus.SC_NOT_MODIFIED, response.getStatus());
+        assertEquals(0, response.getOutput().length);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet@doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_hash_shouldDependOnContentOnly(final AemContext context) throws IOException {
+        registerConfigService(context, "title");
+        final String location = requestLocation(context);
+
+        // A new revision of the same content keeps the hash
+        registerConfigService(context, "title");
+        assertEquals(location, requestLocation(context));
+
+        registerConfigService(context, "changed");
+        assertNotEquals(location, requestLocation(context));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet@doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_serverTiming_shouldReportServeTimeOnlyIfEnabled(final AemContext context) throws IOException {
+        registerConfigService(context, "title");
+        fixture.doGet(context.request(), context.response());
+        assertNull(context.response().getHeader(ServerTiming.HEADER));
+
+        final AEMEnvironmentBadgeConfigService service = context.registerInjectActivateService(new AEMEnvironmentBadgeConfigServiceImpl(),
+                Map.of("enableBadge", true, "badgeTitle", "title", "enableServerTiming", true));
+        injectField(fixture, "aemEnvironmentBadgeConfigService", service);
+        final MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        fixture.doGet(context.request(), response);
+
+        final String serverTiming = response.getHeader(ServerTiming.HEADER);
+        assertTrue(serverTiming.matches(AEMEnvironmentBadgeConfigServlet.METRIC_SERVE + ";dur=\\d+\\.\\d+;desc=\"" + response.getOutput().length + " bytes\""), serverTiming);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet@doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_statisticsAvailable_shouldRecordRequestsAndFailures(final AemContext context) throws IOException {
+        final AEMEnvironmentBadgeStatisticsService statistics = mock(AEMEnvironmentBadgeStatisticsService.class);
+        injectField(fixture, "aemEnvironmentBadgeStatisticsService", statistics);
+        registerConfigService(context, "title");
+
+        fixture.doGet(context.request(), context.response());
+        verify(statistics).recordConfigRequest(false);
+
+        final AEMEnvironmentBadgeConfigService service = mock(AEMEnvironmentBadgeConfigService.class);
+        when(service.isVisibleTo(null)).thenReturn(true);
+        when(service.getRevision()).thenThrow(new IllegalStateException("unavailable"));
+        injectField(fixture, "aemEnvironmentBadgeConfigService", service);
+
+        assertThrows(IllegalStateException.class, () -> fixture.doGet(context.request(), new MockSlingHttpServletResponse()));
+        verify(statistics).recordConfigRequest(true);
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeConfigServlet@doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_notVisibleToUser_shouldServeEmptyConfiguration(final AemContext context) throws IOException {
+        final AEMEnvironmentBadgeConfigService service = mock(AEMEnvironmentBadgeConfigService.class);
+        when(service.isEnableBadge()).thenReturn(true);
+        when(service.getBadgeTitle()).thenReturn("title");
+        when(service.getBadgeBackgroundColor()).thenReturn(BackgroundColor.FUCHSIA.getColor());
+        when(service.isVisibleTo("admin")).thenReturn(true);
+        injectField(fixture, "aemEnvironmentBadgeConfigService", service);
+
+        context.request().setRemoteUser("author");
+        fixture.doGet(context.request(), context.response());
+        assertJsonEquals("{}", context.response().getOutputAsString());
+
+        final MockSlingHttpServletRequest adminRequest = new MockSlingHttpServletRequest(context.resourceResolver(), context.bundleContext());
+        adminRequest.setRemoteUser("admin");
+        final MockSlingHttpServletResponse adminResponse = new MockSlingHttpServletResponse();
+        fixture.doGet(adminRequest, adminResponse);
+        assertTrue(adminResponse.getOutputAsString().contains("\"badgeTitle\":\"title\""));
+        assertNotEquals(context.response().getHeader(HttpHeaders.CONTENT_LOCATION), adminResponse.getHeader(HttpHeaders.CONTENT_LOCATION));
+    }
+
+    /**
+     * Tests that an enabled {@link ConfigServingEvent} describes the served request.
+     */
+    @Test
+    void doGet_eventEnabled_shouldRecordRequest(final AemContext context, @TempDir final Path tempDir) throws IOException {
+        registerConfigService(context, "title");
+        final String hash = hashOf(requestLocation(context));
+        context.requestPathInfo().setSelectorString(hash);
+
+        final Path recordingFile = tempDir.resolve("config.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ConfigServingEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            fixture.doGet(context.request(), context.response());
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile).stream()
+                .filter(event -> event.getEventType().getName().equals(ConfigServingEvent.NAME))
+                .toList();
+        assertEquals(1, events.size());
+        final RecordedEvent event = events.get(0);
+        assertTrue(event.getBoolean("versioned"));
+        assertEquals(HttpStatus.SC_OK, event.getInt("status"));
+        assertEquals(context.response().getOutput().length, event.getLong("bytesWritten"));
+    }
+
+    private void registerConfigService(final AemContext context, final String badgeTitle) {
+        final AEMEnvironmentBadgeConfigService service = context.registerInjectActivateService(new AEMEnvironmentBadgeConfigServiceImpl(),
+                Map.of("enableBadge", true, "badgeTitle", badgeTitle, "badgeBackgroundColor", BackgroundColor.FUCHSIA.getColor()));
+        injectField(fixture, "aemEnvironmentBadgeConfigService", service);
+    }
+
+    private String requestLocation(final AemContext context) throws IOException {
+        final MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        fixture.doGet(new MockSlingHttpServletRequest(context.resourceResolver(), context.bundleContext()), response);
+        return response.getHeader(HttpHeaders.CONTENT_LOCATION);
+    }
+
+    private static String hashOf(final String location) {
+        return location.substring(AEMEnvironmentBadgeConfigServlet.SERVLET_PATH.length() + 1, location.lastIndexOf('.'));
+    }
+
 }
@@ -0,0 +1,69 @@
+package com.merkle.oss.aem.environmentbadge.servlets;
+
+import com.google.gson.JsonParser;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeInventoryService;
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+import org.apache.http.HttpStatus;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the {@link AEMEnvironmentBadgeInventoryServlet} class.
+ */
+@ExtendWith(AemContextExtension.class)
+class AEMEnvironmentBadgeInventoryServletTest {
+
+    private final AEMEnvironmentBadgeInventoryServlet fixture = new AEMEnvironmentBadgeInventoryServlet();
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeInventoryServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_null(final AemContext context) {
+        assertThrows(NullPointerException.class, () -> fixture.doGet(null, context.response()));
+        assertThrows(NullPointerException.class, () -> fixture.doGet(context.request(), null));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeInventoryServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_notConfigured_shouldReturnEmptyObject(final AemContext context) throws IOException {
+        fixture.doGet(context.request(), context.response());
+
+        assertEquals(HttpStatus.SC_OK, context.response().getStatus());
+        assertEquals(JsonParser.parseString("{}"), JsonParser.parseString(context.response().getOutputAsString()));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeInventoryServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}.
+     */
+    @Test
+    void doGet_configured_shouldReturnInventory(final AemContext context) throws Exception {
+        final AEMEnvironmentBadgeInventoryService service = mock(AEMEnvironmentBadgeInventoryService.class);
+        when(service.getInventory()).thenReturn(Map.of("instances", List.of(Map.of("name", "author", "status", "current"))));
+        final Field field = AEMEnvironmentBadgeInventoryServlet.class.getDeclaredField("aemEnvironmentBadgeInventoryService");
+        field.setAccessible(true);
+        field.set(fixture, service);
+
+        fixture.doGet(context.request(), context.response());
+
+        assertEquals(HttpStatus.SC_OK, context.response().getStatus());
+        assertEquals(JsonParser.parseString("{\"instances\":[{\"name\":\"author\",\"status\":\"current\"}]}"),
+                JsonParser.parseString(context.response().getOutputAsString()));
+    }
+
+}
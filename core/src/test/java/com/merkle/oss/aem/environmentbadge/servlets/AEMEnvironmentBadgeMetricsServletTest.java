@@ -0,0 +1,150 @@
+package com.merkle.oss.aem.environmentbadge.servlets;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.merkle.oss.aem.environmentbadge.services.AEMEnvironmentBadgeMetricsService;
+import com.merkle.oss.aem.environmentbadge.services.impl.AEMEnvironmentBadgeMetricsServiceImpl;
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+import org.apache.http.HttpStatus;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link AEMEnvironmentBadgeMetricsServlet} class.
+ */
+@ExtendWith(AemContextExtension.class)
+class AEMEnvironmentBadgeMetricsServletTest {
+
+    private static final String CHROME_USER_AGENT = "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/141.0.0.0 Safari/537.36";
+
+    private final AEMEnvironmentBadgeMetricsServlet fixture = new AEMEnvironmentBadgeMetricsServlet();
+
+    private static void injectField(final Object target, final String fieldName, final Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(fieldName);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot inject field '" + fieldName + "' on " + target.getClass().getName(), e);
+        }
+    }
+
+    private static MockSlingHttpServletRequest createPostRequest(final AemContext context, final String payload) {
+        final MockSlingHttpServletRequest request = new MockSlingHttpServletRequest(context.resourceResolver(), context.bundleContext());
+        request.setMethod("POST");
+        request.setContent(payload.getBytes(StandardCharsets.UTF_8));
+        request.setHeader("User-Agent", CHROME_USER_AGENT);
+        return request;
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeMetricsServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}
+     *   <li>{@link AEMEnvironmentBadgeMetricsServlet#doPost(SlingHttpServletRequest, SlingHttpServletResponse)}
+     * </ul>
+     */
+    @Test
+    void doGetAndDoPost_null(final AemContext context) {
+        final MockSlingHttpServletRequest request = context.request();
+        final MockSlingHttpServletResponse response = context.response();
+        assertThrows(NullPointerException.class, () -> fixture.doGet(null, response));
+        assertThrows(NullPointerException.class, () -> fixture.doGet(request, null));
+        assertThrows(NullPointerException.class, () -> fixture.doPost(null, response));
+        assertThrows(NullPointerException.class, () -> fixture.doPost(request, null));
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeMetricsServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}
+     */
+    @Test
+    void doGet_emptyObject(final AemContext context) throws IOException {
+        final MockSlingHttpServletResponse response = context.response();
+
+        fixture.doGet(context.request(), response);
+
+        assertEquals(HttpStatus.SC_OK, response.getStatus());
+        assertEquals(new JsonObject(), JsonParser.parseString(response.getOutputAsString()));
+    }
+
+    /**
+     * Methods under test:
+     * <ul>
+     *   <li>{@link AEMEnvironmentBadgeMetricsServlet#doPost(SlingHttpServletRequest, SlingHttpServletResponse)}
+     *   <li>{@link AEMEnvironmentBadgeMetricsServlet#doGet(SlingHttpServletRequest, SlingHttpServletResponse)}
+     * </ul>
+     */
+    @Test
+    void doPost_recordsAcceptedMeasures(final AemContext context) throws IOException {
+        final AEMEnvironmentBadgeMetricsService service = context.registerService(AEMEnvironmentBadgeMetricsService.class, new AEMEnvironmentBadgeMetricsServiceImpl());
+        injectField(fixture, "aemEnvironmentBadgeMetricsService", service);
+
+        final MockSlingHttpServletRequest request = createPostRequest(context, """
+                {"measures":[
+                  {"name":"badge-insertion","duration":1.5},
+                  {"name":"config-retrieval","duration":12},
+                  {"name":"unknown","duration":3},
+                  {"name":"badge-insertion","duration":"slow"},
+                  {"name":"document-title-prefix","duration":-1},
+                  "invalid"
+                ]}
+                """);
+        final MockSlingHttpServletResponse response = context.response();
+
+        fixture.doPost(request, response);
+
+        assertEquals(HttpStatus.SC_NO_CONTENT, response.getStatus());
+        assertEquals(Set.of("client.badge-insertion.chrome", "client.config-retrieval.chrome"), service.getSnapshot().keySet());
+        assertEquals(1500L, service.getSnapshot().get("client.badge-insertion.chrome").get("max"));
+
+        final MockSlingHttpServletResponse getResponse = new MockSlingHttpServletResponse();
+        fixture.doGet(context.request(), getResponse);
+        final JsonObject json = JsonParser.parseString(getResponse.getOutputAsString()).getAsJsonObject();
+        assertEquals(12000L, json.getAsJsonObject("client.config-retrieval.chrome").get("max").getAsLong());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeMetricsServlet#doPost(SlingHttpServletRequest, SlingHttpServletResponse)}
+     */
+    @Test
+    void doPost_invalidPayload(final AemContext context) throws IOException {
+        final MockSlingHttpServletResponse malformedResponse = new MockSlingHttpServletResponse();
+        fixture.doPost(createPostRequest(context, "{\"measures\":"), malformedResponse);
+        assertEquals(HttpStatus.SC_BAD_REQUEST, malformedResponse.getStatus());
+
+        final MockSlingHttpServletResponse missingMeasuresResponse = new MockSlingHttpServletResponse();
+        fixture.doPost(createPostRequest(context, "[]"), missingMeasuresResponse);
+        assertEquals(HttpStatus.SC_BAD_REQUEST, missingMeasuresResponse.getStatus());
+
+        final MockSlingHttpServletResponse tooLongResponse = new MockSlingHttpServletResponse();
+        final String tooLongPayload = "{\"measures\":[]," + " ".repeat(AEMEnvironmentBadgeMetricsServlet.MAX_PAYLOAD_LENGTH) + "}";
+        fixture.doPost(createPostRequest(context, tooLongPayload), tooLongResponse);
+        assertEquals(HttpStatus.SC_REQUEST_TOO_LONG, tooLongResponse.getStatus());
+    }
+
+    /**
+     * Method under test: {@link AEMEnvironmentBadgeMetricsServlet#browserOf(String)}
+     */
+    @Test
+    void browserOf() {
+        assertEquals("other", AEMEnvironmentBadgeMetricsServlet.browserOf(null));
+        assertEquals("chrome", AEMEnvironmentBadgeMetricsServlet.browserOf(CHROME_USER_AGENT));
+        assertEquals("edge", AEMEnvironmentBadgeMetricsServlet.browserOf(CHROME_USER_AGENT + " Edg/141.0.0.0"));
+        assertEquals("firefox", AEMEnvironmentBadgeMetricsServlet.browserOf("Mozilla/5.0 (X11; Linux x86_64; rv:143.0) Gecko/20100101 Firefox/143.0"));
+        assertEquals("safari", AEMEnvironmentBadgeMetricsServlet.browserOf("Mozilla/5.0 (Macintosh) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/26.0 Safari/605.1.15"));
+        assertEquals("other", AEMEnvironmentBadgeMetricsServlet.browserOf("curl/8.7.1"));
+    }
+
+}
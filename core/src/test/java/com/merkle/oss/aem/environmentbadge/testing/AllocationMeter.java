@@ -0,0 +1,132 @@
+package com.merkle.oss.aem.environmentbadge.testing;
+
+import org.jspecify.annotations.NonNull;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Test support measuring the bytes allocated on the heap by the current thread per invocation of an operation,
+ * using the allocation counters of the {@link com.sun.management.ThreadMXBean}.
+ * <p>
+ * Allocation budgets are expressed as a fixed number of bytes plus a factor of the processed page size, so a
+ * regression copying the whole page (e.g., decoding it into a {@link String}) exceeds the budget for large pages.
+ * Collaborators of the measured code should be allocation-free fakes (see {@link #fake(Class, Map)}) rather
+ * than Mockito mocks, whose invocation recording would dominate the measurement.
+ */
+public final class AllocationMeter {
+
+    private static final int WARMUP_ITERATIONS = 1_000;
+
+    private static final int MEASURED_ITERATIONS = 100;
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * An operation to measure.
+     */
+    @FunctionalInterface
+    public interface Operation {
+
+        void run() throws Exception;
+
+    }
+
+    /**
+     * Measures the average number of bytes allocated by the current thread per invocation of the given operation,
+     * after warming it up so the measurement is not dominated by class loading and interpretation.
+     * The test is skipped if the JVM does not support thread allocation counters.
+     *
+     * @param operation The operation to measure.
+     * @return The average number of allocated bytes per invocation.
+     */
+    public static long bytesPerInvocation(@NonNull final Operation operation) throws Exception {
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported(),
+                "Thread allocation counters are not supported by this JVM");
+        final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            operation.run();
+        }
+
+        final long start = allocationBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.run();
+        }
+        return (allocationBean.getCurrentThreadAllocatedBytes() - start) / MEASURED_ITERATIONS;
+    }
+
+    /**
+     * Asserts that the bytes allocated per invocation stay within the budget.
+     *
+     * @param fixedBudget    The budget in bytes independent of the page size.
+     * @param pageSizeFactor The budget per byte of the page.
+     * @param pageSize       The size of the processed page in bytes.
+     * @param allocated      The measured number of allocated bytes per invocation.
+     */
+    public static void assertWithinBudget(final long fixedBudget, final double pageSizeFactor, final int pageSize, final long allocated) {
+        final long budget = fixedBudget + (long) (pageSizeFactor * pageSize);
+        assertTrue(allocated <= budget, () -> "Allocated " + allocated + " bytes per invocation for a page of " + pageSize
+                + " bytes, exceeding the budget of " + budget + " bytes");
+    }
+
+    /**
+     * Creates a fake of the given interface returning the given values by method name. Methods not contained in the
+     * map return {@code null}, {@code false} or {@code 0}.
+     *
+     * @param type   The interface to fake.
+     * @param values The return values by method name.
+     * @return The fake.
+     */
+    public static <T> @NonNull T fake(@NonNull final Class<T> type, @NonNull final Map<String, Object> values) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            final Object value = values.get(method.getName());
+            if (value != null || !method.getReturnType().isPrimitive()) {
+                return value;
+            }
+            if (method.getReturnType() == boolean.class) {
+                return false;
+            }
+            return method.getReturnType() == long.class ? -1L : 0;
+        }));
+    }
+
+    /**
+     * Creates a {@link ServletOutputStream} discarding all content without allocating.
+     *
+     * @return The output stream.
+     */
+    public static @NonNull ServletOutputStream discardingOutputStream() {
+        return new ServletOutputStream() {
+            @Override
+            public void write(final int b) {
+                // Discarded
+            }
+
+            @Override
+            public void write(final byte @NonNull [] b, final int off, final int len) {
+                // Discarded
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(final WriteListener writeListener) {
+                // Not required for blocking writes
+            }
+        };
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ByteAnchorSearcher} class.
+ */
+class ByteAnchorSearcherTest {
+
+    private static final String ANCHOR = "</body></html>";
+
+    /**
+     * Method under test: {@link ByteAnchorSearcher#create(String)}
+     */
+    @Test
+    void create_ShouldRejectNull() {
+        assertThrows(NullPointerException.class, () -> ByteAnchorSearcher.create(null));
+    }
+
+    /**
+     * Method under test: {@link ByteAnchorSearcher#lastIndexIn(byte[], int)}
+     */
+    @ParameterizedTest(name = "{index} => content=''{0}'', expected=''{1}''")
+    @CsvSource(useHeadersInDisplayName = true, delimiter = '|', textBlock = """
+            CONTENT                                                      | EXPECTED
+            <html><body>Content</body></html>                            | 19
+            <html><body>Content</body></html>\\n                          | 19
+            <html><body>Content</body>\\n</html>                          | 19
+            <html><body>Content</BODY >\\r\\n\\t</HTML  >                   | 19
+            <html><body>Content</body><!-- a --> <!--b--></html>         | 19
+            <html><body>Content</body></html></body></html>              | 33
+            <html><body>Content</body></html><p></html>                  | 19
+            <html><body>Content</body>x</html>                           | -1
+            <html><body>Content</body></htm                              | -1
+            <html><body>Content</body>--></html>                         | -1
+            ''                                                           | -1
+            """)
+    void lastIndexIn_ShouldTolerateWhitespaceCaseAndComments(final String content, final int expected) {
+        final ByteAnchorSearcher searcher = ByteAnchorSearcher.create(ANCHOR);
+        final byte[] bytes = content.replace("\\n", "\n").replace("\\r", "\r").replace("\\t", "\t").getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(expected, searcher.lastIndexIn(bytes, bytes.length));
+    }
+
+    /**
+     * Method under test: {@link ByteAnchorSearcher#lastIndexIn(byte[], int)}
+     */
+    @Test
+    void lastIndexIn_ShouldOnlySearchValidBytesWithinWindow() {
+        final ByteAnchorSearcher searcher = ByteAnchorSearcher.create(ANCHOR);
+        final byte[] content = "<body></body></html>".getBytes(StandardCharsets.US_ASCII);
+        final byte[] largeContent = ("<body></body></html>" + " ".repeat(ByteAnchorSearcher.SEARCH_WINDOW_LENGTH)).getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(6, searcher.lastIndexIn(content, content.length));
+        assertEquals(-1, searcher.lastIndexIn(content, content.length - 1));
+        assertEquals(-1, searcher.lastIndexIn(content, 0));
+        assertEquals(6, searcher.lastIndexIn(largeContent, ByteAnchorSearcher.SEARCH_WINDOW_LENGTH + 6));
+        assertEquals(-1, searcher.lastIndexIn(largeContent, ByteAnchorSearcher.SEARCH_WINDOW_LENGTH + 7));
+    }
+
+    /**
+     * Method under test: {@link ByteAnchorSearcher#lastIndexIn(CharSequence)}
+     */
+    @Test
+    void lastIndexIn_ShouldSearchDecodedContent() {
+        final ByteAnchorSearcher searcher = ByteAnchorSearcher.create(ANCHOR);
+        final String content = "日本".repeat(ByteAnchorSearcher.SEARCH_WINDOW_LENGTH) + "<body>Grüße</body>\n</html>";
+
+        assertEquals(content.indexOf("</body>"), searcher.lastIndexIn(content));
+        assertEquals(-1, searcher.lastIndexIn("<body>Grüße</bödy></html>"));
+    }
+
+    /**
+     * Method under test: {@link ByteAnchorSearcher#create(String)}
+     */
+    @Test
+    void create_ShouldHandleCustomAnchors() {
+        final byte[] content = "<div>Content<!-- end --></div>".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(5, ByteAnchorSearcher.create("Content").lastIndexIn(content, content.length));
+        assertEquals(12, ByteAnchorSearcher.create(" <!-- END --> ").lastIndexIn(content, content.length));
+        assertEquals(-1, ByteAnchorSearcher.create("").lastIndexIn(content, content.length));
+        assertEquals(-1, ByteAnchorSearcher.create("</dív>").lastIndexIn(content, content.length));
+    }
+
+    /**
+     * Method under test: {@link ByteAnchorSearcher#isByteSearchable(Charset)}
+     */
+    @Test
+    void isByteSearchable_ShouldAcceptAsciiCompatibleEncodings() {
+        assertTrue(ByteAnchorSearcher.isByteSearchable(StandardCharsets.UTF_8));
+        assertTrue(ByteAnchorSearcher.isByteSearchable(StandardCharsets.ISO_8859_1));
+        assertTrue(ByteAnchorSearcher.isByteSearchable(StandardCharsets.US_ASCII));
+        assertTrue(ByteAnchorSearcher.isByteSearchable(Charset.forName("windows-1252")));
+        assertFalse(ByteAnchorSearcher.isByteSearchable(StandardCharsets.UTF_16));
+        assertFalse(ByteAnchorSearcher.isByteSearchable(Charset.forName("Shift_JIS")));
+        assertFalse(ByteAnchorSearcher.isByteSearchable(Charset.forName("IBM037")));
+    }
+
+}
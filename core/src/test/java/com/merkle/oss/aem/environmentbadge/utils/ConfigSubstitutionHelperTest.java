@@ -100,4 +100,31 @@ class ConfigSubstitutionHelperTest {
         assertEquals(expected, result, "The helper should use a copy of the map and ignore external changes.");
     }
 
+    /**
+     * Method under test: {@link ConfigSubstitutionHelper#render(ConfigTemplate, StringBuilder)}
+     */
+    @Test
+    void render_ShouldEscapeValuesForTheirContextAndAppendToBuffer() {
+        final ConfigSubstitutionHelper escapingHelper = ConfigSubstitutionHelper.create(Map.of(PLACEHOLDER_DOCUMENT_TITLE_PREFIX, "It's <DEV>"));
+        final ConfigTemplate template = ConfigTemplate.compile("<title>${html:document_title_prefix}</title>"
+                + "<script>const t='${js:document_title_prefix}';</script>");
+        final StringBuilder stringBuilder = new StringBuilder("<head>");
+
+        final StringBuilder result = escapingHelper.render(template, stringBuilder);
+
+        assertSame(stringBuilder, result);
+        assertEquals("<head><title>It&#39;s &lt;DEV&gt;</title><script>const t='It\\'s \\u003cDEV\\u003e';</script>", result.toString());
+    }
+
+    /**
+     * Method under test: {@link ConfigSubstitutionHelper#render(ConfigTemplate, StringBuilder)}
+     */
+    @Test
+    void render_ShouldHandleNullArguments() {
+        final ConfigTemplate template = ConfigTemplate.compile("");
+
+        assertThrows(NullPointerException.class, () -> helper.render(null, new StringBuilder()));
+        assertThrows(NullPointerException.class, () -> helper.render(template, null));
+    }
+
 }
@@ -0,0 +1,41 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ConfigTemplate} class.
+ */
+class ConfigTemplateTest {
+
+    /**
+     * Method under test: {@link ConfigTemplate#compile(String)}
+     */
+    @Test
+    void compile_ShouldSplitIntoLiteralsAndPlaceholders() {
+        final ConfigTemplate template = ConfigTemplate.compile("a${js:first}b${second}${css:third}");
+
+        assertEquals(List.of(
+                new ConfigTemplate.Literal("a"),
+                new ConfigTemplate.Placeholder("first", EscapingContext.JS_STRING, "${js:first}"),
+                new ConfigTemplate.Literal("b"),
+                new ConfigTemplate.Placeholder("second", EscapingContext.RAW, "${second}"),
+                new ConfigTemplate.Placeholder("third", EscapingContext.CSS_VALUE, "${css:third}")
+        ), template.getSegments());
+    }
+
+    /**
+     * Method under test: {@link ConfigTemplate#compile(String)}
+     */
+    @Test
+    void compile_ShouldKeepMalformedPlaceholdersAsLiterals() {
+        assertEquals(List.of(new ConfigTemplate.Literal("${unknown:name} and ${unterminated")),
+                ConfigTemplate.compile("${unknown:name} and ${unterminated").getSegments());
+        assertEquals(List.of(), ConfigTemplate.compile("").getSegments());
+        assertThrows(NullPointerException.class, () -> ConfigTemplate.compile(null));
+    }
+
+}
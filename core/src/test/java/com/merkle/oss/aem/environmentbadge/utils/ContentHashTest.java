@@ -0,0 +1,25 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ContentHash} class.
+ */
+class ContentHashTest {
+
+    /**
+     * Method under test: {@link ContentHash#of(byte[])}
+     */
+    @Test
+    void testOf_ShouldReturnTruncatedSha256() {
+        assertEquals("e3b0c44298fc1c14", ContentHash.of(new byte[0]));
+        assertEquals(ContentHash.LENGTH, ContentHash.of("content".getBytes(StandardCharsets.UTF_8)).length());
+        assertEquals(ContentHash.of("content".getBytes(StandardCharsets.UTF_8)), ContentHash.of("content".getBytes(StandardCharsets.UTF_8)));
+        assertNotEquals(ContentHash.of("content".getBytes(StandardCharsets.UTF_8)), ContentHash.of("Content".getBytes(StandardCharsets.UTF_8)));
+    }
+
+}
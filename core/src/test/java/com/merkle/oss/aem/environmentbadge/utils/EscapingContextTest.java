@@ -0,0 +1,52 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link EscapingContext} enum.
+ */
+class EscapingContextTest {
+
+    /**
+     * Method under test: {@link EscapingContext#escape(String)}
+     */
+    @ParameterizedTest(name = "{index} => context={0}, value=''{1}'', expected=''{2}''")
+    @CsvSource(delimiter = '|', quoteCharacter = '~', textBlock = """
+            RAW            | <b>It's</b>              | <b>It's</b>
+            HTML_TEXT      | <b>"It's" & more</b>     | &lt;b&gt;&quot;It&#39;s&quot; &amp; more&lt;/b&gt;
+            HTML_ATTRIBUTE | "><script>               | &quot;&gt;&lt;script&gt;
+            JS_STRING      | It's "DEV"               | It\\'s \\"DEV\\"
+            JS_STRING      | </script><!--            | \\u003c/script\\u003e\\u003c!--
+            JS_STRING      | a\\b                     | a\\\\b
+            CSS_VALUE      | #FF00FF                  | #FF00FF
+            CSS_VALUE      | red;}</style>            | ~red\\3b \\7d \\3c \\2f style\\3e ~
+            """)
+    void escape_ShouldEscapeForContext(final EscapingContext context, final String value, final String expected) {
+        assertEquals(expected, context.escape(value));
+    }
+
+    /**
+     * Method under test: {@link EscapingContext#escape(String)}
+     */
+    @Test
+    void escape_ShouldEscapeLineTerminatorsInJsStrings() {
+        assertEquals("a\\nb\\u2028c", EscapingContext.JS_STRING.escape("a\nb\u2028c"));
+        assertThrows(NullPointerException.class, () -> EscapingContext.JS_STRING.escape(null));
+    }
+
+    /**
+     * Method under test: {@link EscapingContext#ofPrefix(String)}
+     */
+    @Test
+    void ofPrefix_ShouldResolveContexts() {
+        assertEquals(EscapingContext.JS_STRING, EscapingContext.ofPrefix("js"));
+        assertEquals(EscapingContext.HTML_ATTRIBUTE, EscapingContext.ofPrefix(EscapingContext.HTML_ATTRIBUTE.getPrefix()));
+        assertNull(EscapingContext.ofPrefix(""));
+        assertNull(EscapingContext.ofPrefix("unknown"));
+    }
+
+}
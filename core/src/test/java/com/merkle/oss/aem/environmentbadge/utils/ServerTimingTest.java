@@ -0,0 +1,34 @@
+package com.merkle.oss.aem.environmentbadge.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the {@link ServerTiming} class.
+ */
+class ServerTimingTest {
+
+    /**
+     * Method under test: {@link ServerTiming#metric(String, long, String)}
+     */
+    @Test
+    void testMetric_ShouldFormatMillisecondsOfMicrosecondPrecision() {
+        assertEquals("badge-capture;dur=1.234;desc=\"5120 bytes\"", ServerTiming.metric("badge-capture", 1_234_567L, ServerTiming.bytes(5120L)));
+        assertEquals("badge-inject;dur=0.001;desc=\"\"", ServerTiming.metric("badge-inject", 1_999L, ""));
+        assertEquals("badge-inject;dur=0.0;desc=\"0 bytes\"", ServerTiming.metric("badge-inject", -1L, ServerTiming.bytes(0L)));
+        assertThrows(NullPointerException.class, () -> ServerTiming.metric(null, 0L, ""));
+        assertThrows(NullPointerException.class, () -> ServerTiming.metric("badge-inject", 0L, null));
+    }
+
+    /**
+     * Method under test: {@link ServerTiming#metric(String, String)}
+     */
+    @Test
+    void testMetric_WithoutDuration_ShouldFormatDescriptionOnly() {
+        assertEquals("badge-config-hash;desc=\"0123456789abcdef\"", ServerTiming.metric("badge-config-hash", "0123456789abcdef"));
+        assertThrows(NullPointerException.class, () -> ServerTiming.metric(null, ""));
+        assertThrows(NullPointerException.class, () -> ServerTiming.metric("badge-config-hash", null));
+    }
+
+}
@@ -16,6 +16,14 @@
      */
     const BadgeHelper = namespace.BadgeHelper;
 
+    /**
+     * @type {?{key: string, template: HTMLTemplateElement}}
+     * @description The badge template built last, keyed by the badge title and background color it has been built for.
+     * The template is reused as long as the configuration does not change, so the badge markup is built only once.
+     * @private
+     */
+    let badgeTemplate = null;
+
     /**
      * @class Badge
      * @classdesc Core class responsible for constructing and injecting the environment badge and
@@ -28,74 +36,106 @@
          * Initializes the Badge component.
          * The badge and badge bar are built and inserted into the DOM only if
          * the provided {@link BadgeConfig} enables it.
+         * The DOM is only queried while constructing. All insertions are deferred to a single
+         * {@link requestAnimationFrame} callback, so the layout is not invalidated between reads and writes.
          *
          * @constructor
          * @param {BadgeConfig} config - Configuration object containing badge settings.
          * @public
          */
         constructor(config) {
-            if (config.enableBadge) {
-                this._buildBadge(config);
-                this._buildBadgeBar(config);
+            const rendered = $.Deferred();
+
+            /**
+             * @type {jQuery.Promise<void>}
+             * @description Resolves once the badge and badge bar have been inserted into the DOM.
+             * @public
+             */
+            this.rendered = rendered.promise();
+
+            if (!config.enableBadge) {
+                rendered.resolve();
+                return;
             }
+
+            const targets = this._findBadgeTargets(config);
+            const barMissing = document.getElementById(BadgeHelper.CONST.AEM_BADGE_BAR_ID) === null;
+
+            requestAnimationFrame(() => {
+                if (targets.length > 0) {
+                    const template = this._getBadgeTemplate(config);
+                    targets.forEach(target => this._appendBadgeToTarget(target, template));
+                }
+                if (barMissing) {
+                    this._buildBadgeBar(config);
+                }
+                rendered.resolve();
+            });
         }
 
         /**
-         * Constructs the HTML for the badge and attempts to inject it into the appropriate AEM UI container.
-         * Locates either the Betty Title bar or the Coral Actionbar based on presence in the current view.
+         * Locates the AEM UI containers the badge is to be inserted into: every Betty Title bar or,
+         * if there is none, the Coral Actionbar. Containers already holding the badge are skipped.
          *
          * @param {BadgeConfig} config - Configuration object containing badge settings.
-         * @returns {void}
+         * @returns {HTMLElement[]} The containers to insert the badge into, possibly empty.
          * @private
          */
-        _buildBadge(config) {
+        _findBadgeTargets(config) {
             if (BadgeHelper.isEmpty(config.badgeTitle)) {
-                return;
+                return [];
             }
 
-            const BETTY_TAG = BadgeHelper.CONST.BETTY_BAR_TAG;
-            const ACTION_TAG = BadgeHelper.CONST.ACTION_BAR_TAG;
-            const bettyBars = document.querySelectorAll(BETTY_TAG);
-            const actionBar = document.querySelector(ACTION_TAG);
-
-            const badge = `
-                <coral-tag id="${BadgeHelper.CONST.AEM_BADGE_ID}"  
-                        color="${config.badgeBackgroundColor}"
-                        class="_coral-Label _coral-Label--small _coral-Label--${config.badgeBackgroundColor}" 
-                        size="S">
-                    <coral-tag-label class="_coral-Tags-itemLabel">${config.badgeTitle}</coral-tag-label>
-                </coral-tag>
-                `;
-
-            if (bettyBars.length > 0) {
-                bettyBars.forEach(target => {
-                    this._appendBadgeToTarget(target, badge);
-                });
-            } else if (actionBar) {
-                this._appendBadgeToTarget(actionBar, badge);
+            const bettyBars = document.querySelectorAll(BadgeHelper.CONST.BETTY_BAR_TAG);
+            const targets = bettyBars.length > 0
+                ? Array.from(bettyBars)
+                : [document.querySelector(BadgeHelper.CONST.ACTION_BAR_TAG)];
+
+            return targets.filter(target => target && target.querySelector(`#${BadgeHelper.CONST.AEM_BADGE_ID}`) === null);
+        }
+
+        /**
+         * Returns the template holding the badge element for the given configuration, building it if necessary.
+         * The badge title is set as text content, so it is never parsed as HTML.
+         *
+         * @param {BadgeConfig} config - Configuration object containing badge settings.
+         * @returns {HTMLTemplateElement} The template whose content is the badge element.
+         * @private
+         */
+        _getBadgeTemplate(config) {
+            const key = `${config.badgeBackgroundColor}\n${config.badgeTitle}`;
+            if (badgeTemplate !== null && badgeTemplate.key === key) {
+                return badgeTemplate.template;
             }
+
+            const badge = document.createElement("coral-tag");
+            badge.id = BadgeHelper.CONST.AEM_BADGE_ID;
+            badge.setAttribute("color", config.badgeBackgroundColor);
+            badge.setAttribute("size", "S");
+            badge.className = `_coral-Label _coral-Label--small _coral-Label--${config.badgeBackgroundColor}`;
+
+            const label = document.createElement("coral-tag-label");
+            label.className = "_coral-Tags-itemLabel";
+            label.textContent = config.badgeTitle;
+            badge.appendChild(label);
+
+            const template = document.createElement("template");
+            template.content.appendChild(badge);
+            badgeTemplate = {key: key, template: template};
+            return template;
         }
 
         /**
-         * Safely appends the badge HTML to a target element, ensuring the badge is not duplicated.
+         * Appends a clone of the badge template to a target element, after its last child.
          *
          * @param {HTMLElement} target - The DOM element to append the badge to (e.g., Betty bar or Action bar).
-         * @param {string} badge - The HTML string representation of the badge element.
+         * @param {HTMLTemplateElement} template - The template whose content is the badge element.
          * @returns {void}
          * @private
          */
-        _appendBadgeToTarget(target, badge) {
-            if (!target || target.querySelector(`#${BadgeHelper.CONST.AEM_BADGE_ID}`) !== null) {
-                return;
-            }
-
-            if (target.lastElementChild !== null) {
-                // Insert after the last child (e.g., after the last button/action)
-                target.lastElementChild.insertAdjacentHTML("afterend", badge);
-            } else {
-                // Insert as the first element if the container is empty
-                target.insertAdjacentHTML("afterbegin", badge);
-            }
+        _appendBadgeToTarget(target, template) {
+            // Inserted after the last child (e.g., after the last button/action), or as the only child
+            target.appendChild(template.content.firstElementChild.cloneNode(true));
         }
 
         /**
@@ -107,13 +147,12 @@
          * @private
          */
         _buildBadgeBar(config) {
-            const bar = `
-                <div id="${BadgeHelper.CONST.AEM_BADGE_BAR_ID}"
-                        class="_coral-Label--${config.badgeBackgroundColor}"></div>
-                `;
+            const bar = document.createElement("div");
+            bar.id = BadgeHelper.CONST.AEM_BADGE_BAR_ID;
+            bar.className = `_coral-Label--${config.badgeBackgroundColor}`;
 
             // Insert the bar right at the start of the <body> element.
-            document.body.insertAdjacentHTML("afterbegin", bar);
+            document.body.prepend(bar);
         }
     }
 
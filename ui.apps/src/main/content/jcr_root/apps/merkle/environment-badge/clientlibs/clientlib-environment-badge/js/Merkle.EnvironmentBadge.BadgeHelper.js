@@ -57,6 +57,35 @@
             return Object.keys(value).length === 0;
         }
 
+        /**
+         * Substitutes the tokens identifying the cluster node, e.g. {@code ${hostname}}, in the badge title and the
+         * document title prefix of the given configuration. The configuration served by the configuration servlet is
+         * identical on all cluster nodes, therefore the values are handed over separately, as
+         * {@code application/x-www-form-urlencoded} string (e.g. {@code hostname=author-1&run_modes=author%2Cdev}).
+         * Tokens without a value are left unmodified.
+         *
+         * @param {BadgeConfig} config - Configuration object containing badge settings.
+         * @param {?string} nodeTokens - The encoded values of the node tokens, null if none have been handed over.
+         * @return {BadgeConfig} A copy of the configuration with the tokens substituted, or the configuration itself if there are no values.
+         * @static
+         * @public
+         */
+        static resolveNodeTokens(config, nodeTokens) {
+            if (this.isEmpty(config) || this.isEmpty(nodeTokens)) {
+                return config;
+            }
+
+            const values = new URLSearchParams(nodeTokens);
+            const resolve = value => typeof value === 'string'
+                ? value.replace(/\$\{(?:\w+:)?(\w+)\}/g, (token, name) => values.has(name) ? values.get(name) : token)
+                : value;
+
+            return Object.assign({}, config, {
+                documentTitlePrefix: resolve(config.documentTitlePrefix),
+                badgeTitle: resolve(config.badgeTitle)
+            });
+        }
+
         /**
          * Ensures a specific prefix is maintained in the browser document title.
          * This method sets the document title initially and then starts an interval
@@ -118,8 +147,18 @@
         GLOBAL_NAV_BUTTON_CLASS: "globalnav-toggle",
         /** @type {string} The key used to store configuration data in the browser's Session Storage. */
         SESSION_STORAGE_KEY_CONFIG: "com.merkle.oss.aem.environment-badge.config",
+        /** @type {string} The name of the Server-Timing metric of the page response carrying the hash of the configuration. */
+        SERVER_TIMING_CONFIG_HASH: "badge-config-hash",
+        /** @type {string} The name of the Server-Timing metric of the page response carrying the values of the node tokens. */
+        SERVER_TIMING_NODE_TOKENS: "badge-node-tokens",
+        /** @type {string} The header of unversioned configuration responses carrying the values of the node tokens. */
+        NODE_TOKENS_HEADER: "X-Environment-Badge-Node-Tokens",
         /** @type {string} The URI from which to retrieve the environment badge configurations. */
-        CONFIGURATION_SERVLET_URI: "/bin/com/merkle/oss/aem/environment-badge/config.json"
+        CONFIGURATION_SERVLET_URI: "/bin/com/merkle/oss/aem/environment-badge/config.json",
+        /** @type {string} The URI to which the client-side performance measures are sent. */
+        METRICS_SERVLET_URI: "/bin/com/merkle/oss/aem/environment-badge/metrics.json",
+        /** @type {string} The prefix of all performance marks and measures recorded by the environment badge. */
+        PERFORMANCE_MARK_PREFIX: "merkle.environment-badge."
     });
 
     /**
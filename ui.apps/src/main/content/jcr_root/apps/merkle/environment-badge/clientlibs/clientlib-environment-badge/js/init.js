@@ -1,7 +1,8 @@
 /**
  * @fileoverview Application entry point and initialization script for the AEM Environment Badge component.
- * This script handles asynchronous configuration retrieval (checking session storage first),
+ * This script handles asynchronous configuration retrieval (via the versioned URL handed to the page, or checking session storage first),
  * initializes the core Badge functionality, and sets up DOM event listeners.
+ * The duration of each step is recorded via the User Timing API and reported to the metrics servlet.
  *
  * @dependency {jQuery} $ - The jQuery library.
  * @dependency {Merkle.EnvironmentBadge} namespace - The namespace object.
@@ -24,11 +25,48 @@
      */
     const Badge = namespace.Badge;
 
+    /**
+     * Retrieves a value handed to the page by the preload filter. The filter adds the values as {@code Server-Timing}
+     * metrics to the response of Granite shell pages, which are exposed by the navigation timing of the page.
+     *
+     * @param {string} name - The name of the metric.
+     * @returns {?string} The description of the metric, or null if no value has been handed over.
+     * @private
+     */
+    function getHandoff(name) {
+        const navigation = typeof performance.getEntriesByType === "function"
+            ? performance.getEntriesByType("navigation")[0]
+            : undefined;
+        const metric = ((navigation && navigation.serverTiming) || [])
+            .find(entry => entry.name === name);
+
+        return !metric || BadgeHelper.isEmpty(metric.description) ? null : metric.description;
+    }
+
+    /**
+     * Retrieves the versioned URL of the configuration, whose hash has been handed to the page by the preload filter.
+     *
+     * @returns {?string} The versioned URL, e.g. {@code config.<hash>.json}, or null if no hash has been handed over.
+     * @private
+     */
+    function getConfigLocation() {
+        const hash = getHandoff(BadgeHelper.CONST.SERVER_TIMING_CONFIG_HASH);
+
+        if (hash === null) {
+            return null;
+        }
+        return BadgeHelper.CONST.CONFIGURATION_SERVLET_URI.replace(/\.json$/, "." + hash + ".json");
+    }
+
     /**
      * Retrieves the configuration object for the environment badge.
-     * The function prioritizes reading from Session Storage. If no configuration is found,
-     * it falls back to an asynchronous AJAX request to the configuration servlet.
+     * If the page has been handed the hash of the configuration, the versioned (immutable) URL of the
+     * configuration is requested, which is served from the preload or the browser cache without a request
+     * once loaded. Otherwise, the function prioritizes reading from Session Storage and falls back to an
+     * asynchronous AJAX request to the unversioned configuration servlet URI.
      * If the servlet returns null or an empty configuration, the status is stored.
+     * The node tokens of the configuration are substituted with the values handed to the page along with the
+     * hash, or, for the unversioned URL, with the values of the node serving the configuration.
      *
      * @returns {jQuery.Promise<BadgeConfig>} A Promise that resolves with the configuration object.
      * Returns an empty object (`{}`) if the configuration is explicitly deactivated or fails to load.
@@ -36,22 +74,27 @@
      */
     function getConfig() {
         const KEY = BadgeHelper.CONST.SESSION_STORAGE_KEY_CONFIG;
-        let config = sessionStorage.getItem(KEY);
+        const location = getConfigLocation();
+        let config = location === null ? sessionStorage.getItem(KEY) : null;
 
         if (config === '{}') {
             return $.Deferred().resolve({}).promise();
         }
 
         if (BadgeHelper.isEmpty(config)) {
-            return $.getJSON(BadgeHelper.CONST.CONFIGURATION_SERVLET_URI)
-                .then(function (data) {
+            return $.getJSON(location === null ? BadgeHelper.CONST.CONFIGURATION_SERVLET_URI : location)
+                .then(function (data, textStatus, jqXHR) {
                     if (data === null || (Array.isArray(data) && data.length === 0)) {
                         sessionStorage.setItem(KEY, '{}');
                         return {};
                     }
 
-                    sessionStorage.setItem(KEY, JSON.stringify(data));
-                    return data;
+                    const nodeTokens = location === null
+                        ? jqXHR.getResponseHeader(BadgeHelper.CONST.NODE_TOKENS_HEADER)
+                        : getHandoff(BadgeHelper.CONST.SERVER_TIMING_NODE_TOKENS);
+                    const resolved = BadgeHelper.resolveNodeTokens(data, nodeTokens);
+                    sessionStorage.setItem(KEY, JSON.stringify(resolved));
+                    return resolved;
                 })
                 .fail(function (error) {
                     console.error("Failed to load environment badge settings via AJAX:", error);
@@ -62,6 +105,56 @@
         return $.Deferred().resolve(JSON.parse(config)).promise();
     }
 
+    /**
+     * Executes the given function and records its duration as a performance measure, using
+     * {@link performance.mark} and {@link performance.measure}. If the function returns a promise,
+     * the measure is recorded once the promise settles.
+     *
+     * @param {string} name - The name of the measure (without the {@link BadgeHelper.CONST.PERFORMANCE_MARK_PREFIX}).
+     * @param {function(): *} fn - The function to measure.
+     * @returns {*} The return value of the given function.
+     * @private
+     */
+    function measure(name, fn) {
+        const entryName = BadgeHelper.CONST.PERFORMANCE_MARK_PREFIX + name;
+        const startMark = entryName + ".start";
+        const record = function () {
+            performance.measure(entryName, startMark);
+            performance.clearMarks(startMark);
+        };
+
+        performance.mark(startMark);
+        const result = fn();
+        if (result && typeof result.always === "function") {
+            result.always(record);
+        } else {
+            record();
+        }
+        return result;
+    }
+
+    /**
+     * Sends all performance measures recorded by the environment badge as a single batch to the
+     * metrics servlet and clears them afterwards. {@link navigator.sendBeacon} is used so the request
+     * neither delays nor gets cancelled by the page being hidden or unloaded.
+     *
+     * @returns {void}
+     * @private
+     */
+    function sendMeasures() {
+        const PREFIX = BadgeHelper.CONST.PERFORMANCE_MARK_PREFIX;
+        const measures = performance.getEntriesByType("measure")
+            .filter(entry => entry.name.startsWith(PREFIX))
+            .map(entry => ({name: entry.name.substring(PREFIX.length), duration: entry.duration}));
+
+        if (measures.length === 0 || typeof navigator.sendBeacon !== "function") {
+            return;
+        }
+
+        navigator.sendBeacon(BadgeHelper.CONST.METRICS_SERVLET_URI, JSON.stringify({measures: measures}));
+        measures.forEach(entry => performance.clearMeasures(PREFIX + entry.name));
+    }
+
     /**
      * Initializes the Environment Badge application flow.
      * Retrieves the configuration, enforces the document title prefix, and instantiates
@@ -72,21 +165,21 @@
      * @private
      */
     function init() {
-        return getConfig().then(function (config) {
-            BadgeHelper.setDocumentTitlePrefix(config);
+        return measure("config-retrieval", getConfig).then(function (config) {
+            measure("document-title-prefix", () => BadgeHelper.setDocumentTitlePrefix(config));
 
             if (!config.enableBadge) {
                 return;
             }
 
-            new Badge(config);
+            measure("badge-insertion", () => new Badge(config).rendered);
 
             const globalNavButtons = document.getElementsByClassName(BadgeHelper.CONST.GLOBAL_NAV_BUTTON_CLASS);
             if (globalNavButtons.length !== 0) {
                 const button = globalNavButtons[0];
                 button.onclick = function () {
                     setTimeout(function () {
-                        new Badge(config);
+                        measure("badge-insertion", () => new Badge(config).rendered);
                     }, 500);
                 }
             }
@@ -102,4 +195,14 @@
         init();
     });
 
+    /**
+     * Sends the recorded performance measures in a batch whenever the page gets hidden,
+     * which is the last reliable point in time before a page may be discarded.
+     */
+    document.addEventListener('visibilitychange', function () {
+        if (document.visibilityState === 'hidden') {
+            sendMeasures();
+        }
+    });
+
 })(window.jQuery, window.Merkle.EnvironmentBadge);